@@ -0,0 +1,129 @@
+package com.example.stock.bench;
+
+import com.example.stock.util.FixedPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BigDecimal vs scale-6 fixed point on the stock hot paths: folding a stream of
+ * movements into one weighted-average stock row, and summing row valuations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StockMathBenchmark {
+
+    @Param({"1000"})
+    int movements;
+
+    BigDecimal[] quantities;
+    BigDecimal[] costs;
+    long[] rawQuantities;
+    long[] rawCosts;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        quantities = new BigDecimal[movements];
+        costs = new BigDecimal[movements];
+        rawQuantities = new long[movements];
+        rawCosts = new long[movements];
+        for (int i = 0; i < movements; i++) {
+            // ~2/3 inbound at a price, ~1/3 outbound
+            boolean inbound = random.nextInt(3) != 0;
+            BigDecimal qty = BigDecimal.valueOf(random.nextInt(50_000_000) + 1, 6);
+            quantities[i] = inbound ? qty : qty.negate();
+            costs[i] = inbound ? BigDecimal.valueOf(random.nextInt(20_000_000) + 1, 6) : null;
+            rawQuantities[i] = FixedPoint.of(quantities[i]).raw();
+            rawCosts[i] = costs[i] != null ? FixedPoint.of(costs[i]).raw() : -1;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal projectBigDecimal() {
+        BigDecimal qty = BigDecimal.ZERO;
+        BigDecimal avg = BigDecimal.ZERO;
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < movements; i++) {
+            BigDecimal delta = quantities[i];
+            BigDecimal newQty = qty.add(delta);
+            if (costs[i] != null) {
+                if (qty.signum() <= 0) {
+                    avg = costs[i];
+                } else if (newQty.signum() > 0) {
+                    avg = qty.multiply(avg).add(delta.multiply(costs[i])).divide(newQty, 6, RoundingMode.HALF_UP);
+                }
+            }
+            qty = newQty.setScale(6, RoundingMode.HALF_UP);
+            avg = avg.setScale(6, RoundingMode.HALF_UP);
+            total = qty.multiply(avg);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public FixedPoint projectFixedPoint() {
+        FixedPoint qty = FixedPoint.ZERO;
+        FixedPoint avg = FixedPoint.ZERO;
+        FixedPoint total = FixedPoint.ZERO;
+        for (int i = 0; i < movements; i++) {
+            FixedPoint delta = FixedPoint.ofRaw(rawQuantities[i]);
+            FixedPoint newQty = qty.add(delta);
+            if (rawCosts[i] >= 0) {
+                FixedPoint cost = FixedPoint.ofRaw(rawCosts[i]);
+                if (qty.signum() <= 0) {
+                    avg = cost;
+                } else if (newQty.signum() > 0) {
+                    avg = FixedPoint.weightedAverage(qty, avg, delta, cost);
+                }
+            }
+            qty = newQty;
+            total = qty.multiply(avg);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal valuationBigDecimal() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (int i = 0; i < movements; i++) {
+            if (costs[i] != null) sum = sum.add(quantities[i].multiply(costs[i]));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public FixedPoint valuationFixedPoint() {
+        FixedPoint sum = FixedPoint.ZERO;
+        for (int i = 0; i < movements; i++) {
+            if (rawCosts[i] >= 0) {
+                sum = sum.add(FixedPoint.ofRaw(rawQuantities[i]).multiply(FixedPoint.ofRaw(rawCosts[i])));
+            }
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StockMathBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.stock.controller;
+
+import com.example.stock.dto.alert.ExpiryAlertDTO;
+import com.example.stock.dto.common.ApiResponse;
+import com.example.stock.service.ExpiryAlertService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/alerts")
+@RequiredArgsConstructor
+@Tag(name = "Alerts", description = "Warnings raised by the stock service")
+@CrossOrigin(origins = "*")
+public class AlertController {
+
+    private final ExpiryAlertService expiryAlertService;
+
+    @GetMapping("/expiry")
+    @Operation(summary = "Get expiry alerts",
+            description = "Expiry warnings raised for lots within the last days, newest first")
+    public ResponseEntity<ApiResponse<List<ExpiryAlertDTO>>> getExpiryAlerts(
+            @Parameter(description = "Branch ID") @RequestParam(name = "branch_id", required = false) String branchId,
+            @Parameter(description = "Department ID") @RequestParam(name = "department_id", required = false) String departmentId,
+            @Parameter(description = "Look back this many days") @RequestParam(name = "days", defaultValue = "7") int days
+    ) {
+        List<ExpiryAlertDTO> alerts = expiryAlertService.alerts(branchId, departmentId, days);
+        return ResponseEntity.ok(ApiResponse.success(alerts, String.format("%d expiry alert(s)", alerts.size())));
+    }
+}
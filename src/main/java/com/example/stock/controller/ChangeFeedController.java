@@ -0,0 +1,39 @@
+package com.example.stock.controller;
+
+import com.example.stock.dto.change.ChangeFeedPageDTO;
+import com.example.stock.dto.common.ApiResponse;
+import com.example.stock.service.ChangeFeedService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+@Tag(name = "Changes", description = "Change feed for offline and mobile delta sync")
+@CrossOrigin(origins = "*")
+public class ChangeFeedController {
+
+    private final ChangeFeedService changeFeedService;
+
+    @GetMapping
+    @Operation(summary = "Get changes since a cursor",
+            description = "Items, stock rows, units, categories and taxes of the branch changed after the cursor, "
+                    + "oldest first. Without a cursor, or with an expired one, snapshot_required is set: reload the "
+                    + "branch, then continue from next_cursor.")
+    public ResponseEntity<ApiResponse<ChangeFeedPageDTO>> getChanges(
+            @Parameter(description = "Cursor from the previous page") @RequestParam(name = "since", required = false) String since,
+            @Parameter(description = "Branch ID", required = true) @RequestParam(name = "branch_id") String branchId,
+            @Parameter(description = "Maximum changes per page (max " + ChangeFeedService.MAX_LIMIT + ")")
+            @RequestParam(name = "limit", defaultValue = "" + ChangeFeedService.DEFAULT_LIMIT) int limit
+    ) {
+        ChangeFeedPageDTO page = changeFeedService.changes(since, branchId, limit);
+        String message = page.isSnapshotRequired()
+                ? "Snapshot required"
+                : String.format("%d change(s)", page.getChanges().size());
+        return ResponseEntity.ok(ApiResponse.success(page, message));
+    }
+}
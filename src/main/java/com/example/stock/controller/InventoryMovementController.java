@@ -1,12 +1,17 @@
 package com.example.stock.controller;
 
 import com.example.stock.dto.common.ApiResponse;
+import com.example.stock.dto.common.CursorPage;
 import com.example.stock.dto.common.PaginatedResponse;
 import com.example.stock.dto.common.PaginationInfo;
+import com.example.stock.dto.inventorymouvement.InventoryMovementBatchCreateDTO;
+import com.example.stock.dto.inventorymouvement.InventoryMovementBatchResultDTO;
 import com.example.stock.dto.inventorymouvement.InventoryMovementCreateDTO;
 import com.example.stock.dto.inventorymouvement.InventoryMovementResponseDTO;
 import com.example.stock.dto.inventorymouvement.InventoryMovementUpdateDTO;
+import com.example.stock.dto.inventorymouvement.MovementRollupDTO;
 import com.example.stock.service.InventoryMovementService;
+import com.example.stock.service.MovementRollupService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,9 +19,18 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/inventory-movements")
@@ -26,6 +40,7 @@ import org.springframework.web.bind.annotation.*;
 public class InventoryMovementController {
 
 	private final InventoryMovementService inventoryMovementService;
+	private final MovementRollupService movementRollupService;
 
 	@PostMapping
 	public ResponseEntity<ApiResponse<InventoryMovementResponseDTO>> create(
@@ -36,6 +51,19 @@ public class InventoryMovementController {
 				.body(ApiResponse.success(created, "Inventory movement created successfully"));
 	}
 
+	@PostMapping("/batch")
+	public ResponseEntity<ApiResponse<InventoryMovementBatchResultDTO>> createBatch(
+			@Valid @RequestBody InventoryMovementBatchCreateDTO dto) {
+		log.info("API batch create inventory movements called: rows={}", dto.getMovements().size());
+		InventoryMovementBatchResultDTO result = inventoryMovementService.createMovements(dto.getMovements());
+		if (!result.isAccepted()) {
+			return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+					.body(new ApiResponse<>(result, "Batch rejected: " + result.getRejected() + " invalid movement(s)", false));
+		}
+		return ResponseEntity.status(HttpStatus.CREATED)
+				.body(ApiResponse.success(result, "Inventory movements created successfully"));
+	}
+
     @GetMapping
     public ResponseEntity<PaginatedResponse<InventoryMovementResponseDTO>> list(
 	    @RequestParam(defaultValue = "1") int page,
@@ -65,6 +93,7 @@ public class InventoryMovementController {
 
 	if (page < 1) page = 1;
 	if (perPage < 1) perPage = 10;
+	if (perPage > InventoryMovementService.MAX_SCROLL_LIMIT) perPage = InventoryMovementService.MAX_SCROLL_LIMIT;
 
 	Sort sort = Sort.by(sortField);
 	sort = "asc".equalsIgnoreCase(sortDirection) ? sort.ascending() : sort.descending();
@@ -96,6 +125,142 @@ public class InventoryMovementController {
 	return ResponseEntity.ok(response);
     }
 
+    /**
+     * Cursor mode of the listing, selected by the {@code limit} parameter:
+     * newest first by default, pass {@code next_cursor} back as {@code cursor} for the next slice.
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<InventoryMovementResponseDTO>> scroll(
+	    @RequestParam int limit,
+	    @RequestParam(required = false) String cursor,
+	    @RequestParam(name = "sort_direction", defaultValue = "desc") String sortDirection,
+	    @RequestParam(name = "include_total", defaultValue = "false") boolean includeTotal,
+	    // Filters
+	    @RequestParam(name = "branch_id", required = false) String branchId,
+	    @RequestParam(name = "department_id", required = false) String departmentId,
+	    @RequestParam(name = "supplier_id", required = false) String supplierId,
+	    @RequestParam(name = "transaction_type", required = false) String transactionType,
+	    @RequestParam(name = "category", required = false) String category,
+	    @RequestParam(name = "date_range", required = false) String dateRange,
+	    @RequestParam(name = "item_name", required = false) String itemName,
+	    @RequestParam(name = "search", required = false) String globalSearch,
+	    @RequestParam(name = "qty_min", required = false) java.math.BigDecimal qtyMin,
+	    @RequestParam(name = "qty_max", required = false) java.math.BigDecimal qtyMax,
+	    @RequestParam(name = "price_min", required = false) java.math.BigDecimal priceMin,
+	    @RequestParam(name = "price_max", required = false) java.math.BigDecimal priceMax,
+	    @RequestParam(name = "exp_after", required = false) java.time.LocalDate expAfter,
+	    @RequestParam(name = "exp_before", required = false) java.time.LocalDate expBefore,
+	    @RequestParam(name = "created_after", required = false) java.time.LocalDateTime createdAfter,
+	    @RequestParam(name = "created_before", required = false) java.time.LocalDateTime createdBefore,
+	    @RequestParam(name = "updated_after", required = false) java.time.LocalDateTime updatedAfter,
+	    @RequestParam(name = "updated_before", required = false) java.time.LocalDateTime updatedBefore
+    ) {
+	var filter = new InventoryMovementService.MovementSearchFilter(
+		branchId, departmentId, supplierId, transactionType, category, dateRange, itemName, globalSearch,
+		qtyMin, qtyMax, priceMin, priceMax, expAfter, expBefore,
+		createdAfter, createdBefore, updatedAfter, updatedBefore
+	);
+
+	CursorPage<InventoryMovementResponseDTO> response = inventoryMovementService.scrollMovements(
+		filter, cursor, limit, !"asc".equalsIgnoreCase(sortDirection), includeTotal);
+	response.setMessage("Inventory movements retrieved successfully");
+	response.setSuccess(true);
+
+	return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Pre-aggregated daily totals per (branch, department, item, transaction type).
+     * The window is {@code date_range} (today|week|month) or {@code from}/{@code to}, last 30 days by default.
+     */
+    @GetMapping("/rollups")
+    public ResponseEntity<ApiResponse<List<MovementRollupDTO>>> rollups(
+	    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+	    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+	    @RequestParam(name = "date_range", required = false) String dateRange,
+	    @RequestParam(name = "branch_id", required = false) String branchId,
+	    @RequestParam(name = "department_id", required = false) String departmentId,
+	    @RequestParam(name = "inventory_item_id", required = false) String inventoryItemId,
+	    @RequestParam(name = "transaction_type", required = false) String transactionType
+    ) {
+	LocalDate end = to != null ? to : LocalDate.now();
+	LocalDate start = from != null ? from : end.minusDays(29);
+	if (dateRange != null && !dateRange.isBlank()) {
+	    // Whole days, today included: a week is today and the six days before it
+	    end = LocalDate.now();
+	    start = switch (dateRange.toLowerCase()) {
+		case "today" -> end;
+		case "week" -> end.minusDays(6);
+		case "month" -> end.minusMonths(1).plusDays(1);
+		default -> throw new IllegalArgumentException("Invalid date_range: " + dateRange);
+	    };
+	}
+
+	List<MovementRollupDTO> rows = movementRollupService.query(start, end,
+		new MovementRollupService.Filters(branchId, departmentId, inventoryItemId, transactionType));
+	return ResponseEntity.ok(ApiResponse.success(rows, "Movement rollups retrieved successfully"));
+    }
+
+    /**
+     * Streams every movement matching the list filters as CSV or NDJSON (one object per line),
+     * oldest first. Rows go straight to the response, optionally gzipped, so exports of any size
+     * run in constant memory.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+	    @RequestParam(defaultValue = "csv") String format,
+	    @RequestParam(defaultValue = "false") boolean gzip,
+	    // Filters
+	    @RequestParam(name = "branch_id", required = false) String branchId,
+	    @RequestParam(name = "department_id", required = false) String departmentId,
+	    @RequestParam(name = "supplier_id", required = false) String supplierId,
+	    @RequestParam(name = "transaction_type", required = false) String transactionType,
+	    @RequestParam(name = "category", required = false) String category,
+	    @RequestParam(name = "date_range", required = false) String dateRange,
+	    @RequestParam(name = "item_name", required = false) String itemName,
+	    @RequestParam(name = "search", required = false) String globalSearch,
+	    @RequestParam(name = "qty_min", required = false) java.math.BigDecimal qtyMin,
+	    @RequestParam(name = "qty_max", required = false) java.math.BigDecimal qtyMax,
+	    @RequestParam(name = "price_min", required = false) java.math.BigDecimal priceMin,
+	    @RequestParam(name = "price_max", required = false) java.math.BigDecimal priceMax,
+	    @RequestParam(name = "exp_after", required = false) java.time.LocalDate expAfter,
+	    @RequestParam(name = "exp_before", required = false) java.time.LocalDate expBefore,
+	    @RequestParam(name = "created_after", required = false) java.time.LocalDateTime createdAfter,
+	    @RequestParam(name = "created_before", required = false) java.time.LocalDateTime createdBefore,
+	    @RequestParam(name = "updated_after", required = false) java.time.LocalDateTime updatedAfter,
+	    @RequestParam(name = "updated_before", required = false) java.time.LocalDateTime updatedBefore
+    ) {
+	var filter = new InventoryMovementService.MovementSearchFilter(
+		branchId, departmentId, supplierId, transactionType, category, dateRange, itemName, globalSearch,
+		qtyMin, qtyMax, priceMin, priceMax, expAfter, expBefore,
+		createdAfter, createdBefore, updatedAfter, updatedBefore
+	);
+	// Bad parameters fail here with a 400, before any byte of the body is committed
+	InventoryMovementService.ExportFormat exportFormat = InventoryMovementService.ExportFormat.from(format);
+	InventoryMovementService.MovementExport export = inventoryMovementService.exportMovements(filter, exportFormat);
+
+	String extension = exportFormat == InventoryMovementService.ExportFormat.CSV ? "csv" : "ndjson";
+	MediaType contentType = exportFormat == InventoryMovementService.ExportFormat.CSV
+		? new MediaType("text", "csv", java.nio.charset.StandardCharsets.UTF_8)
+		: MediaType.APPLICATION_NDJSON;
+	String filename = "inventory-movements-" + LocalDate.now() + "." + extension + (gzip ? ".gz" : "");
+
+	StreamingResponseBody body = out -> {
+	    if (gzip) {
+		GZIPOutputStream zipped = new GZIPOutputStream(out, 64 * 1024);
+		export.writeTo(zipped);
+		zipped.finish();
+	    } else {
+		export.writeTo(out);
+	    }
+	};
+
+	return ResponseEntity.ok()
+		.header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+		.contentType(gzip ? MediaType.parseMediaType("application/gzip") : contentType)
+		.body(body);
+    }
+
 	@GetMapping("/{id}")
 	public ResponseEntity<ApiResponse<InventoryMovementResponseDTO>> getOne(@PathVariable String id) {
 		InventoryMovementResponseDTO movement = inventoryMovementService.getMovementById(id);
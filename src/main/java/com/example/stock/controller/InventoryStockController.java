@@ -4,20 +4,35 @@ import com.example.stock.dto.common.ApiResponse;
 import com.example.stock.dto.common.PaginatedResponse;
 import com.example.stock.dto.inventorystock.InventoryStockResponseDTO;
 import com.example.stock.dto.inventorystock.InventoryStockSummaryDTO;
+import com.example.stock.dto.inventorystock.StockAsOfResponseDTO;
+import com.example.stock.dto.inventorystock.StockLotDTO;
+import com.example.stock.dto.inventorystock.StockStatusReportDTO;
+import com.example.stock.dto.inventorystock.StockValuationDTO;
 import com.example.stock.dto.inventorymouvement.InventoryMovementCreateDTO;
 import com.example.stock.service.InventoryStockService;
 import com.example.stock.service.InventoryMovementService;
+import com.example.stock.service.StockHistoryService;
+import com.example.stock.service.StockLotService;
+import com.example.stock.service.StockStatusService;
+import com.example.stock.service.StockStreamService;
+import com.example.stock.service.StockValuationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -29,6 +44,11 @@ public class InventoryStockController {
 
     private final InventoryStockService inventoryStockService;
     private final InventoryMovementService inventoryMovementService;
+    private final StockHistoryService stockHistoryService;
+    private final StockStatusService stockStatusService;
+    private final StockLotService stockLotService;
+    private final StockValuationService stockValuationService;
+    private final StockStreamService stockStreamService;
 
     @GetMapping
     @Operation(summary = "List current stock", description = "Filterable, paginated list of current stock")
@@ -104,6 +124,68 @@ public class InventoryStockController {
 	return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/as-of")
+    @Operation(summary = "Stock at a point in time", description = "Balances including every movement recorded at or before the timestamp, from the nearest checkpoint")
+    public ResponseEntity<ApiResponse<StockAsOfResponseDTO>> getStockAsOf(
+        @Parameter(description = "Instant (ISO-8601, e.g. 2025-03-31T23:59:59)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime timestamp,
+        @Parameter(description = "Inventory Item ID") @RequestParam(name = "inventory_item_id", required = false) String inventoryItemId,
+        @Parameter(description = "Branch ID") @RequestParam(name = "branch_id", required = false) String branchId,
+        @Parameter(description = "Department ID") @RequestParam(name = "department_id", required = false) String departmentId
+    ) {
+        log.debug("Getting stock as of {} (item={}, branch={}, department={})", timestamp, inventoryItemId, branchId, departmentId);
+
+        StockAsOfResponseDTO result = stockHistoryService.stockAsOf(
+            timestamp,
+            new StockHistoryService.Filters(inventoryItemId, branchId, departmentId)
+        );
+
+        return ResponseEntity.ok(ApiResponse.success(result, "Stock as of " + timestamp + " retrieved successfully"));
+    }
+
+    @GetMapping("/status")
+    @Operation(summary = "Stock status", description = "Low / out-of-stock / normal counts and the keys at or below their item threshold, served from the in-memory status index")
+    public ResponseEntity<ApiResponse<StockStatusReportDTO>> getStockStatus(
+        @Parameter(description = "Branch ID (all branches when omitted)") @RequestParam(name = "branch_id", required = false) String branchId,
+        @Parameter(description = "Department ID") @RequestParam(name = "department_id", required = false) String departmentId,
+        @Parameter(description = "Only list items with this status (low, out)") @RequestParam(required = false) String status
+    ) {
+        StockStatusReportDTO report = stockStatusService.report(branchId, departmentId, status);
+        return ResponseEntity.ok(ApiResponse.success(report, "Stock status retrieved successfully"));
+    }
+
+    @GetMapping("/lots/expiring")
+    @Operation(summary = "Expiring lots", description = "Open stock lots of a branch expiring within the given number of days (expired ones included), soonest first")
+    public ResponseEntity<ApiResponse<List<StockLotDTO>>> getExpiringLots(
+        @Parameter(description = "Branch ID") @RequestParam(name = "branch_id") String branchId,
+        @Parameter(description = "Department ID") @RequestParam(name = "department_id", required = false) String departmentId,
+        @Parameter(description = "Horizon in days (0-365)") @RequestParam(defaultValue = "7") int days
+    ) {
+        List<StockLotDTO> lots = stockLotService.expiring(branchId, departmentId, days);
+        return ResponseEntity.ok(ApiResponse.success(lots, String.format("%d lot(s) expiring within %d day(s)", lots.size(), days)));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream stock changes",
+            description = "Server-sent events: one 'stock' event with the new quantity of every row of the branch changed since the previous event")
+    public SseEmitter streamStockChanges(
+        @Parameter(description = "Branch ID") @RequestParam(name = "branch_id") String branchId
+    ) {
+        log.debug("Stock stream opened: branch={}", branchId);
+        return stockStreamService.subscribe(branchId);
+    }
+
+    @GetMapping("/valuation")
+    @Operation(summary = "Inventory valuation",
+            description = "Value of a branch's stock under weighted-average and FIFO costing, per department and category, at the end of the given day (now by default)")
+    public ResponseEntity<ApiResponse<StockValuationDTO>> getValuation(
+        @Parameter(description = "Branch ID") @RequestParam(name = "branch_id") String branchId,
+        @Parameter(description = "Valuation date (ISO-8601, e.g. 2025-03-31)") @RequestParam(name = "as_of", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf
+    ) {
+        StockValuationDTO valuation = stockValuationService.valuate(branchId, asOf);
+        return ResponseEntity.ok(ApiResponse.success(valuation, "Inventory valuation computed successfully"));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get inventory stock by ID", description = "Retrieve a specific inventory stock entry by its ID")
     public ResponseEntity<ApiResponse<InventoryStockResponseDTO>> getById(
@@ -1,11 +1,18 @@
 package com.example.stock.controller;
 
+import com.example.stock.exception.ResourceConflictException;
 import com.example.stock.service.MenuItemService;
+import com.example.stock.service.MenuSyncService;
+import com.example.stock.dto.menuitemssnapshot.MenuSyncJobDTO;
+import com.example.stock.dto.menuitemssnapshot.MenuSyncReportDTO;
 import com.example.stock.dto.sellableitem.SellableItemResponseDTO;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
@@ -20,22 +27,46 @@ import org.springframework.web.bind.annotation.RequestHeader;
 public class MenuItemController {
 
     private final MenuItemService menuItemService;
+    private final MenuSyncService menuSyncService;
 
     /**
-     * Synchronize menu items, variations, and sellable items from POS system.
+     * Start a background synchronization of menu items, variations, and sellable items from POS.
+     * Poll {@code GET /sync-jobs/{jobId}} for its progress.
+     *
+     * @param stockKey the authentication key for POS API
+     * @return the queued job; 409 when a job already runs for the same POS source
+     */
+    @PostMapping("/sync-jobs")
+    public ResponseEntity<MenuSyncJobDTO> startSyncJob(
+            @RequestHeader("stock-key") String stockKey) {
+        MenuSyncJobDTO job = menuSyncService.submit(stockKey);
+        log.info("Sync job {} accepted", job.getJobId());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    @GetMapping("/sync-jobs/{jobId}")
+    public ResponseEntity<MenuSyncJobDTO> getSyncJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(menuSyncService.job(jobId));
+    }
+
+    /**
+     * Synchronize menu items, variations, and sellable items from POS system, waiting for the
+     * job to finish. Kept for existing callers; long catalogs should use {@code POST /sync-jobs}.
      * 
      * @param stockKey the authentication key for POS API
-     * @return success message
+     * @return rows inserted, updated and deleted per table
      */
     @GetMapping("/sync")
-    public ResponseEntity<String> syncMenuItems(
+    public ResponseEntity<?> syncMenuItems(
             @RequestHeader("stock-key") String stockKey) {
         log.info("Received sync request");
         
         try {
-            menuItemService.syncMenuItemsFromPos(stockKey);
+            MenuSyncReportDTO report = menuSyncService.syncAndWait(stockKey);
             log.info("Sync completed successfully");
-            return ResponseEntity.ok("Synchronization completed successfully");
+            return ResponseEntity.ok(report);
+        } catch (ResourceConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             log.error("Sync failed", e);
             return ResponseEntity.internalServerError()
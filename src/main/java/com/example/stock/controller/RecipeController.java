@@ -1,8 +1,13 @@
 package com.example.stock.controller;
 
+import com.example.stock.dto.recipe.MenuCostDTO;
+import com.example.stock.dto.recipe.PortionReportDTO;
+import com.example.stock.dto.recipe.RecipeCostDTO;
 import com.example.stock.dto.recipe.RecipeCreateDTO;
 import com.example.stock.dto.recipe.RecipeResponseDTO;
 import com.example.stock.dto.recipe.RecipeUpdateDTO;
+import com.example.stock.service.PortionService;
+import com.example.stock.service.RecipeCostService;
 import com.example.stock.service.RecipeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -24,6 +29,8 @@ import java.util.List;
 public class RecipeController {
 
     private final RecipeService recipeService;
+    private final RecipeCostService recipeCostService;
+    private final PortionService portionService;
 
     @GetMapping
     @Operation(summary = "Get all recipes")
@@ -45,6 +52,37 @@ public class RecipeController {
         return ResponseEntity.ok(recipe);
     }
 
+    @GetMapping("/{id}/cost")
+    @Operation(summary = "Get the food cost of one portion of a recipe in a branch")
+    @ApiResponse(responseCode = "200", description = "Successfully computed recipe cost")
+    @ApiResponse(responseCode = "404", description = "Recipe not found")
+    public ResponseEntity<RecipeCostDTO> getRecipeCost(
+            @Parameter(description = "Recipe ID") @PathVariable String id,
+            @Parameter(description = "Branch whose stock costs are used") @RequestParam("branch_id") String branchId) {
+        log.debug("Getting cost of recipe {} in branch {}", id, branchId);
+        return ResponseEntity.ok(recipeCostService.cost(id, branchId));
+    }
+
+    @GetMapping("/costs")
+    @Operation(summary = "Get the food cost of every menu recipe in a branch")
+    @ApiResponse(responseCode = "200", description = "Successfully computed menu costs")
+    public ResponseEntity<MenuCostDTO> getMenuCosts(
+            @Parameter(description = "Branch whose stock costs are used") @RequestParam("branch_id") String branchId) {
+        log.debug("Getting menu costs of branch {}", branchId);
+        return ResponseEntity.ok(recipeCostService.menuCosts(branchId));
+    }
+
+    @GetMapping("/portions")
+    @Operation(summary = "Get the portions of each menu item the branch's current stock can still make")
+    @ApiResponse(responseCode = "200", description = "Successfully computed producible portions")
+    public ResponseEntity<PortionReportDTO> getPortions(
+            @Parameter(description = "Branch whose stock is used") @RequestParam("branch_id") String branchId,
+            @Parameter(description = "Only list items that can make at most this many portions")
+            @RequestParam(value = "max_portions", required = false) Long maxPortions) {
+        log.debug("Getting producible portions of branch {}", branchId);
+        return ResponseEntity.ok(portionService.report(branchId, maxPortions));
+    }
+
     @PostMapping
     @Operation(summary = "Create a new recipe")
     @ApiResponse(responseCode = "201", description = "Recipe created successfully")
@@ -0,0 +1,48 @@
+package com.example.stock.controller;
+
+import com.example.stock.dto.common.ApiResponse;
+import com.example.stock.dto.reorder.ReorderRunDTO;
+import com.example.stock.service.ReorderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/reorder-suggestions")
+@RequiredArgsConstructor
+@Tag(name = "Reorder Suggestions", description = "Suggested purchase quantities grouped into draft orders per supplier")
+@CrossOrigin(origins = "*")
+public class ReorderController {
+
+    private final ReorderService reorderService;
+
+    @GetMapping
+    @Operation(summary = "Get draft orders", description = "Draft orders of the latest reorder run(s)")
+    public ResponseEntity<ApiResponse<ReorderRunDTO>> getSuggestions(
+            @Parameter(description = "Branch ID") @RequestParam(name = "branch_id", required = false) String branchId,
+            @Parameter(description = "Supplier ID") @RequestParam(name = "supplier_id", required = false) String supplierId
+    ) {
+        ReorderRunDTO result = reorderService.suggestions(branchId, supplierId);
+        return ResponseEntity.ok(ApiResponse.success(result,
+                String.format("%d draft order(s), %d suggestion(s)", result.getOrderCount(), result.getSuggestionCount())));
+    }
+
+    @PostMapping("/run")
+    @Operation(summary = "Run reorder suggestions",
+            description = "Recomputes the suggestions of one branch, or of every branch in parallel, replacing the previous ones")
+    public ResponseEntity<ApiResponse<ReorderRunDTO>> run(
+            @Parameter(description = "Branch ID (all branches when omitted)") @RequestParam(name = "branch_id", required = false) String branchId
+    ) {
+        log.info("Reorder run requested: branch={}", branchId);
+
+        ReorderRunDTO result = reorderService.run(branchId);
+
+        return ResponseEntity.ok(ApiResponse.success(result,
+                String.format("Reorder run: %d suggestion(s) in %d draft order(s)", result.getSuggestionCount(), result.getOrderCount())));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.stock.controller;
+
+import com.example.stock.dto.common.ApiResponse;
+import com.example.stock.dto.sale.SaleBatchCreateDTO;
+import com.example.stock.dto.sale.SaleBatchResultDTO;
+import com.example.stock.dto.sale.SaleCreateDTO;
+import com.example.stock.dto.sale.SaleResultDTO;
+import com.example.stock.service.SaleService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/sales")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Sales", description = "POS sales deducting recipe ingredients from stock")
+@CrossOrigin(origins = "*")
+public class SaleController {
+
+    private final SaleService saleService;
+
+    @PostMapping
+    @Operation(summary = "Record a sale",
+            description = "Explodes each line through the sellable item's recipe and takes the ingredients out of stock")
+    public ResponseEntity<ApiResponse<SaleResultDTO>> record(@Valid @RequestBody SaleCreateDTO dto) {
+        SaleResultDTO result = saleService.record(dto);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success(result, "Sale recorded successfully"));
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Record sales in bulk", description = "All tickets or none, one stock update per affected row")
+    public ResponseEntity<ApiResponse<SaleBatchResultDTO>> recordBatch(@Valid @RequestBody SaleBatchCreateDTO dto) {
+        log.info("API batch record sales called: sales={}", dto.getSales().size());
+        SaleBatchResultDTO result = saleService.recordAll(dto.getSales());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success(result, String.format("%d sale(s) recorded", result.getSales().size())));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.stock.controller;
+
+import com.example.stock.dto.common.ApiResponse;
+import com.example.stock.dto.inventorystock.StockRebuildReportDTO;
+import com.example.stock.service.MovementRollupService;
+import com.example.stock.service.StockHistoryService;
+import com.example.stock.service.StockRebuildService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/stock")
+@RequiredArgsConstructor
+@Tag(name = "Stock Administration", description = "Maintenance jobs on the stock projection")
+@CrossOrigin(origins = "*")
+public class StockAdminController {
+
+    private final StockRebuildService stockRebuildService;
+    private final StockHistoryService stockHistoryService;
+    private final MovementRollupService movementRollupService;
+
+    @PostMapping("/rebuild")
+    @Operation(summary = "Rebuild stock from movements",
+            description = "Replays the movement history and reports (dry run) or fixes stock rows that drifted from it")
+    public ResponseEntity<ApiResponse<StockRebuildReportDTO>> rebuild(
+            @Parameter(description = "Branch ID (all branches when omitted)") @RequestParam(name = "branch_id", required = false) String branchId,
+            @Parameter(description = "Only report drift, write nothing") @RequestParam(name = "dry_run", defaultValue = "true") boolean dryRun
+    ) {
+        log.info("Stock rebuild requested: branch={}, dryRun={}", branchId, dryRun);
+
+        StockRebuildReportDTO report = stockRebuildService.rebuild(branchId, dryRun);
+
+        String message = dryRun
+                ? String.format("Stock rebuild dry run: %d drifted key(s)", report.getDriftedKeys())
+                : String.format("Stock rebuild: %d key(s) fixed, %d skipped", report.getFixedKeys(), report.getSkippedKeys());
+        return ResponseEntity.ok(ApiResponse.success(report, message));
+    }
+
+    @PostMapping("/checkpoints")
+    @Operation(summary = "Write a stock checkpoint",
+            description = "Stores closing balances of every stock key at the given instant (backfill; the daily one is scheduled)")
+    public ResponseEntity<ApiResponse<Integer>> writeCheckpoint(
+            @Parameter(description = "Checkpoint instant (ISO-8601)") @RequestParam(name = "as_of") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf
+    ) {
+        log.info("Stock checkpoint requested: asOf={}", asOf);
+
+        int keys = stockHistoryService.writeCheckpoint(asOf);
+
+        return ResponseEntity.ok(ApiResponse.success(keys, String.format("Stock checkpoint at %s: %d key(s) written", asOf, keys)));
+    }
+
+    @PostMapping("/rollups/repair")
+    @Operation(summary = "Repair daily movement rollups",
+            description = "Recomputes the daily movement totals of [from, to] from the raw movements (one transaction per day)")
+    public ResponseEntity<ApiResponse<Integer>> repairRollups(
+            @Parameter(description = "First day (ISO date)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day, inclusive (ISO date)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        log.info("Movement rollup repair requested: {}..{}", from, to);
+
+        int rows = movementRollupService.repair(from, to);
+
+        return ResponseEntity.ok(ApiResponse.success(rows, String.format("Movement rollups %s..%s: %d row(s) rebuilt", from, to, rows)));
+    }
+}
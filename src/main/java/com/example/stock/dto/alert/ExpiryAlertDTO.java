@@ -0,0 +1,49 @@
+package com.example.stock.dto.alert;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExpiryAlertDTO {
+
+    @JsonProperty("lot_id")
+    private String lotId;
+
+    @JsonProperty("inventory_item_id")
+    private String inventoryItemId;
+
+    @JsonProperty("item_name")
+    private String itemName;
+
+    @JsonProperty("branch_id")
+    private String branchId;
+
+    @JsonProperty("department_id")
+    private String departmentId;
+
+    @JsonProperty("expiration_date")
+    private LocalDate expirationDate;
+
+    @JsonProperty("horizon_days")
+    private Integer horizonDays;
+
+    // "expiring" ahead of the expiration date, "expired" on it
+    @JsonProperty("level")
+    private String level;
+
+    @JsonProperty("remaining_quantity")
+    private BigDecimal remainingQuantity;
+
+    @JsonProperty("fired_at")
+    private LocalDateTime firedAt;
+}
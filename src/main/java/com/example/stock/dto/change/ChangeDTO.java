@@ -0,0 +1,40 @@
+package com.example.stock.dto.change;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the change feed. {@code data} holds the entity as the matching GET endpoint
+ * returns it; it is null for deletes, and for an upsert whose entity a later delete removed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeDTO {
+
+    @JsonProperty("sequence")
+    private Long sequence;
+
+    // item, stock, unit, category or tax
+    @JsonProperty("entity_type")
+    private String entityType;
+
+    @JsonProperty("entity_id")
+    private String entityId;
+
+    // upsert or delete
+    @JsonProperty("operation")
+    private String operation;
+
+    @JsonProperty("changed_at")
+    private LocalDateTime changedAt;
+
+    @JsonProperty("data")
+    private Object data;
+}
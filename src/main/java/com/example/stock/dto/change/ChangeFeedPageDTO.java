@@ -0,0 +1,36 @@
+package com.example.stock.dto.change;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of the change feed. Pass {@code next_cursor} back as {@code since}, also when the
+ * page is empty. With {@code snapshot_required} the changes are empty: the client reloads the
+ * branch through the list endpoints, then follows the feed from the returned cursor.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeFeedPageDTO {
+
+    @JsonProperty("branch_id")
+    private String branchId;
+
+    @JsonProperty("snapshot_required")
+    private boolean snapshotRequired;
+
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+
+    @JsonProperty("has_more")
+    private boolean hasMore;
+
+    @JsonProperty("changes")
+    private List<ChangeDTO> changes;
+}
@@ -0,0 +1,45 @@
+package com.example.stock.dto.common;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Keyset (cursor) paginated response: pass {@code next_cursor} back to get the following slice.
+ * 
+ * @param <T> The type of data being returned in the list
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> data;
+
+    /**
+     * Opaque position after the last element; null on the last slice
+     */
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+
+    @JsonProperty("has_more")
+    private boolean hasMore;
+
+    private int limit;
+
+    /**
+     * Matching elements overall, only computed on request
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long total;
+
+    private String message;
+
+    private boolean success;
+}
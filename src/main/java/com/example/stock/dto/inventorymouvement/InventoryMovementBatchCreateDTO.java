@@ -0,0 +1,25 @@
+package com.example.stock.dto.inventorymouvement;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request body for bulk movement ingestion (deliveries, end-of-shift counts).
+ * Rows are validated individually in the service layer so every failure can be reported.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryMovementBatchCreateDTO {
+
+    @NotEmpty(message = "movements list cannot be empty")
+    @Size(max = 5000, message = "A batch cannot contain more than 5000 movements")
+    private List<InventoryMovementCreateDTO> movements;
+}
@@ -0,0 +1,46 @@
+package com.example.stock.dto.inventorymouvement;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch ingestion: one result per submitted row, in request order.
+ * A batch is all-or-nothing; when any row is invalid nothing is written.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryMovementBatchResultDTO {
+
+    private int total;
+
+    private int created;
+
+    private int rejected;
+
+    @JsonProperty("stock_keys_updated")
+    private int stockKeysUpdated;
+
+    private List<RowResult> results;
+
+    public boolean isAccepted() {
+        return rejected == 0;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class RowResult {
+        private int index;
+        private String id;
+        private String status;
+        private String error;
+    }
+}
@@ -53,19 +53,21 @@
         public static InventoryMovementResponseDTO fromEntity(InventoryMovement entity) {
             return InventoryMovementResponseDTO.builder()
                     .id(entity.getId())
-                    .inventoryItemId(entity.getInventoryItem().getId())
+                    .inventoryItemId(entity.getInventoryItemId())
                     .branchId(entity.getBranchId())
                     .transactionType(entity.getTransactionType().name())
                     .quantity(entity.getQuantity())
                     .unitPurchasePrice(entity.getUnitPurchasePrice())
-                    .supplierId(entity.getSupplier() != null ? entity.getSupplier().getId() : null)
+                    .supplierId(entity.getSupplierId())
                     .notes(entity.getNotes())
                     .expirationDate(entity.getExpirationDate())
                     .wasteReason(entity.getWasteReason())
                     .destinationBranchId(entity.getDestinationBranchId())
                     .createdAt(entity.getCreatedAt())
                     .updatedAt(entity.getUpdatedAt())
-                    .inventoryItem(new SimpleDTO(entity.getInventoryItem().getId(), entity.getInventoryItem().getName()))
+                    // Names need the associations: list queries fetch them with the page (entity graph)
+                    .inventoryItem(entity.getInventoryItem() != null ?
+                            new SimpleDTO(entity.getInventoryItemId(), entity.getInventoryItem().getName()) : null)
                     .supplier(entity.getSupplier() != null ?
                             new SimpleDTO(entity.getSupplier().getId(), entity.getSupplier().getName()) : null)
                     .build();
@@ -0,0 +1,43 @@
+package com.example.stock.dto.inventorymouvement;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Movement totals of one (day, branch, department, item, transaction type) key.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MovementRollupDTO {
+
+    private LocalDate day;
+
+    @JsonProperty("branch_id")
+    private String branchId;
+
+    @JsonProperty("department_id")
+    private String departmentId;
+
+    @JsonProperty("inventory_item_id")
+    private String inventoryItemId;
+
+    @JsonProperty("transaction_type")
+    private String transactionType;
+
+    @JsonProperty("total_quantity")
+    private BigDecimal totalQuantity;
+
+    @JsonProperty("total_value")
+    private BigDecimal totalValue;
+
+    @JsonProperty("movement_count")
+    private long movementCount;
+}
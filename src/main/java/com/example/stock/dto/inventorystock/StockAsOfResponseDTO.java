@@ -0,0 +1,58 @@
+package com.example.stock.dto.inventorystock;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Stock balances at a past instant: nearest checkpoint plus the movements recorded after it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockAsOfResponseDTO {
+
+    private LocalDateTime timestamp;
+
+    // Null when no checkpoint precedes the timestamp and the full history was replayed
+    @JsonProperty("checkpoint_as_of")
+    private LocalDateTime checkpointAsOf;
+
+    @JsonProperty("movements_replayed")
+    private long movementsReplayed;
+
+    private List<Balance> balances;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Balance {
+        @JsonProperty("inventory_item_id")
+        private String inventoryItemId;
+
+        @JsonProperty("branch_id")
+        private String branchId;
+
+        @JsonProperty("department_id")
+        private String departmentId;
+
+        private BigDecimal quantity;
+
+        @JsonProperty("average_unit_cost")
+        private BigDecimal averageUnitCost;
+
+        @JsonProperty("total_value")
+        private BigDecimal totalValue;
+
+        @JsonProperty("last_movement_date")
+        private LocalDateTime lastMovementDate;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.stock.dto.inventorystock;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * New quantity of one stock row, as pushed on the branch stock stream.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockChangeDTO {
+
+    @JsonProperty("inventory_item_id")
+    private String inventoryItemId;
+
+    @JsonProperty("department_id")
+    private String departmentId;
+
+    @JsonProperty("quantity")
+    private BigDecimal quantity;
+}
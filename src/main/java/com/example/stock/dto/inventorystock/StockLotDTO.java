@@ -0,0 +1,55 @@
+package com.example.stock.dto.inventorystock;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockLotDTO {
+
+    @JsonProperty("lot_id")
+    private String lotId;
+
+    @JsonProperty("inventory_item_id")
+    private String inventoryItemId;
+
+    @JsonProperty("item_name")
+    private String itemName;
+
+    @JsonProperty("branch_id")
+    private String branchId;
+
+    @JsonProperty("department_id")
+    private String departmentId;
+
+    @JsonProperty("source_movement_id")
+    private String sourceMovementId;
+
+    @JsonProperty("expiration_date")
+    private LocalDate expirationDate;
+
+    // Negative once expired
+    @JsonProperty("days_to_expiry")
+    private Long daysToExpiry;
+
+    @JsonProperty("received_at")
+    private LocalDateTime receivedAt;
+
+    @JsonProperty("initial_quantity")
+    private BigDecimal initialQuantity;
+
+    @JsonProperty("remaining_quantity")
+    private BigDecimal remainingQuantity;
+
+    @JsonProperty("unit_cost")
+    private BigDecimal unitCost;
+}
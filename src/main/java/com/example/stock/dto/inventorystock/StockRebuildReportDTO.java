@@ -0,0 +1,85 @@
+package com.example.stock.dto.inventorystock;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Result of replaying movement history against inventory_stock.
+ * {@code drifts} lists at most the first few hundred drifted keys; the counters are complete.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockRebuildReportDTO {
+
+    @JsonProperty("branch_id")
+    private String branchId;
+
+    @JsonProperty("dry_run")
+    private boolean dryRun;
+
+    // Movements created after this instant are left to the live projection
+    private LocalDateTime cutoff;
+
+    @JsonProperty("items_scanned")
+    private int itemsScanned;
+
+    @JsonProperty("movements_replayed")
+    private long movementsReplayed;
+
+    @JsonProperty("keys_compared")
+    private int keysCompared;
+
+    @JsonProperty("drifted_keys")
+    private int driftedKeys;
+
+    @JsonProperty("fixed_keys")
+    private int fixedKeys;
+
+    // Rows touched by live writes after the cutoff, left as they are
+    @JsonProperty("skipped_keys")
+    private int skippedKeys;
+
+    @JsonProperty("duration_ms")
+    private long durationMs;
+
+    private List<Drift> drifts;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Drift {
+        @JsonProperty("inventory_item_id")
+        private String inventoryItemId;
+
+        @JsonProperty("branch_id")
+        private String branchId;
+
+        @JsonProperty("department_id")
+        private String departmentId;
+
+        @JsonProperty("expected_quantity")
+        private BigDecimal expectedQuantity;
+
+        @JsonProperty("actual_quantity")
+        private BigDecimal actualQuantity;
+
+        @JsonProperty("expected_average_unit_cost")
+        private BigDecimal expectedAverageUnitCost;
+
+        @JsonProperty("actual_average_unit_cost")
+        private BigDecimal actualAverageUnitCost;
+
+        // missing | drifted | fixed | skipped
+        private String status;
+    }
+}
@@ -1,6 +1,5 @@
 package com.example.stock.dto.inventorystock;
 
-/*
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -9,7 +8,6 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 
-// DTO pour les éléments de rapport de statut de stock (désactivé)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,9 +26,12 @@ public class StockStatusItemDTO {
     @JsonProperty("threshold_quantity")
     private Integer thresholdQuantity;
 
+    // low | out
     private String status;
 
     @JsonProperty("branch_id")
     private String branchId;
+
+    @JsonProperty("department_id")
+    private String departmentId;
 }
-*/
@@ -1,6 +1,5 @@
 package com.example.stock.dto.inventorystock;
 
-/*
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -9,7 +8,10 @@ import lombok.NoArgsConstructor;
 
 import java.util.List;
 
-// DTO pour les rapports de statut de stock (désactivé pour coller au contrat frontend)
+/**
+ * Stock status of a branch (or of every branch): counts per status plus the keys at or below
+ * their item's threshold. Normal keys are only counted.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,10 +23,15 @@ public class StockStatusReportDTO {
     @JsonProperty("total_items")
     private Integer totalItems;
 
+    @JsonProperty("normal_count")
+    private Integer normalCount;
+
     @JsonProperty("low_stock_count")
     private Integer lowStockCount;
 
     @JsonProperty("out_of_stock_count")
     private Integer outOfStockCount;
+
+    // False while the index is still loading after startup; counts may be incomplete
+    private boolean ready;
 }
-*/
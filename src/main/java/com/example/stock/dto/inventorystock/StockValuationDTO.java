@@ -0,0 +1,92 @@
+package com.example.stock.dto.inventorystock;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Value of a branch's stock at a point in time under weighted-average and FIFO costing,
+ * with totals per department and, within it, per item category.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockValuationDTO {
+
+    @JsonProperty("branch_id")
+    private String branchId;
+
+    @JsonProperty("as_of")
+    private LocalDateTime asOf;
+
+    @JsonProperty("items_valued")
+    private int itemsValued;
+
+    @JsonProperty("movements_replayed")
+    private long movementsReplayed;
+
+    @JsonProperty("total_quantity")
+    private BigDecimal totalQuantity;
+
+    @JsonProperty("weighted_average_value")
+    private BigDecimal weightedAverageValue;
+
+    @JsonProperty("fifo_value")
+    private BigDecimal fifoValue;
+
+    @JsonProperty("duration_ms")
+    private long durationMs;
+
+    private List<DepartmentTotal> departments;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class DepartmentTotal {
+        @JsonProperty("department_id")
+        private String departmentId;
+
+        @JsonProperty("department_name")
+        private String departmentName;
+
+        @JsonProperty("quantity")
+        private BigDecimal quantity;
+
+        @JsonProperty("weighted_average_value")
+        private BigDecimal weightedAverageValue;
+
+        @JsonProperty("fifo_value")
+        private BigDecimal fifoValue;
+
+        private List<CategoryTotal> categories;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class CategoryTotal {
+        @JsonProperty("category_id")
+        private String categoryId;
+
+        @JsonProperty("category_name")
+        private String categoryName;
+
+        @JsonProperty("quantity")
+        private BigDecimal quantity;
+
+        @JsonProperty("weighted_average_value")
+        private BigDecimal weightedAverageValue;
+
+        @JsonProperty("fifo_value")
+        private BigDecimal fifoValue;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.stock.dto.menuitemssnapshot;
+
+import com.example.stock.service.MenuSyncService.Phase;
+import com.example.stock.service.MenuSyncService.Status;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of a background POS menu synchronization. Counts cover the chunks committed so far.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MenuSyncJobDTO {
+
+    @JsonProperty("job_id")
+    private String jobId;
+
+    // Fingerprint of the stock key: one running job per source
+    @JsonProperty("source")
+    private String source;
+
+    @JsonProperty("status")
+    private Status status;
+
+    @JsonProperty("phase")
+    private Phase phase;
+
+    // Known once the whole catalog was read
+    @JsonProperty("items_total")
+    private Integer itemsTotal;
+
+    @JsonProperty("items_processed")
+    private int itemsProcessed;
+
+    @JsonProperty("chunks_committed")
+    private int chunksCommitted;
+
+    // The POS answered 304: same catalog as the last sync, nothing written
+    @JsonProperty("not_modified")
+    private Boolean notModified;
+
+    @JsonProperty("report")
+    private MenuSyncReportDTO report;
+
+    @JsonProperty("error")
+    private String error;
+
+    @JsonProperty("submitted_at")
+    private LocalDateTime submittedAt;
+
+    @JsonProperty("started_at")
+    private LocalDateTime startedAt;
+
+    @JsonProperty("finished_at")
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,59 @@
+package com.example.stock.dto.menuitemssnapshot;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a POS menu synchronization: rows written per table and kind of change.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MenuSyncReportDTO {
+
+    @JsonProperty("received")
+    private int received;
+
+    // Same content hash as the last sync: nothing written
+    @JsonProperty("unchanged")
+    private int unchanged;
+
+    // Missing id, name or branch, or an id already seen in the catalog
+    @JsonProperty("rejected")
+    private int rejected;
+
+    @JsonProperty("menu_items")
+    private Changes menuItems;
+
+    @JsonProperty("variations")
+    private Changes variations;
+
+    @JsonProperty("sellable_items")
+    private Changes sellableItems;
+
+    // Gone from the POS but used by a recipe, so not deleted
+    @JsonProperty("sellable_items_kept")
+    private int sellableItemsKept;
+
+    @JsonProperty("duration_ms")
+    private long durationMs;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Changes {
+        @JsonProperty("inserted")
+        private int inserted;
+
+        @JsonProperty("updated")
+        private int updated;
+
+        @JsonProperty("deleted")
+        private int deleted;
+    }
+}
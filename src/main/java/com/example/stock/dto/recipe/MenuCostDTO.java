@@ -0,0 +1,29 @@
+package com.example.stock.dto.recipe;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MenuCostDTO {
+
+    @JsonProperty("branch_id")
+    private String branchId;
+
+    @JsonProperty("recipes")
+    private List<RecipeCostDTO> recipes;
+
+    // Recipes whose cost was not cached and had to be computed for this request
+    @JsonProperty("recomputed")
+    private int recomputed;
+
+    @JsonProperty("duration_ms")
+    private long durationMs;
+}
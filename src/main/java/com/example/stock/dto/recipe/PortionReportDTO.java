@@ -0,0 +1,45 @@
+package com.example.stock.dto.recipe;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Portions of each menu item that the branch's current stock can still make.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PortionReportDTO {
+
+    @JsonProperty("branch_id")
+    private String branchId;
+
+    @JsonProperty("items")
+    private List<Item> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Item {
+        @JsonProperty("sellable_item_id")
+        private Long sellableItemId;
+
+        @JsonProperty("recipe_id")
+        private String recipeId;
+
+        // Null when the recipe has no ingredient quantity to limit it
+        @JsonProperty("portions")
+        private Long portions;
+
+        // Ingredient that runs out first
+        @JsonProperty("limiting_item_id")
+        private String limitingItemId;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.stock.dto.recipe;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Food cost of one portion of a recipe in a branch, sub-recipes expanded into raw ingredients.
+ * Ingredients without a cost in the branch count as zero and are listed in
+ * {@code missing_cost_item_ids}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RecipeCostDTO {
+
+    @JsonProperty("recipe_id")
+    private String recipeId;
+
+    @JsonProperty("sellable_item_id")
+    private Long sellableItemId;
+
+    @JsonProperty("branch_id")
+    private String branchId;
+
+    @JsonProperty("cost")
+    private BigDecimal cost;
+
+    @JsonProperty("missing_cost_item_ids")
+    private List<String> missingCostItemIds;
+
+    // Only on the single recipe endpoint
+    @JsonProperty("ingredients")
+    private List<IngredientCost> ingredients;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class IngredientCost {
+        @JsonProperty("inventory_item_id")
+        private String inventoryItemId;
+
+        @JsonProperty("quantity")
+        private BigDecimal quantity;
+
+        @JsonProperty("unit_cost")
+        private BigDecimal unitCost;
+
+        @JsonProperty("cost")
+        private BigDecimal cost;
+    }
+}
@@ -2,7 +2,6 @@ package com.example.stock.dto.recipe;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.Valid;
-import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -19,7 +18,7 @@ import java.util.List;
 @Builder
 public class RecipeCreateDTO {
 
-    @NotBlank(message = "sellable_item_id is required")
+    // Omitted for a recipe only used as a sub-recipe
     @JsonProperty("sellable_item_id")
     private String sellableItemId;
 
@@ -32,10 +31,13 @@ public class RecipeCreateDTO {
     @AllArgsConstructor
     @Builder
     public static class IngredientDTO {
-        @NotBlank(message = "inventory_item_id is required")
+        // Either an inventory item or a sub-recipe
         @JsonProperty("inventory_item_id")
         private String inventoryItemId;
 
+        @JsonProperty("sub_recipe_id")
+        private String subRecipeId;
+
         @NotNull(message = "quantity is required")
         @JsonProperty("quantity")
         private BigDecimal quantity;
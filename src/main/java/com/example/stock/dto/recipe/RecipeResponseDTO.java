@@ -38,6 +38,9 @@ public class RecipeResponseDTO {
         
         @JsonProperty("inventory_item_id")
         private String inventoryItemId;
+
+        @JsonProperty("sub_recipe_id")
+        private String subRecipeId;
         
         private BigDecimal quantity;
         
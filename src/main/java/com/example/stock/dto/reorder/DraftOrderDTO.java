@@ -0,0 +1,67 @@
+package com.example.stock.dto.reorder;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Suggested purchase order of one branch to one supplier. Items with no known supplier
+ * are grouped under a null {@code supplier_id}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DraftOrderDTO {
+
+    @JsonProperty("branch_id")
+    private String branchId;
+
+    @JsonProperty("supplier_id")
+    private String supplierId;
+
+    @JsonProperty("supplier_name")
+    private String supplierName;
+
+    @JsonProperty("lead_time_days")
+    private int leadTimeDays;
+
+    @JsonProperty("generated_at")
+    private LocalDateTime generatedAt;
+
+    private List<Line> lines;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Line {
+        @JsonProperty("inventory_item_id")
+        private String inventoryItemId;
+
+        @JsonProperty("item_name")
+        private String itemName;
+
+        @JsonProperty("department_id")
+        private String departmentId;
+
+        @JsonProperty("current_quantity")
+        private BigDecimal currentQuantity;
+
+        @JsonProperty("daily_consumption")
+        private BigDecimal dailyConsumption;
+
+        // threshold + expected consumption over the lead time
+        @JsonProperty("reorder_point")
+        private BigDecimal reorderPoint;
+
+        @JsonProperty("suggested_quantity")
+        private BigDecimal suggestedQuantity;
+    }
+}
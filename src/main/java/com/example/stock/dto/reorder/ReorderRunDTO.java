@@ -0,0 +1,44 @@
+package com.example.stock.dto.reorder;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Summary of a reorder suggestion run. {@code orders} is only filled when reading suggestions back.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReorderRunDTO {
+
+    @JsonProperty("branch_id")
+    private String branchId;
+
+    @JsonProperty("generated_at")
+    private LocalDateTime generatedAt;
+
+    private int branches;
+
+    @JsonProperty("items_evaluated")
+    private int itemsEvaluated;
+
+    @JsonProperty("suggestion_count")
+    private int suggestionCount;
+
+    @JsonProperty("order_count")
+    private int orderCount;
+
+    @JsonProperty("duration_ms")
+    private Long durationMs;
+
+    private List<DraftOrderDTO> orders;
+}
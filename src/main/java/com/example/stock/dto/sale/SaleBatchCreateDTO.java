@@ -0,0 +1,26 @@
+package com.example.stock.dto.sale;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Tickets recorded together, e.g. replayed by a POS after being offline. All-or-nothing.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SaleBatchCreateDTO {
+
+    @NotEmpty(message = "sales list cannot be empty")
+    @Size(max = 1000, message = "A batch cannot contain more than 1000 sales")
+    @Valid
+    private List<SaleCreateDTO> sales;
+}
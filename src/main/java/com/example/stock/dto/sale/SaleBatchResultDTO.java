@@ -0,0 +1,28 @@
+package com.example.stock.dto.sale;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SaleBatchResultDTO {
+
+    @JsonProperty("sales")
+    private List<SaleResultDTO> sales;
+
+    @JsonProperty("movements_created")
+    private int movementsCreated;
+
+    @JsonProperty("stock_keys_updated")
+    private int stockKeysUpdated;
+
+    @JsonProperty("duration_ms")
+    private long durationMs;
+}
@@ -0,0 +1,55 @@
+package com.example.stock.dto.sale;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A POS ticket: sellable items sold in one branch. Each line is exploded through the item's
+ * recipe into ingredient consumption.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SaleCreateDTO {
+
+    // POS reference, copied into the notes of the movements
+    @JsonProperty("ticket_id")
+    private String ticketId;
+
+    @NotBlank(message = "branch_id is required")
+    @JsonProperty("branch_id")
+    private String branchId;
+
+    @NotEmpty(message = "lines cannot be empty")
+    @Size(max = 5000, message = "A ticket cannot contain more than 5000 lines")
+    @Valid
+    private List<LineDTO> lines;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class LineDTO {
+        @NotNull(message = "sellable_item_id is required")
+        @JsonProperty("sellable_item_id")
+        private Long sellableItemId;
+
+        @NotNull(message = "quantity is required")
+        @Positive(message = "quantity must be greater than 0")
+        @JsonProperty("quantity")
+        private BigDecimal quantity;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.stock.dto.sale;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SaleResultDTO {
+
+    @JsonProperty("ticket_id")
+    private String ticketId;
+
+    @JsonProperty("branch_id")
+    private String branchId;
+
+    @JsonProperty("lines")
+    private int lines;
+
+    // One OUT movement per ingredient, summed over the ticket's lines
+    @JsonProperty("consumption")
+    private List<Consumption> consumption;
+
+    // Sold items with no recipe: nothing was deducted for them
+    @JsonProperty("unmapped_sellable_item_ids")
+    private List<Long> unmappedSellableItemIds;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Consumption {
+        @JsonProperty("inventory_item_id")
+        private String inventoryItemId;
+
+        @JsonProperty("quantity")
+        private BigDecimal quantity;
+
+        @JsonProperty("movement_id")
+        private String movementId;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.stock.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Single row holding the last change feed position handed out. A committing transaction bumps
+ * it by the number of entries it wrote and numbers them from there; the row lock it takes is
+ * held until the commit, so positions become visible in the order they were assigned and a
+ * client cursor never has a committed entry appear below it.
+ */
+@Entity
+@Table(name = "change_log_clock")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class ChangeLogClock {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "last_seq", nullable = false)
+    private Long lastSeq;
+}
@@ -0,0 +1,57 @@
+package com.example.stock.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change to a synced entity, written in the transaction that made it. The id comes from a
+ * pooled sequence at insert, so inserts batch; {@code commit_seq} is the feed position clients
+ * page from, assigned when the transaction commits (see {@link ChangeLogClock}). Compaction
+ * keeps only the latest entry per (entity_type, entity_id, branch_id), so the log stays about
+ * as large as the data it covers.
+ */
+@Entity
+@Table(
+    name = "change_log",
+    indexes = {
+        @Index(name = "idx_change_log_branch_commit_seq", columnList = "branch_id, commit_seq"),
+        @Index(name = "idx_change_log_commit_seq", columnList = "commit_seq"),
+        @Index(name = "idx_change_log_entity", columnList = "entity_type, entity_id, branch_id, commit_seq"),
+        @Index(name = "idx_change_log_operation_changed", columnList = "operation, changed_at")
+    }
+)
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class ChangeLogEntry {
+
+    public enum EntityType { ITEM, STOCK, UNIT, CATEGORY, TAX }
+
+    public enum Operation { UPSERT, DELETE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_log_id")
+    @SequenceGenerator(name = "change_log_id", sequenceName = "change_log_id_seq", allocationSize = 50)
+    private Long id;
+
+    // Null until the writing transaction commits
+    @Column(name = "commit_seq")
+    private Long commitSeq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 16)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false, length = 64)
+    private String entityId;
+
+    @Column(name = "branch_id", nullable = false, length = 64)
+    private String branchId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation", nullable = false, length = 8)
+    private Operation operation;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,58 @@
+package com.example.stock.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * An expiry warning fired for one lot at one horizon. The id is {@code <lot_id>:<horizon_days>},
+ * so an alert is stored once however often it is raised, and a restart knows what already fired.
+ */
+@Entity
+@Table(
+    name = "expiry_alert",
+    indexes = {
+        @Index(name = "idx_expiry_alert_branch_fired", columnList = "branch_id, fired_at"),
+        @Index(name = "idx_expiry_alert_expiry", columnList = "expiration_date")
+    }
+)
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class ExpiryAlert {
+
+    @Id
+    @Column(length = 80)
+    private String id;
+
+    @Column(name = "lot_id", nullable = false, length = 64)
+    private String lotId;
+
+    @Column(name = "inventory_item_id", nullable = false, length = 64)
+    private String inventoryItemId;
+
+    @Column(name = "branch_id", nullable = false, length = 64)
+    private String branchId;
+
+    @Column(name = "department_id", nullable = false, length = 64)
+    private String departmentId;
+
+    @Column(name = "expiration_date", nullable = false)
+    private LocalDate expirationDate;
+
+    // Days before expiry the alert is for; 0 is the expiration day itself
+    @Column(name = "horizon_days", nullable = false)
+    private int horizonDays;
+
+    // Lot quantity when the alert fired
+    @Column(name = "remaining_quantity", nullable = false, precision = 18, scale = 6)
+    private BigDecimal remainingQuantity;
+
+    @Column(name = "fired_at", nullable = false)
+    private LocalDateTime firedAt;
+
+    public static String idOf(String lotId, int horizonDays) {
+        return lotId + ":" + horizonDays;
+    }
+}
@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
        indexes = {
            @Index(name = "idx_ingredient_recipe", columnList = "recipe_id"),
            @Index(name = "idx_ingredient_inventory_item", columnList = "inventory_item_id"),
-           @Index(name = "idx_ingredient_recipe_item", columnList = "recipe_id, inventory_item_id")
+           @Index(name = "idx_ingredient_recipe_item", columnList = "recipe_id, inventory_item_id"),
+           @Index(name = "idx_ingredient_sub_recipe", columnList = "sub_recipe_id")
        })
 @Data
 @NoArgsConstructor
@@ -34,8 +35,12 @@ public class Ingredient {
     private BigDecimal quantity;
     @Column(name = "recipe_id", nullable = false)
     private String recipeId;
-    @Column(name = "inventory_item_id", nullable = false)
+    // Exactly one of inventory_item_id and sub_recipe_id is set
+    @Column(name = "inventory_item_id")
     private String inventoryItemId;
+    // A prepared component (sauce, dough) that is a recipe itself; quantity counts its batches
+    @Column(name = "sub_recipe_id")
+    private String subRecipeId;
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
     @Column(name = "updated_at", nullable = false)
@@ -6,6 +6,7 @@ import lombok.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 @Entity
 @Table(name = "inventory_movement",
@@ -15,7 +16,13 @@ import java.time.LocalDateTime;
            @Index(name = "idx_inv_mv_department", columnList = "department_id"),
            @Index(name = "idx_inv_mv_dest_branch", columnList = "destination_branch_id"),
            @Index(name = "idx_inv_mv_dest_dept", columnList = "destination_department_id"),
-           @Index(name = "idx_inv_mv_type", columnList = "transaction_type")
+           @Index(name = "idx_inv_mv_type", columnList = "transaction_type"),
+           @Index(name = "idx_inv_mv_stock_applied", columnList = "stock_applied"),
+           @Index(name = "idx_inv_mv_created", columnList = "created_at, id"),
+           @Index(name = "idx_inv_mv_item_created", columnList = "inventory_item_id, created_at"),
+           @Index(name = "idx_inv_mv_branch_created", columnList = "branch_id, created_at"),
+           @Index(name = "idx_inv_mv_dept_created", columnList = "department_id, created_at"),
+           @Index(name = "idx_inv_mv_category_created", columnList = "item_category_id, created_at")
        })
 @Data
 @NoArgsConstructor
@@ -69,6 +76,18 @@ public class InventoryMovement {
 
     @Column(name = "waste_reason")
     private String wasteReason;
+
+    // false while the stock effect sits in the write-behind buffer; null on legacy rows means applied
+    @Column(name = "stock_applied")
+    private Boolean stockApplied;
+
+    // Item attributes copied at write time so list filters never join inventory_item;
+    // kept in sync when the item is renamed or recategorized
+    @Column(name = "item_category_id")
+    private String itemCategoryId;
+
+    @Column(name = "item_name_normalized")
+    private String itemNameNormalized;
     // relation m3a inventory item (read-only association set via FK field)
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "inventory_item_id", insertable = false, updatable = false)
@@ -99,6 +118,20 @@ public class InventoryMovement {
     @JoinColumn(name = "destination_branch_id", insertable = false, updatable = false)
     private Branch destinationBranch;
     
+    /**
+     * Captures the item's department (the stock dimension) and its filterable attributes.
+     */
+    public void captureItem(InventoryItem item) {
+        this.inventoryItem = item;
+        this.departmentId = item.getDepartmentId();
+        this.itemCategoryId = item.getCategory() != null ? item.getCategory().getId() : null;
+        this.itemNameNormalized = normalizeName(item.getName());
+    }
+
+    public static String normalizeName(String name) {
+        return name != null ? name.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
     public enum TransactionType {
         IN, OUT, WASTE, TRANSFER
     }
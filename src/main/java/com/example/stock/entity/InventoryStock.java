@@ -1,9 +1,11 @@
 package com.example.stock.entity;
 
+import com.example.stock.util.FixedPoint;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 
 @Entity
@@ -78,7 +80,12 @@ public class InventoryStock {
 
     public void recalcTotal() {
         if (currentQuantity != null && averageUnitCost != null) {
-            totalValue = currentQuantity.multiply(averageUnitCost);
+            try {
+                totalValue = FixedPoint.of(currentQuantity).multiply(FixedPoint.of(averageUnitCost)).toBigDecimal();
+            } catch (ArithmeticException overflow) {
+                // total_value is wider (precision 20) than a scaled long can hold
+                totalValue = currentQuantity.multiply(averageUnitCost).setScale(FixedPoint.SCALE, RoundingMode.HALF_UP);
+            }
         }
     }
 
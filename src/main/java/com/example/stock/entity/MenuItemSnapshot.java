@@ -28,6 +28,10 @@ public class MenuItemSnapshot {
     @Column(name = "branch_id", nullable = false)
     private Long branchId;
 
+    // Hash of the POS content last synced (item fields and variations); unchanged items are skipped
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
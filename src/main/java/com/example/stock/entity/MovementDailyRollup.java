@@ -0,0 +1,65 @@
+package com.example.stock.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Per-day totals of the movements of one (branch, department, item, transaction type) key,
+ * by the day of {@code created_at}. Written by the rollup flush from the deltas queued as
+ * movements commit, so it lags them by about one flush interval; the id is the key itself so
+ * the flush can upsert without a lookup.
+ */
+@Entity
+@Table(
+    name = "inventory_movement_daily_rollup",
+    indexes = {
+        @Index(name = "idx_mv_rollup_day_branch", columnList = "day, branch_id"),
+        @Index(name = "idx_mv_rollup_item_day", columnList = "inventory_item_id, day"),
+        @Index(name = "idx_mv_rollup_branch_day", columnList = "branch_id, day")
+    }
+)
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class MovementDailyRollup {
+
+    // day:branch:department:item:type
+    @Id
+    private String id;
+
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "branch_id", nullable = false, length = 64)
+    private String branchId;
+
+    @Column(name = "department_id", nullable = false, length = 64)
+    private String departmentId;
+
+    @Column(name = "inventory_item_id", nullable = false, length = 64)
+    private String inventoryItemId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transaction_type", nullable = false, length = 16)
+    private InventoryMovement.TransactionType transactionType;
+
+    @Column(name = "total_quantity", nullable = false, precision = 20, scale = 6)
+    private BigDecimal totalQuantity;
+
+    // Sum of quantity x unit_purchase_price (movements without a price count as zero)
+    @Column(name = "total_value", nullable = false, precision = 24, scale = 6)
+    private BigDecimal totalValue;
+
+    @Column(name = "movement_count", nullable = false)
+    private long movementCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public static String idOf(LocalDate day, String branchId, String departmentId, String inventoryItemId,
+                              InventoryMovement.TransactionType type) {
+        return day + ":" + branchId + ":" + departmentId + ":" + inventoryItemId + ":" + type.name();
+    }
+}
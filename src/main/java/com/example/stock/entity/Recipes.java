@@ -25,7 +25,8 @@ import java.util.List;
 public class Recipes {
     @Id
     private String id;
-    @Column(name = "sellable_item_id", nullable = false, unique = true)
+    // Null for recipes only used as sub-recipes of others
+    @Column(name = "sellable_item_id", unique = true)
     private Long sellableItemId;
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,63 @@
+package com.example.stock.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Closing stock balance of one (item, branch, department) key, including every movement
+ * created at or before {@code asOf}. A checkpoint is written for all keys at once, so a key
+ * missing from a checkpoint had no stock at that instant.
+ */
+@Entity
+@Table(
+    name = "stock_checkpoint",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_checkpoint_key_as_of",
+            columnNames = {"as_of", "inventory_item_id", "branch_id", "department_id"})
+    },
+    indexes = {
+        @Index(name = "idx_checkpoint_as_of_item", columnList = "as_of, inventory_item_id"),
+        @Index(name = "idx_checkpoint_as_of_branch", columnList = "as_of, branch_id")
+    }
+)
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class StockCheckpoint {
+
+    @Id
+    private String id;
+
+    @Column(name = "as_of", nullable = false)
+    private LocalDateTime asOf;
+
+    @Column(name = "inventory_item_id", nullable = false, length = 64)
+    private String inventoryItemId;
+
+    @Column(name = "branch_id", nullable = false, length = 64)
+    private String branchId;
+
+    @Column(name = "department_id", nullable = false, length = 64)
+    private String departmentId;
+
+    @Column(name = "quantity", nullable = false, precision = 18, scale = 6)
+    private BigDecimal quantity;
+
+    @Column(name = "average_unit_cost", nullable = false, precision = 18, scale = 6)
+    private BigDecimal averageUnitCost;
+
+    @Column(name = "total_value", precision = 20, scale = 6)
+    private BigDecimal totalValue;
+
+    @Column(name = "last_movement_date")
+    private LocalDateTime lastMovementDate;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.stock.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One received lot of a stock key: created by an IN movement, or on the destination side of a
+ * transfer (one lot per source lot it drew from, keeping that lot's expiry and cost). OUT, WASTE
+ * and transfers consume open lots soonest expiry first; see {@link StockLotConsumption}.
+ *
+ * A lot below zero carries a deficit: the part of an outflow no open lot covered (a lot of
+ * that movement with nothing received), or a reverted receipt that was already consumed. The
+ * next receipts of the key pay deficits off, oldest first, before they hold anything, so the
+ * lots of a key always sum to its stock quantity.
+ */
+@Entity
+@Table(
+    name = "inventory_stock_lot",
+    indexes = {
+        @Index(name = "idx_lot_key_expiry", columnList = "inventory_item_id, branch_id, department_id, expiration_date"),
+        @Index(name = "idx_lot_branch_expiry", columnList = "branch_id, expiration_date"),
+        @Index(name = "idx_lot_source_movement", columnList = "source_movement_id")
+    }
+)
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class StockLot {
+
+    @Id
+    private String id;
+
+    @Version
+    private Long version;
+
+    @Column(name = "inventory_item_id", nullable = false, length = 64)
+    private String inventoryItemId;
+
+    @Column(name = "branch_id", nullable = false, length = 64)
+    private String branchId;
+
+    @Column(name = "department_id", nullable = false, length = 64)
+    private String departmentId;
+
+    // IN or TRANSFER movement that brought the lot in, or the outflow whose deficit it carries
+    @Column(name = "source_movement_id", nullable = false, length = 64)
+    private String sourceMovementId;
+
+    // Null: never expires, consumed after every dated lot
+    @Column(name = "expiration_date")
+    private LocalDate expirationDate;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "initial_quantity", nullable = false, precision = 18, scale = 6)
+    private BigDecimal initialQuantity;
+
+    @Column(name = "remaining_quantity", nullable = false, precision = 18, scale = 6)
+    private BigDecimal remainingQuantity;
+
+    @Column(name = "unit_cost", precision = 18, scale = 6)
+    private BigDecimal unitCost;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = LocalDateTime.now();
+    }
+}
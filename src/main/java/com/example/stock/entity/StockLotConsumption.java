@@ -0,0 +1,34 @@
+package com.example.stock.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Quantity one movement took from one lot, kept so the movement can be reverted lot by lot.
+ */
+@Entity
+@Table(
+    name = "inventory_stock_lot_consumption",
+    indexes = {
+        @Index(name = "idx_lot_consumption_movement", columnList = "movement_id"),
+        @Index(name = "idx_lot_consumption_lot", columnList = "lot_id")
+    }
+)
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class StockLotConsumption {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(name = "movement_id", nullable = false, length = 64)
+    private String movementId;
+
+    @Column(name = "lot_id", nullable = false, length = 64)
+    private String lotId;
+
+    @Column(name = "quantity", nullable = false, precision = 18, scale = 6)
+    private BigDecimal quantity;
+}
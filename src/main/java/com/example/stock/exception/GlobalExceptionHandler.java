@@ -107,6 +107,20 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(errorResponse);
     }
 
+    /**
+     * Handles conflicts with the current state of a resource.
+     */
+    @ExceptionHandler(ResourceConflictException.class)
+    public ResponseEntity<ErrorResponse> handleResourceConflictException(
+            ResourceConflictException ex, WebRequest request) {
+        
+        log.warn("Resource conflict: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.of(ex.getMessage(), "CONFLICT");
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
     /**
      * Handles IllegalArgumentException (business logic errors).
      */
@@ -1,35 +1,294 @@
 package com.example.stock.integration;
 
+import com.example.stock.dto.menuitemssnapshot.PosMenuItemDTO;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
-import lombok.RequiredArgsConstructor;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.HttpMethod;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Arrays;
-import com.example.stock.dto.menuitemssnapshot.PosMenuItemDTO;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Client of the POS stock integration. One shared JDK HTTP client keeps its connections alive
+ * and reuses them across requests. Requests ask for gzip and, given the version of the last
+ * catalog applied, are conditional: an unchanged catalog comes back as a 304 without a body.
+ * The body is parsed as a stream and handed to the caller in chunks as they are read: the
+ * catalog is never held whole, neither as bytes nor as items.
+ *
+ * {@code pos.client.read-timeout-ms} bounds the wait for the response headers and, separately,
+ * every read of the body: a POS that stops sending mid-body has its response cancelled.
+ *
+ * Connection failures, timeouts and 429/502/503/504 answers are retried up to
+ * {@code pos.client.max-attempts} times, with exponential backoff and full jitter, as long as
+ * no chunk was handed over yet; a failure after that ends the fetch.
+ */
 @Component
-@RequiredArgsConstructor
+@Slf4j
 public class PosStockClient {
-    private final RestTemplate restTemplate = new RestTemplate();
-    public List<PosMenuItemDTO> fetchMenuItems(String key) {
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Stock-Key", key);
+    private static final String MENU_ITEMS_PATH = "/api/integrations/stock/menu-items";
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(429, 502, 503, 504);
+
+    /** Validators of a catalog response, sent back to skip an unchanged catalog. */
+    public record CatalogVersion(String etag, String lastModified) {
+        boolean isEmpty() {
+            return etag == null && lastModified == null;
+        }
+    }
+
+    /** Outcome of a fetch; {@code items}, the number handed over, is null when the POS answered 304 Not Modified. */
+    public record Catalog(Integer items, CatalogVersion version) {
+        public boolean notModified() {
+            return items == null;
+        }
+    }
+
+    // Answer worth another attempt; an IOException so it is retried with connection failures
+    private static final class RetryableStatusException extends IOException {
+        RetryableStatusException(int status) {
+            super("POS answered HTTP " + status);
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader itemReader;
+    private final HttpClient httpClient;
+    private final ScheduledThreadPoolExecutor watchdog;
+    private final URI menuItemsUri;
+    private final Duration readTimeout;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+
+    public PosStockClient(ObjectMapper objectMapper,
+                          @Value("${pos.client.base-url:http://localhost:8000}") String baseUrl,
+                          @Value("${pos.client.connect-timeout-ms:2000}") long connectTimeoutMs,
+                          @Value("${pos.client.read-timeout-ms:30000}") long readTimeoutMs,
+                          @Value("${pos.client.max-attempts:3}") int maxAttempts,
+                          @Value("${pos.client.backoff-ms:200}") long backoffMs,
+                          @Value("${pos.client.max-backoff-ms:5000}") long maxBackoffMs) {
+        this.objectMapper = objectMapper;
+        // Fields the POS adds later must not break the sync
+        this.itemReader = objectMapper.readerFor(PosMenuItemDTO.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        CustomizableThreadFactory watchdogThreads = new CustomizableThreadFactory("pos-client-watchdog-");
+        watchdogThreads.setDaemon(true);
+        this.watchdog = new ScheduledThreadPoolExecutor(1, watchdogThreads);
+        this.watchdog.setRemoveOnCancelPolicy(true);
+        this.menuItemsUri = URI.create(baseUrl.replaceAll("/+$", "") + MENU_ITEMS_PATH);
+        this.readTimeout = Duration.ofMillis(readTimeoutMs);
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.backoffMs = Math.max(backoffMs, 0);
+        this.maxBackoffMs = Math.max(maxBackoffMs, this.backoffMs);
+    }
 
-        HttpEntity<Void> request = new HttpEntity<>(headers);
+    /**
+     * Reads the catalog and hands its items to {@code chunks}, in order, {@code chunkSize} at a
+     * time. The catalog is complete only once this returns: on a failure the chunks already
+     * handed over are all there is.
+     *
+     * @param known version of the last catalog applied, or null to always get the catalog
+     */
+    public Catalog fetchMenuItems(String key, CatalogVersion known, int chunkSize, Consumer<List<PosMenuItemDTO>> chunks) {
+        int[] delivered = {0};
+        Consumer<List<PosMenuItemDTO>> counted = chunk -> {
+            chunks.accept(chunk);
+            delivered[0] += chunk.size();
+        };
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return fetchOnce(key, known, Math.max(chunkSize, 1), counted);
+            } catch (IOException failure) {
+                IOException ex = unwrap(failure);
+                // Starting over would hand the first items over twice
+                if (delivered[0] > 0) {
+                    throw new IllegalStateException("POS menu items stream failed after " + delivered[0] + " item(s): " + ex.getMessage(), ex);
+                }
+                // Malformed JSON comes back the same on every attempt; a cut-off body may not
+                if (ex instanceof JsonProcessingException json && !(ex instanceof JsonEOFException)) {
+                    throw new IllegalStateException("Unreadable menu items from POS: " + json.getOriginalMessage(), ex);
+                }
+                if (attempt >= maxAttempts) {
+                    throw new IllegalStateException("POS menu items request failed after " + attempt + " attempt(s): " + ex.getMessage(), ex);
+                }
+                long delay = backoff(attempt);
+                log.warn("POS menu items request failed (attempt {}/{}), retrying in {} ms: {}",
+                        attempt, maxAttempts, delay, ex.getMessage());
+                sleep(delay);
+            }
+        }
+    }
 
-        ResponseEntity<PosMenuItemDTO[]> response =
-                restTemplate.exchange(
-                        "http://localhost:8000/api/integrations/stock/menu-items",
-                        HttpMethod.GET,
-                        request,
-                        PosMenuItemDTO[].class
-                );
-        return Arrays.asList(response.getBody());
+    // Databind wraps the I/O failures of a body read, a timeout or a reset, as mapping errors
+    private static IOException unwrap(IOException ex) {
+        if (ex instanceof JsonMappingException && ex.getCause() instanceof IOException io
+                && !(io instanceof JsonProcessingException)) {
+            return io;
+        }
+        return ex;
     }
 
+    private Catalog fetchOnce(String key, CatalogVersion known, int chunkSize,
+                              Consumer<List<PosMenuItemDTO>> chunks) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(menuItemsUri)
+                .timeout(readTimeout)
+                .header("X-Stock-Key", key)
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .GET();
+        if (known != null) {
+            if (known.etag() != null) request.header("If-None-Match", known.etag());
+            if (known.lastModified() != null) request.header("If-Modified-Since", known.lastModified());
+        }
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling the POS", ex);
+        }
+        try (InputStream body = new WatchedBody(response.body())) {
+            int status = response.statusCode();
+            if (status == 304) {
+                return new Catalog(null, known);
+            }
+            if (RETRYABLE_STATUSES.contains(status)) {
+                throw new RetryableStatusException(status);
+            }
+            if (status / 100 != 2) {
+                throw new IllegalStateException("POS menu items request failed with HTTP " + status);
+            }
+            boolean gzip = response.headers().firstValue("Content-Encoding").filter("gzip"::equalsIgnoreCase).isPresent();
+            int items = parse(gzip ? new GZIPInputStream(body) : body, chunkSize, chunks);
+            CatalogVersion version = new CatalogVersion(response.headers().firstValue("ETag").orElse(null),
+                    response.headers().firstValue("Last-Modified").orElse(null));
+            return new Catalog(items, version.isEmpty() ? null : version);
+        }
+    }
 
+    private int parse(InputStream in, int chunkSize, Consumer<List<PosMenuItemDTO>> chunks) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalStateException("POS menu items response is not an array");
+            }
+            int items = 0;
+            List<PosMenuItemDTO> chunk = new ArrayList<>(chunkSize);
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                chunk.add(itemReader.readValue(parser));
+                items++;
+                if (chunk.size() == chunkSize) {
+                    chunks.accept(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            // A partial catalog would delete every item after the bad element
+            if (token != JsonToken.END_ARRAY) {
+                throw new IllegalStateException("POS menu items response has an element that is not an object: " + token);
+            }
+            if (!chunk.isEmpty()) {
+                chunks.accept(chunk);
+            }
+            return items;
+        }
+    }
+
+    // The request timeout stops at the headers: each body read gets its own deadline
+    private final class WatchedBody extends FilterInputStream {
+
+        private interface Read {
+            int run() throws IOException;
+        }
+
+        private volatile boolean timedOut;
+
+        WatchedBody(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            return watched(super::read);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return watched(() -> super.read(b, off, len));
+        }
+
+        private int watched(Read read) throws IOException {
+            ScheduledFuture<?> deadline = watchdog.schedule(this::cancel, readTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            try {
+                return read.run();
+            } catch (IOException ex) {
+                if (timedOut) {
+                    throw new HttpTimeoutException("POS sent no body data for " + readTimeout.toMillis() + " ms");
+                }
+                throw ex;
+            } finally {
+                deadline.cancel(false);
+            }
+        }
+
+        // Closing the body stream cancels the exchange and wakes up the blocked read
+        private void cancel() {
+            timedOut = true;
+            try {
+                in.close();
+            } catch (IOException ex) {
+                log.debug("Closing a stalled POS response failed", ex);
+            }
+        }
+    }
+
+    // Full jitter: uniform in [0, min(max, base * 2^(attempt-1))]
+    private long backoff(int attempt) {
+        long cap = Math.min(maxBackoffMs, backoffMs << Math.min(attempt - 1, 20));
+        return cap > 0 ? ThreadLocalRandom.current().nextLong(cap + 1) : 0;
+    }
+
+    private static void sleep(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry the POS", ex);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        watchdog.shutdownNow();
+    }
 }
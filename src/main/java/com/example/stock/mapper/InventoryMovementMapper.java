@@ -48,6 +48,9 @@ public interface InventoryMovementMapper {
     @Mapping(target = "destinationBranch", ignore = true)
     @Mapping(target = "departmentId", ignore = true)
     @Mapping(target = "destinationDepartmentId", ignore = true)
+    @Mapping(target = "stockApplied", ignore = true)
+    @Mapping(target = "itemCategoryId", ignore = true)
+    @Mapping(target = "itemNameNormalized", ignore = true)
     InventoryMovement toEntity(InventoryMovementCreateDTO createDTO);
 
     /**
@@ -98,6 +101,9 @@ public interface InventoryMovementMapper {
     @Mapping(target = "destinationBranch", ignore = true)
     @Mapping(target = "departmentId", ignore = true)
     @Mapping(target = "destinationDepartmentId", ignore = true)
+    @Mapping(target = "stockApplied", ignore = true)
+    @Mapping(target = "itemCategoryId", ignore = true)
+    @Mapping(target = "itemNameNormalized", ignore = true)
     void updateEntityFromDTO(InventoryMovementUpdateDTO updateDTO, @MappingTarget InventoryMovement inventoryMovement);
 
     /**
@@ -17,6 +17,7 @@ public interface MenuItemMapper {
     @Mapping(target = "id", ignore = true) // Ignorer l'ID lors du mapping
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "contentHash", ignore = true)
     MenuItemSnapshot toEntity(PosMenuItemDTO dto);
 
     @Mapping(source = "posMenuItemId", target = "posMenuItemId")
@@ -35,6 +35,7 @@ public interface RecipeMapper {
         return RecipeResponseDTO.IngredientResponseDTO.builder()
             .id(ingredient.getId())
             .inventoryItemId(ingredient.getInventoryItemId())
+            .subRecipeId(ingredient.getSubRecipeId())
             .quantity(ingredient.getQuantity())
             .createdAt(ingredient.getCreatedAt())
             .updatedAt(ingredient.getUpdatedAt())
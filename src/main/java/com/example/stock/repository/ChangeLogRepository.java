@@ -0,0 +1,70 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.ChangeLogEntry;
+import com.example.stock.entity.ChangeLogEntry.Operation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The native clock statements are PostgreSQL-only ({@code on conflict}).
+ */
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+    @Query("""
+        select e from ChangeLogEntry e
+        where e.branchId = :branchId and e.commitSeq > :after
+        order by e.commitSeq
+        """)
+    List<ChangeLogEntry> findPage(@Param("branchId") String branchId, @Param("after") long after, Pageable pageable);
+
+    @Query("select coalesce(max(e.commitSeq), 0) from ChangeLogEntry e")
+    long findHead();
+
+    // Entries a later entry for the same entity and branch supersedes
+    @Modifying
+    @Query("""
+        delete from ChangeLogEntry e
+        where e.commitSeq <= :upTo
+          and exists (select 1 from ChangeLogEntry x
+                      where x.entityType = e.entityType and x.entityId = e.entityId
+                        and x.branchId = e.branchId and x.commitSeq > e.commitSeq)
+        """)
+    int deleteSuperseded(@Param("upTo") long upTo);
+
+    @Modifying
+    @Query("delete from ChangeLogEntry e where e.operation = :operation and e.changedAt < :before")
+    int deleteByOperationBefore(@Param("operation") Operation operation, @Param("before") LocalDateTime before);
+
+    // Commit ordering (PostgreSQL): the clock row stays locked until the transaction ends
+
+    @Modifying
+    @Query(value = "update change_log_clock set last_seq = last_seq + :count where id = 1", nativeQuery = true)
+    int advanceClock(@Param("count") long count);
+
+    @Modifying
+    @Query(value = """
+        insert into change_log_clock (id, last_seq)
+        select 1, coalesce(max(commit_seq), 0) from change_log
+        on conflict (id) do nothing
+        """, nativeQuery = true)
+    int initClock();
+
+    @Query(value = "select last_seq from change_log_clock where id = 1", nativeQuery = true)
+    long findClock();
+
+    // Numbers the entries base + 1, base + 2, ... in id order
+    @Modifying
+    @Query(value = """
+        update change_log c set commit_seq = :base + s.rn
+        from (select id, row_number() over (order by id) as rn from change_log where id in (:ids)) s
+        where c.id = s.id
+        """, nativeQuery = true)
+    int assignCommitSeq(@Param("ids") Collection<Long> ids, @Param("base") long base);
+}
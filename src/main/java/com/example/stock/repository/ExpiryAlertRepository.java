@@ -0,0 +1,30 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.ExpiryAlert;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ExpiryAlertRepository extends JpaRepository<ExpiryAlert, String> {
+
+    // Alerts already fired for lots that can still be scheduled
+    @Query("select a.id from ExpiryAlert a where a.expirationDate >= :from")
+    List<String> findIdsByExpirationDateFrom(@Param("from") LocalDate from);
+
+    @Query("""
+        select a from ExpiryAlert a
+        where a.firedAt >= :since
+          and (:branchId is null or a.branchId = :branchId)
+          and (:departmentId is null or a.departmentId = :departmentId)
+        order by a.firedAt desc, a.id
+        """)
+    List<ExpiryAlert> findFired(@Param("since") LocalDateTime since,
+                                @Param("branchId") String branchId,
+                                @Param("departmentId") String departmentId,
+                                Pageable pageable);
+}
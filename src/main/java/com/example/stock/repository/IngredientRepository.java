@@ -2,8 +2,12 @@ package com.example.stock.repository;
 
 import com.example.stock.entity.Ingredient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,4 +16,40 @@ public interface IngredientRepository extends JpaRepository<Ingredient, String>
     List<Ingredient> findByRecipeId(String recipeId);
     
     void deleteByRecipeId(String recipeId);
-}
\ No newline at end of file
+
+    boolean existsBySubRecipeId(String subRecipeId);
+
+    interface RecipeIngredientRow {
+        String getRecipeId();
+        Long getSellableItemId();
+        String getInventoryItemId();
+        String getSubRecipeId();
+        BigDecimal getQuantity();
+    }
+
+    @Query("""
+        select r.id as recipeId, r.sellableItemId as sellableItemId, i.inventoryItemId as inventoryItemId,
+               i.subRecipeId as subRecipeId, i.quantity as quantity
+        from Ingredient i join i.recipe r
+        where r.sellableItemId in :sellableItemIds
+        order by r.id, i.inventoryItemId, i.subRecipeId
+        """)
+    List<RecipeIngredientRow> findRowsBySellableItemIds(@Param("sellableItemIds") Collection<Long> sellableItemIds);
+
+    @Query("""
+        select r.id as recipeId, r.sellableItemId as sellableItemId, i.inventoryItemId as inventoryItemId,
+               i.subRecipeId as subRecipeId, i.quantity as quantity
+        from Ingredient i join i.recipe r
+        where r.id in :recipeIds
+        order by r.id, i.inventoryItemId, i.subRecipeId
+        """)
+    List<RecipeIngredientRow> findRowsByRecipeIds(@Param("recipeIds") Collection<String> recipeIds);
+
+    interface SubRecipeEdge {
+        String getRecipeId();
+        String getSubRecipeId();
+    }
+
+    @Query("select i.recipeId as recipeId, i.subRecipeId as subRecipeId from Ingredient i where i.subRecipeId is not null")
+    List<SubRecipeEdge> findSubRecipeEdges();
+}
@@ -6,10 +6,16 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for InventoryItem entity operations.
@@ -126,4 +132,58 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, St
      */
     @Query("SELECT COUNT(i) > 0 FROM InventoryItem i WHERE i.unit.id = :unitId")
     boolean existsByUnitId(@Param("unitId") String unitId);
-}
\ No newline at end of file
+
+    /**
+     * Scalar threshold data of one item (nothing attached to the persistence context).
+     */
+    interface ThresholdRow {
+        String getId();
+        String getName();
+        int getThresholdQuantity();
+        String getBranchId();
+        String getDepartmentId();
+    }
+
+    /**
+     * Every item's threshold, streamed for the stock status warm-up. Must run inside a (read-only) transaction.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "2000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT i.id AS id, i.name AS name, i.thresholdQuantity AS thresholdQuantity, " +
+           "i.branchId AS branchId, i.departmentId AS departmentId FROM InventoryItem i")
+    Stream<ThresholdRow> streamThresholds();
+
+    @Query("SELECT DISTINCT i.branchId FROM InventoryItem i")
+    List<String> findDistinctBranchIds();
+
+    /**
+     * Reorder parameters of one item.
+     */
+    interface ReorderRow {
+        String getId();
+        String getName();
+        String getDepartmentId();
+        int getThresholdQuantity();
+        int getReorderQuantity();
+    }
+
+    @Query("SELECT i.id AS id, i.name AS name, i.departmentId AS departmentId, " +
+           "i.thresholdQuantity AS thresholdQuantity, i.reorderQuantity AS reorderQuantity " +
+           "FROM InventoryItem i WHERE i.branchId = :branchId")
+    List<ReorderRow> findReorderRowsByBranchId(@Param("branchId") String branchId);
+
+    /**
+     * Category of one item, for valuation totals.
+     */
+    interface ItemCategoryRow {
+        String getId();
+        String getCategoryId();
+        String getCategoryName();
+    }
+
+    @Query("SELECT i.id AS id, c.id AS categoryId, c.name AS categoryName " +
+           "FROM InventoryItem i JOIN i.category c WHERE i.id IN :ids")
+    List<ItemCategoryRow> findCategoryRowsByIdIn(@Param("ids") Collection<String> ids);
+}
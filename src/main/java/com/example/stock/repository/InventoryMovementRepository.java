@@ -1,12 +1,29 @@
 package com.example.stock.repository;
 
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import java.util.*;
+import java.util.stream.Stream;
 import com.example.stock.entity.InventoryMovement;
 
+/**
+ * The native item backfill ({@code update ... from}) is PostgreSQL-only; the H2 repository
+ * tests cover the JPQL queries alone.
+ */
 public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, String>, JpaSpecificationExecutor<InventoryMovement> {
     // -----------------------------
     // Basics / Existence
@@ -16,6 +33,19 @@ public interface InventoryMovementRepository extends JpaRepository<InventoryMove
     boolean existsByDepartmentId(String departmentId);
     boolean existsByDestinationDepartmentId(String departmentId);
 
+    // -----------------------------
+    // List pages
+    // -----------------------------
+    // Item and supplier names are rendered on every row: load both to-one associations in the page
+    // select (paging stays in SQL) instead of one lazy select per row. The count query is unaffected.
+    @Override
+    @EntityGraph(attributePaths = {"inventoryItem", "supplier"})
+    Page<InventoryMovement> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"inventoryItem", "supplier"})
+    Page<InventoryMovement> findAll(Specification<InventoryMovement> spec, Pageable pageable);
+
     // -----------------------------
     // Simple finders with pagination
     // -----------------------------
@@ -29,4 +59,160 @@ public interface InventoryMovementRepository extends JpaRepository<InventoryMove
     List<InventoryMovement> findAllByOrderByUpdatedAtDesc();
     Page<InventoryMovement> findAllByOrderByUpdatedAtDesc(Pageable pageable);
     Page<InventoryMovement> findByBranchIdOrderByUpdatedAtDesc(String branchId, Pageable pageable);
+
+    // -----------------------------
+    // Write-behind stock buffer
+    // -----------------------------
+    @Query("select m from InventoryMovement m where m.stockApplied = false and m.createdAt < :before order by m.createdAt, m.id")
+    List<InventoryMovement> findStockPendingBefore(@Param("before") LocalDateTime before, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select m from InventoryMovement m where m.id in :ids and m.stockApplied = false")
+    List<InventoryMovement> lockStockPending(@Param("ids") Collection<String> ids);
+
+    @Modifying
+    @Query("update InventoryMovement m set m.stockApplied = true where m.id in :ids")
+    int markStockApplied(@Param("ids") Collection<String> ids);
+
+    // -----------------------------
+    // Stock rebuild (history replay)
+    // -----------------------------
+    /** Scalar row for replay: nothing is attached to the persistence context, departments already resolved. */
+    interface StockReplayRow {
+        String getId();
+        String getInventoryItemId();
+        String getBranchId();
+        String getDepartmentId();
+        String getDestinationBranchId();
+        String getDestinationDepartmentId();
+        InventoryMovement.TransactionType getTransactionType();
+        BigDecimal getQuantity();
+        BigDecimal getUnitPurchasePrice();
+        LocalDateTime getCreatedAt();
+    }
+
+    @Query("select distinct m.inventoryItemId from InventoryMovement m")
+    List<String> findDistinctInventoryItemIds();
+
+    @Query("select distinct m.inventoryItemId from InventoryMovement m where m.branchId = :branchId or m.destinationBranchId = :branchId")
+    List<String> findDistinctInventoryItemIdsByBranch(@Param("branchId") String branchId);
+
+    // Applied movements up to the cutoff, item by item in application order; must run inside a (read-only) transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "2000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        select m.id as id, m.inventoryItemId as inventoryItemId, m.branchId as branchId,
+               coalesce(m.departmentId, i.departmentId) as departmentId,
+               m.destinationBranchId as destinationBranchId,
+               coalesce(m.destinationDepartmentId, m.departmentId, i.departmentId) as destinationDepartmentId,
+               m.transactionType as transactionType, m.quantity as quantity,
+               m.unitPurchasePrice as unitPurchasePrice, m.createdAt as createdAt
+        from InventoryMovement m left join m.inventoryItem i
+        where m.inventoryItemId in :itemIds and m.createdAt <= :cutoff
+          and (m.stockApplied is null or m.stockApplied = true)
+        order by m.inventoryItemId, m.createdAt, m.id
+        """)
+    Stream<StockReplayRow> streamForReplay(@Param("itemIds") Collection<String> itemIds, @Param("cutoff") LocalDateTime cutoff);
+
+    // -----------------------------
+    // Point-in-time history (checkpoints)
+    // -----------------------------
+    @Query("select distinct m.inventoryItemId from InventoryMovement m where m.createdAt > :after and m.createdAt <= :upTo")
+    List<String> findDistinctInventoryItemIdsBetween(@Param("after") LocalDateTime after, @Param("upTo") LocalDateTime upTo);
+
+    @Query("""
+        select distinct m.inventoryItemId from InventoryMovement m
+        where m.createdAt > :after and m.createdAt <= :upTo
+          and (m.branchId = :branchId or m.destinationBranchId = :branchId)
+        """)
+    List<String> findDistinctInventoryItemIdsByBranchBetween(@Param("branchId") String branchId,
+                                                             @Param("after") LocalDateTime after,
+                                                             @Param("upTo") LocalDateTime upTo);
+
+    // Every recorded movement in (after, upTo], item by item in application order
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "2000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        select m.id as id, m.inventoryItemId as inventoryItemId, m.branchId as branchId,
+               coalesce(m.departmentId, i.departmentId) as departmentId,
+               m.destinationBranchId as destinationBranchId,
+               coalesce(m.destinationDepartmentId, m.departmentId, i.departmentId) as destinationDepartmentId,
+               m.transactionType as transactionType, m.quantity as quantity,
+               m.unitPurchasePrice as unitPurchasePrice, m.createdAt as createdAt
+        from InventoryMovement m left join m.inventoryItem i
+        where m.inventoryItemId in :itemIds and m.createdAt > :after and m.createdAt <= :upTo
+        order by m.inventoryItemId, m.createdAt, m.id
+        """)
+    Stream<StockReplayRow> streamHistory(@Param("itemIds") Collection<String> itemIds,
+                                         @Param("after") LocalDateTime after,
+                                         @Param("upTo") LocalDateTime upTo);
+
+    // -----------------------------
+    // Denormalized item attributes
+    // -----------------------------
+    // One slice of an item's movements whose copy no longer matches the item (PostgreSQL UPDATE ... FROM).
+    // The values are read from the item row, so a slice never writes back an older edit.
+    @Modifying
+    @Query(value = """
+        update inventory_movement m
+        set item_category_id = i.inventory_item_category_id,
+            item_name_normalized = lower(trim(i.name))
+        from inventory_item i
+        where i.id = m.inventory_item_id
+          and m.id in (
+            select mv.id from inventory_movement mv
+            join inventory_item it on it.id = mv.inventory_item_id
+            where mv.inventory_item_id = :itemId
+              and (mv.item_category_id is distinct from it.inventory_item_category_id
+                   or mv.item_name_normalized is distinct from lower(trim(it.name)))
+            limit :batchSize)
+        """, nativeQuery = true)
+    int refreshItemAttributes(@Param("itemId") String itemId, @Param("batchSize") int batchSize);
+
+    // One backfill slice of rows written before the columns existed (PostgreSQL UPDATE ... FROM).
+    // Rows whose item no longer exists are never selected, so repeated slices always make progress.
+    @Modifying
+    @Query(value = """
+        update inventory_movement m
+        set item_category_id = i.inventory_item_category_id,
+            item_name_normalized = lower(trim(i.name)),
+            department_id = coalesce(m.department_id, i.department_id)
+        from inventory_item i
+        where i.id = m.inventory_item_id
+          and m.id in (
+            select mv.id from inventory_movement mv
+            join inventory_item it on it.id = mv.inventory_item_id
+            where mv.item_name_normalized is null
+            limit :batchSize)
+        """, nativeQuery = true)
+    int backfillItemAttributes(@Param("batchSize") int batchSize);
+
+    // -----------------------------
+    // Reorder suggestions
+    // -----------------------------
+    interface ItemSupplierRow {
+        String getInventoryItemId();
+        String getSupplierId();
+    }
+
+    // Supplier of the latest receipt of each item of a branch (ties may yield several rows per item)
+    @Query("""
+        select m.inventoryItemId as inventoryItemId, m.supplierId as supplierId
+        from InventoryMovement m
+        where m.branchId = :branchId
+          and m.transactionType = :type
+          and m.supplierId is not null
+          and m.createdAt = (
+            select max(l.createdAt) from InventoryMovement l
+            where l.inventoryItemId = m.inventoryItemId
+              and l.branchId = m.branchId
+              and l.transactionType = :type
+              and l.supplierId is not null)
+        """)
+    List<ItemSupplierRow> findLatestSuppliersByBranch(@Param("branchId") String branchId,
+                                                      @Param("type") InventoryMovement.TransactionType type);
 }
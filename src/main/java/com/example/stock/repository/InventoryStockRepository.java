@@ -7,11 +7,18 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface InventoryStockRepository
         extends JpaRepository<InventoryStock, String>, JpaSpecificationExecutor<InventoryStock> {
@@ -26,6 +33,14 @@ public interface InventoryStockRepository
     // -----------------------------
     List<InventoryStock> findByInventoryItemId(String inventoryItemId);
 
+    List<InventoryStock> findByInventoryItemIdIn(Collection<String> inventoryItemIds);
+
+    @Query("select distinct s.inventoryItemId from InventoryStock s where s.branchId = :branchId")
+    List<String> findDistinctInventoryItemIdsByBranch(@Param("branchId") String branchId);
+
+    @Query("select distinct s.inventoryItemId from InventoryStock s")
+    List<String> findDistinctInventoryItemIds();
+
     Optional<InventoryStock> findByInventoryItemIdAndBranchIdAndDepartmentId(String inventoryItemId, String branchId,
             String departmentId);
 
@@ -42,4 +57,65 @@ public interface InventoryStockRepository
     Optional<InventoryStock> lockByItemBranchDept(@Param("inventoryItemId") String inventoryItemId,
             @Param("branchId") String branchId,
             @Param("departmentId") String departmentId);
+
+    // -----------------------------
+    // Stock status warm-up
+    // -----------------------------
+    /** Scalar quantity of one stock row. */
+    interface QuantityRow {
+        String getInventoryItemId();
+        String getBranchId();
+        String getDepartmentId();
+        BigDecimal getCurrentQuantity();
+    }
+
+    // Must run inside a (read-only) transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "2000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        select s.inventoryItemId as inventoryItemId, s.branchId as branchId,
+               s.departmentId as departmentId, s.currentQuantity as currentQuantity
+        from InventoryStock s
+        """)
+    Stream<QuantityRow> streamQuantities();
+
+    @Query("""
+        select s.inventoryItemId as inventoryItemId, s.branchId as branchId,
+               s.departmentId as departmentId, s.currentQuantity as currentQuantity
+        from InventoryStock s
+        where s.branchId = :branchId
+        """)
+    List<QuantityRow> findQuantitiesByBranch(@Param("branchId") String branchId);
+
+    interface ItemQuantityRow {
+        String getInventoryItemId();
+        BigDecimal getQuantity();
+    }
+
+    // On-hand quantity of each item of a branch, summed over its departments
+    @Query("""
+        select s.inventoryItemId as inventoryItemId, sum(s.currentQuantity) as quantity
+        from InventoryStock s
+        where s.branchId = :branchId
+        group by s.inventoryItemId
+        """)
+    List<ItemQuantityRow> sumQuantitiesByBranch(@Param("branchId") String branchId);
+
+    interface ItemCostRow {
+        String getInventoryItemId();
+        String getDepartmentId();
+        // Department of the item itself
+        String getHomeDepartmentId();
+        BigDecimal getAverageUnitCost();
+    }
+
+    @Query("""
+        select s.inventoryItemId as inventoryItemId, s.departmentId as departmentId,
+               i.departmentId as homeDepartmentId, s.averageUnitCost as averageUnitCost
+        from InventoryStock s join InventoryItem i on i.id = s.inventoryItemId
+        where s.branchId = :branchId and s.inventoryItemId in :itemIds
+        """)
+    List<ItemCostRow> findCostRows(@Param("branchId") String branchId, @Param("itemIds") Collection<String> itemIds);
 }
@@ -2,8 +2,12 @@ package com.example.stock.repository;
 
 import com.example.stock.entity.MenuItemSnapshot;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +15,14 @@ public interface MenuItemSnapshotRepository
         extends JpaRepository<MenuItemSnapshot, Long> {
 
     Optional<MenuItemSnapshot> findByPosMenuItemId(Long posMenuItemId);
-}
\ No newline at end of file
+
+    List<MenuItemSnapshot> findByPosMenuItemIdIn(Collection<Long> posMenuItemIds);
+
+    interface PosIdRow {
+        Long getId();
+        Long getPosMenuItemId();
+    }
+
+    @Query("select m.id as id, m.posMenuItemId as posMenuItemId from MenuItemSnapshot m where m.posMenuItemId in :posIds")
+    List<PosIdRow> findIdsByPosMenuItemIds(@Param("posIds") Collection<Long> posIds);
+}
@@ -4,6 +4,7 @@ import com.example.stock.entity.MenuItemVariationSnapshot;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository 
@@ -12,4 +13,7 @@ public interface MenuItemVariationSnapshotRepository extends JpaRepository<MenuI
     List<MenuItemVariationSnapshot> findByMenuItemSnapshotId(Long menuItemSnapshotId);
 
     boolean existsByMenuItemSnapshotId(Long menuItemSnapshotId);
+
+    // The given variations, wherever they are now, and every variation of the given snapshots
+    List<MenuItemVariationSnapshot> findByIdInOrMenuItemSnapshotIdIn(Collection<Long> ids, Collection<Long> menuItemSnapshotIds);
 }
\ No newline at end of file
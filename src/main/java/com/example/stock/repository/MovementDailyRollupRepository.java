@@ -0,0 +1,100 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.InventoryMovement;
+import com.example.stock.entity.MovementDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The native upsert and rebuild statements are PostgreSQL-only ({@code on conflict}); the
+ * application runs on PostgreSQL in every profile.
+ */
+public interface MovementDailyRollupRepository extends JpaRepository<MovementDailyRollup, String> {
+
+    @Query("""
+        select r from MovementDailyRollup r
+        where r.day between :from and :to
+          and (:branchId is null or r.branchId = :branchId)
+          and (:departmentId is null or r.departmentId = :departmentId)
+          and (:itemId is null or r.inventoryItemId = :itemId)
+          and (:type is null or r.transactionType = :type)
+          and r.movementCount > 0
+        order by r.day, r.branchId, r.departmentId, r.inventoryItemId, r.transactionType
+        """)
+    List<MovementDailyRollup> search(@Param("from") LocalDate from,
+                                     @Param("to") LocalDate to,
+                                     @Param("branchId") String branchId,
+                                     @Param("departmentId") String departmentId,
+                                     @Param("itemId") String inventoryItemId,
+                                     @Param("type") InventoryMovement.TransactionType type);
+
+    // Adds a signed delta to one key, creating the row on first use (PostgreSQL upsert)
+    @Modifying
+    @Query(value = """
+        insert into inventory_movement_daily_rollup as r
+            (id, day, branch_id, department_id, inventory_item_id, transaction_type,
+             total_quantity, total_value, movement_count, updated_at)
+        values (:id, :day, :branchId, :departmentId, :itemId, :type, :quantity, :value, :count, now())
+        on conflict (id) do update set
+            total_quantity = r.total_quantity + excluded.total_quantity,
+            total_value = r.total_value + excluded.total_value,
+            movement_count = r.movement_count + excluded.movement_count,
+            updated_at = excluded.updated_at
+        """, nativeQuery = true)
+    int addDelta(@Param("id") String id,
+                 @Param("day") LocalDate day,
+                 @Param("branchId") String branchId,
+                 @Param("departmentId") String departmentId,
+                 @Param("itemId") String inventoryItemId,
+                 @Param("type") String transactionType,
+                 @Param("quantity") BigDecimal quantity,
+                 @Param("value") BigDecimal value,
+                 @Param("count") long count);
+
+    @Modifying
+    @Query("delete from MovementDailyRollup r where r.day = :day")
+    int deleteByDay(@Param("day") LocalDate day);
+
+    // Recomputes one day from the raw movements (after deleteByDay, in the same transaction)
+    @Modifying
+    @Query(value = """
+        insert into inventory_movement_daily_rollup
+            (id, day, branch_id, department_id, inventory_item_id, transaction_type,
+             total_quantity, total_value, movement_count, updated_at)
+        select concat_ws(':', cast(:day as varchar), m.branch_id, m.department_id, m.inventory_item_id, m.transaction_type),
+               :day, m.branch_id, m.department_id, m.inventory_item_id, m.transaction_type,
+               sum(m.quantity), sum(m.quantity * coalesce(m.unit_purchase_price, 0)), count(*), now()
+        from inventory_movement m
+        where m.created_at >= :start and m.created_at < :end
+          and m.department_id is not null
+        group by m.branch_id, m.department_id, m.inventory_item_id, m.transaction_type
+        """, nativeQuery = true)
+    int rebuildDay(@Param("day") LocalDate day, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    interface ItemTotalRow {
+        String getInventoryItemId();
+        BigDecimal getQuantity();
+    }
+
+    // Per-item quantity of the given movement types over [from, to) in one branch
+    @Query("""
+        select r.inventoryItemId as inventoryItemId, sum(r.totalQuantity) as quantity
+        from MovementDailyRollup r
+        where r.branchId = :branchId
+          and r.day >= :from and r.day < :to
+          and r.transactionType in :types
+        group by r.inventoryItemId
+        """)
+    List<ItemTotalRow> sumQuantitiesByItem(@Param("branchId") String branchId,
+                                           @Param("from") LocalDate from,
+                                           @Param("to") LocalDate to,
+                                           @Param("types") Collection<InventoryMovement.TransactionType> types);
+}
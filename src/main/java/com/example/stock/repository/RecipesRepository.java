@@ -1,9 +1,15 @@
 package com.example.stock.repository;
 
 import com.example.stock.entity.Recipes;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +18,18 @@ public interface RecipesRepository extends JpaRepository<Recipes, String> {
     Optional<Recipes> findBySellableItemId(Long sellableItemId);
     
     boolean existsBySellableItemId(Long sellableItemId);
-}
\ No newline at end of file
+
+    interface MenuRecipeRow {
+        String getId();
+        Long getSellableItemId();
+    }
+
+    // Recipes sold as menu items, i.e. attached to a sellable item
+    @Query("select r.id as id, r.sellableItemId as sellableItemId from Recipes r where r.sellableItemId is not null order by r.id")
+    List<MenuRecipeRow> findMenuRecipes();
+
+    // Id order, so that concurrent edits of overlapping sub-recipe graphs cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from Recipes r where r.id in :ids order by r.id")
+    List<Recipes> lockByIdIn(@Param("ids") Collection<String> ids);
+}
@@ -4,6 +4,7 @@ import com.example.stock.entity.SellableItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +14,8 @@ public interface SellableItemRepository
 
     List<SellableItem> findByMenuItemSnapshotId(Long menuItemSnapshotId);
 
+    List<SellableItem> findByMenuItemSnapshotIdIn(Collection<Long> menuItemSnapshotIds);
+
     Optional<SellableItem> findByMenuItemSnapshotIdAndMenuItemVariationSnapshotId(
             Long menuItemSnapshotId, 
             Long menuItemVariationSnapshotId);
@@ -0,0 +1,37 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.StockCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface StockCheckpointRepository extends JpaRepository<StockCheckpoint, String> {
+
+    @Query("select max(c.asOf) from StockCheckpoint c where c.asOf <= :at")
+    LocalDateTime findLatestAsOfAtOrBefore(@Param("at") LocalDateTime at);
+
+    boolean existsByAsOf(LocalDateTime asOf);
+
+    List<StockCheckpoint> findByAsOfAndInventoryItemIdIn(LocalDateTime asOf, Collection<String> inventoryItemIds);
+
+    @Query("select distinct c.inventoryItemId from StockCheckpoint c where c.asOf = :asOf")
+    List<String> findDistinctInventoryItemIds(@Param("asOf") LocalDateTime asOf);
+
+    @Query("select distinct c.inventoryItemId from StockCheckpoint c where c.asOf = :asOf and c.branchId = :branchId")
+    List<String> findDistinctInventoryItemIdsByBranch(@Param("asOf") LocalDateTime asOf, @Param("branchId") String branchId);
+
+    @Query("select max(c.asOf) from StockCheckpoint c where c.asOf < :at")
+    LocalDateTime findLatestAsOfBefore(@Param("at") LocalDateTime at);
+
+    @Query("select distinct c.asOf from StockCheckpoint c where c.asOf >= :from order by c.asOf")
+    List<LocalDateTime> findAsOfsFrom(@Param("from") LocalDateTime from);
+
+    @Modifying
+    @Query("delete from StockCheckpoint c where c.asOf = :asOf and c.inventoryItemId = :itemId")
+    int deleteByAsOfAndInventoryItemId(@Param("asOf") LocalDateTime asOf, @Param("itemId") String inventoryItemId);
+}
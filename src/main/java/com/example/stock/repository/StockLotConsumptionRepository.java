@@ -0,0 +1,11 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.StockLotConsumption;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface StockLotConsumptionRepository extends JpaRepository<StockLotConsumption, String> {
+
+    List<StockLotConsumption> findByMovementId(String movementId);
+}
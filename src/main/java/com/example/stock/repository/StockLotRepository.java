@@ -0,0 +1,78 @@
+package com.example.stock.repository;
+
+import com.example.stock.entity.StockLot;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface StockLotRepository extends JpaRepository<StockLot, String> {
+
+    // Lots of a key that still hold stock; callers hold the key's stock row lock
+    @Query("""
+        select l from StockLot l
+        where l.inventoryItemId = :itemId and l.branchId = :branchId and l.departmentId = :departmentId
+          and l.remainingQuantity > 0
+        """)
+    List<StockLot> findOpenLots(@Param("itemId") String inventoryItemId,
+                                @Param("branchId") String branchId,
+                                @Param("departmentId") String departmentId);
+
+    // Lots of a key below zero, oldest first: what was taken beyond the lots on hand
+    @Query("""
+        select l from StockLot l
+        where l.inventoryItemId = :itemId and l.branchId = :branchId and l.departmentId = :departmentId
+          and l.remainingQuantity < 0
+        order by l.receivedAt, l.id
+        """)
+    List<StockLot> findDeficitLots(@Param("itemId") String inventoryItemId,
+                                   @Param("branchId") String branchId,
+                                   @Param("departmentId") String departmentId);
+
+    List<StockLot> findBySourceMovementId(String sourceMovementId);
+
+    // Range scan on (branch_id, expiration_date); lots without expiry never match
+    @Query("""
+        select l from StockLot l
+        where l.branchId = :branchId
+          and l.expirationDate <= :until
+          and l.remainingQuantity > 0
+          and (:departmentId is null or l.departmentId = :departmentId)
+        order by l.expirationDate, l.receivedAt, l.id
+        """)
+    List<StockLot> findExpiring(@Param("branchId") String branchId,
+                                @Param("until") LocalDate until,
+                                @Param("departmentId") String departmentId,
+                                Pageable pageable);
+
+    interface DatedLotRow {
+        String getId();
+        String getInventoryItemId();
+        String getBranchId();
+        String getDepartmentId();
+        LocalDate getExpirationDate();
+        BigDecimal getRemainingQuantity();
+    }
+
+    // Seeds the expiry alert wheel; callers close the stream inside a transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "2000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        select l.id as id, l.inventoryItemId as inventoryItemId, l.branchId as branchId,
+               l.departmentId as departmentId, l.expirationDate as expirationDate,
+               l.remainingQuantity as remainingQuantity
+        from StockLot l
+        where l.expirationDate >= :from and l.remainingQuantity > 0
+        """)
+    Stream<DatedLotRow> streamOpenDatedLots(@Param("from") LocalDate from);
+}
@@ -0,0 +1,23 @@
+package com.example.stock.scheduler;
+
+import com.example.stock.service.ChangeFeedService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compacts the change log: one entry per entity and branch, delete markers kept for the retention.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "inventory.change-feed.compaction.enabled", havingValue = "true", matchIfMissing = true)
+public class ChangeLogCompactionScheduler {
+
+    private final ChangeFeedService changeFeedService;
+
+    @Scheduled(cron = "${inventory.change-feed.compaction.cron:0 40 3 * * *}")
+    public void compact() {
+        changeFeedService.compact();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.stock.scheduler;
+
+import com.example.stock.service.ExpiryAlertService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns the expiry alert wheel; each tick only visits the timers that are due.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "inventory.expiry-alert.enabled", havingValue = "true", matchIfMissing = true)
+public class ExpiryAlertScheduler {
+
+    private final ExpiryAlertService expiryAlertService;
+
+    @Scheduled(fixedDelayString = "${inventory.expiry-alert.tick-ms:60000}")
+    public void tick() {
+        expiryAlertService.tick();
+    }
+}
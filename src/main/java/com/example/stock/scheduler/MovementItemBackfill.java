@@ -0,0 +1,89 @@
+package com.example.stock.scheduler;
+
+import com.example.stock.repository.InventoryMovementRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.function.IntSupplier;
+
+/**
+ * Fills the denormalized item columns of movements written before they existed.
+ * Runs once in the background after startup, one short transaction per slice,
+ * and stops as soon as a slice comes back short. An item rename or recategorization
+ * is copied to its movements the same way, in the background after the edit commits.
+ */
+@Component
+@Slf4j
+public class MovementItemBackfill {
+
+    private final InventoryMovementRepository inventoryMovementRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler taskScheduler;
+    private final int batchSize;
+    private final boolean enabled;
+
+    public MovementItemBackfill(InventoryMovementRepository inventoryMovementRepository,
+                                TransactionTemplate transactionTemplate,
+                                TaskScheduler taskScheduler,
+                                @Value("${inventory.movement.backfill.batch-size:5000}") int batchSize,
+                                @Value("${inventory.movement.backfill.enabled:true}") boolean enabled) {
+        this.inventoryMovementRepository = inventoryMovementRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.taskScheduler = taskScheduler;
+        this.batchSize = Math.max(batchSize, 1);
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleBackfill() {
+        if (!enabled) return;
+        taskScheduler.schedule(this::backfill, Instant.now());
+    }
+
+    /** Copy an edited item's name and category to its movements in the background. */
+    public void scheduleRefresh(String itemId) {
+        taskScheduler.schedule(() -> refresh(itemId), Instant.now());
+    }
+
+    /** @return number of movements updated */
+    public long backfill() {
+        // Slices already committed stay done; the next startup resumes from there
+        return runSlices("Movement item backfill",
+                () -> inventoryMovementRepository.backfillItemAttributes(batchSize));
+    }
+
+    /** @return number of movements of the item updated */
+    public long refresh(String itemId) {
+        // Movements left stale by a failure are caught up by the next edit of the item
+        return runSlices("Movement item refresh of " + itemId,
+                () -> inventoryMovementRepository.refreshItemAttributes(itemId, batchSize));
+    }
+
+    private long runSlices(String name, IntSupplier slice) {
+        long start = System.currentTimeMillis();
+        long total = 0;
+        try {
+            while (true) {
+                Integer updated = transactionTemplate.execute(status -> slice.getAsInt());
+                int count = updated != null ? updated : 0;
+                total += count;
+                if (count < batchSize) break;
+                log.debug("{}: {} rows so far", name, total);
+            }
+        } catch (DataAccessException ex) {
+            log.warn("{} stopped after {} rows: {}", name, total, ex.getMessage());
+            return total;
+        }
+        if (total > 0) {
+            log.info("{} finished: {} rows in {} ms", name, total, System.currentTimeMillis() - start);
+        }
+        return total;
+    }
+}
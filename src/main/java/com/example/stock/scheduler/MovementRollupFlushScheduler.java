@@ -0,0 +1,21 @@
+package com.example.stock.scheduler;
+
+import com.example.stock.service.MovementRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the movement rollup deltas queued by committed movements.
+ */
+@Component
+@RequiredArgsConstructor
+public class MovementRollupFlushScheduler {
+
+    private final MovementRollupService movementRollupService;
+
+    @Scheduled(fixedDelayString = "${inventory.rollup.flush-ms:1000}")
+    public void flush() {
+        movementRollupService.flush();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.stock.scheduler;
+
+import com.example.stock.exception.ResourceConflictException;
+import com.example.stock.service.ReorderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes the reorder suggestions of every branch ahead of the purchasing day.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "inventory.reorder.enabled", havingValue = "true", matchIfMissing = true)
+public class ReorderSuggestionScheduler {
+
+    private final ReorderService reorderService;
+
+    @Scheduled(cron = "${inventory.reorder.cron:0 30 5 * * *}")
+    public void runAllBranches() {
+        try {
+            reorderService.run(null);
+        } catch (ResourceConflictException ex) {
+            log.info("Scheduled reorder run skipped: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.stock.scheduler;
+
+import com.example.stock.service.StockHistoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Writes the daily closing stock checkpoint (month ends are simply the last daily one).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "stock.checkpoint.enabled", havingValue = "true", matchIfMissing = true)
+public class StockCheckpointScheduler {
+
+    private final StockHistoryService stockHistoryService;
+
+    // A few minutes past midnight, so transactions stamped before midnight have committed
+    @Scheduled(cron = "${stock.checkpoint.cron:0 5 0 * * *}")
+    public void writeDailyCheckpoint() {
+        LocalDateTime asOf = LocalDate.now().atStartOfDay();
+        try {
+            stockHistoryService.writeCheckpoint(asOf);
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance wrote the same checkpoint first
+            log.info("Stock checkpoint at {} written concurrently elsewhere", asOf);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.stock.scheduler;
+
+import com.example.stock.service.StockStreamService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps idle stock streams open through proxies and reaps connections the client closed.
+ */
+@Component
+@RequiredArgsConstructor
+public class StockStreamHeartbeatScheduler {
+
+    private final StockStreamService stockStreamService;
+
+    @Scheduled(fixedDelayString = "${stock.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        if (stockStreamService.subscriberCount() > 0) {
+            stockStreamService.heartbeat();
+        }
+    }
+}
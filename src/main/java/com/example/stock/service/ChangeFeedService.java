@@ -0,0 +1,38 @@
+package com.example.stock.service;
+
+import com.example.stock.dto.change.ChangeFeedPageDTO;
+import com.example.stock.entity.ChangeLogEntry.EntityType;
+
+/**
+ * Ordered change log of the entities offline clients mirror (items, stock rows, units,
+ * categories, taxes), read per branch with an opaque cursor. Writers record their changes in
+ * their own transaction, so the log commits or rolls back with the data.
+ */
+public interface ChangeFeedService {
+
+    int DEFAULT_LIMIT = 500;
+    int MAX_LIMIT = 2000;
+
+    record Compaction(int superseded, int purgedDeletes) {}
+
+    void upserted(EntityType type, String entityId, String branchId);
+
+    void deleted(EntityType type, String entityId, String branchId);
+
+    /** An entity moved to another branch disappears from the old branch's feed. */
+    default void updated(EntityType type, String entityId, String previousBranchId, String branchId) {
+        if (previousBranchId != null && !previousBranchId.equals(branchId)) {
+            deleted(type, entityId, previousBranchId);
+        }
+        upserted(type, entityId, branchId);
+    }
+
+    /**
+     * Changes of the branch after {@code since}, oldest first. A missing cursor, or one older
+     * than the delete retention, gets {@code snapshot_required} and a fresh cursor instead.
+     */
+    ChangeFeedPageDTO changes(String since, String branchId, int limit);
+
+    /** Drops superseded entries and delete markers past retention. */
+    Compaction compact();
+}
@@ -0,0 +1,27 @@
+package com.example.stock.service;
+
+import com.example.stock.dto.alert.ExpiryAlertDTO;
+import com.example.stock.entity.StockLot;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Expiry warnings for dated lots, raised once per lot and horizon (e.g. 3 days ahead, 1 day
+ * ahead, on the expiration day). Pending warnings live in a timing wheel seeded from the open
+ * lots at startup; fired ones are stored, so a restart does not raise them again.
+ */
+public interface ExpiryAlertService {
+
+    int MAX_DAYS = 90;
+    int MAX_LISTED = 1000;
+
+    /** Lots created, drawn from, corrected or dropped; applied after commit. */
+    void lotsChanged(Collection<StockLot> lots);
+
+    /** Raises and stores the warnings due by now; returns how many fired. */
+    int tick();
+
+    /** Warnings fired within the last {@code days} days, newest first. */
+    List<ExpiryAlertDTO> alerts(String branchId, String departmentId, int days);
+}
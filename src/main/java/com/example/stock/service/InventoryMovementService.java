@@ -1,5 +1,7 @@
 package com.example.stock.service;
 
+import com.example.stock.dto.common.CursorPage;
+import com.example.stock.dto.inventorymouvement.InventoryMovementBatchResultDTO;
 import com.example.stock.dto.inventorymouvement.InventoryMovementCreateDTO;
 import com.example.stock.dto.inventorymouvement.InventoryMovementResponseDTO;
 import com.example.stock.dto.inventorymouvement.InventoryMovementUpdateDTO;
@@ -7,9 +9,19 @@ import com.example.stock.dto.inventorymouvement.InventoryMovementUpdateDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
 
 public interface InventoryMovementService {
     InventoryMovementResponseDTO createMovement(InventoryMovementCreateDTO dto);
+
+    /**
+     * Validate every row up front, then insert all movements in JDBC batches and
+     * apply one coalesced stock update per affected key. All-or-nothing.
+     */
+    InventoryMovementBatchResultDTO createMovements(List<InventoryMovementCreateDTO> dtos);
     Page<InventoryMovementResponseDTO> getAllMovements(Pageable pageable);
     InventoryMovementResponseDTO getMovementById(String id);
 
@@ -35,6 +47,43 @@ public interface InventoryMovementService {
     ) {}
 
     Page<InventoryMovementResponseDTO> searchMovements(MovementSearchFilter filter, Pageable pageable);
+
+    /** Hard cap on one keyset slice (and on offset pages). */
+    int MAX_SCROLL_LIMIT = 200;
+
+    /**
+     * Keyset pagination ordered by (created_at, id): the cost of a slice does not depend on its depth.
+     *
+     * @param cursor       {@code next_cursor} of the previous slice, null for the first one
+     * @param includeTotal also run the COUNT over the filters (skipped by default)
+     */
+    CursorPage<InventoryMovementResponseDTO> scrollMovements(MovementSearchFilter filter, String cursor, int limit,
+                                                             boolean descending, boolean includeTotal);
+
+    enum ExportFormat {
+        CSV, NDJSON;
+
+        public static ExportFormat from(String value) {
+            for (ExportFormat format : values()) {
+                if (format.name().equalsIgnoreCase(value)) return format;
+            }
+            throw new IllegalArgumentException("Invalid format: " + value + " (expected csv or ndjson)");
+        }
+    }
+
+    /** Deferred export body; runs in its own read-only transaction when written. */
+    @FunctionalInterface
+    interface MovementExport {
+        /** @return number of movements written */
+        long writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Filters are validated now, on the caller's thread; the returned export streams every
+     * matching movement in (created_at, id) order with a forward-only cursor, so memory stays
+     * flat regardless of the row count.
+     */
+    MovementExport exportMovements(MovementSearchFilter filter, ExportFormat format);
     InventoryMovementResponseDTO updateMovement(String id, InventoryMovementUpdateDTO dto);
     void delete(String id);
 }
@@ -3,9 +3,8 @@ package com.example.stock.service;
 import com.example.stock.dto.sellableitem.SellableItemResponseDTO;
 import java.util.List;
 
+/** Sellable items synchronized from the POS; the synchronization itself is {@link MenuSyncService}. */
 public interface MenuItemService {
 
-    void syncMenuItemsFromPos(String stockKey);
-
     List<SellableItemResponseDTO> getAllSellableItems();
 }
@@ -0,0 +1,30 @@
+package com.example.stock.service;
+
+import com.example.stock.dto.menuitemssnapshot.MenuSyncJobDTO;
+import com.example.stock.dto.menuitemssnapshot.MenuSyncReportDTO;
+
+/**
+ * POS menu synchronization as background jobs: snapshots, variations and sellable items are
+ * brought in line with the POS catalog, writing only the rows that differ. A job commits its
+ * work chunk by chunk; deletes run only once the whole catalog was written.
+ */
+public interface MenuSyncService {
+
+    enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    enum Phase { FETCHING, UPSERTING, DELETING }
+
+    /**
+     * Queues a sync of the catalog behind the given stock key.
+     *
+     * @throws com.example.stock.exception.ResourceConflictException when a job is already
+     *         running for the same POS source
+     */
+    MenuSyncJobDTO submit(String stockKey);
+
+    /** @throws com.example.stock.exception.ResourceNotFoundException unknown or expired job */
+    MenuSyncJobDTO job(String jobId);
+
+    /** Submits a job and waits for it, for callers of the synchronous endpoint. */
+    MenuSyncReportDTO syncAndWait(String stockKey);
+}
@@ -0,0 +1,48 @@
+package com.example.stock.service;
+
+import com.example.stock.dto.inventorymouvement.MovementRollupDTO;
+import com.example.stock.entity.InventoryMovement;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Daily movement totals per (branch, department, item, transaction type), kept current by the
+ * movement writers so reports never aggregate raw movements. Totals lag the movements by at
+ * most one flush interval.
+ */
+public interface MovementRollupService {
+
+    /** Widest window one query or repair may cover. */
+    int MAX_DAYS = 366;
+
+    record Filters(String branchId, String departmentId, String inventoryItemId, String transactionType) {}
+
+    /**
+     * Adds ({@code sign} = 1) or removes ({@code sign} = -1) the movements from their daily totals.
+     * The deltas are queued once the caller's transaction commits and written by {@link #flush()}.
+     */
+    void record(Collection<InventoryMovement> movements, int sign);
+
+    /** The quantity of an already recorded movement changed; queued like {@link #record}. */
+    void recordQuantityChange(InventoryMovement movement, BigDecimal previousQuantity);
+
+    /**
+     * Writes the queued deltas, one upsert per rollup row, in one transaction. A failed flush
+     * keeps them queued for the next one.
+     *
+     * @return number of rollup rows written
+     */
+    int flush();
+
+    List<MovementRollupDTO> query(LocalDate from, LocalDate to, Filters filters);
+
+    /**
+     * Recomputes every day of [from, to] from the raw movements, one transaction per day.
+     *
+     * @return number of rollup rows written
+     */
+    int repair(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,16 @@
+package com.example.stock.service;
+
+import com.example.stock.dto.recipe.PortionReportDTO;
+
+/**
+ * Portions of each menu item producible from a branch's current stock:
+ * {@code min(on hand / quantity per portion)} over the item's flattened recipe.
+ */
+public interface PortionService {
+
+    /**
+     * @param maxPortions optional: only list items that can make at most this many portions
+     *                    (0 lists the items to take off the menu)
+     */
+    PortionReportDTO report(String branchId, Long maxPortions);
+}
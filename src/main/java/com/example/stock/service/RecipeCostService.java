@@ -0,0 +1,17 @@
+package com.example.stock.service;
+
+import com.example.stock.dto.recipe.MenuCostDTO;
+import com.example.stock.dto.recipe.RecipeCostDTO;
+
+/**
+ * Live food cost of recipes per branch: flattened ingredient quantities times the branch's
+ * average unit cost of each ingredient.
+ */
+public interface RecipeCostService {
+
+    /** Cost of one portion with the per-ingredient breakdown. */
+    RecipeCostDTO cost(String recipeId, String branchId);
+
+    /** Cost of every recipe attached to a sellable item, without breakdown. */
+    MenuCostDTO menuCosts(String branchId);
+}
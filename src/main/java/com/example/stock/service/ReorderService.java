@@ -0,0 +1,27 @@
+package com.example.stock.service;
+
+import com.example.stock.dto.reorder.ReorderRunDTO;
+
+/**
+ * Suggested purchase quantities from on-hand stock, recent consumption (OUT and WASTE
+ * movements), supplier lead time and minimum order quantity, grouped per supplier into
+ * draft orders. The latest suggestions of each branch are kept until the next run.
+ */
+public interface ReorderService {
+
+    /**
+     * Recompute the suggestions of every branch (branches evaluated in parallel) or of one branch.
+     *
+     * @param branchId one branch, or every branch with inventory items when null
+     * @return run summary (without the orders)
+     */
+    ReorderRunDTO run(String branchId);
+
+    /**
+     * Draft orders of the latest run(s).
+     *
+     * @param branchId   optional branch filter
+     * @param supplierId optional supplier filter
+     */
+    ReorderRunDTO suggestions(String branchId, String supplierId);
+}
@@ -0,0 +1,19 @@
+package com.example.stock.service;
+
+import com.example.stock.dto.sale.SaleBatchResultDTO;
+import com.example.stock.dto.sale.SaleCreateDTO;
+import com.example.stock.dto.sale.SaleResultDTO;
+
+import java.util.List;
+
+/**
+ * Stock deduction for POS sales: each sold line is exploded through its recipe and the
+ * ingredients are taken out of stock as OUT movements.
+ */
+public interface SaleService {
+
+    SaleResultDTO record(SaleCreateDTO sale);
+
+    /** All tickets in one transaction, with one stock update per affected key. */
+    SaleBatchResultDTO recordAll(List<SaleCreateDTO> sales);
+}
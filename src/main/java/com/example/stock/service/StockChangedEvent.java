@@ -0,0 +1,38 @@
+package com.example.stock.service;
+
+import com.example.stock.entity.InventoryStock;
+import com.example.stock.service.StockProjectionService.StockKey;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stock rows written by the current transaction, published by every writer of inventory_stock.
+ * The in-memory views (status index, stock stream, portions, recipe costs) take it once the
+ * transaction commits; the change feed records it inside the transaction.
+ *
+ * @param quantities quantity of each row as written, zero for a deleted row
+ * @param rows       the rows written, or the one deleted
+ * @param deleted    whether the rows were deleted
+ */
+public record StockChangedEvent(Map<StockKey, BigDecimal> quantities, List<InventoryStock> rows, boolean deleted) {
+
+    // Quantities are copied now: the entities may change again before commit
+    public static StockChangedEvent written(Collection<InventoryStock> rows) {
+        Map<StockKey, BigDecimal> quantities = new HashMap<>();
+        rows.forEach(row -> quantities.put(keyOf(row), row.getCurrentQuantity()));
+        return new StockChangedEvent(Collections.unmodifiableMap(quantities), List.copyOf(rows), false);
+    }
+
+    public static StockChangedEvent deleted(InventoryStock row) {
+        return new StockChangedEvent(Map.of(keyOf(row), BigDecimal.ZERO), List.of(row), true);
+    }
+
+    private static StockKey keyOf(InventoryStock row) {
+        return new StockKey(row.getInventoryItemId(), row.getBranchId(), row.getDepartmentId());
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.stock.service;
+
+import com.example.stock.dto.inventorystock.StockAsOfResponseDTO;
+
+import java.time.LocalDateTime;
+
+/**
+ * Point-in-time stock: periodic checkpoints of closing balances and queries at any past instant.
+ */
+public interface StockHistoryService {
+
+    record Filters(
+        String inventoryItemId,
+        String branchId,
+        String departmentId
+    ) {}
+
+    /**
+     * Balances including every movement created at or before {@code timestamp}.
+     * Loads the latest checkpoint not after it and replays only the movements since.
+     */
+    StockAsOfResponseDTO stockAsOf(LocalDateTime timestamp, Filters filters);
+
+    /**
+     * Write closing balances of every key at {@code asOf}, built from the previous checkpoint.
+     * Does nothing if a checkpoint already exists at that instant.
+     *
+     * @return number of keys written
+     */
+    int writeCheckpoint(LocalDateTime asOf);
+
+    /**
+     * Rebuild the checkpoint rows of an item that a change to one of its movements, created at
+     * {@code movementCreatedAt}, made stale: those at or after that instant, oldest first.
+     */
+    void invalidateFrom(String inventoryItemId, LocalDateTime movementCreatedAt);
+}
@@ -0,0 +1,37 @@
+package com.example.stock.service;
+
+import com.example.stock.dto.inventorystock.StockLotDTO;
+import com.example.stock.entity.InventoryMovement;
+
+import java.util.List;
+
+/**
+ * Lot-level (FEFO) view of stock, maintained next to the aggregate projection and in the same
+ * transaction, after the affected stock rows have been locked.
+ */
+public interface StockLotService {
+
+    int MAX_EXPIRY_DAYS = 365;
+    int MAX_LISTED = 1000;
+
+    /**
+     * Applies movements in order. An IN opens a lot; OUT and WASTE consume the key's open lots
+     * soonest expiry first (undated lots last); a transfer consumes at the source and opens
+     * matching lots at the destination.
+     */
+    void apply(List<InventoryMovement> movements);
+
+    /** Undo the lot effect of a movement (deletion). */
+    void revert(InventoryMovement movement);
+
+    /**
+     * Re-apply a movement whose quantity or expiry changed. A receipt's lot is corrected in
+     * place (what was already drawn from it stays drawn); outflows are reverted and re-consumed.
+     */
+    void update(InventoryMovement movement);
+
+    /**
+     * Open lots of a branch expiring within {@code days} days from today, already expired ones included.
+     */
+    List<StockLotDTO> expiring(String branchId, String departmentId, int days);
+}
@@ -0,0 +1,147 @@
+package com.example.stock.service;
+
+import com.example.stock.entity.InventoryMovement;
+import com.example.stock.entity.InventoryStock;
+import com.example.stock.util.FixedPoint;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Projects inventory movements onto the InventoryStock aggregate
+ * (one row per inventory item / branch / department).
+ */
+public interface StockProjectionService {
+
+    /** Identity of an InventoryStock row. */
+    record StockKey(String inventoryItemId, String branchId, String departmentId) {
+
+        public static StockKey source(InventoryMovement movement) {
+            return new StockKey(movement.getInventoryItemId(), movement.getBranchId(), departmentOf(movement));
+        }
+
+        public static StockKey destination(InventoryMovement movement) {
+            String departmentId = movement.getDestinationDepartmentId() != null
+                    ? movement.getDestinationDepartmentId()
+                    : departmentOf(movement);
+            return new StockKey(movement.getInventoryItemId(), movement.getDestinationBranchId(), departmentId);
+        }
+
+        // Movements recorded before department capture fall back to the item's department
+        private static String departmentOf(InventoryMovement movement) {
+            if (movement.getDepartmentId() != null || movement.getInventoryItem() == null) {
+                return movement.getDepartmentId();
+            }
+            return movement.getInventoryItem().getDepartmentId();
+        }
+    }
+
+    /**
+     * Signed quantity change on one stock row.
+     * A delta carrying a unit cost moves value and re-weights the average cost;
+     * a delta without one leaves the average untouched. When {@code costSource} is set,
+     * the delta is valued at that row's current average cost (stock transfers).
+     */
+    record StockDelta(
+        StockKey key,
+        BigDecimal quantity,
+        BigDecimal unitCost,
+        StockKey costSource,
+        LocalDateTime occurredAt
+    ) {
+
+        /** Deltas produced by applying the movement. */
+        public static List<StockDelta> of(InventoryMovement movement) {
+            List<StockDelta> deltas = new ArrayList<>(2);
+            BigDecimal qty = movement.getQuantity();
+            LocalDateTime at = movement.getCreatedAt();
+            StockKey source = StockKey.source(movement);
+            switch (movement.getTransactionType()) {
+                case IN -> deltas.add(new StockDelta(source, qty, movement.getUnitPurchasePrice(), null, at));
+                case OUT, WASTE -> deltas.add(new StockDelta(source, qty.negate(), null, null, at));
+                case TRANSFER -> {
+                    deltas.add(new StockDelta(source, qty.negate(), null, null, at));
+                    deltas.add(new StockDelta(StockKey.destination(movement), qty, null, source, at));
+                }
+            }
+            return deltas;
+        }
+
+        /** Deltas that undo a previously applied movement. */
+        public static List<StockDelta> reversalOf(InventoryMovement movement) {
+            List<StockDelta> deltas = new ArrayList<>(2);
+            for (StockDelta delta : of(movement)) {
+                // Transfer-in reversal leaves the destination average as is
+                deltas.add(new StockDelta(delta.key(), delta.quantity().negate(), delta.unitCost(), null, LocalDateTime.now()));
+            }
+            return deltas;
+        }
+
+        /**
+         * Merge deltas per key so each stock row is touched once per batch.
+         * Within a key, runs of consecutive unvalued deltas or consecutive valued inflows
+         * collapse into one delta, which preserves the weighted-average result. A transfer-in
+         * is valued at its source's average as of its own position in the batch, so it is a
+         * barrier: deltas only merge between two transfer-ins and never move across one.
+         * Keys keep their first-appearance order within each stretch.
+         */
+        public static List<StockDelta> coalesce(List<StockDelta> deltas) {
+            List<StockDelta> out = new ArrayList<>(deltas.size());
+            Map<StockKey, List<StockDelta>> byKey = new LinkedHashMap<>();
+            for (StockDelta delta : deltas) {
+                if (delta.costSource() != null) {
+                    byKey.values().forEach(out::addAll);
+                    byKey.clear();
+                    out.add(delta);
+                    continue;
+                }
+                List<StockDelta> run = byKey.computeIfAbsent(delta.key(), k -> new ArrayList<>());
+                StockDelta last = run.isEmpty() ? null : run.get(run.size() - 1);
+                StockDelta merged = last != null ? last.mergeWith(delta) : null;
+                if (merged != null) {
+                    run.set(run.size() - 1, merged);
+                } else {
+                    run.add(delta);
+                }
+            }
+            byKey.values().forEach(out::addAll);
+            return out;
+        }
+
+        private StockDelta mergeWith(StockDelta next) {
+            if (costSource != null || next.costSource != null) {
+                return null;
+            }
+            LocalDateTime at = occurredAt == null || (next.occurredAt != null && next.occurredAt.isAfter(occurredAt))
+                    ? next.occurredAt : occurredAt;
+            if (unitCost == null && next.unitCost == null) {
+                return new StockDelta(key, quantity.add(next.quantity), null, null, at);
+            }
+            if (unitCost != null && next.unitCost != null && quantity.signum() > 0 && next.quantity.signum() > 0) {
+                FixedPoint cost = FixedPoint.weightedAverage(
+                        FixedPoint.of(quantity), FixedPoint.of(unitCost),
+                        FixedPoint.of(next.quantity), FixedPoint.of(next.unitCost));
+                return new StockDelta(key, quantity.add(next.quantity), cost.toBigDecimal(), null, at);
+            }
+            return null;
+        }
+    }
+
+    /** Apply the stock effect of a newly recorded movement. */
+    void applyMovement(InventoryMovement movement);
+
+    /** Undo the stock effect of a movement (deletion). */
+    void revertMovement(InventoryMovement movement);
+
+    /**
+     * Apply a set of deltas atomically within the caller's transaction.
+     * Affected keys are serialized in-process before their rows are locked in the database.
+     *
+     * @return the updated stock rows by key
+     */
+    Map<StockKey, InventoryStock> apply(List<StockDelta> deltas);
+}
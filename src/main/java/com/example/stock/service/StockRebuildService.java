@@ -0,0 +1,18 @@
+package com.example.stock.service;
+
+import com.example.stock.dto.inventorystock.StockRebuildReportDTO;
+
+/**
+ * Recomputes inventory_stock from inventory_movement history (repair after bugs,
+ * manual SQL fixes or imports).
+ */
+public interface StockRebuildService {
+
+    /**
+     * Replay every applied movement up to now and compare the result with the stored stock rows.
+     *
+     * @param branchId restrict the comparison (and fixes) to one branch; null for all branches
+     * @param dryRun   when true only report drifted keys, otherwise overwrite them in batches
+     */
+    StockRebuildReportDTO rebuild(String branchId, boolean dryRun);
+}
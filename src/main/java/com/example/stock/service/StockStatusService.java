@@ -0,0 +1,42 @@
+package com.example.stock.service;
+
+import com.example.stock.dto.inventorystock.StockStatusReportDTO;
+import com.example.stock.entity.InventoryItem;
+
+import java.math.BigDecimal;
+
+/**
+ * Low-stock / out-of-stock status of every stock key, held in memory and re-evaluated only for
+ * keys whose quantity or item threshold changes. The tables are scanned once, at startup.
+ */
+public interface StockStatusService {
+
+    enum Status {
+        NORMAL, LOW, OUT;
+
+        public static Status of(BigDecimal quantity, int threshold) {
+            if (quantity == null || quantity.signum() <= 0) return OUT;
+            return quantity.compareTo(BigDecimal.valueOf(threshold)) <= 0 ? LOW : NORMAL;
+        }
+
+        public static Status from(String value) {
+            for (Status status : values()) {
+                if (status.name().equalsIgnoreCase(value)) return status;
+            }
+            throw new IllegalArgumentException("Invalid status: " + value + " (expected low, out or normal)");
+        }
+    }
+
+    /**
+     * @param branchId     one branch, or every branch when null
+     * @param departmentId optional department filter
+     * @param status       optional: restrict the listed items to low or out
+     */
+    StockStatusReportDTO report(String branchId, String departmentId, String status);
+
+    /** Item created or its name/threshold/home changed; applied after commit. */
+    void itemChanged(InventoryItem item);
+
+    /** Item deleted; applied after commit. */
+    void itemDeleted(String itemId);
+}
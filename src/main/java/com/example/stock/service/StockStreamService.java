@@ -0,0 +1,18 @@
+package com.example.stock.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-sent stream of stock quantity changes per branch. Each event carries the latest
+ * quantity of every row changed since the subscriber's previous event; changes of the same
+ * row in between are coalesced, so a client that misses events just re-reads current stock.
+ */
+public interface StockStreamService {
+
+    SseEmitter subscribe(String branchId);
+
+    /** Keep-alive for idle subscribers; also detects connections closed by the client. */
+    void heartbeat();
+
+    int subscriberCount();
+}
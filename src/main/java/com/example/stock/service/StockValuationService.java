@@ -0,0 +1,17 @@
+package com.example.stock.service;
+
+import com.example.stock.dto.inventorystock.StockValuationDTO;
+
+import java.time.LocalDate;
+
+/**
+ * Inventory valuation of a branch under weighted-average and FIFO costing.
+ */
+public interface StockValuationService {
+
+    /**
+     * Values the branch's stock at the end of {@code asOf} (now when null) by replaying its
+     * movement history once, folding both the weighted average and FIFO cost layers.
+     */
+    StockValuationDTO valuate(String branchId, LocalDate asOf);
+}
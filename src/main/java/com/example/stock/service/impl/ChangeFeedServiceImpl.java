@@ -0,0 +1,299 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.change.ChangeDTO;
+import com.example.stock.dto.change.ChangeFeedPageDTO;
+import com.example.stock.entity.ChangeLogEntry;
+import com.example.stock.entity.ChangeLogEntry.EntityType;
+import com.example.stock.entity.ChangeLogEntry.Operation;
+import com.example.stock.entity.InventoryStock;
+import com.example.stock.mapper.CategoryMapper;
+import com.example.stock.mapper.InventoryItemMapper;
+import com.example.stock.mapper.InventoryStockMapper;
+import com.example.stock.mapper.TaxMapper;
+import com.example.stock.mapper.UnitMapper;
+import com.example.stock.repository.ChangeLogRepository;
+import com.example.stock.repository.InventoryItemCategoryRepository;
+import com.example.stock.repository.InventoryItemRepository;
+import com.example.stock.repository.InventoryStockRepository;
+import com.example.stock.repository.TaxRepository;
+import com.example.stock.repository.UnitRepository;
+import com.example.stock.service.ChangeFeedService;
+import com.example.stock.service.StockChangedEvent;
+import com.example.stock.util.KeysetCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Change feed over the {@code change_log} table. A page returns the branch's entries after the
+ * cursor, in feed position order, and the current state of each upserted entity.
+ *
+ * Feed positions are assigned at commit, not at insert: the entries a transaction wrote are
+ * numbered just before it commits, from the {@link com.example.stock.entity.ChangeLogClock}
+ * row it locks until the commit. Positions therefore become visible in increasing order, and
+ * an entry never commits below a cursor a client already holds, however long its transaction
+ * ran. Writers serialize only for that last step.
+ *
+ * The cursor also records when it was issued. Compaction purges delete markers a day after
+ * the retention, so a cursor issued within the retention has seen every purged marker; an
+ * older cursor, or none, gets {@code snapshot_required}.
+ */
+@Service
+@Slf4j
+public class ChangeFeedServiceImpl implements ChangeFeedService {
+
+    private static final int IDS_PER_STATEMENT = 1000;
+
+    private final ChangeLogRepository changeLogRepository;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final InventoryStockRepository inventoryStockRepository;
+    private final UnitRepository unitRepository;
+    private final InventoryItemCategoryRepository categoryRepository;
+    private final TaxRepository taxRepository;
+    private final InventoryItemMapper inventoryItemMapper;
+    private final InventoryStockMapper inventoryStockMapper;
+    private final UnitMapper unitMapper;
+    private final CategoryMapper categoryMapper;
+    private final TaxMapper taxMapper;
+    private final Duration retention;
+
+    // Per transaction: ids of the entries it wrote, numbered before it commits
+    private final Object pendingKey = new Object();
+
+    public ChangeFeedServiceImpl(ChangeLogRepository changeLogRepository,
+                                 InventoryItemRepository inventoryItemRepository,
+                                 InventoryStockRepository inventoryStockRepository,
+                                 UnitRepository unitRepository,
+                                 InventoryItemCategoryRepository categoryRepository,
+                                 TaxRepository taxRepository,
+                                 InventoryItemMapper inventoryItemMapper,
+                                 InventoryStockMapper inventoryStockMapper,
+                                 UnitMapper unitMapper,
+                                 CategoryMapper categoryMapper,
+                                 TaxMapper taxMapper,
+                                 @Value("${inventory.change-feed.retention-days:30}") int retentionDays) {
+        this.changeLogRepository = changeLogRepository;
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.inventoryStockRepository = inventoryStockRepository;
+        this.unitRepository = unitRepository;
+        this.categoryRepository = categoryRepository;
+        this.taxRepository = taxRepository;
+        this.inventoryItemMapper = inventoryItemMapper;
+        this.inventoryStockMapper = inventoryStockMapper;
+        this.unitMapper = unitMapper;
+        this.categoryMapper = categoryMapper;
+        this.taxMapper = taxMapper;
+        this.retention = Duration.ofDays(Math.max(retentionDays, 1));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void upserted(EntityType type, String entityId, String branchId) {
+        record(type, entityId, branchId, Operation.UPSERT);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleted(EntityType type, String entityId, String branchId) {
+        record(type, entityId, branchId, Operation.DELETE);
+    }
+
+    /** Recorded in the writer's transaction, unlike the after-commit listeners of the event. */
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void stockChanged(StockChangedEvent event) {
+        Operation operation = event.deleted() ? Operation.DELETE : Operation.UPSERT;
+        LocalDateTime now = LocalDateTime.now();
+        List<ChangeLogEntry> entries = new ArrayList<>(event.rows().size());
+        for (InventoryStock row : event.rows()) {
+            if (row.getId() == null || row.getBranchId() == null) continue;
+            entries.add(entry(EntityType.STOCK, row.getId(), row.getBranchId(), operation, now));
+        }
+        if (entries.isEmpty()) return;
+        pending().addAll(changeLogRepository.saveAll(entries).stream().map(ChangeLogEntry::getId).toList());
+    }
+
+    private void record(EntityType type, String entityId, String branchId, Operation operation) {
+        if (entityId == null || branchId == null) return;
+        pending().add(changeLogRepository.save(entry(type, entityId, branchId, operation, LocalDateTime.now())).getId());
+    }
+
+    /** Ids written in the current transaction; the first call registers their numbering at commit. */
+    @SuppressWarnings("unchecked")
+    private List<Long> pending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Change log entries must be written inside a transaction");
+        }
+        List<Long> ids = (List<Long>) TransactionSynchronizationManager.getResource(pendingKey);
+        if (ids != null) return ids;
+        List<Long> fresh = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(pendingKey, fresh);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void suspend() {
+                // An inner REQUIRES_NEW transaction numbers its own entries
+                TransactionSynchronizationManager.unbindResource(pendingKey);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(pendingKey, fresh);
+            }
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                assignCommitSeq(fresh);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(pendingKey);
+            }
+        });
+        return fresh;
+    }
+
+    void assignCommitSeq(List<Long> ids) {
+        if (ids.isEmpty()) return;
+        List<Long> sorted = ids.stream().distinct().sorted().toList();
+        changeLogRepository.flush();
+        if (changeLogRepository.advanceClock(sorted.size()) == 0) {
+            changeLogRepository.initClock();
+            changeLogRepository.advanceClock(sorted.size());
+        }
+        long base = changeLogRepository.findClock() - sorted.size();
+        for (int from = 0; from < sorted.size(); from += IDS_PER_STATEMENT) {
+            changeLogRepository.assignCommitSeq(sorted.subList(from, Math.min(from + IDS_PER_STATEMENT, sorted.size())), base + from);
+        }
+    }
+
+    private static ChangeLogEntry entry(EntityType type, String entityId, String branchId,
+                                        Operation operation, LocalDateTime at) {
+        return ChangeLogEntry.builder()
+                .entityType(type)
+                .entityId(entityId)
+                .branchId(branchId)
+                .operation(operation)
+                .changedAt(at)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ChangeFeedPageDTO changes(String since, String branchId, int limit) {
+        return changes(since, branchId, limit, LocalDateTime.now());
+    }
+
+    ChangeFeedPageDTO changes(String since, String branchId, int limit, LocalDateTime now) {
+        if (!hasText(branchId)) {
+            throw new IllegalArgumentException("branch_id is required");
+        }
+        int size = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        KeysetCursor cursor = hasText(since) ? KeysetCursor.decode(since) : null;
+        if (cursor == null || cursor.createdAt().isBefore(now.minus(retention))) {
+            return ChangeFeedPageDTO.builder()
+                    .branchId(branchId)
+                    .snapshotRequired(true)
+                    .nextCursor(new KeysetCursor(now, Long.toString(changeLogRepository.findHead())).encode())
+                    .hasMore(false)
+                    .changes(List.of())
+                    .build();
+        }
+        long after = sequenceOf(cursor);
+
+        List<ChangeLogEntry> entries = changeLogRepository.findPage(branchId, after, PageRequest.of(0, size + 1));
+        boolean hasMore = entries.size() > size;
+        List<ChangeLogEntry> visible = hasMore ? entries.subList(0, size) : entries;
+
+        Map<EntityType, Map<String, Object>> payloads = loadPayloads(visible);
+        List<ChangeDTO> changes = new ArrayList<>(visible.size());
+        for (ChangeLogEntry entry : visible) {
+            changes.add(ChangeDTO.builder()
+                    .sequence(entry.getCommitSeq())
+                    .entityType(entry.getEntityType().name().toLowerCase(Locale.ROOT))
+                    .entityId(entry.getEntityId())
+                    .operation(entry.getOperation().name().toLowerCase(Locale.ROOT))
+                    .changedAt(entry.getChangedAt())
+                    .data(entry.getOperation() == Operation.UPSERT
+                            ? payloads.getOrDefault(entry.getEntityType(), Map.of()).get(entry.getEntityId())
+                            : null)
+                    .build());
+        }
+        long last = visible.isEmpty() ? after : visible.get(visible.size() - 1).getCommitSeq();
+        return ChangeFeedPageDTO.builder()
+                .branchId(branchId)
+                .snapshotRequired(false)
+                .nextCursor(new KeysetCursor(now, Long.toString(last)).encode())
+                .hasMore(hasMore)
+                .changes(changes)
+                .build();
+    }
+
+    private static long sequenceOf(KeysetCursor cursor) {
+        try {
+            long sequence = Long.parseLong(cursor.id());
+            if (sequence < 0) throw new IllegalArgumentException("Invalid cursor");
+            return sequence;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    // Current state of each upserted entity, one query per type
+    private Map<EntityType, Map<String, Object>> loadPayloads(List<ChangeLogEntry> entries) {
+        Map<EntityType, Set<String>> ids = new EnumMap<>(EntityType.class);
+        for (ChangeLogEntry entry : entries) {
+            if (entry.getOperation() == Operation.UPSERT) {
+                ids.computeIfAbsent(entry.getEntityType(), t -> new HashSet<>()).add(entry.getEntityId());
+            }
+        }
+        Map<EntityType, Map<String, Object>> payloads = new EnumMap<>(EntityType.class);
+        ids.forEach((type, keys) -> {
+            Map<String, Object> byId = new HashMap<>();
+            switch (type) {
+                case ITEM -> inventoryItemRepository.findAllById(keys)
+                        .forEach(e -> byId.put(e.getId(), inventoryItemMapper.toResponseDTO(e)));
+                case STOCK -> inventoryStockRepository.findAllById(keys)
+                        .forEach(e -> byId.put(e.getId(), inventoryStockMapper.toResponseDTO(e)));
+                case UNIT -> unitRepository.findAllById(keys)
+                        .forEach(e -> byId.put(e.getId(), unitMapper.toResponseDTO(e)));
+                case CATEGORY -> categoryRepository.findAllById(keys)
+                        .forEach(e -> byId.put(e.getId(), categoryMapper.toResponseDTO(e)));
+                case TAX -> taxRepository.findAllById(keys.stream().map(Long::valueOf).toList())
+                        .forEach(e -> byId.put(String.valueOf(e.getId()), taxMapper.toResponseDTO(e)));
+            }
+            payloads.put(type, byId);
+        });
+        return payloads;
+    }
+
+    @Override
+    @Transactional
+    public Compaction compact() {
+        long head = changeLogRepository.findHead();
+        int superseded = changeLogRepository.deleteSuperseded(head);
+        int purged = changeLogRepository.deleteByOperationBefore(Operation.DELETE,
+                LocalDateTime.now().minus(retention).minusDays(1));
+        log.info("Compacted change log up to {}: {} superseded, {} delete markers purged", head, superseded, purged);
+        return new Compaction(superseded, purged);
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.alert.ExpiryAlertDTO;
+import com.example.stock.entity.ExpiryAlert;
+import com.example.stock.entity.StockLot;
+import com.example.stock.repository.ExpiryAlertRepository;
+import com.example.stock.repository.InventoryItemRepository;
+import com.example.stock.repository.StockLotRepository;
+import com.example.stock.repository.StockLotRepository.DatedLotRow;
+import com.example.stock.service.ExpiryAlertService;
+import com.example.stock.util.TimingWheel;
+import com.example.stock.util.TimingWheel.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static com.example.stock.util.TransactionHooks.afterCommit;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Expiry warnings driven by a {@link TimingWheel}. Each open dated lot gets one timer per
+ * horizon not yet fired, due at the start of the day {@code horizon} days before expiry; a lot
+ * that is drawn down to nothing, dropped or re-dated cancels its timers in O(1). When a lot is
+ * first seen past some of its horizons, only the most urgent of those fires.
+ *
+ * The startup warm-up loads the ids of fired alerts, then streams open dated lots. Lots changed
+ * live while it runs are remembered, so the older snapshot never overwrites them.
+ */
+@Service
+@Slf4j
+public class ExpiryAlertServiceImpl implements ExpiryAlertService {
+
+    // Lots that expired longer ago than this are not seeded again
+    static final int SEED_LOOKBACK_DAYS = 30;
+
+    // Any past deadline lands on the wheel's current tick
+    private static final long DUE_NOW = 0;
+
+    private record Due(String lotId, int horizonDays) {}
+
+    private static final class TrackedLot {
+        final String lotId;
+        String inventoryItemId;
+        String branchId;
+        String departmentId;
+        LocalDate expirationDate;
+        BigDecimal remainingQuantity;
+        final Map<Integer, Timer<Due>> timers = new HashMap<>();
+        final Set<Integer> fired = new HashSet<>();
+
+        TrackedLot(String lotId) {
+            this.lotId = lotId;
+        }
+    }
+
+    private final ExpiryAlertRepository alertRepository;
+    private final StockLotRepository stockLotRepository;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final TransactionTemplate readOnly;
+    private final TaskScheduler taskScheduler;
+    private final boolean enabled;
+    private final int[] horizons;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Guarded by this
+    private final TimingWheel<Due> wheel;
+    private final Map<String, TrackedLot> lots = new HashMap<>();
+
+    private final Set<String> liveLots = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public ExpiryAlertServiceImpl(ExpiryAlertRepository alertRepository,
+                                  StockLotRepository stockLotRepository,
+                                  InventoryItemRepository inventoryItemRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  TaskScheduler taskScheduler,
+                                  @Value("${inventory.expiry-alert.enabled:true}") boolean enabled,
+                                  @Value("${inventory.expiry-alert.horizons-days:3,1,0}") int[] horizons,
+                                  @Value("${inventory.expiry-alert.tick-ms:60000}") long tickMillis) {
+        this.alertRepository = alertRepository;
+        this.stockLotRepository = stockLotRepository;
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.taskScheduler = taskScheduler;
+        this.enabled = enabled;
+        // Most distant first
+        this.horizons = Arrays.stream(horizons).filter(h -> h >= 0).distinct()
+                .boxed().sorted((a, b) -> b - a).mapToInt(Integer::intValue).toArray();
+        if (this.horizons.length == 0) {
+            throw new IllegalArgumentException("inventory.expiry-alert.horizons-days needs at least one horizon >= 0");
+        }
+        this.wheel = new TimingWheel<>(Math.max(tickMillis, 1000), System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleWarmUp() {
+        if (enabled) taskScheduler.schedule(this::warmUp, Instant.now());
+    }
+
+    void warmUp() {
+        long start = System.currentTimeMillis();
+        LocalDate from = LocalDate.now(zone).minusDays(SEED_LOOKBACK_DAYS);
+        Map<String, Set<Integer>> fired = new HashMap<>();
+        for (String id : alertRepository.findIdsByExpirationDateFrom(from)) {
+            int colon = id.lastIndexOf(':');
+            if (colon < 0) continue;
+            fired.computeIfAbsent(id.substring(0, colon), k -> new HashSet<>())
+                    .add(Integer.parseInt(id.substring(colon + 1)));
+        }
+        int[] seeded = {0};
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<DatedLotRow> rows = stockLotRepository.streamOpenDatedLots(from)) {
+                rows.forEach(row -> {
+                    synchronized (this) {
+                        if (liveLots.contains(row.getId())) return;
+                        TrackedLot lot = new TrackedLot(row.getId());
+                        lot.fired.addAll(fired.getOrDefault(row.getId(), Set.of()));
+                        track(lot, row.getInventoryItemId(), row.getBranchId(), row.getDepartmentId(),
+                                row.getExpirationDate(), row.getRemainingQuantity());
+                        seeded[0]++;
+                    }
+                });
+            }
+        });
+        ready = true;
+        liveLots.clear();
+        log.info("Expiry alerts ready in {} ms: {} lots seeded, {} timers pending",
+                System.currentTimeMillis() - start, seeded[0], pendingTimers());
+    }
+
+    synchronized int pendingTimers() {
+        return wheel.size();
+    }
+
+    @Override
+    public void lotsChanged(Collection<StockLot> changed) {
+        if (!enabled || changed == null || changed.isEmpty()) return;
+        // Copy what is needed now: the entities may change again before commit
+        List<StockLot> copy = changed.stream()
+                .map(l -> StockLot.builder()
+                        .id(l.getId())
+                        .inventoryItemId(l.getInventoryItemId())
+                        .branchId(l.getBranchId())
+                        .departmentId(l.getDepartmentId())
+                        .expirationDate(l.getExpirationDate())
+                        .remainingQuantity(l.getRemainingQuantity())
+                        .build())
+                .toList();
+        afterCommit(() -> {
+            synchronized (this) {
+                for (StockLot lot : copy) {
+                    if (!ready) liveLots.add(lot.getId());
+                    TrackedLot tracked = lots.get(lot.getId());
+                    // New, or reopened by a revert: the latter may raise its most urgent alert once more
+                    if (tracked == null) tracked = new TrackedLot(lot.getId());
+                    track(tracked, lot.getInventoryItemId(), lot.getBranchId(), lot.getDepartmentId(),
+                            lot.getExpirationDate(), lot.getRemainingQuantity());
+                }
+            }
+        });
+    }
+
+    // Caller holds this
+    private void track(TrackedLot lot, String itemId, String branchId, String departmentId,
+                       LocalDate expiry, BigDecimal remaining) {
+        boolean open = expiry != null && remaining != null && remaining.signum() > 0;
+        if (!open) {
+            lot.timers.values().forEach(wheel::cancel);
+            lots.remove(lot.lotId);
+            return;
+        }
+        lot.inventoryItemId = itemId;
+        lot.branchId = branchId;
+        lot.departmentId = departmentId;
+        lot.remainingQuantity = remaining;
+        if (!expiry.equals(lot.expirationDate)) {
+            // Re-dated: horizons of the new date start over
+            lot.timers.values().forEach(wheel::cancel);
+            lot.timers.clear();
+            if (lot.expirationDate != null) lot.fired.clear();
+            lot.expirationDate = expiry;
+            schedule(lot);
+        }
+        lots.put(lot.lotId, lot);
+    }
+
+    private void schedule(TrackedLot lot) {
+        long now = System.currentTimeMillis();
+        Integer mostUrgentPast = null;
+        for (int horizon : horizons) {
+            if (lot.fired.contains(horizon)) {
+                mostUrgentPast = null;
+                continue;
+            }
+            long due = deadline(lot.expirationDate, horizon);
+            if (due > now) {
+                lot.timers.put(horizon, wheel.schedule(new Due(lot.lotId, horizon), due));
+            } else {
+                mostUrgentPast = horizon;
+            }
+        }
+        // Horizons are sorted descending, so the last past one is the closest to expiry
+        if (mostUrgentPast != null) {
+            lot.timers.put(mostUrgentPast, wheel.schedule(new Due(lot.lotId, mostUrgentPast), DUE_NOW));
+        }
+    }
+
+    private long deadline(LocalDate expiry, int horizonDays) {
+        return expiry.minusDays(horizonDays).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    @Override
+    public int tick() {
+        return tick(System.currentTimeMillis());
+    }
+
+    int tick(long nowMillis) {
+        if (!enabled) return 0;
+        LocalDateTime firedAt = LocalDateTime.now(zone);
+        List<ExpiryAlert> alerts = new ArrayList<>();
+        synchronized (this) {
+            for (Due due : wheel.advanceTo(nowMillis)) {
+                TrackedLot lot = lots.get(due.lotId());
+                if (lot == null || lot.timers.remove(due.horizonDays()) == null) continue;
+                lot.fired.add(due.horizonDays());
+                alerts.add(ExpiryAlert.builder()
+                        .id(ExpiryAlert.idOf(lot.lotId, due.horizonDays()))
+                        .lotId(lot.lotId)
+                        .inventoryItemId(lot.inventoryItemId)
+                        .branchId(lot.branchId)
+                        .departmentId(lot.departmentId)
+                        .expirationDate(lot.expirationDate)
+                        .horizonDays(due.horizonDays())
+                        .remainingQuantity(lot.remainingQuantity)
+                        .firedAt(firedAt)
+                        .build());
+            }
+        }
+        if (alerts.isEmpty()) return 0;
+        // Outside the lock; the ids make a second save of the same alert an update
+        try {
+            alertRepository.saveAll(alerts);
+        } catch (RuntimeException ex) {
+            log.warn("Could not store {} expiry alert(s), retrying on the next tick: {}", alerts.size(), ex.getMessage());
+            synchronized (this) {
+                for (ExpiryAlert alert : alerts) {
+                    TrackedLot lot = lots.get(alert.getLotId());
+                    if (lot == null || !lot.fired.remove(alert.getHorizonDays())) continue;
+                    lot.timers.put(alert.getHorizonDays(), wheel.schedule(new Due(lot.lotId, alert.getHorizonDays()), DUE_NOW));
+                }
+            }
+            return 0;
+        }
+        log.info("Raised {} expiry alert(s)", alerts.size());
+        return alerts.size();
+    }
+
+    @Override
+    public List<ExpiryAlertDTO> alerts(String branchId, String departmentId, int days) {
+        if (days < 1 || days > MAX_DAYS) {
+            throw new IllegalArgumentException("days must be between 1 and " + MAX_DAYS);
+        }
+        List<ExpiryAlert> alerts = alertRepository.findFired(LocalDateTime.now(zone).minusDays(days),
+                hasText(branchId) ? branchId : null, hasText(departmentId) ? departmentId : null,
+                PageRequest.of(0, MAX_LISTED));
+        if (alerts.isEmpty()) return List.of();
+
+        Map<String, String> names = new HashMap<>();
+        inventoryItemRepository.findAllById(alerts.stream().map(ExpiryAlert::getInventoryItemId).distinct().toList())
+                .forEach(item -> names.put(item.getId(), item.getName()));
+        return alerts.stream()
+                .map(alert -> ExpiryAlertDTO.builder()
+                        .lotId(alert.getLotId())
+                        .inventoryItemId(alert.getInventoryItemId())
+                        .itemName(names.get(alert.getInventoryItemId()))
+                        .branchId(alert.getBranchId())
+                        .departmentId(alert.getDepartmentId())
+                        .expirationDate(alert.getExpirationDate())
+                        .horizonDays(alert.getHorizonDays())
+                        .level(alert.getHorizonDays() == 0 ? "expired" : "expiring")
+                        .remainingQuantity(alert.getRemainingQuantity())
+                        .firedAt(alert.getFiredAt())
+                        .build())
+                .toList();
+    }
+}
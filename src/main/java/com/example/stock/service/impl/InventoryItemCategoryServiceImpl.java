@@ -5,10 +5,12 @@ import com.example.stock.dto.common.PaginationInfo;
 import com.example.stock.dto.category.CategoryCreateDTO;
 import com.example.stock.dto.category.CategoryResponseDTO;
 import com.example.stock.dto.category.CategoryUpdateDTO;
+import com.example.stock.entity.ChangeLogEntry.EntityType;
 import com.example.stock.entity.InventoryItemCategory;
 import com.example.stock.exception.DeleteConstraintException;
 import com.example.stock.exception.ResourceNotFoundException;
 import com.example.stock.repository.InventoryItemCategoryRepository;
+import com.example.stock.service.ChangeFeedService;
 import com.example.stock.service.InventoryItemCategoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -42,6 +44,7 @@ public class InventoryItemCategoryServiceImpl implements InventoryItemCategorySe
     private static final String CATEGORY_ENTITY = "Category";
 
     private final InventoryItemCategoryRepository categoryRepository;
+    private final ChangeFeedService changeFeedService;
 
     @Override
     @Transactional(readOnly = true)
@@ -247,6 +250,7 @@ public class InventoryItemCategoryServiceImpl implements InventoryItemCategorySe
             .build();
 
         InventoryItemCategory savedCategory = categoryRepository.save(category);
+        changeFeedService.upserted(EntityType.CATEGORY, savedCategory.getId(), savedCategory.getBranchId());
         log.info("Category created successfully with ID: {}", savedCategory.getId());
 
         return convertToResponseDTO(savedCategory);
@@ -259,6 +263,8 @@ public class InventoryItemCategoryServiceImpl implements InventoryItemCategorySe
         InventoryItemCategory existingCategory = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(CATEGORY_ENTITY, id));
 
+        String previousBranchId = existingCategory.getBranchId();
+
         // Update fields
         existingCategory.setName(updateDTO.getName());
         existingCategory.setBranchId(updateDTO.getBranchId());
@@ -266,6 +272,7 @@ public class InventoryItemCategoryServiceImpl implements InventoryItemCategorySe
         existingCategory.setUpdatedAt(LocalDateTime.now());
 
         InventoryItemCategory updatedCategory = categoryRepository.save(existingCategory);
+        changeFeedService.updated(EntityType.CATEGORY, id, previousBranchId, updatedCategory.getBranchId());
         log.info("Category updated successfully with ID: {}", updatedCategory.getId());
 
         return convertToResponseDTO(updatedCategory);
@@ -276,7 +283,7 @@ public class InventoryItemCategoryServiceImpl implements InventoryItemCategorySe
         log.info("Deleting category with ID: {}", id);
         
         // Ensure category exists
-        categoryRepository.findById(id)
+        InventoryItemCategory category = categoryRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException(CATEGORY_ENTITY, id));
         
         // Check if category has associated inventory items using count query
@@ -286,6 +293,7 @@ public class InventoryItemCategoryServiceImpl implements InventoryItemCategorySe
         }
         
         categoryRepository.deleteById(id);
+        changeFeedService.deleted(EntityType.CATEGORY, id, category.getBranchId());
         log.info("Category deleted successfully with ID: {}", id);
     }
     
@@ -7,6 +7,7 @@ import com.example.stock.dto.inventoryitem.InventoryItemCreateDTO;
 import com.example.stock.dto.inventoryitem.InventoryItemResponseDTO;
 import com.example.stock.dto.inventoryitem.InventoryItemUpdateDTO;
 import com.example.stock.dto.unit.UnitResponseDTO;
+import com.example.stock.entity.ChangeLogEntry.EntityType;
 import com.example.stock.entity.InventoryItem;
 import com.example.stock.entity.InventoryItemCategory;
 import com.example.stock.entity.Unit;
@@ -17,7 +18,10 @@ import com.example.stock.repository.InventoryItemCategoryRepository;
 import com.example.stock.repository.InventoryItemRepository;
 import com.example.stock.repository.TaxRepository;
 import com.example.stock.repository.UnitRepository;
+import com.example.stock.scheduler.MovementItemBackfill;
+import com.example.stock.service.ChangeFeedService;
 import com.example.stock.service.InventoryItemService;
+import com.example.stock.service.StockStatusService;
 import com.example.stock.specification.InventoryItemSpecifications;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -32,11 +36,14 @@ import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+import static com.example.stock.util.TransactionHooks.afterCommit;
+
 /**
  * Implementation of InventoryItemService interface.
  * Handles all business logic for Inventory Item entity operations.
@@ -58,6 +65,9 @@ public class InventoryItemServiceImpl implements InventoryItemService {
     private final InventoryItemCategoryRepository categoryRepository;
     private final UnitRepository unitRepository;
     private final TaxRepository taxRepository;
+    private final StockStatusService stockStatusService;
+    private final ChangeFeedService changeFeedService;
+    private final MovementItemBackfill movementItemBackfill;
     
     @Override
     @Transactional(readOnly = true)
@@ -345,6 +355,8 @@ public class InventoryItemServiceImpl implements InventoryItemService {
             .build();
         
         InventoryItem savedInventoryItem = inventoryItemRepository.save(inventoryItem);
+        stockStatusService.itemChanged(savedInventoryItem);
+        changeFeedService.upserted(EntityType.ITEM, savedInventoryItem.getId(), savedInventoryItem.getBranchId());
         log.info("Inventory item created successfully with ID: {}", savedInventoryItem.getId());
         
         return convertToResponseDTO(savedInventoryItem);
@@ -367,6 +379,13 @@ public class InventoryItemServiceImpl implements InventoryItemService {
         Tax tax = taxRepository.findById(Long.parseLong(updateDTO.getTaxId()))
                 .orElseThrow(() -> new ForeignKeyConstraintException("tax_id", updateDTO.getTaxId()));
         
+        // Movements carry a copy of the name and category for filtering
+        boolean movementAttributesChanged =
+            !Objects.equals(existingInventoryItem.getName(), updateDTO.getName())
+            || existingInventoryItem.getCategory() == null
+            || !category.getId().equals(existingInventoryItem.getCategory().getId());
+        String previousBranchId = existingInventoryItem.getBranchId();
+
         // Update fields
         existingInventoryItem.setName(updateDTO.getName());
         existingInventoryItem.setBranchId(updateDTO.getBranchId());
@@ -379,7 +398,13 @@ public class InventoryItemServiceImpl implements InventoryItemService {
         existingInventoryItem.setUpdatedAt(LocalDateTime.now());
         
         InventoryItem updatedInventoryItem = inventoryItemRepository.save(existingInventoryItem);
+        stockStatusService.itemChanged(updatedInventoryItem);
+        changeFeedService.updated(EntityType.ITEM, id, previousBranchId, updatedInventoryItem.getBranchId());
         log.info("Inventory item updated successfully with ID: {}", updatedInventoryItem.getId());
+
+        if (movementAttributesChanged) {
+            afterCommit(() -> movementItemBackfill.scheduleRefresh(id));
+        }
         
         return convertToResponseDTO(updatedInventoryItem);
     }
@@ -389,13 +414,15 @@ public class InventoryItemServiceImpl implements InventoryItemService {
         log.info("Deleting inventory item with ID: {}", id);
         
         // Ensure inventory item exists
-        inventoryItemRepository.findById(id)
+        InventoryItem inventoryItem = inventoryItemRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException(INVENTORY_ITEM_ENTITY, id));
         
         // Check if inventory item has stock records or movement history
         // For now, we'll just delete it - in a real system you'd check for references
         
         inventoryItemRepository.deleteById(id);
+        stockStatusService.itemDeleted(id);
+        changeFeedService.deleted(EntityType.ITEM, id, inventoryItem.getBranchId());
         log.info("Inventory item deleted successfully with ID: {}", id);
     }
     
@@ -1,5 +1,7 @@
 package com.example.stock.service.impl;
 
+import com.example.stock.dto.common.CursorPage;
+import com.example.stock.dto.inventorymouvement.InventoryMovementBatchResultDTO;
 import com.example.stock.dto.inventorymouvement.InventoryMovementCreateDTO;
 import com.example.stock.dto.inventorymouvement.InventoryMovementResponseDTO;
 import com.example.stock.dto.inventorymouvement.InventoryMovementUpdateDTO;
@@ -13,18 +15,48 @@ import com.example.stock.repository.InventoryItemRepository;
 import com.example.stock.repository.InventoryMovementRepository;
 import com.example.stock.repository.SuppliersRepository;
 import com.example.stock.service.InventoryMovementService;
+import com.example.stock.service.MovementRollupService;
+import com.example.stock.service.StockHistoryService;
+import com.example.stock.service.StockLotService;
+import com.example.stock.service.StockProjectionService;
+import com.example.stock.service.StockProjectionService.StockDelta;
+import com.example.stock.specification.InventoryMovementSpecifications;
+import com.example.stock.util.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 import static org.springframework.util.StringUtils.hasText;
 
 @Service
@@ -32,10 +64,26 @@ import static org.springframework.util.StringUtils.hasText;
 @Slf4j
 public class InventoryMovementServiceImpl implements InventoryMovementService {
 
+    // Rows per JDBC round trip while exporting; also the persistence context clear cadence
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
     private final InventoryMovementRepository inventoryMovementRepository;
     private final SuppliersRepository suppliersRepository;
     private final InventoryMovementMapper inventoryMovementMapper;
     private final InventoryItemRepository inventoryItemRepository;
+    private final StockProjectionService stockProjectionService;
+    private final StockWriteBehindBuffer stockWriteBehindBuffer;
+    private final StockHistoryService stockHistoryService;
+    private final MovementRollupService movementRollupService;
+    private final StockLotService stockLotService;
+    private final PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Flush/clear cadence for batch ingestion, aligned with Hibernate's JDBC batch size
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:25}")
+    private int jdbcBatchSize;
 
     @Override
     @Transactional
@@ -43,6 +91,157 @@ public class InventoryMovementServiceImpl implements InventoryMovementService {
         log.info("Creating inventory movement: item={}, branch={}, type={}, qty={}",
                 dto.getInventoryItemId(), dto.getBranchId(), dto.getTransactionType(), dto.getQuantity());
 
+        validateCreate(dto);
+        final String itemId = dto.getInventoryItemId();
+        final TransactionType type = dto.getTransactionType();
+
+        // Resolve the item first: its department is the stock dimension of the movement
+        InventoryItem item = inventoryItemRepository.findById(itemId)
+                .orElseThrow(() -> new ResourceNotFoundException("InventoryItem", itemId));
+
+        // Create and save the movement record
+        InventoryMovement movement = inventoryMovementMapper.toEntity(dto);
+        movement.setId(UUID.randomUUID().toString());
+        movement.setCreatedAt(LocalDateTime.now());
+        movement.setUpdatedAt(LocalDateTime.now());
+        movement.captureItem(item);
+        if (type == TransactionType.TRANSFER) {
+            movement.setDestinationDepartmentId(item.getDepartmentId());
+        }
+
+        // Set supplier relation if provided
+        if (dto.getSupplierId() != null && !dto.getSupplierId().isBlank()) {
+            try {
+                Suppliers supplierRef = suppliersRepository.getReferenceById(dto.getSupplierId());
+                movement.setSupplier(supplierRef);
+            } catch (Exception ex) {
+                throw new ResourceNotFoundException("Supplier", dto.getSupplierId());
+            }
+        }
+
+        boolean writeBehind = stockWriteBehindBuffer.isEnabled();
+        movement.setStockApplied(!writeBehind);
+        InventoryMovement savedMovement = inventoryMovementRepository.save(movement);
+        movementRollupService.record(List.of(savedMovement), 1);
+        if (writeBehind) {
+            stockWriteBehindBuffer.enqueueAfterCommit(savedMovement.getId(), StockDelta.of(savedMovement));
+        } else {
+            stockProjectionService.applyMovement(savedMovement);
+            stockLotService.apply(List.of(savedMovement));
+        }
+        return inventoryMovementMapper.toResponseDTO(savedMovement);
+    }
+
+    @Override
+    @Transactional
+    public InventoryMovementBatchResultDTO createMovements(List<InventoryMovementCreateDTO> dtos) {
+        final int total = dtos.size();
+        log.info("Creating inventory movement batch: rows={}", total);
+
+        // 1. Stateless checks on every row, collecting the referenced ids
+        String[] errors = new String[total];
+        Set<String> itemIds = new HashSet<>();
+        Set<String> supplierIds = new HashSet<>();
+        for (int i = 0; i < total; i++) {
+            InventoryMovementCreateDTO dto = dtos.get(i);
+            if (dto == null) {
+                errors[i] = "Movement is required";
+                continue;
+            }
+            try {
+                validateCreate(dto);
+                itemIds.add(dto.getInventoryItemId());
+                if (hasText(dto.getSupplierId())) supplierIds.add(dto.getSupplierId());
+            } catch (IllegalArgumentException ex) {
+                errors[i] = ex.getMessage();
+            }
+        }
+
+        // 2. One lookup per referenced table instead of one per row
+        Map<String, InventoryItem> items = new HashMap<>();
+        inventoryItemRepository.findAllById(itemIds).forEach(item -> items.put(item.getId(), item));
+        Set<String> knownSuppliers = new HashSet<>();
+        suppliersRepository.findAllById(supplierIds).forEach(supplier -> knownSuppliers.add(supplier.getId()));
+
+        int rejected = 0;
+        for (int i = 0; i < total; i++) {
+            InventoryMovementCreateDTO dto = dtos.get(i);
+            if (errors[i] == null && !items.containsKey(dto.getInventoryItemId())) {
+                errors[i] = "InventoryItem not found with id: " + dto.getInventoryItemId();
+            }
+            if (errors[i] == null && hasText(dto.getSupplierId()) && !knownSuppliers.contains(dto.getSupplierId())) {
+                errors[i] = "Supplier not found with id: " + dto.getSupplierId();
+            }
+            if (errors[i] != null) rejected++;
+        }
+
+        List<InventoryMovementBatchResultDTO.RowResult> results = new ArrayList<>(total);
+        if (rejected > 0) {
+            for (int i = 0; i < total; i++) {
+                results.add(InventoryMovementBatchResultDTO.RowResult.builder()
+                        .index(i)
+                        .status(errors[i] != null ? "rejected" : "skipped")
+                        .error(errors[i])
+                        .build());
+            }
+            log.warn("Inventory movement batch rejected: {} of {} rows invalid", rejected, total);
+            return InventoryMovementBatchResultDTO.builder()
+                    .total(total).created(0).rejected(rejected).results(results).build();
+        }
+
+        // 3. Build entities and their stock deltas
+        LocalDateTime now = LocalDateTime.now();
+        List<InventoryMovement> movements = new ArrayList<>(total);
+        List<StockDelta> deltas = new ArrayList<>(total);
+        for (InventoryMovementCreateDTO dto : dtos) {
+            InventoryItem item = items.get(dto.getInventoryItemId());
+            InventoryMovement movement = inventoryMovementMapper.toEntity(dto);
+            movement.setId(UUID.randomUUID().toString());
+            movement.setCreatedAt(now);
+            movement.setUpdatedAt(now);
+            movement.setStockApplied(true);
+            movement.captureItem(item);
+            if (dto.getTransactionType() == TransactionType.TRANSFER) {
+                movement.setDestinationDepartmentId(item.getDepartmentId());
+            }
+            movements.add(movement);
+            deltas.addAll(StockDelta.of(movement));
+        }
+
+        // 4. One stock row update per key
+        int keysUpdated = stockProjectionService.apply(StockDelta.coalesce(deltas)).size();
+        stockLotService.apply(movements);
+        movementRollupService.record(movements, 1);
+
+        // 5. Plain persist (ids are assigned, so save() would merge with a SELECT per row),
+        //    flushed in chunks matching hibernate.jdbc.batch_size so inserts go out as JDBC batches
+        int chunk = Math.max(jdbcBatchSize, 1);
+        for (int i = 0; i < total; i++) {
+            entityManager.persist(movements.get(i));
+            if ((i + 1) % chunk == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        for (int i = 0; i < total; i++) {
+            results.add(InventoryMovementBatchResultDTO.RowResult.builder()
+                    .index(i)
+                    .id(movements.get(i).getId())
+                    .status("created")
+                    .build());
+        }
+        log.info("Inventory movement batch created: rows={}, stockKeys={}", total, keysUpdated);
+        return InventoryMovementBatchResultDTO.builder()
+                .total(total).created(total).rejected(0).stockKeysUpdated(keysUpdated).results(results).build();
+    }
+
+    /**
+     * Stateless business validation shared by single and batch creation.
+     */
+    private void validateCreate(InventoryMovementCreateDTO dto) {
         // Basic validations
         if (dto.getQuantity() == null || dto.getQuantity().compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Quantity must be greater than 0");
@@ -61,8 +260,7 @@ public class InventoryMovementServiceImpl implements InventoryMovementService {
         }
 
         // Validate specific transaction type requirements
-        TransactionType type = dto.getTransactionType();
-        switch (type) {
+        switch (dto.getTransactionType()) {
             case IN -> {
                 if (dto.getUnitPurchasePrice() == null) {
                     throw new IllegalArgumentException("unit_purchase_price is required for IN");
@@ -89,43 +287,17 @@ public class InventoryMovementServiceImpl implements InventoryMovementService {
                 }
             }
         }
-
-        // Create and save the movement record
-        // Create and save the movement record
-InventoryMovement movement = inventoryMovementMapper.toEntity(dto);
-movement.setId(UUID.randomUUID().toString());
-movement.setCreatedAt(LocalDateTime.now());
-movement.setUpdatedAt(LocalDateTime.now());
-
-// Set inventory item relation (REQUIRED)
-try {
-    InventoryItem itemRef = inventoryItemRepository.getReferenceById(dto.getInventoryItemId());
-    movement.setInventoryItem(itemRef);
-} catch (Exception ex) {
-    throw new ResourceNotFoundException("InventoryItem", dto.getInventoryItemId());
-}
-
-// Set supplier relation if provided
-if (dto.getSupplierId() != null && !dto.getSupplierId().isBlank()) {
-    try {
-        Suppliers supplierRef = suppliersRepository.getReferenceById(dto.getSupplierId());
-        movement.setSupplier(supplierRef);
-    } catch (Exception ex) {
-        throw new ResourceNotFoundException("Supplier", dto.getSupplierId());
-    }
-}
-
-InventoryMovement savedMovement = inventoryMovementRepository.save(movement);
-        return inventoryMovementMapper.toResponseDTO(savedMovement);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<InventoryMovementResponseDTO> getAllMovements(Pageable pageable) {
         return inventoryMovementRepository.findAll(pageable)
                 .map(inventoryMovementMapper::toResponseDTO);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public InventoryMovementResponseDTO getMovementById(String id) {
         InventoryMovement movement = inventoryMovementRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("InventoryMovement", id));
@@ -138,11 +310,34 @@ InventoryMovement savedMovement = inventoryMovementRepository.save(movement);
         InventoryMovement movement = inventoryMovementRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("InventoryMovement", id));
 
+        if (dto.getQuantity() != null && dto.getQuantity().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
+
+        // Undo the old stock effect before the mapper mutates the quantity
+        // (nothing to undo while it is still waiting in the write-behind buffer)
+        boolean pending = claimIfStockPending(movement);
+        BigDecimal previousQuantity = movement.getQuantity();
+        LocalDate previousExpiry = movement.getExpirationDate();
+        List<StockDelta> deltas = pending ? new ArrayList<>() : new ArrayList<>(StockDelta.reversalOf(movement));
+
         // Apply allowed updates (mapper ignores restricted fields per config)
         inventoryMovementMapper.updateEntityFromDTO(dto, movement);
         movement.setUpdatedAt(LocalDateTime.now());
 
         InventoryMovement saved = inventoryMovementRepository.save(movement);
+        if (pending || saved.getQuantity().compareTo(previousQuantity) != 0) {
+            deltas.addAll(StockDelta.of(saved));
+            stockProjectionService.apply(deltas);
+            stockHistoryService.invalidateFrom(saved.getInventoryItemId(), saved.getCreatedAt());
+        }
+        if (pending) {
+            stockLotService.apply(List.of(saved));
+        } else if (saved.getQuantity().compareTo(previousQuantity) != 0
+                || !Objects.equals(saved.getExpirationDate(), previousExpiry)) {
+            stockLotService.update(saved);
+        }
+        movementRollupService.recordQuantityChange(saved, previousQuantity);
         return inventoryMovementMapper.toResponseDTO(saved);
     }
 
@@ -151,11 +346,125 @@ InventoryMovement savedMovement = inventoryMovementRepository.save(movement);
     public void delete(String id) {
         InventoryMovement movement = inventoryMovementRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("InventoryMovement", id));
+        boolean pending = claimIfStockPending(movement);
         inventoryMovementRepository.delete(movement);
+        if (!pending) {
+            stockProjectionService.revertMovement(movement);
+            stockLotService.revert(movement);
+        }
+        stockHistoryService.invalidateFrom(movement.getInventoryItemId(), movement.getCreatedAt());
+        movementRollupService.record(List.of(movement), -1);
+    }
+
+    /**
+     * A movement still queued in the write-behind buffer has no stock effect yet.
+     * Lock and mark it applied so the flusher skips it; false once it has been flushed.
+     */
+    private boolean claimIfStockPending(InventoryMovement movement) {
+        if (!Boolean.FALSE.equals(movement.getStockApplied())) {
+            return false;
+        }
+        boolean claimed = !inventoryMovementRepository.lockStockPending(List.of(movement.getId())).isEmpty();
+        movement.setStockApplied(true);
+        return claimed;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<InventoryMovementResponseDTO> searchMovements(MovementSearchFilter filter, Pageable pageable) {
+        return inventoryMovementRepository.findAll(toSpecification(filter), pageable)
+                .map(inventoryMovementMapper::toResponseDTO);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<InventoryMovementResponseDTO> scrollMovements(MovementSearchFilter filter, String cursor, int limit,
+                                                                    boolean descending, boolean includeTotal) {
+        int size = Math.min(Math.max(limit, 1), MAX_SCROLL_LIMIT);
+        Specification<InventoryMovement> filters = toSpecification(filter);
+        Specification<InventoryMovement> spec = filters;
+        if (hasText(cursor)) {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            spec = filters.and(InventoryMovementSpecifications.seekAfter(after.createdAt(), after.id(), descending));
+        }
+
+        // (created_at, id) is unique, so the order is total and the seek predicate never skips or repeats rows
+        Sort sort = Sort.by(descending ? Sort.Direction.DESC : Sort.Direction.ASC, "createdAt", "id");
+        List<InventoryMovement> rows = inventoryMovementRepository.findBy(spec, q -> q.sortBy(sort).limit(size + 1)
+                .project("inventoryItem", "supplier")
+                .all());
+
+        // One extra row tells whether another slice exists, without a COUNT
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            InventoryMovement last = rows.get(rows.size() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return CursorPage.<InventoryMovementResponseDTO>builder()
+                .data(rows.stream().map(inventoryMovementMapper::toResponseDTO).toList())
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .limit(size)
+                .total(includeTotal ? inventoryMovementRepository.count(filters) : null)
+                .build();
+    }
+
+    @Override
+    public MovementExport exportMovements(MovementSearchFilter filter, ExportFormat format) {
+        Specification<InventoryMovement> spec = toSpecification(filter);
+        return out -> {
+            // Streaming happens after the controller returned, outside any proxied call
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            try {
+                Long written = readOnly.execute(status -> streamExport(spec, format, out));
+                return written != null ? written : 0L;
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        };
+    }
+
+    private long streamExport(Specification<InventoryMovement> spec, ExportFormat format, OutputStream out) {
+        long start = System.currentTimeMillis();
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<InventoryMovement> query = cb.createQuery(InventoryMovement.class);
+        Root<InventoryMovement> root = query.from(InventoryMovement.class);
+        Predicate where = spec.toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        query.orderBy(cb.asc(root.get("createdAt")), cb.asc(root.get("id")));
+
+        long written = 0;
+        try (Stream<InventoryMovement> rows = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            MovementExportWriter writer = MovementExportWriter.open(format, out);
+            for (var it = rows.iterator(); it.hasNext(); ) {
+                writer.write(it.next());
+                // Drop written rows (and their lazy proxies) so the session does not grow with the export
+                if (++written % EXPORT_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+            writer.finish();
+        } catch (IOException ex) {
+            // Mostly the client going away mid-download
+            log.warn("Inventory movement export aborted after {} rows: {}", written, ex.getMessage());
+            throw new UncheckedIOException(ex);
+        }
+        log.info("Exported {} inventory movements as {} in {} ms", written, format, System.currentTimeMillis() - start);
+        return written;
+    }
+
+    private Specification<InventoryMovement> toSpecification(MovementSearchFilter filter) {
         // Convert transactionType string to enum if provided
         TransactionType type = null;
         if (filter != null && hasText(filter.transactionType())) {
@@ -166,7 +475,7 @@ InventoryMovement savedMovement = inventoryMovementRepository.save(movement);
             }
         }
 
-        Specification<InventoryMovement> spec = com.example.stock.specification.InventoryMovementSpecifications.build(
+        return InventoryMovementSpecifications.build(
                 filter != null ? filter.branchId() : null,
                 filter != null ? filter.departmentId() : null,
                 filter != null ? filter.supplierId() : null,
@@ -186,8 +495,5 @@ InventoryMovement savedMovement = inventoryMovementRepository.save(movement);
                 filter != null ? filter.updatedAfter() : null,
                 filter != null ? filter.updatedBefore() : null
         );
-
-        return inventoryMovementRepository.findAll(spec, pageable)
-                .map(inventoryMovementMapper::toResponseDTO);
     }
 }
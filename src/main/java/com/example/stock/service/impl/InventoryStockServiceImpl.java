@@ -9,9 +9,11 @@ import com.example.stock.exception.ResourceNotFoundException;
 import com.example.stock.mapper.InventoryStockMapper;
 import com.example.stock.repository.InventoryStockRepository;
 import com.example.stock.service.InventoryStockService;
+import com.example.stock.service.StockChangedEvent;
 import com.example.stock.specification.InventoryStockSpecifications;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -30,6 +32,7 @@ public class InventoryStockServiceImpl implements InventoryStockService {
 
     private final InventoryStockRepository inventoryStockRepository;
     private final InventoryStockMapper inventoryStockMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public PaginatedResponse<InventoryStockResponseDTO> findAllWithFilters(
@@ -118,6 +121,7 @@ public class InventoryStockServiceImpl implements InventoryStockService {
         InventoryStock stock = inventoryStockRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("InventoryStock", id));
         inventoryStockRepository.delete(stock);
+        eventPublisher.publishEvent(StockChangedEvent.deleted(stock));
     }
 
     /**
@@ -0,0 +1,260 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.menuitemssnapshot.PosMenuItemDTO;
+import com.example.stock.dto.variation.VariationDTO;
+import com.example.stock.entity.MenuItemSnapshot;
+import com.example.stock.entity.MenuItemVariationSnapshot;
+import com.example.stock.entity.SellableItem;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Difference between the POS catalog and the stored menu, computed from preloaded rows in two
+ * steps: upserts, one part of the catalog at a time, then the deletes once the whole catalog
+ * was seen. Items whose content hash matches the stored one are skipped. Changed fields are set
+ * on the loaded (managed) entities in place; inserts and deletes are collected for batched writes.
+ *
+ * Deletes are scoped to the branches present in the catalog. Sellable items used by a recipe
+ * are never deleted, and neither are the snapshot and variation they point to. A variation the
+ * catalog no longer has goes once no sellable item is left on it, in the run that drops it or,
+ * if a recipe still held it then, in a later one.
+ */
+final class MenuSyncDiff {
+
+    record NewItem(PosMenuItemDTO item, String contentHash, List<VariationDTO> variations) {}
+
+    final List<NewItem> newItems = new ArrayList<>();
+    final List<MenuItemVariationSnapshot> newVariations = new ArrayList<>();
+    final List<SellableItem> newSellables = new ArrayList<>();
+    final List<Long> deletedSnapshots = new ArrayList<>();
+    final List<Long> deletedVariations = new ArrayList<>();
+    final List<Long> deletedSellables = new ArrayList<>();
+
+    int received;
+    int unchanged;
+    int rejected;
+    int snapshotsUpdated;
+    int variationsUpdated;
+    int sellablesUpdated;
+    int sellablesKept;
+
+    private final Map<Long, MenuItemVariationSnapshot> variationsById = new HashMap<>();
+    private final Set<Long> referencedSellableIds;
+
+    private MenuSyncDiff(Set<Long> referencedSellableIds) {
+        this.referencedSellableIds = referencedSellableIds;
+    }
+
+    /** What the catalog contained so far in a run, for the deletes at its end. */
+    static final class Scope {
+        final Set<Long> seenItems = new HashSet<>();
+        final Set<Long> seenVariations = new HashSet<>();
+        final Set<Long> branches = new HashSet<>();
+        // Deleted by the upserts: their variations are no longer in use
+        final Set<Long> deletedSellables = new HashSet<>();
+    }
+
+    /**
+     * Inserts and updates for a part of the catalog, plus the sellable items its changed items
+     * no longer have. The rows given are those of the part: its snapshots, their variations and
+     * sellable items, and the stored variations it names.
+     */
+    static MenuSyncDiff upserts(Collection<PosMenuItemDTO> posItems, List<MenuItemSnapshot> snapshots,
+                                List<MenuItemVariationSnapshot> variations, List<SellableItem> sellables,
+                                Set<Long> referencedSellableIds, LocalDateTime now, Scope scope) {
+        MenuSyncDiff diff = new MenuSyncDiff(referencedSellableIds);
+        Map<Long, MenuItemSnapshot> snapshotsByPosId = new HashMap<>();
+        snapshots.forEach(s -> snapshotsByPosId.put(s.getPosMenuItemId(), s));
+        variations.forEach(v -> diff.variationsById.put(v.getId(), v));
+        Map<Long, List<SellableItem>> sellablesBySnapshot = bySnapshot(sellables);
+
+        for (PosMenuItemDTO item : posItems) {
+            diff.received++;
+            // Ids are claimed before validation, so an invalid item never deletes its snapshot
+            if (item.getId() == null || !scope.seenItems.add(item.getId())
+                    || !hasText(item.getItem_name()) || item.getBranch_id() == null) {
+                diff.rejected++;
+                continue;
+            }
+            scope.branches.add(item.getBranch_id());
+            List<VariationDTO> itemVariations = new ArrayList<>();
+            if (item.getVariations() != null) {
+                for (VariationDTO variation : item.getVariations()) {
+                    if (variation.getId() != null && hasText(variation.getVariation())
+                            && scope.seenVariations.add(variation.getId())) {
+                        itemVariations.add(variation);
+                    }
+                }
+            }
+            itemVariations.sort(Comparator.comparing(VariationDTO::getId));
+            String hash = contentHash(item, itemVariations);
+
+            MenuItemSnapshot snapshot = snapshotsByPosId.get(item.getId());
+            if (snapshot == null) {
+                diff.newItems.add(new NewItem(item, hash, itemVariations));
+                continue;
+            }
+            if (hash.equals(snapshot.getContentHash())) {
+                diff.unchanged++;
+                continue;
+            }
+            snapshot.setName(item.getItem_name());
+            snapshot.setImage(item.getImage());
+            snapshot.setBranchId(item.getBranch_id());
+            snapshot.setContentHash(hash);
+            snapshot.setUpdatedAt(now);
+            diff.snapshotsUpdated++;
+            diff.diffVariations(snapshot.getId(), itemVariations);
+            diff.diffSellables(snapshot.getId(), item, itemVariations,
+                    sellablesBySnapshot.getOrDefault(snapshot.getId(), List.of()));
+        }
+        scope.deletedSellables.addAll(diff.deletedSellables);
+        return diff;
+    }
+
+    /**
+     * Snapshots the whole catalog no longer has, in its branches, and the variations it dropped.
+     * A dropped variation goes from every stored row, and only once no sellable item uses it
+     * after the deletes of both phases. An empty catalog is more likely a POS fault than an
+     * empty menu: nothing is deleted then.
+     */
+    static MenuSyncDiff deletes(Scope scope, List<MenuItemSnapshot> snapshots,
+                                List<MenuItemVariationSnapshot> variations, List<SellableItem> sellables,
+                                Set<Long> referencedSellableIds) {
+        MenuSyncDiff diff = new MenuSyncDiff(referencedSellableIds);
+        if (scope.branches.isEmpty()) return diff;
+        Map<Long, List<SellableItem>> sellablesBySnapshot = bySnapshot(sellables);
+        Set<Long> inScope = new HashSet<>();
+        for (MenuItemSnapshot snapshot : snapshots) {
+            if (!scope.branches.contains(snapshot.getBranchId())) continue;
+            inScope.add(snapshot.getId());
+            if (scope.seenItems.contains(snapshot.getPosMenuItemId())) continue;
+            boolean kept = false;
+            for (SellableItem sellable : sellablesBySnapshot.getOrDefault(snapshot.getId(), List.of())) {
+                kept |= !diff.deleteSellable(sellable);
+            }
+            if (!kept) diff.deletedSnapshots.add(snapshot.getId());
+        }
+
+        // Usage is taken after every delete, so no variation stays on a sellable item that is gone
+        Set<Long> deletedSellables = new HashSet<>(scope.deletedSellables);
+        deletedSellables.addAll(diff.deletedSellables);
+        Set<Long> usedVariations = new HashSet<>();
+        for (SellableItem sellable : sellables) {
+            if (sellable.getMenuItemVariationSnapshotId() != null && !deletedSellables.contains(sellable.getId())) {
+                usedVariations.add(sellable.getMenuItemVariationSnapshotId());
+            }
+        }
+        for (MenuItemVariationSnapshot variation : variations) {
+            if (!scope.seenVariations.contains(variation.getId()) && inScope.contains(variation.getMenuItemSnapshotId())
+                    && !usedVariations.contains(variation.getId())) {
+                diff.deletedVariations.add(variation.getId());
+            }
+        }
+        return diff;
+    }
+
+    private static Map<Long, List<SellableItem>> bySnapshot(List<SellableItem> sellables) {
+        Map<Long, List<SellableItem>> bySnapshot = new HashMap<>();
+        sellables.forEach(s -> bySnapshot.computeIfAbsent(s.getMenuItemSnapshotId(), id -> new ArrayList<>()).add(s));
+        return bySnapshot;
+    }
+
+    /** Variations and sellable items of the new snapshots, once their ids are known. */
+    void attach(Map<Long, Long> snapshotIdsByPosId) {
+        for (NewItem newItem : newItems) {
+            Long snapshotId = snapshotIdsByPosId.get(newItem.item().getId());
+            diffVariations(snapshotId, newItem.variations());
+            diffSellables(snapshotId, newItem.item(), newItem.variations(), List.of());
+        }
+    }
+
+    private void diffVariations(Long snapshotId, List<VariationDTO> itemVariations) {
+        for (VariationDTO variation : itemVariations) {
+            MenuItemVariationSnapshot existing = variationsById.get(variation.getId());
+            if (existing == null) {
+                newVariations.add(MenuItemVariationSnapshot.builder()
+                        .id(variation.getId())
+                        .menuItemSnapshotId(snapshotId)
+                        .name(variation.getVariation())
+                        .build());
+            } else if (!variation.getVariation().equals(existing.getName())
+                    || !snapshotId.equals(existing.getMenuItemSnapshotId())) {
+                // Renamed, or moved from another menu item
+                existing.setName(variation.getVariation());
+                existing.setMenuItemSnapshotId(snapshotId);
+                variationsUpdated++;
+            }
+        }
+    }
+
+    // One sellable item per variation, or a single one without variation
+    private void diffSellables(Long snapshotId, PosMenuItemDTO item, List<VariationDTO> itemVariations,
+                               List<SellableItem> existing) {
+        Map<Long, String> wanted = new LinkedHashMap<>();
+        if (itemVariations.isEmpty()) {
+            wanted.put(null, item.getItem_name());
+        } else {
+            itemVariations.forEach(v -> wanted.put(v.getId(), v.getVariation()));
+        }
+        for (SellableItem sellable : existing) {
+            Long variationId = sellable.getMenuItemVariationSnapshotId();
+            if (!wanted.containsKey(variationId)) {
+                deleteSellable(sellable);
+                continue;
+            }
+            String name = wanted.remove(variationId);
+            if (!Objects.equals(name, sellable.getName())) {
+                sellable.setName(name);
+                sellablesUpdated++;
+            }
+        }
+        wanted.forEach((variationId, name) -> newSellables.add(SellableItem.builder()
+                .menuItemSnapshotId(snapshotId)
+                .menuItemVariationSnapshotId(variationId)
+                .name(name)
+                .build()));
+    }
+
+    /** @return false when the sellable item is used by a recipe and is kept */
+    private boolean deleteSellable(SellableItem sellable) {
+        if (referencedSellableIds.contains(sellable.getId())) {
+            sellablesKept++;
+            return false;
+        }
+        deletedSellables.add(sellable.getId());
+        return true;
+    }
+
+    static String contentHash(PosMenuItemDTO item, List<VariationDTO> variations) {
+        StringBuilder content = new StringBuilder()
+                .append(item.getItem_name()).append('\u0000')
+                .append(item.getImage()).append('\u0000')
+                .append(item.getBranch_id());
+        for (VariationDTO variation : variations) {
+            content.append('\u0000').append(variation.getId()).append('\u0000').append(variation.getVariation());
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
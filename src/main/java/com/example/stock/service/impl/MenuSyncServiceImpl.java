@@ -0,0 +1,488 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.menuitemssnapshot.MenuSyncJobDTO;
+import com.example.stock.dto.menuitemssnapshot.MenuSyncReportDTO;
+import com.example.stock.dto.menuitemssnapshot.MenuSyncReportDTO.Changes;
+import com.example.stock.dto.menuitemssnapshot.PosMenuItemDTO;
+import com.example.stock.entity.MenuItemSnapshot;
+import com.example.stock.entity.MenuItemVariationSnapshot;
+import com.example.stock.entity.SellableItem;
+import com.example.stock.exception.ResourceConflictException;
+import com.example.stock.exception.ResourceNotFoundException;
+import com.example.stock.integration.PosStockClient;
+import com.example.stock.integration.PosStockClient.Catalog;
+import com.example.stock.integration.PosStockClient.CatalogVersion;
+import com.example.stock.repository.MenuItemSnapshotRepository;
+import com.example.stock.repository.MenuItemSnapshotRepository.PosIdRow;
+import com.example.stock.repository.MenuItemVariationSnapshotRepository;
+import com.example.stock.repository.RecipesRepository;
+import com.example.stock.repository.RecipesRepository.MenuRecipeRow;
+import com.example.stock.repository.SellableItemRepository;
+import com.example.stock.service.MenuSyncService;
+import com.example.stock.service.impl.MenuSyncDiff.NewItem;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * POS menu synchronization jobs, run on a small pool off the request thread. A job streams the
+ * catalog and upserts it in chunks of {@code menu.sync.chunk-size} items as they are read, one
+ * transaction per chunk: each chunk loads only its own rows, is diffed by {@link MenuSyncDiff}
+ * and commits before the next one is read. Only the ids seen are kept across chunks. Once the
+ * whole catalog is in, the rows it no longer has are
+ * deleted, children first, one transaction per statement. A failure stops the job where it is:
+ * committed chunks stay, nothing is deleted, and the next job picks up from the stored state.
+ *
+ * Jobs are keyed per POS source (the stock key's fingerprint): a source has at most one job
+ * queued or running on this node. The version (ETag, Last-Modified) of the last catalog applied
+ * in full is sent with the next fetch; when the POS answers 304 the job ends without writing.
+ * Finished jobs are kept in memory for polling, the last {@code menu.sync.retained-jobs} of them.
+ *
+ * Updates go out as Hibernate JDBC batches at flush. Snapshots and sellable items have identity
+ * ids, which Hibernate cannot batch, so their inserts are JDBC batches of their own; variations
+ * carry the POS id and are persisted.
+ */
+@Service
+@Slf4j
+public class MenuSyncServiceImpl implements MenuSyncService {
+
+    // Ids per IN list, for the id lookups and bulk deletes
+    private static final int IDS_PER_STATEMENT = 1000;
+
+    private static final String INSERT_SNAPSHOT = """
+        insert into menu_items_snapshot (pos_menu_item_id, name, image, branch_id, content_hash, created_at)
+        values (?, ?, ?, ?, ?, ?)
+        """;
+    private static final String INSERT_SELLABLE = """
+        insert into sellable_item (menu_item_snapshot_id, menu_item_variation_snapshot_id, name)
+        values (?, ?, ?)
+        """;
+
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final String source;
+        final LocalDateTime submittedAt = LocalDateTime.now();
+        final CompletableFuture<MenuSyncReportDTO> done = new CompletableFuture<>();
+
+        private Status status = Status.QUEUED;
+        private Phase phase;
+        private Integer itemsTotal;
+        private int itemsProcessed;
+        private int chunksCommitted;
+        private final MenuSyncReportDTO report = MenuSyncReportDTO.builder()
+                .menuItems(new Changes())
+                .variations(new Changes())
+                .sellableItems(new Changes())
+                .build();
+        private boolean notModified;
+        private String error;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+
+        Job(String source) {
+            this.source = source;
+        }
+
+        synchronized void phase(Phase next) {
+            if (status == Status.QUEUED) {
+                status = Status.RUNNING;
+                startedAt = LocalDateTime.now();
+            }
+            phase = next;
+        }
+
+        synchronized void fetched(int items) {
+            itemsTotal = items;
+        }
+
+        synchronized void notModified() {
+            notModified = true;
+        }
+
+        synchronized void committed(int items, MenuSyncDiff diff) {
+            itemsProcessed += items;
+            chunksCommitted++;
+            report.setReceived(report.getReceived() + items);
+            report.setUnchanged(report.getUnchanged() + diff.unchanged);
+            report.setRejected(report.getRejected() + diff.rejected);
+            add(report.getMenuItems(), diff.newItems.size(), diff.snapshotsUpdated, diff.deletedSnapshots.size());
+            add(report.getVariations(), diff.newVariations.size(), diff.variationsUpdated, diff.deletedVariations.size());
+            add(report.getSellableItems(), diff.newSellables.size(), diff.sellablesUpdated, diff.deletedSellables.size());
+            report.setSellableItemsKept(report.getSellableItemsKept() + diff.sellablesKept);
+        }
+
+        synchronized MenuSyncReportDTO finish(Throwable failure) {
+            status = failure == null ? Status.SUCCEEDED : Status.FAILED;
+            error = failure == null ? null : String.valueOf(failure.getMessage());
+            finishedAt = LocalDateTime.now();
+            if (startedAt != null) {
+                report.setDurationMs(Duration.between(startedAt, finishedAt).toMillis());
+            }
+            return copy(report);
+        }
+
+        synchronized boolean finished() {
+            return finishedAt != null;
+        }
+
+        synchronized LocalDateTime finishedAt() {
+            return finishedAt;
+        }
+
+        synchronized MenuSyncJobDTO toDto() {
+            return MenuSyncJobDTO.builder()
+                    .jobId(id)
+                    .source(source)
+                    .status(status)
+                    .phase(phase)
+                    .itemsTotal(itemsTotal)
+                    .itemsProcessed(itemsProcessed)
+                    .chunksCommitted(chunksCommitted)
+                    .notModified(notModified ? Boolean.TRUE : null)
+                    .report(copy(report))
+                    .error(error)
+                    .submittedAt(submittedAt)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+
+        private static void add(Changes changes, int inserted, int updated, int deleted) {
+            changes.setInserted(changes.getInserted() + inserted);
+            changes.setUpdated(changes.getUpdated() + updated);
+            changes.setDeleted(changes.getDeleted() + deleted);
+        }
+
+        private static MenuSyncReportDTO copy(MenuSyncReportDTO report) {
+            return new MenuSyncReportDTO(report.getReceived(), report.getUnchanged(), report.getRejected(),
+                    copy(report.getMenuItems()), copy(report.getVariations()), copy(report.getSellableItems()),
+                    report.getSellableItemsKept(), report.getDurationMs());
+        }
+
+        private static Changes copy(Changes changes) {
+            return new Changes(changes.getInserted(), changes.getUpdated(), changes.getDeleted());
+        }
+    }
+
+    private final PosStockClient posStockClient;
+    private final MenuItemSnapshotRepository menuItemRepository;
+    private final MenuItemVariationSnapshotRepository variationRepository;
+    private final SellableItemRepository sellableItemRepository;
+    private final RecipesRepository recipesRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final MeterRegistry meterRegistry;
+    private final Executor executor;
+    private final int chunkSize;
+    private final int retainedJobs;
+
+    private final ConcurrentHashMap<String, Job> jobs = new ConcurrentHashMap<>();
+    // POS source -> its queued or running job
+    private final ConcurrentHashMap<String, Job> active = new ConcurrentHashMap<>();
+    // POS source -> version of the last catalog fully applied, for conditional fetches
+    private final ConcurrentHashMap<String, CatalogVersion> catalogVersions = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:25}")
+    private int jdbcBatchSize;
+
+    @Autowired
+    public MenuSyncServiceImpl(PosStockClient posStockClient,
+                               MenuItemSnapshotRepository menuItemRepository,
+                               MenuItemVariationSnapshotRepository variationRepository,
+                               SellableItemRepository sellableItemRepository,
+                               RecipesRepository recipesRepository,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${menu.sync.threads:2}") int threads,
+                               @Value("${menu.sync.chunk-size:500}") int chunkSize,
+                               @Value("${menu.sync.retained-jobs:100}") int retainedJobs) {
+        this(posStockClient, menuItemRepository, variationRepository, sellableItemRepository, recipesRepository,
+                jdbcTemplate, transactionManager, meterRegistry,
+                Executors.newFixedThreadPool(Math.max(threads, 1), daemonThreads()), chunkSize, retainedJobs);
+    }
+
+    MenuSyncServiceImpl(PosStockClient posStockClient,
+                        MenuItemSnapshotRepository menuItemRepository,
+                        MenuItemVariationSnapshotRepository variationRepository,
+                        SellableItemRepository sellableItemRepository,
+                        RecipesRepository recipesRepository,
+                        JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        Executor executor, int chunkSize, int retainedJobs) {
+        this.posStockClient = posStockClient;
+        this.menuItemRepository = menuItemRepository;
+        this.variationRepository = variationRepository;
+        this.sellableItemRepository = sellableItemRepository;
+        this.recipesRepository = recipesRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.executor = executor;
+        this.chunkSize = Math.max(chunkSize, 1);
+        this.retainedJobs = Math.max(retainedJobs, 1);
+    }
+
+    private static CustomizableThreadFactory daemonThreads() {
+        CustomizableThreadFactory factory = new CustomizableThreadFactory("menu-sync-");
+        factory.setDaemon(true);
+        return factory;
+    }
+
+    @Override
+    public MenuSyncJobDTO submit(String stockKey) {
+        return start(stockKey).toDto();
+    }
+
+    @Override
+    public MenuSyncJobDTO job(String jobId) {
+        Job job = jobId != null ? jobs.get(jobId) : null;
+        if (job == null) {
+            throw new ResourceNotFoundException("Menu sync job not found with id: " + jobId);
+        }
+        return job.toDto();
+    }
+
+    @Override
+    public MenuSyncReportDTO syncAndWait(String stockKey) {
+        try {
+            return start(stockKey).done.join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+    }
+
+    private Job start(String stockKey) {
+        if (!hasText(stockKey)) {
+            throw new IllegalArgumentException("stock-key is required");
+        }
+        Job job = new Job(fingerprint(stockKey));
+        Job current = active.putIfAbsent(job.source, job);
+        if (current != null) {
+            throw new ResourceConflictException("A menu sync job is already running for this POS source: " + current.id);
+        }
+        jobs.put(job.id, job);
+        evictFinished();
+        executor.execute(() -> run(job, stockKey));
+        log.info("Menu sync job {} queued for source {}", job.id, job.source);
+        return job;
+    }
+
+    private void run(Job job, String stockKey) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Throwable failure = null;
+        try {
+            job.phase(Phase.FETCHING);
+            Set<Long> referenced = referencedSellableIds();
+            MenuSyncDiff.Scope scope = new MenuSyncDiff.Scope();
+            Catalog catalog = posStockClient.fetchMenuItems(stockKey, catalogVersions.get(job.source), chunkSize, chunk -> {
+                job.phase(Phase.UPSERTING);
+                MenuSyncDiff diff = writeTransaction.execute(status -> upsert(chunk, referenced, scope));
+                job.committed(chunk.size(), diff);
+            });
+            if (catalog.notModified()) {
+                job.notModified();
+                log.info("Menu sync job {}: POS catalog not modified since the last sync", job.id);
+                return;
+            }
+            job.fetched(catalog.items());
+            log.info("Menu sync job {}: upserted {} menu items from POS", job.id, catalog.items());
+
+            job.phase(Phase.DELETING);
+            MenuSyncDiff deletes = readTransaction.execute(status -> MenuSyncDiff.deletes(scope,
+                    menuItemRepository.findAll(), variationRepository.findAll(), sellableItemRepository.findAll(),
+                    referencedSellableIds()));
+            inChunks(deletes.deletedSellables, ids -> writeTransaction.executeWithoutResult(
+                    status -> sellableItemRepository.deleteAllByIdInBatch(ids)));
+            inChunks(deletes.deletedVariations, ids -> writeTransaction.executeWithoutResult(
+                    status -> variationRepository.deleteAllByIdInBatch(ids)));
+            inChunks(deletes.deletedSnapshots, ids -> writeTransaction.executeWithoutResult(
+                    status -> menuItemRepository.deleteAllByIdInBatch(ids)));
+            job.committed(0, deletes);
+            // Only a catalog applied in full may be skipped next time
+            if (catalog.version() != null) {
+                catalogVersions.put(job.source, catalog.version());
+            } else {
+                catalogVersions.remove(job.source);
+            }
+        } catch (Exception ex) {
+            failure = ex;
+            log.error("Menu sync job {} failed", job.id, ex);
+        } finally {
+            MenuSyncReportDTO report = job.finish(failure);
+            active.remove(job.source, job);
+            sample.stop(Timer.builder("menu.sync.job.duration")
+                    .description("Duration of one POS menu sync job")
+                    .tag("outcome", failure == null ? "succeeded" : "failed")
+                    .register(meterRegistry));
+            if (failure == null) {
+                log.info("Menu sync job {} completed: {}", job.id, report);
+                job.done.complete(report);
+            } else {
+                job.done.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private MenuSyncDiff upsert(List<PosMenuItemDTO> chunk, Set<Long> referenced, MenuSyncDiff.Scope scope) {
+        Set<Long> posIds = new HashSet<>();
+        Set<Long> variationIds = new HashSet<>();
+        for (PosMenuItemDTO item : chunk) {
+            if (item.getId() != null) posIds.add(item.getId());
+            if (item.getVariations() != null) {
+                item.getVariations().forEach(v -> {
+                    if (v.getId() != null) variationIds.add(v.getId());
+                });
+            }
+        }
+        List<MenuItemSnapshot> snapshots = posIds.isEmpty() ? List.of() : menuItemRepository.findByPosMenuItemIdIn(posIds);
+        List<Long> snapshotIds = snapshots.stream().map(MenuItemSnapshot::getId).toList();
+        List<MenuItemVariationSnapshot> variations = variationIds.isEmpty() && snapshotIds.isEmpty()
+                ? List.of()
+                : variationRepository.findByIdInOrMenuItemSnapshotIdIn(orNone(variationIds), orNone(snapshotIds));
+        List<SellableItem> sellables = snapshotIds.isEmpty() ? List.of() : sellableItemRepository.findByMenuItemSnapshotIdIn(snapshotIds);
+
+        LocalDateTime now = LocalDateTime.now();
+        MenuSyncDiff diff = MenuSyncDiff.upserts(chunk, snapshots, variations, sellables, referenced, now, scope);
+
+        // 1. Updates of the loaded rows
+        entityManager.flush();
+
+        // 2. Inserts, parents first
+        diff.attach(insertSnapshots(diff.newItems, now));
+        int batch = Math.max(jdbcBatchSize, 1);
+        for (int i = 0; i < diff.newVariations.size(); i++) {
+            entityManager.persist(diff.newVariations.get(i));
+            if ((i + 1) % batch == 0) entityManager.flush();
+        }
+        entityManager.flush();
+        insertSellables(diff.newSellables);
+
+        // 3. Sellable items the changed items no longer have
+        inChunks(diff.deletedSellables, sellableItemRepository::deleteAllByIdInBatch);
+        return diff;
+    }
+
+    private Set<Long> referencedSellableIds() {
+        return recipesRepository.findMenuRecipes().stream()
+                .map(MenuRecipeRow::getSellableItemId)
+                .collect(Collectors.toSet());
+    }
+
+    /** @return snapshot id by POS menu item id of the inserted snapshots */
+    private Map<Long, Long> insertSnapshots(List<NewItem> newItems, LocalDateTime now) {
+        Map<Long, Long> ids = new HashMap<>();
+        if (newItems.isEmpty()) return ids;
+        Timestamp createdAt = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(INSERT_SNAPSHOT, newItems, Math.max(jdbcBatchSize, 1), (ps, newItem) -> {
+            PosMenuItemDTO item = newItem.item();
+            ps.setLong(1, item.getId());
+            ps.setString(2, item.getItem_name());
+            ps.setString(3, item.getImage());
+            ps.setLong(4, item.getBranch_id());
+            ps.setString(5, newItem.contentHash());
+            ps.setTimestamp(6, createdAt);
+        });
+        List<Long> posIds = newItems.stream().map(newItem -> newItem.item().getId()).toList();
+        inChunks(posIds, chunk -> {
+            for (PosIdRow row : menuItemRepository.findIdsByPosMenuItemIds(chunk)) {
+                ids.put(row.getPosMenuItemId(), row.getId());
+            }
+        });
+        return ids;
+    }
+
+    private void insertSellables(List<SellableItem> sellables) {
+        if (sellables.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_SELLABLE, sellables, Math.max(jdbcBatchSize, 1), (ps, sellable) -> {
+            ps.setLong(1, sellable.getMenuItemSnapshotId());
+            if (sellable.getMenuItemVariationSnapshotId() != null) {
+                ps.setLong(2, sellable.getMenuItemVariationSnapshotId());
+            } else {
+                ps.setNull(2, Types.BIGINT);
+            }
+            ps.setString(3, sellable.getName());
+        });
+    }
+
+    private void evictFinished() {
+        int excess = jobs.size() - retainedJobs;
+        if (excess <= 0) return;
+        jobs.values().stream()
+                .filter(Job::finished)
+                .sorted(Comparator.comparing(Job::finishedAt))
+                .limit(excess)
+                .forEach(job -> jobs.remove(job.id, job));
+    }
+
+    // An empty IN list is not portable: match no id instead
+    private static List<Long> orNone(Collection<Long> ids) {
+        return ids.isEmpty() ? List.of(-1L) : new ArrayList<>(ids);
+    }
+
+    private static void inChunks(List<Long> ids, Consumer<List<Long>> action) {
+        for (int from = 0; from < ids.size(); from += IDS_PER_STATEMENT) {
+            action.accept(ids.subList(from, Math.min(from + IDS_PER_STATEMENT, ids.size())));
+        }
+    }
+
+    // The stock key itself never leaves the request
+    static String fingerprint(String stockKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(stockKey.getBytes(StandardCharsets.UTF_8))).substring(0, 12);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (executor instanceof ExecutorService pool) pool.shutdownNow();
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.entity.InventoryMovement;
+import com.example.stock.service.InventoryMovementService.ExportFormat;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Row-at-a-time serializer for movement exports. Only scalar columns are written, so no
+ * lazy association is ever initialized while streaming.
+ */
+abstract class MovementExportWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final JsonFactory JSON = new JsonFactory();
+
+    record Column(String name, Function<InventoryMovement, Object> value) {}
+
+    static final List<Column> COLUMNS = List.of(
+            new Column("id", InventoryMovement::getId),
+            new Column("created_at", InventoryMovement::getCreatedAt),
+            new Column("updated_at", InventoryMovement::getUpdatedAt),
+            new Column("transaction_type", m -> m.getTransactionType() != null ? m.getTransactionType().name() : null),
+            new Column("inventory_item_id", InventoryMovement::getInventoryItemId),
+            new Column("branch_id", InventoryMovement::getBranchId),
+            new Column("department_id", InventoryMovement::getDepartmentId),
+            new Column("destination_branch_id", InventoryMovement::getDestinationBranchId),
+            new Column("destination_department_id", InventoryMovement::getDestinationDepartmentId),
+            new Column("supplier_id", InventoryMovement::getSupplierId),
+            new Column("quantity", InventoryMovement::getQuantity),
+            new Column("unit_purchase_price", InventoryMovement::getUnitPurchasePrice),
+            new Column("expiration_date", InventoryMovement::getExpirationDate),
+            new Column("waste_reason", InventoryMovement::getWasteReason),
+            new Column("notes", InventoryMovement::getNotes)
+    );
+
+    static MovementExportWriter open(ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        return switch (format) {
+            case CSV -> new Csv(writer);
+            case NDJSON -> new NdJson(writer);
+        };
+    }
+
+    abstract void write(InventoryMovement movement) throws IOException;
+
+    /** Flushes buffered rows; the underlying stream stays open for the caller. */
+    abstract void finish() throws IOException;
+
+    private static final class Csv extends MovementExportWriter {
+        private final Writer writer;
+
+        Csv(Writer writer) throws IOException {
+            this.writer = writer;
+            for (int i = 0; i < COLUMNS.size(); i++) {
+                if (i > 0) writer.write(',');
+                writer.write(COLUMNS.get(i).name());
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        void write(InventoryMovement movement) throws IOException {
+            for (int i = 0; i < COLUMNS.size(); i++) {
+                if (i > 0) writer.write(',');
+                Object value = COLUMNS.get(i).value().apply(movement);
+                if (value != null) writer.write(escape(value));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        void finish() throws IOException {
+            writer.flush();
+        }
+
+        // RFC 4180: quote fields holding separators, quotes or line breaks
+        static String escape(Object value) {
+            String text = value instanceof BigDecimal d ? d.toPlainString() : value.toString();
+            boolean quote = false;
+            for (int i = 0; i < text.length() && !quote; i++) {
+                char c = text.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            return quote ? '"' + text.replace("\"", "\"\"") + '"' : text;
+        }
+    }
+
+    private static final class NdJson extends MovementExportWriter {
+        private final Writer writer;
+        private final JsonGenerator generator;
+
+        NdJson(Writer writer) throws IOException {
+            this.writer = writer;
+            this.generator = JSON.createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // One object per line instead of the default single-space root separator
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        void write(InventoryMovement movement) throws IOException {
+            generator.writeStartObject();
+            for (Column column : COLUMNS) {
+                Object value = column.value().apply(movement);
+                if (value == null) {
+                    generator.writeNullField(column.name());
+                } else if (value instanceof BigDecimal number) {
+                    generator.writeNumberField(column.name(), number);
+                } else {
+                    // Dates go out as ISO-8601, like the JSON API
+                    generator.writeStringField(column.name(), value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        void finish() throws IOException {
+            generator.flush();
+            writer.flush();
+        }
+    }
+}
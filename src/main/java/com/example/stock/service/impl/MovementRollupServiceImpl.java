@@ -0,0 +1,224 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.inventorymouvement.MovementRollupDTO;
+import com.example.stock.entity.InventoryMovement;
+import com.example.stock.entity.InventoryMovement.TransactionType;
+import com.example.stock.entity.MovementDailyRollup;
+import com.example.stock.repository.MovementDailyRollupRepository;
+import com.example.stock.service.MovementRollupService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.example.stock.util.TransactionHooks.afterCommit;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Movement writers only queue their deltas, once their transaction commits; {@link #flush()}
+ * adds them up per rollup row and writes them in one transaction. The hot rows of the day are
+ * then updated by the flusher alone, outside of every movement transaction. Deltas queued when
+ * the node stops unflushed are lost until the nightly repair recomputes their day.
+ *
+ * A repair recomputes from committed movements whose deltas may still sit in a queue, here or on
+ * another node, and would be added again when flushed. It therefore only takes days that ended
+ * more than {@code inventory.rollup.repair.settle-ms} ago, by which time the movements of the
+ * day were flushed everywhere. An edit or delete of an older movement committed while its day
+ * is being repaired can still be counted twice; the next repair of that day heals it.
+ */
+@Service
+@Slf4j
+public class MovementRollupServiceImpl implements MovementRollupService {
+
+    private final MovementDailyRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration settle;
+
+    private final Object pendingLock = new Object();
+    private Map<String, Delta> pending = new HashMap<>();
+
+    public MovementRollupServiceImpl(MovementDailyRollupRepository rollupRepository,
+                                     TransactionTemplate transactionTemplate,
+                                     @Value("${inventory.rollup.repair.settle-ms:60000}") long settleMs) {
+        this.rollupRepository = rollupRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.settle = Duration.ofMillis(Math.max(settleMs, 0));
+    }
+
+    @Override
+    public void record(Collection<InventoryMovement> movements, int sign) {
+        if (movements == null || movements.isEmpty()) return;
+        Map<String, Delta> deltas = new HashMap<>();
+        for (InventoryMovement movement : movements) {
+            if (!isRollable(movement)) continue;
+            deltas.computeIfAbsent(idOf(movement), id -> new Delta(movement))
+                    .add(movement.getQuantity(), movement.getUnitPurchasePrice(), sign, sign);
+        }
+        if (!deltas.isEmpty()) afterCommit(() -> enqueue(deltas));
+    }
+
+    @Override
+    public void recordQuantityChange(InventoryMovement movement, BigDecimal previousQuantity) {
+        if (!isRollable(movement) || previousQuantity == null) return;
+        BigDecimal change = movement.getQuantity().subtract(previousQuantity);
+        if (change.signum() == 0) return;
+        Delta delta = new Delta(movement);
+        delta.add(change, movement.getUnitPurchasePrice(), 1, 0);
+        afterCommit(() -> enqueue(Map.of(idOf(movement), delta)));
+    }
+
+    private void enqueue(Map<String, Delta> deltas) {
+        synchronized (pendingLock) {
+            deltas.forEach((id, delta) -> pending.merge(id, delta, Delta::merge));
+        }
+    }
+
+    @Override
+    public int flush() {
+        Map<String, Delta> batch;
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) return 0;
+            // Sorted by key so the flushes of several nodes lock shared rollup rows in the same order
+            batch = new TreeMap<>(pending);
+            pending = new HashMap<>();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(this::upsert));
+            return batch.size();
+        } catch (RuntimeException ex) {
+            log.error("Movement rollup flush of {} row(s) failed, re-queueing", batch.size(), ex);
+            enqueue(batch);
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        flush();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<MovementRollupDTO> query(LocalDate from, LocalDate to, Filters filters) {
+        checkWindow(from, to);
+        Filters f = filters != null ? filters : new Filters(null, null, null, null);
+        TransactionType type = null;
+        if (hasText(f.transactionType())) {
+            try {
+                type = TransactionType.valueOf(f.transactionType().toUpperCase());
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Invalid transaction_type: " + f.transactionType());
+            }
+        }
+        return rollupRepository.search(from, to, blankToNull(f.branchId()), blankToNull(f.departmentId()),
+                        blankToNull(f.inventoryItemId()), type)
+                .stream()
+                .map(r -> MovementRollupDTO.builder()
+                        .day(r.getDay())
+                        .branchId(r.getBranchId())
+                        .departmentId(r.getDepartmentId())
+                        .inventoryItemId(r.getInventoryItemId())
+                        .transactionType(r.getTransactionType().name())
+                        .totalQuantity(r.getTotalQuantity())
+                        .totalValue(r.getTotalValue())
+                        .movementCount(r.getMovementCount())
+                        .build())
+                .toList();
+    }
+
+    @Override
+    public int repair(LocalDate from, LocalDate to) {
+        checkWindow(from, to);
+        LocalDateTime settledBefore = LocalDateTime.now().minus(settle);
+        if (to.plusDays(1).atStartOfDay().isAfter(settledBefore)) {
+            throw new IllegalArgumentException("to must be a day that ended before " + settledBefore
+                    + ": movements of later days may still be queued for the rollups");
+        }
+        // Nothing of this node is left to add on top of the rebuild
+        flush();
+        int written = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDate d = day;
+            Integer rows = transactionTemplate.execute(status -> {
+                rollupRepository.deleteByDay(d);
+                return rollupRepository.rebuildDay(d, d.atStartOfDay(), d.plusDays(1).atStartOfDay());
+            });
+            written += rows != null ? rows : 0;
+        }
+        log.info("Movement rollups repaired for {}..{}: {} row(s)", from, to, written);
+        return written;
+    }
+
+    private void upsert(String id, Delta delta) {
+        InventoryMovement m = delta.movement;
+        rollupRepository.addDelta(id, m.getCreatedAt().toLocalDate(), m.getBranchId(), m.getDepartmentId(),
+                m.getInventoryItemId(), m.getTransactionType().name(), delta.quantity, delta.value, delta.count);
+    }
+
+    // Movements without a department predate denormalization; the repair job picks them up once backfilled
+    private static boolean isRollable(InventoryMovement m) {
+        return m.getCreatedAt() != null && m.getTransactionType() != null && m.getQuantity() != null
+                && hasText(m.getBranchId()) && hasText(m.getDepartmentId()) && hasText(m.getInventoryItemId());
+    }
+
+    private static String idOf(InventoryMovement m) {
+        return MovementDailyRollup.idOf(m.getCreatedAt().toLocalDate(), m.getBranchId(), m.getDepartmentId(),
+                m.getInventoryItemId(), m.getTransactionType());
+    }
+
+    private static void checkWindow(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new IllegalArgumentException("Date range must not exceed " + MAX_DAYS + " days");
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return hasText(value) ? value : null;
+    }
+
+    private static final class Delta {
+        final InventoryMovement movement;
+        BigDecimal quantity = BigDecimal.ZERO;
+        BigDecimal value = BigDecimal.ZERO;
+        long count;
+
+        Delta(InventoryMovement movement) {
+            this.movement = movement;
+        }
+
+        Delta merge(Delta other) {
+            quantity = quantity.add(other.quantity);
+            value = value.add(other.value);
+            count += other.count;
+            return this;
+        }
+
+        void add(BigDecimal qty, BigDecimal unitPrice, int sign, int countDelta) {
+            BigDecimal signed = sign < 0 ? qty.negate() : qty;
+            quantity = quantity.add(signed);
+            if (unitPrice != null) {
+                value = value.add(signed.multiply(unitPrice));
+            }
+            count += countDelta;
+        }
+    }
+}
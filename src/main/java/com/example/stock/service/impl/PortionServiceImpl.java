@@ -0,0 +1,264 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.recipe.PortionReportDTO;
+import com.example.stock.exception.ResourceNotFoundException;
+import com.example.stock.repository.BranchRepository;
+import com.example.stock.repository.InventoryStockRepository;
+import com.example.stock.repository.InventoryStockRepository.QuantityRow;
+import com.example.stock.repository.RecipesRepository;
+import com.example.stock.repository.RecipesRepository.MenuRecipeRow;
+import com.example.stock.service.PortionService;
+import com.example.stock.service.StockChangedEvent;
+import com.example.stock.service.StockProjectionService.StockKey;
+import com.example.stock.service.impl.RecipeCache.CompiledRecipe;
+import com.example.stock.util.FixedPoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Producible portions from an in-memory snapshot per branch. Each branch holds its on-hand
+ * quantity per item in a primitive array indexed by item slot, the menu compiled against those
+ * slots (ingredient slots and quantities per item) and the portions of every menu item. A
+ * committed stock change moves one slot and recomputes only the menu items using that item,
+ * so a report copies the portions out without computing anything.
+ *
+ * The menu is every recipe attached to a sellable item, flattened by the {@link RecipeCache};
+ * it is reloaded when the recipe cache generation moves. A branch snapshot is loaded on its
+ * first report, for a branch that exists; rows changed live while it loads keep their live
+ * quantity.
+ */
+@Service
+@Slf4j
+public class PortionServiceImpl implements PortionService {
+
+    // Recipe without ingredient quantities: nothing limits it
+    private static final long UNLIMITED = -1L;
+
+    private record Menu(long generation, long[] sellableItemIds, String[] recipeIds, CompiledRecipe[] recipes) {}
+
+    private static final class BranchPortions {
+        private final Object loadLock = new Object();
+        private volatile boolean loaded;
+
+        private final Map<String, Integer> slots = new HashMap<>();
+        private String[] itemOfSlot = new String[64];
+        private long[] onHand = new long[64];
+        private final Map<StockKey, Long> quantities = new HashMap<>();
+
+        private Menu menu;
+        private int[][] ingredientSlots;
+        private long[][] needed;
+        // item slot -> indexes of the menu items using it
+        private int[][] users = new int[0][];
+        private long[] portions;
+        private int[] limiting;
+
+        synchronized void set(StockKey key, long raw) {
+            Long old = quantities.put(key, raw);
+            int slot = slot(key.inventoryItemId());
+            onHand[slot] += raw - (old != null ? old : 0L);
+            if (menu != null && slot < users.length) {
+                for (int item : users[slot]) recompute(item);
+            }
+        }
+
+        // Keys already set live are newer than the loaded rows
+        synchronized void load(List<QuantityRow> rows) {
+            for (QuantityRow row : rows) {
+                StockKey key = new StockKey(row.getInventoryItemId(), row.getBranchId(), row.getDepartmentId());
+                if (!quantities.containsKey(key)) {
+                    set(key, FixedPoint.of(row.getCurrentQuantity()).raw());
+                }
+            }
+            loaded = true;
+        }
+
+        synchronized List<PortionReportDTO.Item> report(Menu current, Long maxPortions) {
+            if (menu != current) compile(current);
+            List<PortionReportDTO.Item> items = new ArrayList<>(portions.length);
+            for (int i = 0; i < portions.length; i++) {
+                long count = portions[i];
+                if (maxPortions != null && (count == UNLIMITED || count > maxPortions)) continue;
+                items.add(PortionReportDTO.Item.builder()
+                        .sellableItemId(menu.sellableItemIds()[i])
+                        .recipeId(menu.recipeIds()[i])
+                        .portions(count == UNLIMITED ? null : count)
+                        .limitingItemId(limiting[i] >= 0 ? itemOfSlot[limiting[i]] : null)
+                        .build());
+            }
+            return items;
+        }
+
+        private void compile(Menu current) {
+            int size = current.recipes().length;
+            ingredientSlots = new int[size][];
+            needed = new long[size][];
+            for (int i = 0; i < size; i++) {
+                CompiledRecipe recipe = current.recipes()[i];
+                ingredientSlots[i] = new int[recipe.size()];
+                needed[i] = new long[recipe.size()];
+                for (int j = 0; j < recipe.size(); j++) {
+                    ingredientSlots[i][j] = slot(recipe.itemId(j));
+                    needed[i][j] = recipe.quantityRaw(j);
+                }
+            }
+            int[] userCount = new int[slots.size()];
+            for (int[] itemSlots : ingredientSlots) {
+                for (int slot : itemSlots) userCount[slot]++;
+            }
+            users = new int[slots.size()][];
+            for (int slot = 0; slot < users.length; slot++) {
+                users[slot] = new int[userCount[slot]];
+            }
+            Arrays.fill(userCount, 0);
+            for (int i = 0; i < size; i++) {
+                for (int slot : ingredientSlots[i]) users[slot][userCount[slot]++] = i;
+            }
+            menu = current;
+            portions = new long[size];
+            limiting = new int[size];
+            for (int i = 0; i < size; i++) recompute(i);
+        }
+
+        private void recompute(int item) {
+            int[] itemSlots = ingredientSlots[item];
+            long[] perPortion = needed[item];
+            long min = Long.MAX_VALUE;
+            int limit = -1;
+            for (int j = 0; j < itemSlots.length; j++) {
+                if (perPortion[j] <= 0) continue;
+                // Both scale 6: the raw quotient is the whole number of portions
+                long count = Math.max(Math.floorDiv(onHand[itemSlots[j]], perPortion[j]), 0L);
+                if (count < min) {
+                    min = count;
+                    limit = itemSlots[j];
+                }
+            }
+            portions[item] = limit < 0 ? UNLIMITED : min;
+            limiting[item] = limit;
+        }
+
+        private int slot(String itemId) {
+            Integer slot = slots.get(itemId);
+            if (slot != null) return slot;
+            int next = slots.size();
+            if (next == onHand.length) {
+                onHand = Arrays.copyOf(onHand, next * 2);
+                itemOfSlot = Arrays.copyOf(itemOfSlot, next * 2);
+            }
+            itemOfSlot[next] = itemId;
+            slots.put(itemId, next);
+            return next;
+        }
+    }
+
+    private final RecipeCache recipeCache;
+    private final RecipesRepository recipesRepository;
+    private final InventoryStockRepository inventoryStockRepository;
+    private final BranchRepository branchRepository;
+    private final TransactionTemplate readOnly;
+
+    private final ConcurrentHashMap<String, BranchPortions> branches = new ConcurrentHashMap<>();
+    private final Object menuLock = new Object();
+    private volatile Menu menu;
+
+    public PortionServiceImpl(RecipeCache recipeCache,
+                              RecipesRepository recipesRepository,
+                              InventoryStockRepository inventoryStockRepository,
+                              BranchRepository branchRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.recipeCache = recipeCache;
+        this.recipesRepository = recipesRepository;
+        this.inventoryStockRepository = inventoryStockRepository;
+        this.branchRepository = branchRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    @Override
+    public PortionReportDTO report(String branchId, Long maxPortions) {
+        if (!hasText(branchId)) {
+            throw new IllegalArgumentException("branch_id is required");
+        }
+        if (maxPortions != null && maxPortions < 0) {
+            throw new IllegalArgumentException("max_portions must be zero or more");
+        }
+        Menu current = menu();
+        List<PortionReportDTO.Item> items = branch(branchId).report(current, maxPortions);
+        return PortionReportDTO.builder()
+                .branchId(branchId)
+                .items(items)
+                .build();
+    }
+
+    // Branches are looked up at commit: one that started loading before it may have read the old quantity
+    @TransactionalEventListener(fallbackExecution = true)
+    public void stockChanged(StockChangedEvent event) {
+        event.quantities().forEach((key, qty) -> {
+            BranchPortions branch = key.branchId() != null ? branches.get(key.branchId()) : null;
+            if (branch != null) branch.set(key, qty != null ? FixedPoint.of(qty).raw() : 0L);
+        });
+    }
+
+    private Menu menu() {
+        long generation = recipeCache.generation();
+        Menu current = menu;
+        if (current != null && current.generation() == generation) return current;
+        synchronized (menuLock) {
+            current = menu;
+            if (current != null && current.generation() == generation) return current;
+            // Generation read before loading: an edit meanwhile makes the next report reload
+            current = readOnly.execute(status -> {
+                List<MenuRecipeRow> rows = recipesRepository.findMenuRecipes();
+                long[] sellableItemIds = new long[rows.size()];
+                String[] recipeIds = new String[rows.size()];
+                for (int i = 0; i < rows.size(); i++) {
+                    sellableItemIds[i] = rows.get(i).getSellableItemId();
+                    recipeIds[i] = rows.get(i).getId();
+                }
+                Map<Long, CompiledRecipe> recipes = recipeCache.getAll(Arrays.stream(sellableItemIds).boxed().toList());
+                CompiledRecipe[] compiled = new CompiledRecipe[rows.size()];
+                for (int i = 0; i < compiled.length; i++) {
+                    compiled[i] = recipes.get(sellableItemIds[i]);
+                }
+                return new Menu(generation, sellableItemIds, recipeIds, compiled);
+            });
+            menu = current;
+            log.debug("Portion menu loaded: {} item(s)", current.recipes().length);
+            return current;
+        }
+    }
+
+    private BranchPortions branch(String branchId) {
+        BranchPortions branch = branches.get(branchId);
+        if (branch == null) {
+            if (!branchRepository.existsById(branchId)) {
+                throw new ResourceNotFoundException("Branch not found with id: " + branchId);
+            }
+            branch = branches.computeIfAbsent(branchId, b -> new BranchPortions());
+        }
+        if (!branch.loaded) {
+            synchronized (branch.loadLock) {
+                if (!branch.loaded) {
+                    // Registered before the read, so commits from here on are applied live
+                    List<QuantityRow> rows = readOnly.execute(status -> inventoryStockRepository.findQuantitiesByBranch(branchId));
+                    branch.load(rows != null ? rows : List.of());
+                    log.info("Portion snapshot of branch {} loaded: {} stock row(s)", branchId, rows != null ? rows.size() : 0);
+                }
+            }
+        }
+        return branch;
+    }
+}
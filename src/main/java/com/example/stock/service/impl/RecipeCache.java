@@ -0,0 +1,263 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.repository.IngredientRepository;
+import com.example.stock.repository.IngredientRepository.RecipeIngredientRow;
+import com.example.stock.util.FixedPoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.stock.util.TransactionHooks.afterCommit;
+
+/**
+ * Recipes flattened for explosion into raw ingredients, in parallel arrays: ingredient item ids
+ * and per-portion quantities (raw {@link FixedPoint}). Sub-recipes are expanded through the
+ * whole DAG and each flattened recipe is memoized by recipe id, so a shared sauce is expanded
+ * once and a deep recipe costs the same to sell as a flat one. Sellable items without a recipe
+ * are cached too, as an empty recipe. Misses of one lookup are loaded one DAG level per query.
+ *
+ * Recipe writes invalidate after commit, together with every recipe that uses the changed one,
+ * directly or not. A load that overlaps an invalidation is not kept, so a reader that saw the
+ * old rows cannot put them back after the edit committed.
+ */
+@Component
+@Slf4j
+public class RecipeCache {
+
+    public static final class CompiledRecipe {
+
+        static final CompiledRecipe NONE = new CompiledRecipe(new String[0], new long[0]);
+
+        private final String[] itemIds;
+        private final long[] quantities;
+
+        CompiledRecipe(String[] itemIds, long[] quantities) {
+            this.itemIds = itemIds;
+            this.quantities = quantities;
+        }
+
+        public int size() {
+            return itemIds.length;
+        }
+
+        public boolean isEmpty() {
+            return itemIds.length == 0;
+        }
+
+        public String itemId(int index) {
+            return itemIds[index];
+        }
+
+        /** Quantity per portion sold, raw {@link FixedPoint}. */
+        public long quantityRaw(int index) {
+            return quantities[index];
+        }
+    }
+
+    private static final String NO_RECIPE = "";
+
+    private final IngredientRepository ingredientRepository;
+    private final ConcurrentHashMap<Long, String> recipeOfSellable = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompiledRecipe> flattened = new ConcurrentHashMap<>();
+    // sub-recipe id -> recipes using it, to invalidate upwards
+    private final ConcurrentHashMap<String, Set<String>> usedBy = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public RecipeCache(IngredientRepository ingredientRepository) {
+        this.ingredientRepository = ingredientRepository;
+    }
+
+    /** Every requested id is in the result; ids without a recipe map to an empty one. */
+    public Map<Long, CompiledRecipe> getAll(Collection<Long> sellableItemIds) {
+        Map<Long, CompiledRecipe> found = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long id : sellableItemIds) {
+            String recipeId = recipeOfSellable.get(id);
+            CompiledRecipe recipe = recipeId == null ? null
+                    : NO_RECIPE.equals(recipeId) ? CompiledRecipe.NONE
+                    : flattened.get(recipeId);
+            if (recipe != null) {
+                found.put(id, recipe);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) return found;
+
+        long seen = generation.get();
+        Map<String, List<RecipeIngredientRow>> rows = new HashMap<>();
+        Map<Long, String> recipeIds = new HashMap<>();
+        for (RecipeIngredientRow row : ingredientRepository.findRowsBySellableItemIds(missing)) {
+            rows.computeIfAbsent(row.getRecipeId(), id -> new ArrayList<>()).add(row);
+            recipeIds.put(row.getSellableItemId(), row.getRecipeId());
+        }
+        Map<String, CompiledRecipe> computed = new HashMap<>();
+        loadSubRecipes(rows, computed);
+
+        for (Long id : missing) {
+            String recipeId = recipeIds.get(id);
+            found.put(id, recipeId == null ? CompiledRecipe.NONE : flatten(recipeId, rows, computed, new HashSet<>()));
+        }
+        if (generation.get() == seen) {
+            flattened.putAll(computed);
+            missing.forEach(id -> recipeOfSellable.put(id, recipeIds.getOrDefault(id, NO_RECIPE)));
+            // Invalidated while storing: drop what may be stale
+            if (generation.get() != seen) {
+                computed.keySet().forEach(flattened::remove);
+                missing.forEach(recipeOfSellable::remove);
+            }
+        }
+        log.debug("Recipe cache: {} hit(s), {} loaded, {} recipe(s) flattened",
+                found.size() - missing.size(), missing.size(), computed.size());
+        return found;
+    }
+
+    /** Same as {@link #getAll} by recipe id; unknown ids map to an empty recipe. */
+    public Map<String, CompiledRecipe> getByRecipeIds(Collection<String> recipeIds) {
+        Map<String, CompiledRecipe> found = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String id : recipeIds) {
+            CompiledRecipe recipe = flattened.get(id);
+            if (recipe != null) {
+                found.put(id, recipe);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) return found;
+
+        long seen = generation.get();
+        Map<String, List<RecipeIngredientRow>> rows = new HashMap<>();
+        for (RecipeIngredientRow row : ingredientRepository.findRowsByRecipeIds(missing)) {
+            rows.computeIfAbsent(row.getRecipeId(), id -> new ArrayList<>()).add(row);
+        }
+        missing.forEach(id -> rows.putIfAbsent(id, new ArrayList<>()));
+        Map<String, CompiledRecipe> computed = new HashMap<>();
+        loadSubRecipes(rows, computed);
+
+        for (String id : missing) {
+            found.put(id, flatten(id, rows, computed, new HashSet<>()));
+        }
+        if (generation.get() == seen) {
+            flattened.putAll(computed);
+            if (generation.get() != seen) {
+                computed.keySet().forEach(flattened::remove);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Drops the recipe and every recipe built on it once the current transaction commits,
+     * along with the given sellable items (those the recipe was or is now attached to).
+     */
+    public void invalidate(String recipeId, Long... sellableItemIds) {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            Set<String> affected = new HashSet<>();
+            Deque<String> queue = new ArrayDeque<>();
+            queue.add(recipeId);
+            while (!queue.isEmpty()) {
+                String id = queue.poll();
+                if (!affected.add(id)) continue;
+                Set<String> parents = usedBy.get(id);
+                if (parents != null) queue.addAll(parents);
+            }
+            affected.forEach(flattened::remove);
+            for (Long id : sellableItemIds) {
+                if (id != null) recipeOfSellable.remove(id);
+            }
+        });
+    }
+
+    public int size() {
+        return flattened.size();
+    }
+
+    /** Bumped by every invalidation; a holder of flattened recipes re-reads them when it moves. */
+    public long generation() {
+        return generation.get();
+    }
+
+    // Breadth-first down the DAG. Sub-recipes already flattened are pinned in computed instead,
+    // so an invalidation racing this load cannot leave them without rows.
+    private void loadSubRecipes(Map<String, List<RecipeIngredientRow>> rows, Map<String, CompiledRecipe> computed) {
+        Set<String> pending = subRecipesToLoad(rows.values(), rows, computed);
+        while (!pending.isEmpty()) {
+            List<RecipeIngredientRow> level = ingredientRepository.findRowsByRecipeIds(pending);
+            for (RecipeIngredientRow row : level) {
+                rows.computeIfAbsent(row.getRecipeId(), id -> new ArrayList<>()).add(row);
+            }
+            pending.forEach(id -> rows.putIfAbsent(id, new ArrayList<>()));
+            pending = subRecipesToLoad(List.of(level), rows, computed);
+        }
+    }
+
+    private Set<String> subRecipesToLoad(Collection<List<RecipeIngredientRow>> batches,
+                                         Map<String, List<RecipeIngredientRow>> rows,
+                                         Map<String, CompiledRecipe> computed) {
+        Set<String> pending = new HashSet<>();
+        for (List<RecipeIngredientRow> batch : batches) {
+            for (RecipeIngredientRow row : batch) {
+                String sub = row.getSubRecipeId();
+                if (sub == null || rows.containsKey(sub) || computed.containsKey(sub)) continue;
+                CompiledRecipe cached = flattened.get(sub);
+                if (cached != null) {
+                    computed.put(sub, cached);
+                } else {
+                    pending.add(sub);
+                }
+            }
+        }
+        return pending;
+    }
+
+    private CompiledRecipe flatten(String recipeId, Map<String, List<RecipeIngredientRow>> rows,
+                                   Map<String, CompiledRecipe> computed, Set<String> path) {
+        CompiledRecipe known = computed.get(recipeId);
+        if (known != null) return known;
+        // Saves reject cycles; this only guards against rows written around them
+        if (!path.add(recipeId)) {
+            throw new IllegalStateException("Recipe cycle through " + recipeId);
+        }
+        Map<String, Long> needed = new LinkedHashMap<>();
+        for (RecipeIngredientRow row : rows.getOrDefault(recipeId, List.of())) {
+            long quantity = FixedPoint.of(row.getQuantity()).raw();
+            if (row.getInventoryItemId() != null) {
+                needed.merge(row.getInventoryItemId(), quantity, Math::addExact);
+            } else if (row.getSubRecipeId() != null) {
+                CompiledRecipe sub = flatten(row.getSubRecipeId(), rows, computed, path);
+                usedBy.computeIfAbsent(row.getSubRecipeId(), id -> ConcurrentHashMap.newKeySet()).add(recipeId);
+                FixedPoint batches = FixedPoint.ofRaw(quantity);
+                for (int i = 0; i < sub.size(); i++) {
+                    needed.merge(sub.itemId(i), batches.multiply(FixedPoint.ofRaw(sub.quantityRaw(i))).raw(), Math::addExact);
+                }
+            }
+        }
+        path.remove(recipeId);
+
+        String[] itemIds = new String[needed.size()];
+        long[] quantities = new long[needed.size()];
+        int i = 0;
+        for (Map.Entry<String, Long> entry : needed.entrySet()) {
+            itemIds[i] = entry.getKey();
+            quantities[i++] = entry.getValue();
+        }
+        CompiledRecipe compiled = new CompiledRecipe(itemIds, quantities);
+        computed.put(recipeId, compiled);
+        return compiled;
+    }
+}
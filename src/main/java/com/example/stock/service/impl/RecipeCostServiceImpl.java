@@ -0,0 +1,315 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.recipe.MenuCostDTO;
+import com.example.stock.dto.recipe.RecipeCostDTO;
+import com.example.stock.dto.recipe.RecipeCostDTO.IngredientCost;
+import com.example.stock.entity.InventoryStock;
+import com.example.stock.entity.Recipes;
+import com.example.stock.exception.ResourceNotFoundException;
+import com.example.stock.repository.BranchRepository;
+import com.example.stock.repository.InventoryStockRepository;
+import com.example.stock.repository.InventoryStockRepository.ItemCostRow;
+import com.example.stock.repository.RecipesRepository;
+import com.example.stock.repository.RecipesRepository.MenuRecipeRow;
+import com.example.stock.service.RecipeCostService;
+import com.example.stock.service.StockChangedEvent;
+import com.example.stock.service.impl.RecipeCache.CompiledRecipe;
+import com.example.stock.util.FixedPoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Recipe costs cached per branch on top of the {@link RecipeCache}. Each branch keeps the unit
+ * cost of the items read so far, the cost of each recipe, and a reverse index from item to the
+ * recipes whose cost uses it. A stock change evicts the item's unit cost and, through the
+ * index, only the recipes using it; they are recomputed on next read. A recipe edit needs no
+ * hook here: the recipe cache hands out a new flattened recipe, which no cached cost matches.
+ *
+ * An item's unit cost in a branch is the average cost of its stock row in the item's own
+ * department, or the plain average of its other rows' costs when that row has none. It does not
+ * depend on quantities, so only a change of a row's average cost evicts: sales and transfers at
+ * cost leave the cache alone. Evictions bump the branch generation; a computation that overlaps
+ * one, or a change committed while its items are loaded, is returned but not kept.
+ */
+@Service
+@Slf4j
+public class RecipeCostServiceImpl implements RecipeCostService {
+
+    private static final int ITEMS_PER_QUERY = 1000;
+    // Unit cost of an item without any costed stock row in the branch
+    private static final long NO_COST = -1L;
+
+    private record CachedCost(CompiledRecipe recipe, long[] unitCosts, long costRaw) {}
+
+    // An item's unit cost and the row costs it was computed from, by department
+    private record ItemCost(long raw, Map<String, BigDecimal> rowCosts) {}
+
+    private static final class BranchCosts {
+        final ConcurrentHashMap<String, ItemCost> unitCosts = new ConcurrentHashMap<>();
+        // inventory item id -> number of computations loading its cost
+        final ConcurrentHashMap<String, Integer> loading = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, CachedCost> recipes = new ConcurrentHashMap<>();
+        // inventory item id -> recipes whose cost uses it
+        final ConcurrentHashMap<String, Set<String>> recipesOfItem = new ConcurrentHashMap<>();
+        final AtomicLong generation = new AtomicLong();
+    }
+
+    private final RecipeCache recipeCache;
+    private final RecipesRepository recipesRepository;
+    private final InventoryStockRepository inventoryStockRepository;
+    private final BranchRepository branchRepository;
+    private final ConcurrentHashMap<String, BranchCosts> branches = new ConcurrentHashMap<>();
+
+    public RecipeCostServiceImpl(RecipeCache recipeCache,
+                                 RecipesRepository recipesRepository,
+                                 InventoryStockRepository inventoryStockRepository,
+                                 BranchRepository branchRepository) {
+        this.recipeCache = recipeCache;
+        this.recipesRepository = recipesRepository;
+        this.inventoryStockRepository = inventoryStockRepository;
+        this.branchRepository = branchRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public RecipeCostDTO cost(String recipeId, String branchId) {
+        requireBranch(branchId);
+        requireExistingBranch(branchId);
+        Recipes recipe = recipesRepository.findById(recipeId)
+                .orElseThrow(() -> new ResourceNotFoundException("Recipe", recipeId));
+        Map<String, CachedCost> costs = new HashMap<>();
+        costs(branchId, List.of(recipeId), costs);
+        return toDTO(recipeId, recipe.getSellableItemId(), branchId, costs.get(recipeId), true);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MenuCostDTO menuCosts(String branchId) {
+        requireBranch(branchId);
+        requireExistingBranch(branchId);
+        long started = System.nanoTime();
+        List<MenuRecipeRow> menu = recipesRepository.findMenuRecipes();
+        Map<String, CachedCost> costs = new HashMap<>();
+        int recomputed = costs(branchId, menu.stream().map(MenuRecipeRow::getId).toList(), costs);
+
+        List<RecipeCostDTO> recipes = new ArrayList<>(menu.size());
+        for (MenuRecipeRow row : menu) {
+            recipes.add(toDTO(row.getId(), row.getSellableItemId(), branchId, costs.get(row.getId()), false));
+        }
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        log.debug("Menu cost of branch {}: {} recipe(s), {} recomputed in {} ms",
+                branchId, recipes.size(), recomputed, durationMs);
+        return MenuCostDTO.builder()
+                .branchId(branchId)
+                .recipes(recipes)
+                .recomputed(recomputed)
+                .durationMs(durationMs)
+                .build();
+    }
+
+    /**
+     * Recipes using an item are recomputed in a branch on next read once one of the item's rows
+     * there commits a new average cost, or any change while the item's cost is being loaded.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void costsChanged(StockChangedEvent event) {
+        Map<String, Set<String>> itemsByBranch = new HashMap<>();
+        for (InventoryStock row : event.rows()) {
+            BranchCosts branch = row.getBranchId() != null ? branches.get(row.getBranchId()) : null;
+            if (branch != null && costMoved(branch, row, event.deleted())) {
+                itemsByBranch.computeIfAbsent(row.getBranchId(), b -> new HashSet<>()).add(row.getInventoryItemId());
+            }
+        }
+        itemsByBranch.forEach(this::evict);
+    }
+
+    private static boolean costMoved(BranchCosts branch, InventoryStock row, boolean deleted) {
+        if (branch.loading.containsKey(row.getInventoryItemId())) return true;
+        ItemCost cached = branch.unitCosts.get(row.getInventoryItemId());
+        if (cached == null) return false;
+        BigDecimal before = cached.rowCosts().get(row.getDepartmentId());
+        BigDecimal now = deleted ? null : row.getAverageUnitCost();
+        return before == null || now == null ? before != now : before.compareTo(now) != 0;
+    }
+
+    private void evict(String branchId, Set<String> itemIds) {
+        BranchCosts branch = branches.get(branchId);
+        if (branch == null) return;
+        branch.generation.incrementAndGet();
+        int evicted = 0;
+        for (String itemId : itemIds) {
+            branch.unitCosts.remove(itemId);
+            Set<String> recipes = branch.recipesOfItem.get(itemId);
+            if (recipes == null) continue;
+            for (String recipeId : recipes) {
+                if (branch.recipes.remove(recipeId) != null) evicted++;
+            }
+        }
+        log.debug("Cost change of {} item(s) in branch {}: {} recipe cost(s) evicted", itemIds.size(), branchId, evicted);
+    }
+
+    /** Puts the cost of each recipe into {@code out}; returns how many were not cached. */
+    int costs(String branchId, Collection<String> recipeIds, Map<String, CachedCost> out) {
+        BranchCosts branch = branches.computeIfAbsent(branchId, b -> new BranchCosts());
+        long seen = branch.generation.get();
+        Map<String, CompiledRecipe> recipes = recipeCache.getByRecipeIds(recipeIds);
+
+        List<String> stale = new ArrayList<>();
+        Set<String> itemIds = new LinkedHashSet<>();
+        for (String id : recipeIds) {
+            CompiledRecipe recipe = recipes.get(id);
+            CachedCost cached = branch.recipes.get(id);
+            if (cached != null && cached.recipe() == recipe) {
+                out.put(id, cached);
+                continue;
+            }
+            stale.add(id);
+            for (int i = 0; i < recipe.size(); i++) {
+                itemIds.add(recipe.itemId(i));
+            }
+        }
+        if (stale.isEmpty()) return 0;
+
+        Map<String, Long> unitCosts = unitCosts(branch, branchId, itemIds, seen);
+        Map<String, CachedCost> computed = new HashMap<>();
+        for (String id : stale) {
+            CompiledRecipe recipe = recipes.get(id);
+            long[] costs = new long[recipe.size()];
+            FixedPoint total = FixedPoint.ZERO;
+            for (int i = 0; i < recipe.size(); i++) {
+                String itemId = recipe.itemId(i);
+                costs[i] = unitCosts.get(itemId);
+                if (costs[i] != NO_COST) {
+                    total = total.add(FixedPoint.ofRaw(recipe.quantityRaw(i)).multiply(FixedPoint.ofRaw(costs[i])));
+                }
+                // Indexed before the cost is stored, so an eviction from here on finds it
+                branch.recipesOfItem.computeIfAbsent(itemId, k -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+            computed.put(id, new CachedCost(recipe, costs, total.raw()));
+        }
+        out.putAll(computed);
+        if (branch.generation.get() == seen) {
+            branch.recipes.putAll(computed);
+            if (branch.generation.get() != seen) {
+                computed.keySet().forEach(branch.recipes::remove);
+            }
+        }
+        return stale.size();
+    }
+
+    private Map<String, Long> unitCosts(BranchCosts branch, String branchId, Set<String> itemIds, long seen) {
+        Map<String, Long> costs = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String itemId : itemIds) {
+            ItemCost cost = branch.unitCosts.get(itemId);
+            if (cost != null) {
+                costs.put(itemId, cost.raw());
+            } else {
+                missing.add(itemId);
+            }
+        }
+        if (missing.isEmpty()) return costs;
+
+        // Registered before reading, so a change committed from here on bumps the generation
+        missing.forEach(itemId -> branch.loading.merge(itemId, 1, Integer::sum));
+        try {
+            Map<String, List<ItemCostRow>> rows = new HashMap<>();
+            for (int from = 0; from < missing.size(); from += ITEMS_PER_QUERY) {
+                List<String> chunk = missing.subList(from, Math.min(from + ITEMS_PER_QUERY, missing.size()));
+                for (ItemCostRow row : inventoryStockRepository.findCostRows(branchId, chunk)) {
+                    rows.computeIfAbsent(row.getInventoryItemId(), id -> new ArrayList<>()).add(row);
+                }
+            }
+            Map<String, ItemCost> loaded = new HashMap<>();
+            for (String itemId : missing) {
+                List<ItemCostRow> itemRows = rows.getOrDefault(itemId, List.of());
+                Map<String, BigDecimal> rowCosts = new HashMap<>();
+                for (ItemCostRow row : itemRows) {
+                    if (row.getAverageUnitCost() != null) rowCosts.put(row.getDepartmentId(), row.getAverageUnitCost());
+                }
+                loaded.put(itemId, new ItemCost(unitCostRaw(itemRows), rowCosts));
+                costs.put(itemId, loaded.get(itemId).raw());
+            }
+            if (branch.generation.get() == seen) {
+                branch.unitCosts.putAll(loaded);
+                if (branch.generation.get() != seen) {
+                    loaded.keySet().forEach(branch.unitCosts::remove);
+                }
+            }
+        } finally {
+            missing.forEach(itemId -> branch.loading.computeIfPresent(itemId, (id, n) -> n > 1 ? n - 1 : null));
+        }
+        return costs;
+    }
+
+    static long unitCostRaw(List<ItemCostRow> rows) {
+        FixedPoint costSum = FixedPoint.ZERO;
+        int costed = 0;
+        for (ItemCostRow row : rows) {
+            if (row.getAverageUnitCost() == null) continue;
+            if (row.getDepartmentId() != null && row.getDepartmentId().equals(row.getHomeDepartmentId())) {
+                return FixedPoint.of(row.getAverageUnitCost()).raw();
+            }
+            costSum = costSum.add(FixedPoint.of(row.getAverageUnitCost()));
+            costed++;
+        }
+        return costed == 0 ? NO_COST : costSum.divide(FixedPoint.of(costed)).raw();
+    }
+
+    private static RecipeCostDTO toDTO(String recipeId, Long sellableItemId, String branchId,
+                                       CachedCost cost, boolean withIngredients) {
+        CompiledRecipe recipe = cost.recipe();
+        List<String> missing = new ArrayList<>();
+        List<IngredientCost> ingredients = withIngredients ? new ArrayList<>(recipe.size()) : null;
+        for (int i = 0; i < recipe.size(); i++) {
+            long unit = cost.unitCosts()[i];
+            if (unit == NO_COST) missing.add(recipe.itemId(i));
+            if (ingredients != null) {
+                FixedPoint quantity = FixedPoint.ofRaw(recipe.quantityRaw(i));
+                ingredients.add(IngredientCost.builder()
+                        .inventoryItemId(recipe.itemId(i))
+                        .quantity(quantity.toBigDecimal())
+                        .unitCost(unit == NO_COST ? null : FixedPoint.ofRaw(unit).toBigDecimal())
+                        .cost(unit == NO_COST ? null : quantity.multiply(FixedPoint.ofRaw(unit)).toBigDecimal())
+                        .build());
+            }
+        }
+        return RecipeCostDTO.builder()
+                .recipeId(recipeId)
+                .sellableItemId(sellableItemId)
+                .branchId(branchId)
+                .cost(FixedPoint.ofRaw(cost.costRaw()).toBigDecimal())
+                .missingCostItemIds(missing)
+                .ingredients(ingredients)
+                .build();
+    }
+
+    private static void requireBranch(String branchId) {
+        if (!hasText(branchId)) {
+            throw new IllegalArgumentException("branch_id is required");
+        }
+    }
+
+    // Only branches that exist get a cache
+    private void requireExistingBranch(String branchId) {
+        if (!branches.containsKey(branchId) && !branchRepository.existsById(branchId)) {
+            throw new ResourceNotFoundException("Branch not found with id: " + branchId);
+        }
+    }
+}
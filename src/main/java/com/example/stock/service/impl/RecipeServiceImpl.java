@@ -6,7 +6,7 @@ import com.example.stock.dto.recipe.RecipeUpdateDTO;
 import com.example.stock.entity.Ingredient;
 import com.example.stock.entity.InventoryItem;
 import com.example.stock.entity.Recipes;
-import com.example.stock.entity.SellableItem;
+import com.example.stock.exception.DeleteConstraintException;
 import com.example.stock.exception.ForeignKeyConstraintException;
 import com.example.stock.exception.ResourceNotFoundException;
 import com.example.stock.mapper.RecipeMapper;
@@ -21,10 +21,19 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import static org.springframework.util.StringUtils.hasText;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -36,6 +45,7 @@ public class RecipeServiceImpl implements RecipeService {
     private final SellableItemRepository sellableItemRepository;
     private final InventoryItemRepository inventoryItemRepository;
     private final RecipeMapper recipeMapper;
+    private final RecipeCache recipeCache;
 
     @Override
     @Transactional(readOnly = true)
@@ -63,19 +73,23 @@ public class RecipeServiceImpl implements RecipeService {
     public RecipeResponseDTO create(RecipeCreateDTO createDTO) {
         log.info("Creating new recipe for sellable_item_id: {}", createDTO.getSellableItemId());
         
-        // Validate sellable item exists
-        Long sellableItemId = Long.parseLong(createDTO.getSellableItemId());
-        SellableItem sellableItem = sellableItemRepository.findById(sellableItemId)
-            .orElseThrow(() -> new ForeignKeyConstraintException("sellable_item_id", createDTO.getSellableItemId()));
-        
-        // Check if recipe already exists for this sellable item
-        if (recipesRepository.existsBySellableItemId(sellableItemId)) {
-            throw new com.example.stock.exception.DuplicateResourceException(
-                "Recipe already exists for sellable_item_id: " + sellableItemId);
+        // Validate sellable item exists; sub-recipe only components have none
+        Long sellableItemId = parseSellableItemId(createDTO.getSellableItemId());
+        if (sellableItemId != null) {
+            sellableItemRepository.findById(sellableItemId)
+                .orElseThrow(() -> new ForeignKeyConstraintException("sellable_item_id", createDTO.getSellableItemId()));
+
+            // Check if recipe already exists for this sellable item
+            if (recipesRepository.existsBySellableItemId(sellableItemId)) {
+                throw new com.example.stock.exception.DuplicateResourceException(
+                    "Recipe already exists for sellable_item_id: " + sellableItemId);
+            }
         }
         
-        // Validate all inventory items exist
-        validateInventoryItems(createDTO.getIngredients());
+        // Validate all inventory items and sub-recipes exist
+        for (RecipeCreateDTO.IngredientDTO ingredientDTO : createDTO.getIngredients()) {
+            validateIngredient(ingredientDTO.getInventoryItemId(), ingredientDTO.getSubRecipeId());
+        }
         
         // Create recipe entity
         LocalDateTime now = LocalDateTime.now();
@@ -95,7 +109,8 @@ public class RecipeServiceImpl implements RecipeService {
                 Ingredient ingredient = Ingredient.builder()
                     .id(UUID.randomUUID().toString())
                     .recipeId(savedRecipe.getId())
-                    .inventoryItemId(ingredientDTO.getInventoryItemId())
+                    .inventoryItemId(blankToNull(ingredientDTO.getInventoryItemId()))
+                    .subRecipeId(blankToNull(ingredientDTO.getSubRecipeId()))
                     .quantity(ingredientDTO.getQuantity())
                     .createdAt(now)
                     .updatedAt(now)
@@ -105,6 +120,8 @@ public class RecipeServiceImpl implements RecipeService {
             .collect(Collectors.toList());
         
         savedRecipe.setIngredients(ingredients);
+        // The sellable item may be cached as having no recipe
+        recipeCache.invalidate(savedRecipe.getId(), sellableItemId);
         
         return convertToResponseDTO(savedRecipe);
     }
@@ -117,10 +134,14 @@ public class RecipeServiceImpl implements RecipeService {
         Recipes recipe = recipesRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Recipe", id));
         
+        Long previousSellableItemId = recipe.getSellableItemId();
+
         // Validate sellable item if changed
-        Long newSellableItemId = Long.parseLong(updateDTO.getSellableItemId());
-        if (!recipe.getSellableItemId().equals(newSellableItemId)) {
-            SellableItem sellableItem = sellableItemRepository.findById(newSellableItemId)
+        Long newSellableItemId = parseSellableItemId(updateDTO.getSellableItemId());
+        if (newSellableItemId == null) {
+            recipe.setSellableItemId(null);
+        } else if (!newSellableItemId.equals(recipe.getSellableItemId())) {
+            sellableItemRepository.findById(newSellableItemId)
                 .orElseThrow(() -> new ForeignKeyConstraintException("sellable_item_id", updateDTO.getSellableItemId()));
             
             // Check if another recipe exists for this sellable item
@@ -135,8 +156,13 @@ public class RecipeServiceImpl implements RecipeService {
             recipe.setSellableItemId(newSellableItemId);
         }
         
-        // Validate all inventory items exist
-        validateInventoryItemsForUpdate(updateDTO.getIngredients());
+        // Validate all inventory items and sub-recipes exist, and that no sub-recipe leads back here
+        Set<String> subRecipeIds = new HashSet<>();
+        for (RecipeUpdateDTO.IngredientDTO ingredientDTO : updateDTO.getIngredients()) {
+            validateIngredient(ingredientDTO.getInventoryItemId(), ingredientDTO.getSubRecipeId());
+            if (hasText(ingredientDTO.getSubRecipeId())) subRecipeIds.add(ingredientDTO.getSubRecipeId());
+        }
+        checkNoCycle(id, subRecipeIds);
         
         // Delete existing ingredients
         ingredientRepository.deleteByRecipeId(id);
@@ -148,7 +174,8 @@ public class RecipeServiceImpl implements RecipeService {
                 Ingredient ingredient = Ingredient.builder()
                     .id(UUID.randomUUID().toString())
                     .recipeId(id)
-                    .inventoryItemId(ingredientDTO.getInventoryItemId())
+                    .inventoryItemId(blankToNull(ingredientDTO.getInventoryItemId()))
+                    .subRecipeId(blankToNull(ingredientDTO.getSubRecipeId()))
                     .quantity(ingredientDTO.getQuantity())
                     .createdAt(now)
                     .updatedAt(now)
@@ -161,6 +188,7 @@ public class RecipeServiceImpl implements RecipeService {
         recipe.setUpdatedAt(now);
         
         Recipes updatedRecipe = recipesRepository.save(recipe);
+        recipeCache.invalidate(id, previousSellableItemId, newSellableItemId);
         log.info("Recipe updated successfully with ID: {}", updatedRecipe.getId());
         
         return convertToResponseDTO(updatedRecipe);
@@ -173,29 +201,104 @@ public class RecipeServiceImpl implements RecipeService {
         Recipes recipe = recipesRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Recipe", id));
         
+        if (ingredientRepository.existsBySubRecipeId(id)) {
+            throw new DeleteConstraintException("Recipe", id, "Recipe is used as a sub-recipe");
+        }
+
         // Delete ingredients (cascade should handle this, but being explicit)
         ingredientRepository.deleteByRecipeId(id);
         
         // Delete recipe
         recipesRepository.deleteById(id);
+        recipeCache.invalidate(id, recipe.getSellableItemId());
         
         log.info("Recipe deleted successfully with ID: {}", id);
     }
 
-    private void validateInventoryItems(List<RecipeCreateDTO.IngredientDTO> ingredients) {
-        for (RecipeCreateDTO.IngredientDTO ingredientDTO : ingredients) {
-            if (!inventoryItemRepository.existsById(ingredientDTO.getInventoryItemId())) {
-                throw new ForeignKeyConstraintException("inventory_item_id", ingredientDTO.getInventoryItemId());
+    private void validateIngredient(String inventoryItemId, String subRecipeId) {
+        if (hasText(inventoryItemId) == hasText(subRecipeId)) {
+            throw new IllegalArgumentException("Each ingredient needs exactly one of inventory_item_id and sub_recipe_id");
+        }
+        if (hasText(inventoryItemId) && !inventoryItemRepository.existsById(inventoryItemId)) {
+            throw new ForeignKeyConstraintException("inventory_item_id", inventoryItemId);
+        }
+        if (hasText(subRecipeId) && !recipesRepository.existsById(subRecipeId)) {
+            throw new ForeignKeyConstraintException("sub_recipe_id", subRecipeId);
+        }
+    }
+
+    /**
+     * Two concurrent edits could each pass the check without seeing the other's edges. The
+     * recipe and every recipe reachable from its sub-recipes are locked first, then the check
+     * runs on edges read under those locks; an edit that closes a cycle with this one has to
+     * lock one of them too, so it waits and then sees these edges.
+     */
+    private void checkNoCycle(String recipeId, Set<String> subRecipeIds) {
+        if (subRecipeIds.isEmpty()) return;
+        Set<String> locked = new HashSet<>();
+        Map<String, List<String>> children;
+        while (true) {
+            children = new HashMap<>();
+            for (IngredientRepository.SubRecipeEdge edge : ingredientRepository.findSubRecipeEdges()) {
+                if (!edge.getRecipeId().equals(recipeId)) {
+                    children.computeIfAbsent(edge.getRecipeId(), k -> new ArrayList<>()).add(edge.getSubRecipeId());
+                }
             }
+            children.put(recipeId, new ArrayList<>(subRecipeIds));
+            Set<String> involved = reachable(recipeId, children);
+            // Edges committed while waiting may reach further: lock those too and read again
+            if (locked.containsAll(involved)) break;
+            recipesRepository.lockByIdIn(involved);
+            locked.addAll(involved);
+        }
+        List<String> cycle = findCycle(recipeId, children);
+        if (cycle != null) {
+            throw new IllegalArgumentException("Sub-recipes would form a cycle: " + String.join(" -> ", cycle));
         }
     }
 
-    private void validateInventoryItemsForUpdate(List<RecipeUpdateDTO.IngredientDTO> ingredients) {
-        for (RecipeUpdateDTO.IngredientDTO ingredientDTO : ingredients) {
-            if (!inventoryItemRepository.existsById(ingredientDTO.getInventoryItemId())) {
-                throw new ForeignKeyConstraintException("inventory_item_id", ingredientDTO.getInventoryItemId());
+    private static Set<String> reachable(String recipeId, Map<String, List<String>> children) {
+        Set<String> seen = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        seen.add(recipeId);
+        pending.add(recipeId);
+        while (!pending.isEmpty()) {
+            for (String sub : children.getOrDefault(pending.poll(), List.of())) {
+                if (seen.add(sub)) pending.add(sub);
             }
         }
+        return seen;
+    }
+
+    /** Path from the recipe back to itself through its sub-recipes, or null if there is none. */
+    static List<String> findCycle(String recipeId, Map<String, List<String>> children) {
+        Deque<String> path = new ArrayDeque<>();
+        path.addLast(recipeId);
+        return reachesBack(recipeId, recipeId, children, new HashSet<>(), path) ? new ArrayList<>(path) : null;
+    }
+
+    private static boolean reachesBack(String from, String target, Map<String, List<String>> children,
+                                       Set<String> visited, Deque<String> path) {
+        for (String sub : children.getOrDefault(from, List.of())) {
+            path.addLast(sub);
+            if (sub.equals(target)) return true;
+            if (visited.add(sub) && reachesBack(sub, target, children, visited, path)) return true;
+            path.removeLast();
+        }
+        return false;
+    }
+
+    private static Long parseSellableItemId(String value) {
+        if (!hasText(value)) return null;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid sellable_item_id: " + value);
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return hasText(value) ? value : null;
     }
 
     private RecipeResponseDTO convertToResponseDTO(Recipes recipe) {
@@ -211,6 +314,7 @@ public class RecipeServiceImpl implements RecipeService {
                 .map(ingredient -> RecipeResponseDTO.IngredientResponseDTO.builder()
                     .id(ingredient.getId())
                     .inventoryItemId(ingredient.getInventoryItemId())
+                    .subRecipeId(ingredient.getSubRecipeId())
                     .quantity(ingredient.getQuantity())
                     .createdAt(ingredient.getCreatedAt())
                     .updatedAt(ingredient.getUpdatedAt())
@@ -0,0 +1,296 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.reorder.DraftOrderDTO;
+import com.example.stock.dto.reorder.DraftOrderDTO.Line;
+import com.example.stock.dto.reorder.ReorderRunDTO;
+import com.example.stock.dto.suppliers.SupplierAdditionalInfoDTO;
+import com.example.stock.entity.InventoryMovement.TransactionType;
+import com.example.stock.entity.Suppliers;
+import com.example.stock.exception.ResourceConflictException;
+import com.example.stock.exception.ResourceNotFoundException;
+import com.example.stock.repository.BranchRepository;
+import com.example.stock.repository.InventoryItemRepository;
+import com.example.stock.repository.InventoryItemRepository.ReorderRow;
+import com.example.stock.repository.InventoryMovementRepository;
+import com.example.stock.repository.InventoryStockRepository;
+import com.example.stock.repository.MovementDailyRollupRepository;
+import com.example.stock.repository.SuppliersRepository;
+import com.example.stock.service.ReorderService;
+import com.example.stock.util.JsonUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Reorder suggestions, computed branch by branch in parallel. Each branch costs four set-based
+ * queries (items, summed stock, consumption from the daily rollups, supplier of the latest
+ * receipt) and the math runs in memory; supplier terms are parsed once per run.
+ *
+ * For an item: reorder point = threshold + daily consumption x lead time. At or below it,
+ * the suggestion is max(reorder quantity, reorder point - on hand), rounded up and raised to
+ * the supplier's minimum order quantity.
+ */
+@Service
+@Slf4j
+public class ReorderServiceImpl implements ReorderService {
+
+    private static final Set<TransactionType> CONSUMPTION = EnumSet.of(TransactionType.OUT, TransactionType.WASTE);
+
+    record SupplierTerms(String id, String name, Integer leadTimeDays, int minimumOrderQuantity, boolean active) {}
+
+    private record BranchResult(String branchId, int itemsEvaluated, List<DraftOrderDTO> orders, LocalDateTime generatedAt) {}
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final InventoryStockRepository inventoryStockRepository;
+    private final InventoryMovementRepository inventoryMovementRepository;
+    private final MovementDailyRollupRepository rollupRepository;
+    private final SuppliersRepository suppliersRepository;
+    private final BranchRepository branchRepository;
+    private final TransactionTemplate readOnly;
+    private final int parallelism;
+    private final int consumptionDays;
+    private final int defaultLeadTimeDays;
+
+    private final Map<String, BranchResult> latest = new ConcurrentHashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ReorderServiceImpl(InventoryItemRepository inventoryItemRepository,
+                              InventoryStockRepository inventoryStockRepository,
+                              InventoryMovementRepository inventoryMovementRepository,
+                              MovementDailyRollupRepository rollupRepository,
+                              SuppliersRepository suppliersRepository,
+                              BranchRepository branchRepository,
+                              PlatformTransactionManager transactionManager,
+                              // One pooled connection per worker: keep below the pool size
+                              @Value("${inventory.reorder.parallelism:4}") int parallelism,
+                              @Value("${inventory.reorder.consumption-days:28}") int consumptionDays,
+                              @Value("${inventory.reorder.default-lead-time-days:2}") int defaultLeadTimeDays) {
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.inventoryStockRepository = inventoryStockRepository;
+        this.inventoryMovementRepository = inventoryMovementRepository;
+        this.rollupRepository = rollupRepository;
+        this.suppliersRepository = suppliersRepository;
+        this.branchRepository = branchRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.parallelism = Math.max(parallelism, 1);
+        this.consumptionDays = Math.max(consumptionDays, 1);
+        this.defaultLeadTimeDays = Math.max(defaultLeadTimeDays, 0);
+    }
+
+    @Override
+    public ReorderRunDTO run(String branchId) {
+        if (hasText(branchId) && !branchRepository.existsById(branchId)) {
+            throw new ResourceNotFoundException("Branch not found with id: " + branchId);
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new ResourceConflictException("A reorder run is already running");
+        }
+        try {
+            return doRun(hasText(branchId) ? branchId : null);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ReorderRunDTO doRun(String branchId) {
+        long start = System.currentTimeMillis();
+        LocalDateTime generatedAt = LocalDateTime.now();
+        LocalDate today = generatedAt.toLocalDate();
+
+        List<String> branchIds = branchId != null
+                ? List.of(branchId)
+                : readOnly.execute(status -> inventoryItemRepository.findDistinctBranchIds());
+        Map<String, SupplierTerms> suppliers = new ConcurrentHashMap<>();
+
+        List<Callable<BranchResult>> tasks = new ArrayList<>();
+        for (String id : branchIds) {
+            tasks.add(() -> computeBranch(id, today, generatedAt, suppliers));
+        }
+        List<BranchResult> results = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (Future<BranchResult> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reorder run interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException("Reorder run failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        if (branchId == null) {
+            // Branches that no longer have items drop their old suggestions
+            latest.keySet().retainAll(new HashSet<>(branchIds));
+        }
+        results.forEach(result -> latest.put(result.branchId(), result));
+
+        ReorderRunDTO summary = summarize(branchId, results, null, false);
+        summary.setGeneratedAt(generatedAt);
+        summary.setDurationMs(System.currentTimeMillis() - start);
+        log.info("Reorder run finished in {} ms: branches={}, items={}, suggestions={}, orders={}",
+                summary.getDurationMs(), summary.getBranches(), summary.getItemsEvaluated(),
+                summary.getSuggestionCount(), summary.getOrderCount());
+        return summary;
+    }
+
+    @Override
+    public ReorderRunDTO suggestions(String branchId, String supplierId) {
+        List<BranchResult> results = new ArrayList<>();
+        if (hasText(branchId)) {
+            BranchResult result = latest.get(branchId);
+            if (result != null) results.add(result);
+        } else {
+            results.addAll(latest.values());
+        }
+        results.sort(Comparator.comparing(BranchResult::branchId));
+
+        ReorderRunDTO summary = summarize(hasText(branchId) ? branchId : null, results,
+                hasText(supplierId) ? supplierId : null, true);
+        results.stream().map(BranchResult::generatedAt).min(Comparator.naturalOrder()).ifPresent(summary::setGeneratedAt);
+        return summary;
+    }
+
+    // A run only reports counters; suggestions() returns the orders themselves
+    private ReorderRunDTO summarize(String branchId, List<BranchResult> results, String supplierId, boolean withOrders) {
+        List<DraftOrderDTO> orders = new ArrayList<>();
+        int items = 0;
+        for (BranchResult result : results) {
+            items += result.itemsEvaluated();
+            for (DraftOrderDTO order : result.orders()) {
+                if (supplierId == null || supplierId.equals(order.getSupplierId())) orders.add(order);
+            }
+        }
+        return ReorderRunDTO.builder()
+                .branchId(branchId)
+                .branches(results.size())
+                .itemsEvaluated(items)
+                .suggestionCount(orders.stream().mapToInt(order -> order.getLines().size()).sum())
+                .orderCount(orders.size())
+                .orders(withOrders ? orders : null)
+                .build();
+    }
+
+    private BranchResult computeBranch(String branchId, LocalDate today, LocalDateTime generatedAt,
+                                       Map<String, SupplierTerms> suppliers) {
+        return readOnly.execute(status -> {
+            List<ReorderRow> items = inventoryItemRepository.findReorderRowsByBranchId(branchId);
+            if (items.isEmpty()) return new BranchResult(branchId, 0, List.of(), generatedAt);
+
+            Map<String, BigDecimal> onHand = new HashMap<>();
+            inventoryStockRepository.sumQuantitiesByBranch(branchId)
+                    .forEach(row -> onHand.put(row.getInventoryItemId(), row.getQuantity()));
+            Map<String, BigDecimal> consumed = new HashMap<>();
+            rollupRepository.sumQuantitiesByItem(branchId, today.minusDays(consumptionDays), today, CONSUMPTION)
+                    .forEach(row -> consumed.put(row.getInventoryItemId(), row.getQuantity()));
+            Map<String, String> supplierOf = new HashMap<>();
+            inventoryMovementRepository.findLatestSuppliersByBranch(branchId, TransactionType.IN)
+                    .forEach(row -> supplierOf.putIfAbsent(row.getInventoryItemId(), row.getSupplierId()));
+            loadSuppliers(supplierOf.values(), suppliers);
+
+            Map<String, List<Line>> linesBySupplier = new HashMap<>();
+            for (ReorderRow item : items) {
+                SupplierTerms terms = suppliers.get(supplierOf.getOrDefault(item.getId(), ""));
+                if (terms != null && !terms.active()) terms = null;
+                int leadTime = terms != null && terms.leadTimeDays() != null ? terms.leadTimeDays() : defaultLeadTimeDays;
+                Line line = suggest(item, onHand.get(item.getId()), consumed.get(item.getId()), consumptionDays,
+                        leadTime, terms != null ? terms.minimumOrderQuantity() : 0);
+                if (line != null) {
+                    linesBySupplier.computeIfAbsent(terms != null ? terms.id() : "", k -> new ArrayList<>()).add(line);
+                }
+            }
+
+            List<DraftOrderDTO> orders = new ArrayList<>();
+            linesBySupplier.forEach((supplierId, lines) -> {
+                SupplierTerms terms = suppliers.get(supplierId);
+                lines.sort(Comparator.comparing(Line::getItemName, Comparator.nullsLast(Comparator.naturalOrder())));
+                orders.add(DraftOrderDTO.builder()
+                        .branchId(branchId)
+                        .supplierId(terms != null ? terms.id() : null)
+                        .supplierName(terms != null ? terms.name() : null)
+                        .leadTimeDays(terms != null && terms.leadTimeDays() != null ? terms.leadTimeDays() : defaultLeadTimeDays)
+                        .generatedAt(generatedAt)
+                        .lines(lines)
+                        .build());
+            });
+            orders.sort(Comparator.comparing(DraftOrderDTO::getSupplierName, Comparator.nullsLast(Comparator.naturalOrder())));
+            return new BranchResult(branchId, items.size(), orders, generatedAt);
+        });
+    }
+
+    private void loadSuppliers(Iterable<String> ids, Map<String, SupplierTerms> suppliers) {
+        Set<String> missing = new HashSet<>();
+        ids.forEach(id -> {
+            if (!suppliers.containsKey(id)) missing.add(id);
+        });
+        if (missing.isEmpty()) return;
+        for (Suppliers supplier : suppliersRepository.findAllById(missing)) {
+            suppliers.putIfAbsent(supplier.getId(), termsOf(supplier));
+        }
+    }
+
+    static SupplierTerms termsOf(Suppliers supplier) {
+        SupplierAdditionalInfoDTO info = JsonUtils.fromJson(supplier.getAdditionalInfo(), SupplierAdditionalInfoDTO.class);
+        SupplierAdditionalInfoDTO.Operations operations = info != null ? info.getOperations() : null;
+        if (operations == null) {
+            return new SupplierTerms(supplier.getId(), supplier.getName(), null, 0, true);
+        }
+        return new SupplierTerms(supplier.getId(), supplier.getName(), operations.getLeadTimeDays(),
+                operations.getMinimumOrderQuantity() != null ? operations.getMinimumOrderQuantity() : 0,
+                !Boolean.FALSE.equals(operations.getActive()));
+    }
+
+    /** @return the suggested line, or null when the item is above its reorder point */
+    static Line suggest(ReorderRow item, BigDecimal onHand, BigDecimal consumed, int windowDays,
+                        int leadTimeDays, int minimumOrderQuantity) {
+        BigDecimal stock = onHand != null ? onHand : BigDecimal.ZERO;
+        BigDecimal daily = consumed != null && consumed.signum() > 0
+                ? consumed.divide(BigDecimal.valueOf(windowDays), 4, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+        BigDecimal reorderPoint = BigDecimal.valueOf(item.getThresholdQuantity())
+                .add(daily.multiply(BigDecimal.valueOf(leadTimeDays)));
+        if (stock.compareTo(reorderPoint) > 0) return null;
+
+        BigDecimal quantity = reorderPoint.subtract(stock).max(BigDecimal.valueOf(item.getReorderQuantity()))
+                .setScale(0, RoundingMode.CEILING)
+                .max(BigDecimal.valueOf(minimumOrderQuantity));
+        if (quantity.signum() <= 0) return null;
+
+        return Line.builder()
+                .inventoryItemId(item.getId())
+                .itemName(item.getName())
+                .departmentId(item.getDepartmentId())
+                .currentQuantity(stock)
+                .dailyConsumption(daily)
+                .reorderPoint(reorderPoint)
+                .suggestedQuantity(quantity)
+                .build();
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.inventorymouvement.InventoryMovementBatchResultDTO;
+import com.example.stock.dto.inventorymouvement.InventoryMovementBatchResultDTO.RowResult;
+import com.example.stock.dto.inventorymouvement.InventoryMovementCreateDTO;
+import com.example.stock.dto.sale.SaleBatchResultDTO;
+import com.example.stock.dto.sale.SaleCreateDTO;
+import com.example.stock.dto.sale.SaleCreateDTO.LineDTO;
+import com.example.stock.dto.sale.SaleResultDTO;
+import com.example.stock.dto.sale.SaleResultDTO.Consumption;
+import com.example.stock.entity.InventoryMovement.TransactionType;
+import com.example.stock.service.InventoryMovementService;
+import com.example.stock.service.SaleService;
+import com.example.stock.service.impl.RecipeCache.CompiledRecipe;
+import com.example.stock.util.FixedPoint;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Explodes tickets through the {@link RecipeCache} (one lookup for all lines of the request)
+ * and sums the ingredient quantities per ticket in raw fixed point. The resulting OUT movements
+ * go through the movement batch path, so lots, rollups and the stock projection see a sale like
+ * any other movement, and every stock key is written once per request.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SaleServiceImpl implements SaleService {
+
+    private static final int MAX_SALES = 1000;
+    private static final int MAX_LINES = 5000;
+
+    private final RecipeCache recipeCache;
+    private final InventoryMovementService inventoryMovementService;
+
+    @Override
+    @Transactional
+    public SaleResultDTO record(SaleCreateDTO sale) {
+        return recordAll(List.of(sale)).getSales().get(0);
+    }
+
+    @Override
+    @Transactional
+    public SaleBatchResultDTO recordAll(List<SaleCreateDTO> sales) {
+        if (sales == null || sales.isEmpty()) {
+            throw new IllegalArgumentException("At least one sale is required");
+        }
+        if (sales.size() > MAX_SALES) {
+            throw new IllegalArgumentException("A batch cannot contain more than " + MAX_SALES + " sales");
+        }
+        long start = System.currentTimeMillis();
+        Set<Long> sellableItemIds = new HashSet<>();
+        for (SaleCreateDTO sale : sales) {
+            validate(sale);
+            sale.getLines().forEach(line -> sellableItemIds.add(line.getSellableItemId()));
+        }
+        Map<Long, CompiledRecipe> recipes = recipeCache.getAll(sellableItemIds);
+
+        List<SaleResultDTO> results = new ArrayList<>(sales.size());
+        List<InventoryMovementCreateDTO> movements = new ArrayList<>();
+        List<Consumption> consumptionOfMovement = new ArrayList<>();
+        List<String> ticketOfMovement = new ArrayList<>();
+        for (SaleCreateDTO sale : sales) {
+            Set<Long> unmapped = new LinkedHashSet<>();
+            Map<String, Long> needed = explode(sale.getLines(), recipes, unmapped);
+
+            List<Consumption> consumption = new ArrayList<>(needed.size());
+            needed.forEach((itemId, raw) -> {
+                BigDecimal quantity = FixedPoint.ofRaw(raw).toBigDecimal();
+                Consumption used = Consumption.builder().inventoryItemId(itemId).quantity(quantity).build();
+                consumption.add(used);
+                consumptionOfMovement.add(used);
+                ticketOfMovement.add(sale.getTicketId());
+                movements.add(InventoryMovementCreateDTO.builder()
+                        .inventoryItemId(itemId)
+                        .branchId(sale.getBranchId())
+                        .transactionType(TransactionType.OUT)
+                        .quantity(quantity)
+                        .notes(hasText(sale.getTicketId()) ? "Sale " + sale.getTicketId() : "Sale")
+                        .build());
+            });
+            results.add(SaleResultDTO.builder()
+                    .ticketId(sale.getTicketId())
+                    .branchId(sale.getBranchId())
+                    .lines(sale.getLines().size())
+                    .consumption(consumption)
+                    .unmappedSellableItemIds(new ArrayList<>(unmapped))
+                    .build());
+        }
+
+        int keysUpdated = 0;
+        if (!movements.isEmpty()) {
+            InventoryMovementBatchResultDTO batch = inventoryMovementService.createMovements(movements);
+            if (!batch.isAccepted()) {
+                RowResult failed = batch.getResults().stream()
+                        .filter(row -> row.getError() != null)
+                        .findFirst()
+                        .orElseThrow();
+                String ticket = ticketOfMovement.get(failed.getIndex());
+                throw new IllegalArgumentException((hasText(ticket) ? "Sale " + ticket + ": " : "") + failed.getError());
+            }
+            for (RowResult row : batch.getResults()) {
+                consumptionOfMovement.get(row.getIndex()).setMovementId(row.getId());
+            }
+            keysUpdated = batch.getStockKeysUpdated();
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        log.info("Recorded {} sale(s): movements={}, stockKeys={}, {} ms", sales.size(), movements.size(), keysUpdated, duration);
+        return SaleBatchResultDTO.builder()
+                .sales(results)
+                .movementsCreated(movements.size())
+                .stockKeysUpdated(keysUpdated)
+                .durationMs(duration)
+                .build();
+    }
+
+    /** Ingredient quantities of a ticket as raw fixed point, in first-use order. */
+    static Map<String, Long> explode(List<LineDTO> lines, Map<Long, CompiledRecipe> recipes, Set<Long> unmapped) {
+        Map<String, Long> needed = new LinkedHashMap<>();
+        for (LineDTO line : lines) {
+            CompiledRecipe recipe = recipes.getOrDefault(line.getSellableItemId(), CompiledRecipe.NONE);
+            if (recipe.isEmpty()) {
+                unmapped.add(line.getSellableItemId());
+                continue;
+            }
+            FixedPoint portions = FixedPoint.of(line.getQuantity());
+            for (int i = 0; i < recipe.size(); i++) {
+                long raw = portions.multiply(FixedPoint.ofRaw(recipe.quantityRaw(i))).raw();
+                if (raw > 0) needed.merge(recipe.itemId(i), raw, Math::addExact);
+            }
+        }
+        return needed;
+    }
+
+    private static void validate(SaleCreateDTO sale) {
+        if (sale == null) {
+            throw new IllegalArgumentException("Sale is required");
+        }
+        if (!hasText(sale.getBranchId())) {
+            throw new IllegalArgumentException("branch_id is required");
+        }
+        if (sale.getLines() == null || sale.getLines().isEmpty()) {
+            throw new IllegalArgumentException("lines cannot be empty");
+        }
+        if (sale.getLines().size() > MAX_LINES) {
+            throw new IllegalArgumentException("A ticket cannot contain more than " + MAX_LINES + " lines");
+        }
+        for (LineDTO line : sale.getLines()) {
+            if (line == null || line.getSellableItemId() == null) {
+                throw new IllegalArgumentException("sellable_item_id is required");
+            }
+            if (line.getQuantity() == null || line.getQuantity().signum() <= 0) {
+                throw new IllegalArgumentException("quantity must be greater than 0");
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.inventorystock.StockAsOfResponseDTO;
+import com.example.stock.entity.InventoryStock;
+import com.example.stock.entity.StockCheckpoint;
+import com.example.stock.repository.InventoryMovementRepository;
+import com.example.stock.repository.InventoryMovementRepository.StockReplayRow;
+import com.example.stock.repository.StockCheckpointRepository;
+import com.example.stock.service.StockHistoryService;
+import com.example.stock.service.StockProjectionService.StockKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.springframework.util.StringUtils.hasText;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockHistoryServiceImpl implements StockHistoryService {
+
+    // Lower bound of the replay window when no checkpoint exists yet
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int ITEMS_PER_CHUNK = 500;
+
+    private final InventoryMovementRepository inventoryMovementRepository;
+    private final StockCheckpointRepository stockCheckpointRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:25}")
+    private int jdbcBatchSize;
+
+    @Override
+    @Transactional(readOnly = true)
+    public StockAsOfResponseDTO stockAsOf(LocalDateTime timestamp, Filters filters) {
+        if (timestamp == null) {
+            throw new IllegalArgumentException("timestamp is required");
+        }
+        Filters f = filters != null ? filters : new Filters(null, null, null);
+        LocalDateTime checkpoint = stockCheckpointRepository.findLatestAsOfAtOrBefore(timestamp);
+
+        long[] replayed = {0};
+        List<StockAsOfResponseDTO.Balance> balances = new ArrayList<>();
+        for (List<String> chunk : chunks(itemsInScope(checkpoint, timestamp, f))) {
+            Map<StockKey, InventoryStock> state = replayWindow(chunk, checkpoint, timestamp, replayed);
+            state.forEach((key, row) -> {
+                if (!matches(key, f) || isEmpty(row)) return;
+                balances.add(StockAsOfResponseDTO.Balance.builder()
+                        .inventoryItemId(key.inventoryItemId())
+                        .branchId(key.branchId())
+                        .departmentId(key.departmentId())
+                        .quantity(row.getCurrentQuantity())
+                        .averageUnitCost(row.getAverageUnitCost())
+                        .totalValue(row.getTotalValue())
+                        .lastMovementDate(row.getLastMovementDate())
+                        .build());
+            });
+            entityManager.clear();
+        }
+        balances.sort(Comparator.comparing(StockAsOfResponseDTO.Balance::getInventoryItemId)
+                .thenComparing(StockAsOfResponseDTO.Balance::getBranchId)
+                .thenComparing(StockAsOfResponseDTO.Balance::getDepartmentId));
+
+        log.debug("Stock as of {}: checkpoint={}, replayed={}, balances={}", timestamp, checkpoint, replayed[0], balances.size());
+        return StockAsOfResponseDTO.builder()
+                .timestamp(timestamp)
+                .checkpointAsOf(checkpoint)
+                .movementsReplayed(replayed[0])
+                .balances(balances)
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public int writeCheckpoint(LocalDateTime asOf) {
+        if (asOf == null) {
+            throw new IllegalArgumentException("as_of is required");
+        }
+        if (asOf.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("as_of must not be in the future");
+        }
+        if (stockCheckpointRepository.existsByAsOf(asOf)) {
+            log.info("Stock checkpoint at {} already exists", asOf);
+            return 0;
+        }
+
+        LocalDateTime previous = stockCheckpointRepository.findLatestAsOfAtOrBefore(asOf);
+        long[] replayed = {0};
+        int written = 0;
+        int chunkSize = Math.max(jdbcBatchSize, 1);
+        for (List<String> chunk : chunks(itemsInScope(previous, asOf, new Filters(null, null, null)))) {
+            Map<StockKey, InventoryStock> state = replayWindow(chunk, previous, asOf, replayed);
+            for (Map.Entry<StockKey, InventoryStock> entry : state.entrySet()) {
+                if (!persistCheckpoint(asOf, entry.getKey(), entry.getValue())) continue;
+                if (++written % chunkSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        }
+        log.info("Stock checkpoint written: asOf={}, previous={}, movementsReplayed={}, keys={}",
+                asOf, previous, replayed[0], written);
+        return written;
+    }
+
+    /**
+     * Each stale checkpoint of the item is replayed from the one before it, already rebuilt, so
+     * the chain stays consistent. Transfers only move stock between keys of the same item, so the
+     * other items' rows still hold.
+     */
+    @Override
+    @Transactional
+    public void invalidateFrom(String inventoryItemId, LocalDateTime movementCreatedAt) {
+        if (inventoryItemId == null || movementCreatedAt == null) return;
+        List<LocalDateTime> stale = stockCheckpointRepository.findAsOfsFrom(movementCreatedAt);
+        if (stale.isEmpty()) return;
+
+        // The replay reads the changed movement back
+        entityManager.flush();
+        LocalDateTime previous = stockCheckpointRepository.findLatestAsOfBefore(stale.get(0));
+        long[] replayed = {0};
+        int written = 0;
+        for (LocalDateTime asOf : stale) {
+            stockCheckpointRepository.deleteByAsOfAndInventoryItemId(asOf, inventoryItemId);
+            Map<StockKey, InventoryStock> state = replayWindow(List.of(inventoryItemId), previous, asOf, replayed);
+            for (Map.Entry<StockKey, InventoryStock> entry : state.entrySet()) {
+                if (persistCheckpoint(asOf, entry.getKey(), entry.getValue())) written++;
+            }
+            entityManager.flush();
+            previous = asOf;
+        }
+        log.info("Rebuilt {} stock checkpoint(s) of item {} from {}: movementsReplayed={}, keys={}",
+                stale.size(), inventoryItemId, movementCreatedAt, replayed[0], written);
+    }
+
+    private boolean persistCheckpoint(LocalDateTime asOf, StockKey key, InventoryStock row) {
+        if (key.branchId() == null || key.departmentId() == null || isEmpty(row)) return false;
+        entityManager.persist(StockCheckpoint.builder()
+                .id(UUID.randomUUID().toString())
+                .asOf(asOf)
+                .inventoryItemId(key.inventoryItemId())
+                .branchId(key.branchId())
+                .departmentId(key.departmentId())
+                .quantity(row.getCurrentQuantity())
+                .averageUnitCost(row.getAverageUnitCost())
+                .totalValue(row.getTotalValue())
+                .lastMovementDate(row.getLastMovementDate())
+                .build());
+        return true;
+    }
+
+    /**
+     * Balances of every key of the given items at {@code upTo}: checkpoint rows plus the
+     * movements in (checkpoint, upTo]. Transfers need the source key of the same item,
+     * so whole items are replayed and callers filter keys afterwards.
+     */
+    private Map<StockKey, InventoryStock> replayWindow(List<String> itemIds, LocalDateTime checkpoint,
+                                                       LocalDateTime upTo, long[] replayed) {
+        Map<StockKey, InventoryStock> state = new HashMap<>();
+        if (checkpoint != null) {
+            for (StockCheckpoint c : stockCheckpointRepository.findByAsOfAndInventoryItemIdIn(checkpoint, itemIds)) {
+                InventoryStock row = StockReplay.emptyRow(new StockKey(c.getInventoryItemId(), c.getBranchId(), c.getDepartmentId()));
+                row.setCurrentQuantity(c.getQuantity());
+                row.setAverageUnitCost(c.getAverageUnitCost());
+                row.setLastMovementDate(c.getLastMovementDate());
+                row.recalcTotal();
+                state.put(StockReplay.keyOf(row), row);
+            }
+        }
+        LocalDateTime after = checkpoint != null ? checkpoint : BEGINNING;
+        try (Stream<StockReplayRow> rows = inventoryMovementRepository.streamHistory(itemIds, after, upTo)) {
+            rows.forEach(row -> {
+                StockReplay.fold(state, row);
+                replayed[0]++;
+            });
+        }
+        state.values().forEach(InventoryStock::recalcTotal);
+        return state;
+    }
+
+    private Set<String> itemsInScope(LocalDateTime checkpoint, LocalDateTime upTo, Filters f) {
+        Set<String> itemIds = new TreeSet<>();
+        if (hasText(f.inventoryItemId())) {
+            itemIds.add(f.inventoryItemId());
+            return itemIds;
+        }
+        LocalDateTime after = checkpoint != null ? checkpoint : BEGINNING;
+        if (hasText(f.branchId())) {
+            itemIds.addAll(inventoryMovementRepository.findDistinctInventoryItemIdsByBranchBetween(f.branchId(), after, upTo));
+            if (checkpoint != null) {
+                itemIds.addAll(stockCheckpointRepository.findDistinctInventoryItemIdsByBranch(checkpoint, f.branchId()));
+            }
+        } else {
+            itemIds.addAll(inventoryMovementRepository.findDistinctInventoryItemIdsBetween(after, upTo));
+            if (checkpoint != null) {
+                itemIds.addAll(stockCheckpointRepository.findDistinctInventoryItemIds(checkpoint));
+            }
+        }
+        return itemIds;
+    }
+
+    private static List<List<String>> chunks(Set<String> itemIds) {
+        List<String> ordered = new ArrayList<>(itemIds);
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < ordered.size(); from += ITEMS_PER_CHUNK) {
+            chunks.add(ordered.subList(from, Math.min(from + ITEMS_PER_CHUNK, ordered.size())));
+        }
+        return chunks;
+    }
+
+    private static boolean matches(StockKey key, Filters f) {
+        if (key.branchId() == null || key.departmentId() == null) return false;
+        if (hasText(f.branchId()) && !f.branchId().equals(key.branchId())) return false;
+        return !hasText(f.departmentId()) || f.departmentId().equals(key.departmentId());
+    }
+
+    private static boolean isEmpty(InventoryStock row) {
+        return row.getCurrentQuantity().signum() == 0
+                && (row.getAverageUnitCost() == null || row.getAverageUnitCost().signum() == 0);
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.inventorystock.StockLotDTO;
+import com.example.stock.entity.InventoryMovement;
+import com.example.stock.entity.InventoryMovement.TransactionType;
+import com.example.stock.entity.StockLot;
+import com.example.stock.entity.StockLotConsumption;
+import com.example.stock.repository.InventoryItemRepository;
+import com.example.stock.repository.StockLotConsumptionRepository;
+import com.example.stock.repository.StockLotRepository;
+import com.example.stock.service.ExpiryAlertService;
+import com.example.stock.service.StockLotService;
+import com.example.stock.service.StockProjectionService.StockKey;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * FEFO lots. Each batch loads the open lots of every key it touches once into a priority
+ * queue (expiry, then receipt time), consumes from the head and writes back only the lots
+ * it changed. The part of an outflow no open lot covers becomes a deficit lot of that
+ * movement, which later receipts of the key pay off first, like {@link com.example.stock.util.CostLayers}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockLotServiceImpl implements StockLotService {
+
+    static final Comparator<StockLot> FEFO = Comparator
+            .comparing(StockLot::getExpirationDate, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(StockLot::getReceivedAt)
+            .thenComparing(StockLot::getId);
+
+    private record Taken(StockLot lot, BigDecimal quantity) {}
+
+    private final StockLotRepository stockLotRepository;
+    private final StockLotConsumptionRepository consumptionRepository;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final ExpiryAlertService expiryAlertService;
+
+    @Override
+    @Transactional
+    public void apply(List<InventoryMovement> movements) {
+        if (movements == null || movements.isEmpty()) return;
+        Batch batch = new Batch();
+        for (InventoryMovement movement : movements) {
+            if (movement.getTransactionType() == null || movement.getQuantity() == null) continue;
+            StockKey source = StockKey.source(movement);
+            if (source.departmentId() == null) continue;
+            switch (movement.getTransactionType()) {
+                case IN -> batch.receive(source, movement.getId(), movement.getExpirationDate(), movement.getCreatedAt(),
+                        movement.getQuantity(), movement.getUnitPurchasePrice());
+                case OUT, WASTE -> batch.consume(source, movement.getId(), movement.getCreatedAt(), movement.getQuantity());
+                case TRANSFER -> {
+                    // An uncovered part arrives as an undated lot of unknown cost
+                    StockKey destination = StockKey.destination(movement);
+                    for (Taken taken : batch.consume(source, movement.getId(), movement.getCreatedAt(), movement.getQuantity())) {
+                        StockLot from = taken.lot();
+                        batch.receive(destination, movement.getId(), from.getExpirationDate(), from.getReceivedAt(),
+                                taken.quantity(), from.getUnitCost());
+                    }
+                }
+            }
+        }
+        stockLotRepository.saveAll(batch.changed.values());
+        consumptionRepository.saveAll(batch.consumptions);
+        expiryAlertService.lotsChanged(batch.changed.values());
+        log.debug("Applied {} movements to {} lots", movements.size(), batch.changed.size());
+    }
+
+    @Override
+    @Transactional
+    public void revert(InventoryMovement movement) {
+        // Quantities the movement consumed go back to their lots
+        List<StockLot> touched = new ArrayList<>();
+        List<StockLotConsumption> consumed = consumptionRepository.findByMovementId(movement.getId());
+        if (!consumed.isEmpty()) {
+            Map<String, StockLot> lots = new HashMap<>();
+            stockLotRepository.findAllById(consumed.stream().map(StockLotConsumption::getLotId).distinct().toList())
+                    .forEach(lot -> lots.put(lot.getId(), lot));
+            for (StockLotConsumption consumption : consumed) {
+                StockLot lot = lots.get(consumption.getLotId());
+                if (lot != null) lot.setRemainingQuantity(lot.getRemainingQuantity().add(consumption.getQuantity()));
+            }
+            consumptionRepository.deleteAll(consumed);
+            lots.values().forEach(this::saveOrDrop);
+            touched.addAll(lots.values());
+        }
+
+        // Lots it brought in are withdrawn whole, even if partly consumed since
+        for (StockLot lot : stockLotRepository.findBySourceMovementId(movement.getId())) {
+            lot.setRemainingQuantity(lot.getRemainingQuantity().subtract(lot.getInitialQuantity()));
+            lot.setInitialQuantity(BigDecimal.ZERO);
+            saveOrDrop(lot);
+            touched.add(lot);
+        }
+        expiryAlertService.lotsChanged(touched);
+    }
+
+    @Override
+    @Transactional
+    public void update(InventoryMovement movement) {
+        if (movement.getTransactionType() != TransactionType.IN) {
+            revert(movement);
+            apply(List.of(movement));
+            return;
+        }
+        List<StockLot> received = stockLotRepository.findBySourceMovementId(movement.getId());
+        for (StockLot lot : received) {
+            BigDecimal change = movement.getQuantity().subtract(lot.getInitialQuantity());
+            lot.setInitialQuantity(movement.getQuantity());
+            lot.setRemainingQuantity(lot.getRemainingQuantity().add(change));
+            lot.setExpirationDate(movement.getExpirationDate());
+            stockLotRepository.save(lot);
+        }
+        expiryAlertService.lotsChanged(received);
+    }
+
+    // A withdrawn lot nothing is drawn from any more has no reason to stay
+    private void saveOrDrop(StockLot lot) {
+        if (lot.getInitialQuantity().signum() == 0 && lot.getRemainingQuantity().signum() == 0) {
+            stockLotRepository.delete(lot);
+        } else {
+            stockLotRepository.save(lot);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StockLotDTO> expiring(String branchId, String departmentId, int days) {
+        if (!hasText(branchId)) {
+            throw new IllegalArgumentException("branch_id is required");
+        }
+        if (days < 0 || days > MAX_EXPIRY_DAYS) {
+            throw new IllegalArgumentException("days must be between 0 and " + MAX_EXPIRY_DAYS);
+        }
+        LocalDate today = LocalDate.now();
+        List<StockLot> lots = stockLotRepository.findExpiring(branchId, today.plusDays(days),
+                hasText(departmentId) ? departmentId : null, PageRequest.of(0, MAX_LISTED));
+        if (lots.isEmpty()) return List.of();
+
+        Map<String, String> names = new HashMap<>();
+        inventoryItemRepository.findAllById(lots.stream().map(StockLot::getInventoryItemId).distinct().toList())
+                .forEach(item -> names.put(item.getId(), item.getName()));
+        return lots.stream()
+                .map(lot -> StockLotDTO.builder()
+                        .lotId(lot.getId())
+                        .inventoryItemId(lot.getInventoryItemId())
+                        .itemName(names.get(lot.getInventoryItemId()))
+                        .branchId(lot.getBranchId())
+                        .departmentId(lot.getDepartmentId())
+                        .sourceMovementId(lot.getSourceMovementId())
+                        .expirationDate(lot.getExpirationDate())
+                        .daysToExpiry(ChronoUnit.DAYS.between(today, lot.getExpirationDate()))
+                        .receivedAt(lot.getReceivedAt())
+                        .initialQuantity(lot.getInitialQuantity())
+                        .remainingQuantity(lot.getRemainingQuantity())
+                        .unitCost(lot.getUnitCost())
+                        .build())
+                .toList();
+    }
+
+    /** Open and deficit lots of the keys one apply() call touches, and what it changed. */
+    private final class Batch {
+        final Map<StockKey, PriorityQueue<StockLot>> open = new HashMap<>();
+        final Map<StockKey, Deque<StockLot>> deficits = new HashMap<>();
+        final Map<String, StockLot> changed = new LinkedHashMap<>();
+        final List<StockLotConsumption> consumptions = new ArrayList<>();
+
+        PriorityQueue<StockLot> lotsOf(StockKey key) {
+            return open.computeIfAbsent(key, k -> {
+                PriorityQueue<StockLot> queue = new PriorityQueue<>(FEFO);
+                queue.addAll(stockLotRepository.findOpenLots(k.inventoryItemId(), k.branchId(), k.departmentId()));
+                return queue;
+            });
+        }
+
+        Deque<StockLot> deficitsOf(StockKey key) {
+            return deficits.computeIfAbsent(key, k ->
+                    new ArrayDeque<>(stockLotRepository.findDeficitLots(k.inventoryItemId(), k.branchId(), k.departmentId())));
+        }
+
+        /** @return the part of {@code quantity} that went to the key's deficits */
+        BigDecimal payOff(StockKey key, BigDecimal quantity) {
+            Deque<StockLot> owed = deficitsOf(key);
+            BigDecimal paid = BigDecimal.ZERO;
+            while (paid.compareTo(quantity) < 0 && !owed.isEmpty()) {
+                StockLot deficit = owed.peek();
+                BigDecimal pay = deficit.getRemainingQuantity().negate().min(quantity.subtract(paid));
+                deficit.setRemainingQuantity(deficit.getRemainingQuantity().add(pay));
+                if (deficit.getRemainingQuantity().signum() >= 0) owed.poll();
+                paid = paid.add(pay);
+                changed.put(deficit.getId(), deficit);
+            }
+            return paid;
+        }
+
+        void receive(StockKey key, String movementId, LocalDate expiry, LocalDateTime receivedAt,
+                     BigDecimal quantity, BigDecimal unitCost) {
+            if (key.departmentId() == null || quantity.signum() <= 0) return;
+            // Withdrawing this lot later brings the deficits it paid back
+            BigDecimal remaining = quantity.subtract(payOff(key, quantity));
+            StockLot lot = StockLot.builder()
+                    .id(UUID.randomUUID().toString())
+                    .inventoryItemId(key.inventoryItemId())
+                    .branchId(key.branchId())
+                    .departmentId(key.departmentId())
+                    .sourceMovementId(movementId)
+                    .expirationDate(expiry)
+                    .receivedAt(receivedAt != null ? receivedAt : LocalDateTime.now())
+                    .initialQuantity(quantity)
+                    .remainingQuantity(remaining)
+                    .unitCost(unitCost)
+                    .build();
+            if (remaining.signum() > 0) lotsOf(key).add(lot);
+            changed.put(lot.getId(), lot);
+        }
+
+        List<Taken> consume(StockKey key, String movementId, LocalDateTime at, BigDecimal quantity) {
+            PriorityQueue<StockLot> lots = lotsOf(key);
+            List<Taken> taken = new ArrayList<>();
+            BigDecimal left = quantity;
+            while (left.signum() > 0 && !lots.isEmpty()) {
+                StockLot lot = lots.peek();
+                BigDecimal take = lot.getRemainingQuantity().min(left);
+                lot.setRemainingQuantity(lot.getRemainingQuantity().subtract(take));
+                if (lot.getRemainingQuantity().signum() <= 0) lots.poll();
+                left = left.subtract(take);
+                changed.put(lot.getId(), lot);
+                consumptions.add(StockLotConsumption.builder()
+                        .movementId(movementId)
+                        .lotId(lot.getId())
+                        .quantity(take)
+                        .build());
+                taken.add(new Taken(lot, take));
+            }
+            if (left.signum() > 0) {
+                log.debug("Movement {} takes {} more than the open lots of {} hold", movementId, left, key);
+                taken.add(new Taken(deficit(key, movementId, at, left), left));
+            }
+            return taken;
+        }
+
+        // Recorded as consumed from it, so reverting the outflow settles it
+        private StockLot deficit(StockKey key, String movementId, LocalDateTime at, BigDecimal quantity) {
+            StockLot lot = StockLot.builder()
+                    .id(UUID.randomUUID().toString())
+                    .inventoryItemId(key.inventoryItemId())
+                    .branchId(key.branchId())
+                    .departmentId(key.departmentId())
+                    .sourceMovementId(movementId)
+                    .receivedAt(at != null ? at : LocalDateTime.now())
+                    .initialQuantity(BigDecimal.ZERO)
+                    .remainingQuantity(quantity.negate())
+                    .build();
+            deficitsOf(key).add(lot);
+            changed.put(lot.getId(), lot);
+            consumptions.add(StockLotConsumption.builder()
+                    .movementId(movementId)
+                    .lotId(lot.getId())
+                    .quantity(quantity)
+                    .build());
+            return lot;
+        }
+    }
+}
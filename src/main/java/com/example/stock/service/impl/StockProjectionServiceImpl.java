@@ -0,0 +1,160 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.entity.InventoryMovement;
+import com.example.stock.entity.InventoryStock;
+import com.example.stock.repository.InventoryStockRepository;
+import com.example.stock.service.StockChangedEvent;
+import com.example.stock.service.StockProjectionService;
+import com.example.stock.util.FixedPoint;
+import com.example.stock.util.StripedLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Weighted-average stock projection.
+ * Every stock key is guarded by a striped in-process lock held until the surrounding
+ * transaction completes, so a given InventoryStock row is only ever requested
+ * for PESSIMISTIC_WRITE by one thread of this node at a time.
+ * The rows written are published as a {@link StockChangedEvent}.
+ */
+@Service
+@Slf4j
+public class StockProjectionServiceImpl implements StockProjectionService {
+
+    private final InventoryStockRepository inventoryStockRepository;
+    private final StripedLock keyLocks;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public StockProjectionServiceImpl(
+            InventoryStockRepository inventoryStockRepository,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${stock.projection.lock-stripes:256}") int lockStripes) {
+        this.inventoryStockRepository = inventoryStockRepository;
+        this.eventPublisher = eventPublisher;
+        this.keyLocks = new StripedLock(lockStripes);
+    }
+
+    @Override
+    @Transactional
+    public void applyMovement(InventoryMovement movement) {
+        apply(StockDelta.of(movement));
+    }
+
+    @Override
+    @Transactional
+    public void revertMovement(InventoryMovement movement) {
+        apply(StockDelta.reversalOf(movement));
+    }
+
+    @Override
+    @Transactional
+    public Map<StockKey, InventoryStock> apply(List<StockDelta> deltas) {
+        if (deltas == null || deltas.isEmpty()) {
+            return Map.of();
+        }
+
+        Set<StockKey> keys = new LinkedHashSet<>();
+        for (StockDelta delta : deltas) {
+            keys.add(delta.key());
+            if (delta.costSource() != null) keys.add(delta.costSource());
+        }
+
+        int[] stripes = keyLocks.lockAll(keys);
+        boolean deferred = false;
+        try {
+            deferred = releaseAfterCompletion(stripes);
+
+            Map<StockKey, InventoryStock> rows = new HashMap<>();
+            for (StockDelta delta : deltas) {
+                InventoryStock row = rows.computeIfAbsent(delta.key(), this::loadForUpdate);
+                BigDecimal unitCost = delta.unitCost();
+                if (unitCost == null && delta.costSource() != null) {
+                    unitCost = rows.computeIfAbsent(delta.costSource(), this::loadForUpdate).getAverageUnitCost();
+                }
+                applyDelta(row, delta.quantity(), unitCost, delta.occurredAt());
+            }
+            inventoryStockRepository.saveAll(rows.values());
+            eventPublisher.publishEvent(StockChangedEvent.written(rows.values()));
+            log.debug("Applied {} stock deltas over {} keys", deltas.size(), rows.size());
+            return rows;
+        } finally {
+            if (!deferred) {
+                keyLocks.unlockAll(stripes);
+            }
+        }
+    }
+
+    /**
+     * Keep the stripes until commit/rollback so the DB row lock is released before
+     * the next in-process writer for the same key asks for it.
+     */
+    private boolean releaseAfterCompletion(int[] stripes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                keyLocks.unlockAll(stripes);
+            }
+        });
+        return true;
+    }
+
+    private InventoryStock loadForUpdate(StockKey key) {
+        return inventoryStockRepository
+                .lockByItemBranchDept(key.inventoryItemId(), key.branchId(), key.departmentId())
+                .orElseGet(() -> InventoryStock.builder()
+                        .id(UUID.randomUUID().toString())
+                        .inventoryItemId(key.inventoryItemId())
+                        .branchId(key.branchId())
+                        .departmentId(key.departmentId())
+                        .currentQuantity(BigDecimal.ZERO)
+                        .averageUnitCost(BigDecimal.ZERO)
+                        .build());
+    }
+
+    /**
+     * Quantity always moves by {@code quantity}. A valued delta also moves
+     * {@code quantity * unitCost} of value, re-weighting the average cost.
+     * Computed in scale-6 fixed point; BigDecimal only at the entity boundary.
+     */
+    static void applyDelta(InventoryStock row, BigDecimal quantity, BigDecimal unitCost, LocalDateTime at) {
+        FixedPoint oldQty = FixedPoint.of(row.getCurrentQuantity());
+        FixedPoint oldAvg = FixedPoint.of(row.getAverageUnitCost());
+        FixedPoint qty = FixedPoint.of(quantity);
+        FixedPoint newQty = oldQty.add(qty);
+
+        FixedPoint newAvg = oldAvg;
+        if (unitCost != null) {
+            FixedPoint cost = FixedPoint.of(unitCost);
+            if (oldQty.signum() <= 0 && qty.signum() > 0) {
+                // Nothing (or a deficit) on hand: the incoming lot sets the cost
+                newAvg = cost;
+            } else if (newQty.signum() > 0) {
+                newAvg = FixedPoint.weightedAverage(oldQty, oldAvg, qty, cost).max(FixedPoint.ZERO);
+            }
+        }
+
+        row.setCurrentQuantity(newQty.toBigDecimal());
+        row.setAverageUnitCost(newAvg.toBigDecimal());
+        row.recalcTotal();
+        if (at != null && (row.getLastMovementDate() == null || at.isAfter(row.getLastMovementDate()))) {
+            row.setLastMovementDate(at);
+        }
+    }
+}
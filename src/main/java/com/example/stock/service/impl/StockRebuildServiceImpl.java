@@ -0,0 +1,282 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.inventorystock.StockRebuildReportDTO;
+import com.example.stock.dto.inventorystock.StockRebuildReportDTO.Drift;
+import com.example.stock.entity.InventoryStock;
+import com.example.stock.exception.ResourceConflictException;
+import com.example.stock.repository.InventoryMovementRepository;
+import com.example.stock.repository.InventoryMovementRepository.StockReplayRow;
+import com.example.stock.repository.InventoryStockRepository;
+import com.example.stock.service.StockChangedEvent;
+import com.example.stock.service.StockProjectionService.StockKey;
+import com.example.stock.service.StockRebuildService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Parallel replay of the movement history.
+ *
+ * Work is partitioned by inventory item rather than by branch: a transfer values the
+ * destination at the source's running average, so all keys of one item must be replayed
+ * together, while different items never interact. Each partition streams its movements in
+ * application order (item, created_at, id) with a server-side cursor, folds them in memory
+ * with the same math as the live projection, then diffs (and optionally fixes) its rows.
+ *
+ * Movements created after the run started, and rows touched by live writes since then,
+ * are left alone, so the job can run while the API takes traffic.
+ */
+@Service
+@Slf4j
+public class StockRebuildServiceImpl implements StockRebuildService {
+
+    private static final int ITEMS_PER_PARTITION = 200;
+    private static final int MAX_REPORTED_DRIFTS = 500;
+
+    private final InventoryMovementRepository inventoryMovementRepository;
+    private final InventoryStockRepository inventoryStockRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final int parallelism;
+    private final int applyBatchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public StockRebuildServiceImpl(
+            InventoryMovementRepository inventoryMovementRepository,
+            InventoryStockRepository inventoryStockRepository,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            // Each worker holds one pooled connection while streaming: keep below the pool size
+            @Value("${stock.rebuild.parallelism:4}") int parallelism,
+            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:25}") int applyBatchSize) {
+        this.inventoryMovementRepository = inventoryMovementRepository;
+        this.inventoryStockRepository = inventoryStockRepository;
+        this.eventPublisher = eventPublisher;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.parallelism = Math.max(parallelism, 1);
+        this.applyBatchSize = Math.max(applyBatchSize, 1);
+    }
+
+    @Override
+    public StockRebuildReportDTO rebuild(String branchId, boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new ResourceConflictException("A stock rebuild is already running");
+        }
+        try {
+            return doRebuild(hasText(branchId) ? branchId : null, dryRun);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private StockRebuildReportDTO doRebuild(String branchId, boolean dryRun) {
+        long start = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now();
+        log.info("Stock rebuild started: branch={}, dryRun={}, cutoff={}", branchId, dryRun, cutoff);
+
+        // Items with history touching the branch, plus items that only have stock rows there
+        Set<String> itemIds = new TreeSet<>();
+        readTransaction.executeWithoutResult(status -> {
+            if (branchId == null) {
+                itemIds.addAll(inventoryMovementRepository.findDistinctInventoryItemIds());
+                itemIds.addAll(inventoryStockRepository.findDistinctInventoryItemIds());
+            } else {
+                itemIds.addAll(inventoryMovementRepository.findDistinctInventoryItemIdsByBranch(branchId));
+                itemIds.addAll(inventoryStockRepository.findDistinctInventoryItemIdsByBranch(branchId));
+            }
+        });
+
+        List<String> ordered = new ArrayList<>(itemIds);
+        List<Callable<PartitionResult>> tasks = new ArrayList<>();
+        for (int from = 0; from < ordered.size(); from += ITEMS_PER_PARTITION) {
+            List<String> partition = ordered.subList(from, Math.min(from + ITEMS_PER_PARTITION, ordered.size()));
+            tasks.add(() -> rebuildPartition(partition, branchId, cutoff, dryRun));
+        }
+
+        PartitionResult total = new PartitionResult();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (Future<PartitionResult> future : pool.invokeAll(tasks)) {
+                total.merge(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Stock rebuild interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException("Stock rebuild failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        log.info("Stock rebuild finished in {} ms: items={}, movements={}, drifted={}, fixed={}, skipped={}",
+                duration, itemIds.size(), total.movements, total.drifted, total.fixed, total.skipped);
+
+        return StockRebuildReportDTO.builder()
+                .branchId(branchId)
+                .dryRun(dryRun)
+                .cutoff(cutoff)
+                .itemsScanned(itemIds.size())
+                .movementsReplayed(total.movements)
+                .keysCompared(total.compared)
+                .driftedKeys(total.drifted)
+                .fixedKeys(total.fixed)
+                .skippedKeys(total.skipped)
+                .durationMs(duration)
+                .drifts(total.drifts)
+                .build();
+    }
+
+    private PartitionResult rebuildPartition(List<String> itemIds, String branchId, LocalDateTime cutoff, boolean dryRun) {
+        PartitionResult result = new PartitionResult();
+
+        // 1. Fold the history in memory
+        Map<StockKey, InventoryStock> expected = new HashMap<>();
+        readTransaction.executeWithoutResult(status -> {
+            try (Stream<StockReplayRow> rows = inventoryMovementRepository.streamForReplay(itemIds, cutoff)) {
+                rows.forEach(row -> {
+                    StockReplay.fold(expected, row);
+                    result.movements++;
+                });
+            }
+        });
+
+        // 2. Diff against the stored rows
+        Map<StockKey, InventoryStock> actual = new HashMap<>();
+        List<InventoryStock> stored = readTransaction.execute(status -> inventoryStockRepository.findByInventoryItemIdIn(itemIds));
+        if (stored != null) {
+            stored.forEach(row -> actual.put(StockReplay.keyOf(row), row));
+        }
+
+        Set<StockKey> keys = new LinkedHashSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+        List<Drift> drifts = new ArrayList<>();
+        for (StockKey key : keys) {
+            if (key.branchId() == null || key.departmentId() == null) continue;
+            if (branchId != null && !branchId.equals(key.branchId())) continue;
+            result.compared++;
+
+            InventoryStock want = expected.get(key);
+            InventoryStock have = actual.get(key);
+            BigDecimal wantQty = want != null ? want.getCurrentQuantity() : BigDecimal.ZERO;
+            BigDecimal wantAvg = want != null ? want.getAverageUnitCost() : BigDecimal.ZERO;
+            if (have == null && wantQty.signum() == 0 && wantAvg.signum() == 0) continue;
+            if (have != null && sameValue(wantQty, have.getCurrentQuantity()) && sameValue(wantAvg, have.getAverageUnitCost())) {
+                continue;
+            }
+            drifts.add(Drift.builder()
+                    .inventoryItemId(key.inventoryItemId())
+                    .branchId(key.branchId())
+                    .departmentId(key.departmentId())
+                    .expectedQuantity(wantQty)
+                    .actualQuantity(have != null ? have.getCurrentQuantity() : null)
+                    .expectedAverageUnitCost(wantAvg)
+                    .actualAverageUnitCost(have != null ? have.getAverageUnitCost() : null)
+                    .status(have == null ? "missing" : "drifted")
+                    .build());
+        }
+        result.drifted = drifts.size();
+
+        // 3. Overwrite drifted rows in small transactions
+        if (!dryRun) {
+            for (int from = 0; from < drifts.size(); from += applyBatchSize) {
+                List<Drift> batch = drifts.subList(from, Math.min(from + applyBatchSize, drifts.size()));
+                try {
+                    writeTransaction.executeWithoutResult(status -> applyFixes(batch, expected, cutoff));
+                } catch (DataAccessException ex) {
+                    // Lost a race with a live writer (new row, deadlock): leave these keys to a later run
+                    log.warn("Stock rebuild could not fix {} keys: {}", batch.size(), ex.getMessage());
+                    batch.forEach(d -> d.setStatus("skipped"));
+                }
+            }
+            for (Drift drift : drifts) {
+                if ("fixed".equals(drift.getStatus())) result.fixed++;
+                if ("skipped".equals(drift.getStatus())) result.skipped++;
+            }
+        }
+        result.drifts.addAll(drifts.subList(0, Math.min(drifts.size(), MAX_REPORTED_DRIFTS)));
+        return result;
+    }
+
+    private void applyFixes(List<Drift> batch, Map<StockKey, InventoryStock> expected, LocalDateTime cutoff) {
+        List<InventoryStock> rows = new ArrayList<>(batch.size());
+        for (Drift drift : batch) {
+            StockKey key = new StockKey(drift.getInventoryItemId(), drift.getBranchId(), drift.getDepartmentId());
+            InventoryStock row = inventoryStockRepository
+                    .lockByItemBranchDept(key.inventoryItemId(), key.branchId(), key.departmentId())
+                    .orElse(null);
+            if (row != null && row.getLastMovementDate() != null && row.getLastMovementDate().isAfter(cutoff)) {
+                drift.setStatus("skipped");
+                continue;
+            }
+            if (row == null) {
+                row = StockReplay.emptyRow(key);
+                row.setId(UUID.randomUUID().toString());
+            }
+            InventoryStock want = expected.get(key);
+            row.setCurrentQuantity(drift.getExpectedQuantity());
+            row.setAverageUnitCost(drift.getExpectedAverageUnitCost());
+            if (want != null && want.getLastMovementDate() != null) {
+                row.setLastMovementDate(want.getLastMovementDate());
+            }
+            row.recalcTotal();
+            rows.add(row);
+            drift.setStatus("fixed");
+        }
+        inventoryStockRepository.saveAll(rows);
+        eventPublisher.publishEvent(StockChangedEvent.written(rows));
+    }
+
+    private static boolean sameValue(BigDecimal expected, BigDecimal actual) {
+        return (actual != null ? actual : BigDecimal.ZERO).compareTo(expected) == 0;
+    }
+
+    private static final class PartitionResult {
+        long movements;
+        int compared;
+        int drifted;
+        int fixed;
+        int skipped;
+        final List<Drift> drifts = new ArrayList<>();
+
+        void merge(PartitionResult other) {
+            movements += other.movements;
+            compared += other.compared;
+            drifted += other.drifted;
+            fixed += other.fixed;
+            skipped += other.skipped;
+            int room = MAX_REPORTED_DRIFTS - drifts.size();
+            if (room > 0) {
+                drifts.addAll(other.drifts.subList(0, Math.min(room, other.drifts.size())));
+            }
+        }
+    }
+}
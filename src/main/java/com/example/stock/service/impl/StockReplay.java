@@ -0,0 +1,65 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.entity.InventoryMovement;
+import com.example.stock.entity.InventoryStock;
+import com.example.stock.repository.InventoryMovementRepository.StockReplayRow;
+import com.example.stock.service.StockProjectionService.StockDelta;
+import com.example.stock.service.StockProjectionService.StockKey;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * In-memory fold of movement rows into stock balances, with exactly the math of the live projection.
+ * Shared by the rebuild job and the point-in-time queries.
+ */
+final class StockReplay {
+
+    private StockReplay() {
+    }
+
+    /** Apply one movement to the balances in {@code state}, creating empty rows as needed. */
+    static void fold(Map<StockKey, InventoryStock> state, StockReplayRow row) {
+        for (StockDelta delta : StockDelta.of(toMovement(row))) {
+            foldDelta(state, delta);
+        }
+    }
+
+    static void foldDelta(Map<StockKey, InventoryStock> state, StockDelta delta) {
+        InventoryStock target = state.computeIfAbsent(delta.key(), StockReplay::emptyRow);
+        BigDecimal unitCost = delta.unitCost();
+        if (unitCost == null && delta.costSource() != null) {
+            unitCost = state.computeIfAbsent(delta.costSource(), StockReplay::emptyRow).getAverageUnitCost();
+        }
+        StockProjectionServiceImpl.applyDelta(target, delta.quantity(), unitCost, delta.occurredAt());
+    }
+
+    static InventoryMovement toMovement(StockReplayRow row) {
+        return InventoryMovement.builder()
+                .id(row.getId())
+                .inventoryItemId(row.getInventoryItemId())
+                .branchId(row.getBranchId())
+                .departmentId(row.getDepartmentId())
+                .destinationBranchId(row.getDestinationBranchId())
+                .destinationDepartmentId(row.getDestinationDepartmentId())
+                .transactionType(row.getTransactionType())
+                .quantity(row.getQuantity())
+                .unitPurchasePrice(row.getUnitPurchasePrice())
+                .createdAt(row.getCreatedAt())
+                .build();
+    }
+
+    static InventoryStock emptyRow(StockKey key) {
+        return InventoryStock.builder()
+                .inventoryItemId(key.inventoryItemId())
+                .branchId(key.branchId())
+                .departmentId(key.departmentId())
+                .currentQuantity(BigDecimal.ZERO)
+                .averageUnitCost(BigDecimal.ZERO)
+                .build();
+    }
+
+    static StockKey keyOf(InventoryStock row) {
+        return new StockKey(row.getInventoryItemId(), row.getBranchId(), row.getDepartmentId());
+    }
+}
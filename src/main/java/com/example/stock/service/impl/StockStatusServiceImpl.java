@@ -0,0 +1,289 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.inventorystock.StockStatusItemDTO;
+import com.example.stock.dto.inventorystock.StockStatusReportDTO;
+import com.example.stock.entity.InventoryItem;
+import com.example.stock.repository.InventoryItemRepository;
+import com.example.stock.repository.InventoryItemRepository.ThresholdRow;
+import com.example.stock.repository.InventoryStockRepository;
+import com.example.stock.repository.InventoryStockRepository.QuantityRow;
+import com.example.stock.service.StockChangedEvent;
+import com.example.stock.service.StockProjectionService.StockKey;
+import com.example.stock.service.StockStatusService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static com.example.stock.util.TransactionHooks.afterCommit;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * In-memory status index. Each branch keeps its stock keys, per-department status counters
+ * and the subset of keys at or below threshold, so a report reads counters and walks only
+ * the alerts. Committed stock and item writes of this node update the affected keys; a key
+ * is re-evaluated only when its own quantity or its item's threshold changes.
+ *
+ * The startup warm-up streams items then stock rows. Keys and items written live while it
+ * runs are remembered, so the older snapshot never overwrites them.
+ */
+@Service
+@Slf4j
+public class StockStatusServiceImpl implements StockStatusService {
+
+    // Alerts listed in one report; the counters always cover every key
+    static final int MAX_LISTED = 2000;
+
+    private record ItemInfo(String name, int threshold, StockKey home) {}
+
+    private record Entry(BigDecimal quantity, Status status, boolean placeholder) {}
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final InventoryStockRepository inventoryStockRepository;
+    private final TransactionTemplate readOnly;
+    private final TaskScheduler taskScheduler;
+
+    private final ConcurrentHashMap<String, ItemInfo> items = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<StockKey>> keysByItem = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, BranchIndex> branches = new ConcurrentHashMap<>();
+    private final Set<String> liveItems = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public StockStatusServiceImpl(InventoryItemRepository inventoryItemRepository,
+                                  InventoryStockRepository inventoryStockRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  TaskScheduler taskScheduler) {
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.inventoryStockRepository = inventoryStockRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.taskScheduler = taskScheduler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleWarmUp() {
+        taskScheduler.schedule(this::warmUp, Instant.now());
+    }
+
+    void warmUp() {
+        long start = System.currentTimeMillis();
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<ThresholdRow> rows = inventoryItemRepository.streamThresholds()) {
+                rows.forEach(r -> applyItem(r.getId(), new ItemInfo(r.getName(), r.getThresholdQuantity(),
+                        new StockKey(r.getId(), r.getBranchId(), r.getDepartmentId())), true));
+            }
+            try (Stream<QuantityRow> rows = inventoryStockRepository.streamQuantities()) {
+                rows.forEach(r -> applyQuantity(new StockKey(r.getInventoryItemId(), r.getBranchId(), r.getDepartmentId()),
+                        r.getCurrentQuantity(), true));
+            }
+        });
+        ready = true;
+        liveItems.clear();
+        branches.values().forEach(BranchIndex::endWarmUp);
+        log.info("Stock status index ready in {} ms: {} items, {} branches",
+                System.currentTimeMillis() - start, items.size(), branches.size());
+    }
+
+    @Override
+    public StockStatusReportDTO report(String branchId, String departmentId, String status) {
+        Status only = hasText(status) ? Status.from(status) : null;
+        String department = hasText(departmentId) ? departmentId : null;
+
+        int[] counts = new int[Status.values().length];
+        List<StockStatusItemDTO> listed = new ArrayList<>();
+        if (hasText(branchId)) {
+            BranchIndex branch = branches.get(branchId);
+            if (branch != null) branch.collect(department, only, counts, listed, this::toItemDTO);
+        } else {
+            branches.values().forEach(branch -> branch.collect(department, only, counts, listed, this::toItemDTO));
+        }
+        listed.sort(Comparator.comparing(StockStatusItemDTO::getStatus, Comparator.reverseOrder())
+                .thenComparing(StockStatusItemDTO::getBranchId)
+                .thenComparing(dto -> dto.getItemName() != null ? dto.getItemName() : ""));
+
+        return StockStatusReportDTO.builder()
+                .items(listed.size() > MAX_LISTED ? new ArrayList<>(listed.subList(0, MAX_LISTED)) : listed)
+                .totalItems(counts[0] + counts[1] + counts[2])
+                .normalCount(counts[Status.NORMAL.ordinal()])
+                .lowStockCount(counts[Status.LOW.ordinal()])
+                .outOfStockCount(counts[Status.OUT.ordinal()])
+                .ready(ready)
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void stockChanged(StockChangedEvent event) {
+        event.quantities().forEach((key, qty) -> applyQuantity(key, qty, false));
+    }
+
+    @Override
+    public void itemChanged(InventoryItem item) {
+        String id = item.getId();
+        ItemInfo info = new ItemInfo(item.getName(), item.getThresholdQuantity(),
+                new StockKey(id, item.getBranchId(), item.getDepartmentId()));
+        afterCommit(() -> applyItem(id, info, false));
+    }
+
+    @Override
+    public void itemDeleted(String itemId) {
+        afterCommit(() -> applyItem(itemId, null, false));
+    }
+
+    private void applyQuantity(StockKey key, BigDecimal quantity, boolean snapshot) {
+        if (key.branchId() == null || key.inventoryItemId() == null) return;
+        keysByItem.computeIfAbsent(key.inventoryItemId(), k -> ConcurrentHashMap.newKeySet()).add(key);
+        branch(key.branchId()).put(key, quantity, thresholdOf(key.inventoryItemId()), snapshot, !ready);
+    }
+
+    /** {@code info == null} removes the item. */
+    private void applyItem(String itemId, ItemInfo info, boolean snapshot) {
+        ItemInfo[] previous = new ItemInfo[1];
+        boolean[] applied = {false};
+        items.compute(itemId, (id, current) -> {
+            if (snapshot && liveItems.contains(id)) return current;
+            if (!snapshot && !ready) liveItems.add(id);
+            previous[0] = current;
+            applied[0] = true;
+            return info;
+        });
+        if (!applied[0]) return;
+
+        if (info == null) {
+            Set<StockKey> keys = keysByItem.remove(itemId);
+            if (keys != null) keys.forEach(key -> branch(key.branchId()).remove(key));
+            return;
+        }
+        StockKey oldHome = previous[0] != null ? previous[0].home() : null;
+        if (oldHome != null && !oldHome.equals(info.home())) {
+            branch(oldHome.branchId()).removePlaceholder(oldHome);
+        }
+        Set<StockKey> keys = keysByItem.computeIfAbsent(itemId, k -> ConcurrentHashMap.newKeySet());
+        keys.add(info.home());
+        branch(info.home().branchId()).ensure(info.home(), info.threshold());
+        for (StockKey key : keys) {
+            branch(key.branchId()).refresh(key, info.threshold());
+        }
+    }
+
+    private int thresholdOf(String itemId) {
+        ItemInfo info = items.get(itemId);
+        return info != null ? info.threshold() : 0;
+    }
+
+    private BranchIndex branch(String branchId) {
+        return branches.computeIfAbsent(branchId, id -> new BranchIndex());
+    }
+
+    private StockStatusItemDTO toItemDTO(StockKey key, Entry entry) {
+        ItemInfo info = items.get(key.inventoryItemId());
+        return StockStatusItemDTO.builder()
+                .itemId(key.inventoryItemId())
+                .itemName(info != null ? info.name() : null)
+                .currentQuantity(entry.quantity())
+                .thresholdQuantity(info != null ? info.threshold() : null)
+                .status(entry.status().name().toLowerCase())
+                .branchId(key.branchId())
+                .departmentId(key.departmentId())
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface AlertMapper {
+        StockStatusItemDTO map(StockKey key, Entry entry);
+    }
+
+    /** All keys of one branch; every method holds the branch monitor, so updates are short and reads consistent. */
+    private static final class BranchIndex {
+        private final Map<StockKey, Entry> entries = new HashMap<>();
+        private final Map<StockKey, Entry> alerts = new HashMap<>();
+        private final Map<String, int[]> countsByDepartment = new HashMap<>();
+        private final int[] counts = new int[Status.values().length];
+        private final Set<StockKey> live = new HashSet<>();
+
+        synchronized void put(StockKey key, BigDecimal quantity, int threshold, boolean snapshot, boolean warming) {
+            if (snapshot && live.contains(key)) return;
+            if (!snapshot && warming) live.add(key);
+            BigDecimal qty = quantity != null ? quantity : BigDecimal.ZERO;
+            store(key, new Entry(qty, Status.of(qty, threshold), false));
+        }
+
+        synchronized void ensure(StockKey key, int threshold) {
+            if (!entries.containsKey(key)) {
+                store(key, new Entry(BigDecimal.ZERO, Status.of(BigDecimal.ZERO, threshold), true));
+            }
+        }
+
+        synchronized void refresh(StockKey key, int threshold) {
+            Entry entry = entries.get(key);
+            if (entry == null) return;
+            Status status = Status.of(entry.quantity(), threshold);
+            if (status != entry.status()) {
+                store(key, new Entry(entry.quantity(), status, entry.placeholder()));
+            }
+        }
+
+        synchronized void remove(StockKey key) {
+            Entry old = entries.remove(key);
+            if (old != null) count(key, old.status(), -1);
+            alerts.remove(key);
+        }
+
+        synchronized void removePlaceholder(StockKey key) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.placeholder()) remove(key);
+        }
+
+        synchronized void endWarmUp() {
+            live.clear();
+        }
+
+        synchronized void collect(String departmentId, Status only, int[] into, List<StockStatusItemDTO> listed,
+                                  AlertMapper mapper) {
+            int[] source = departmentId == null ? counts : countsByDepartment.get(departmentId);
+            if (source != null) {
+                for (int i = 0; i < into.length; i++) into[i] += source[i];
+            }
+            if (only == Status.NORMAL) return;
+            alerts.forEach((key, entry) -> {
+                if (departmentId != null && !departmentId.equals(key.departmentId())) return;
+                if (only != null && entry.status() != only) return;
+                listed.add(mapper.map(key, entry));
+            });
+        }
+
+        private void store(StockKey key, Entry entry) {
+            Entry old = entries.put(key, entry);
+            if (old != null) count(key, old.status(), -1);
+            count(key, entry.status(), 1);
+            if (entry.status() == Status.NORMAL) {
+                alerts.remove(key);
+            } else {
+                alerts.put(key, entry);
+            }
+        }
+
+        private void count(StockKey key, Status status, int delta) {
+            counts[status.ordinal()] += delta;
+            if (key.departmentId() != null) {
+                countsByDepartment.computeIfAbsent(key.departmentId(), d -> new int[Status.values().length])
+                        [status.ordinal()] += delta;
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.inventorystock.StockChangeDTO;
+import com.example.stock.exception.ResourceConflictException;
+import com.example.stock.service.StockChangedEvent;
+import com.example.stock.service.StockProjectionService.StockKey;
+import com.example.stock.service.StockStreamService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Stock stream fan-out. Publishing never writes to a connection: it merges the changes into
+ * each subscriber's pending map (latest quantity per row) and queues the subscriber on a small
+ * dispatcher pool, at most once at a time. A dispatcher drains the map into one event. Idle
+ * connections hold no thread (servlet async), so the subscriber count is bounded by memory,
+ * not threads.
+ *
+ * A subscriber is drained by one dispatcher at a time. One whose pending map outgrows
+ * {@code stock.stream.max-pending} rows while its own send is in flight is not keeping up and
+ * is closed; its client reconnects and re-reads. One merely waiting for a dispatcher is never
+ * closed for it. A send still blocked after {@code stock.stream.send-timeout-ms} (a client that
+ * stopped reading) drops the subscriber at the next publish or heartbeat; its thread is freed
+ * when the container's write times out. Writes that fail drop the subscriber.
+ */
+@Service
+@Slf4j
+public class StockStreamServiceImpl implements StockStreamService {
+
+    static final class Subscriber {
+        final String branchId;
+        final SseEmitter emitter;
+        final ConcurrentHashMap<StockKey, BigDecimal> pending = new ConcurrentHashMap<>();
+        final AtomicBoolean queued = new AtomicBoolean();
+        final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        // System.nanoTime() when the send in flight started, 0 when none is
+        volatile long sendStarted;
+        volatile boolean closed;
+
+        Subscriber(String branchId, SseEmitter emitter) {
+            this.branchId = branchId;
+            this.emitter = emitter;
+        }
+    }
+
+    private final Executor dispatcher;
+    private final int maxSubscribers;
+    private final int maxPending;
+    private final long sendTimeoutNanos;
+    private final long timeoutMs;
+
+    private final ConcurrentHashMap<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicLong eventIds = new AtomicLong();
+    private final Counter dropped;
+
+    @Autowired
+    public StockStreamServiceImpl(MeterRegistry meterRegistry,
+                                  @Value("${stock.stream.dispatch-threads:4}") int dispatchThreads,
+                                  @Value("${stock.stream.max-subscribers:10000}") int maxSubscribers,
+                                  @Value("${stock.stream.max-pending:5000}") int maxPending,
+                                  @Value("${stock.stream.send-timeout-ms:10000}") long sendTimeoutMs,
+                                  @Value("${stock.stream.timeout-ms:1800000}") long timeoutMs) {
+        this(Executors.newFixedThreadPool(Math.max(dispatchThreads, 1), daemonThreads()),
+                meterRegistry, maxSubscribers, maxPending, sendTimeoutMs, timeoutMs);
+    }
+
+    StockStreamServiceImpl(Executor dispatcher, MeterRegistry meterRegistry,
+                           int maxSubscribers, int maxPending, long sendTimeoutMs, long timeoutMs) {
+        this.dispatcher = dispatcher;
+        this.maxSubscribers = Math.max(maxSubscribers, 1);
+        this.maxPending = Math.max(maxPending, 1);
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(sendTimeoutMs, 0));
+        this.timeoutMs = timeoutMs;
+        Gauge.builder("stock.stream.subscribers", count, AtomicInteger::get)
+                .description("Open stock stream connections")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("stock.stream.dropped")
+                .description("Stock stream subscribers closed for falling behind or failing writes")
+                .register(meterRegistry);
+    }
+
+    private static CustomizableThreadFactory daemonThreads() {
+        CustomizableThreadFactory factory = new CustomizableThreadFactory("stock-stream-");
+        factory.setDaemon(true);
+        return factory;
+    }
+
+    @Override
+    public SseEmitter subscribe(String branchId) {
+        if (!hasText(branchId)) {
+            throw new IllegalArgumentException("branch_id is required");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        register(branchId, emitter);
+        try {
+            emitter.send(SseEmitter.event().name("ready").data(Map.of("branch_id", branchId), MediaType.APPLICATION_JSON));
+        } catch (IOException ex) {
+            log.debug("Stock stream closed before it started: {}", ex.getMessage());
+        }
+        return emitter;
+    }
+
+    Subscriber register(String branchId, SseEmitter emitter) {
+        if (count.incrementAndGet() > maxSubscribers) {
+            count.decrementAndGet();
+            throw new ResourceConflictException("Too many stock stream subscribers on this node, retry later");
+        }
+        Subscriber subscriber = new Subscriber(branchId, emitter);
+        subscribers.compute(branchId, (b, branch) -> {
+            Set<Subscriber> set = branch != null ? branch : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(ex -> remove(subscriber));
+        return subscriber;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void stockChanged(StockChangedEvent event) {
+        if (count.get() == 0) return;
+        Map<String, Map<StockKey, BigDecimal>> byBranch = new HashMap<>();
+        event.quantities().forEach((key, qty) -> {
+            if (key.branchId() != null && subscribers.containsKey(key.branchId())) {
+                byBranch.computeIfAbsent(key.branchId(), b -> new HashMap<>()).put(key, qty);
+            }
+        });
+        byBranch.forEach(this::publish);
+    }
+
+    private void publish(String branchId, Map<StockKey, BigDecimal> changes) {
+        Set<Subscriber> branch = subscribers.get(branchId);
+        if (branch == null) return;
+        for (Subscriber subscriber : branch) {
+            if (stuck(subscriber)) continue;
+            subscriber.pending.putAll(changes);
+            if (subscriber.sendStarted != 0 && subscriber.pending.size() > maxPending) {
+                log.info("Closing stock stream of branch {}: {} rows pending", branchId, subscriber.pending.size());
+                drop(subscriber);
+            }
+            queue(subscriber);
+        }
+    }
+
+    @Override
+    public void heartbeat() {
+        subscribers.values().forEach(branch -> branch.forEach(subscriber -> {
+            if (stuck(subscriber)) return;
+            subscriber.heartbeatDue.set(true);
+            queue(subscriber);
+        }));
+    }
+
+    @Override
+    public int subscriberCount() {
+        return count.get();
+    }
+
+    private void queue(Subscriber subscriber) {
+        if (subscriber.queued.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    // Drops a subscriber whose send has been blocked for too long
+    private boolean stuck(Subscriber subscriber) {
+        long started = subscriber.sendStarted;
+        if (started == 0 || System.nanoTime() - started < sendTimeoutNanos) {
+            return false;
+        }
+        log.info("Closing stock stream of branch {}: send blocked for over {} ms",
+                subscriber.branchId, TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+        drop(subscriber);
+        return true;
+    }
+
+    private void drop(Subscriber subscriber) {
+        dropped.increment();
+        subscriber.closed = true;
+        remove(subscriber);
+    }
+
+    // queued stays set until the drain ends, so a subscriber never holds two dispatcher threads
+    private void drain(Subscriber subscriber) {
+        if (subscriber.closed) {
+            subscriber.emitter.complete();
+            return;
+        }
+        List<StockChangeDTO> changes = new ArrayList<>(subscriber.pending.size());
+        for (StockKey key : subscriber.pending.keySet()) {
+            BigDecimal quantity = subscriber.pending.remove(key);
+            if (quantity != null) {
+                changes.add(new StockChangeDTO(key.inventoryItemId(), key.departmentId(), quantity));
+            }
+        }
+        boolean heartbeat = subscriber.heartbeatDue.getAndSet(false);
+        subscriber.sendStarted = System.nanoTime();
+        try {
+            if (!changes.isEmpty()) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(Long.toString(eventIds.incrementAndGet()))
+                        .name("stock")
+                        .data(changes, MediaType.APPLICATION_JSON));
+            } else if (heartbeat) {
+                subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+            }
+        } catch (IOException | IllegalStateException ex) {
+            // Client gone, or the emitter already completed
+            log.debug("Dropping stock stream subscriber of branch {}: {}", subscriber.branchId, ex.getMessage());
+            if (!subscriber.closed) drop(subscriber);
+            subscriber.emitter.completeWithError(ex);
+            return;
+        } finally {
+            subscriber.sendStarted = 0;
+        }
+        subscriber.queued.set(false);
+        // Changes that arrived while sending, or the close of a subscriber dropped meanwhile
+        if (!subscriber.pending.isEmpty() || subscriber.heartbeatDue.get() || subscriber.closed) queue(subscriber);
+    }
+
+    private void remove(Subscriber subscriber) {
+        // Atomic with register(), so an emptied set is never dropped while a subscriber joins it
+        subscribers.computeIfPresent(subscriber.branchId, (b, branch) -> {
+            if (branch.remove(subscriber)) count.decrementAndGet();
+            return branch.isEmpty() ? null : branch;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        subscribers.values().forEach(branch -> branch.forEach(subscriber -> subscriber.emitter.complete()));
+        if (dispatcher instanceof ExecutorService pool) pool.shutdownNow();
+    }
+}
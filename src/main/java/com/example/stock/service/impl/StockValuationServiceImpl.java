@@ -0,0 +1,211 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.inventorystock.StockValuationDTO;
+import com.example.stock.dto.inventorystock.StockValuationDTO.CategoryTotal;
+import com.example.stock.dto.inventorystock.StockValuationDTO.DepartmentTotal;
+import com.example.stock.entity.InventoryMovement;
+import com.example.stock.entity.InventoryMovement.TransactionType;
+import com.example.stock.entity.InventoryStock;
+import com.example.stock.exception.ResourceNotFoundException;
+import com.example.stock.repository.BranchRepository;
+import com.example.stock.repository.DepartmentRepository;
+import com.example.stock.repository.InventoryItemRepository;
+import com.example.stock.repository.InventoryItemRepository.ItemCategoryRow;
+import com.example.stock.repository.InventoryMovementRepository;
+import com.example.stock.repository.InventoryMovementRepository.StockReplayRow;
+import com.example.stock.service.StockProjectionService.StockDelta;
+import com.example.stock.service.StockProjectionService.StockKey;
+import com.example.stock.service.StockValuationService;
+import com.example.stock.util.CostLayers;
+import com.example.stock.util.FixedPoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Branch valuation from one replay of the movement history. Items touching the branch are
+ * streamed a partition at a time in application order; each movement is folded into the
+ * weighted-average balances (same math as the live projection) and into per-key FIFO
+ * {@link CostLayers}. A transfer moves the layers it takes at the source to the destination,
+ * so FIFO cost follows the goods across branches.
+ *
+ * Only the partition's balances are held in memory. Negative stock is valued at zero under
+ * FIFO: there is no layer to value it with.
+ */
+@Service
+@Slf4j
+public class StockValuationServiceImpl implements StockValuationService {
+
+    private static final int ITEMS_PER_PARTITION = 500;
+    private static final String UNCATEGORIZED = "";
+
+    private static final class Totals {
+        FixedPoint quantity = FixedPoint.ZERO;
+        FixedPoint averageValue = FixedPoint.ZERO;
+        FixedPoint fifoValue = FixedPoint.ZERO;
+
+        void add(FixedPoint qty, FixedPoint average, FixedPoint fifo) {
+            quantity = quantity.add(qty);
+            averageValue = averageValue.add(average);
+            fifoValue = fifoValue.add(fifo);
+        }
+    }
+
+    private final InventoryMovementRepository inventoryMovementRepository;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final DepartmentRepository departmentRepository;
+    private final BranchRepository branchRepository;
+    private final TransactionTemplate readOnly;
+
+    public StockValuationServiceImpl(InventoryMovementRepository inventoryMovementRepository,
+                                     InventoryItemRepository inventoryItemRepository,
+                                     DepartmentRepository departmentRepository,
+                                     BranchRepository branchRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.inventoryMovementRepository = inventoryMovementRepository;
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.departmentRepository = departmentRepository;
+        this.branchRepository = branchRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    @Override
+    public StockValuationDTO valuate(String branchId, LocalDate asOf) {
+        if (!hasText(branchId)) {
+            throw new IllegalArgumentException("branch_id is required");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (asOf != null && asOf.isAfter(now.toLocalDate())) {
+            throw new IllegalArgumentException("as_of cannot be in the future");
+        }
+        if (!branchRepository.existsById(branchId)) {
+            throw new ResourceNotFoundException("Branch not found with id: " + branchId);
+        }
+        long start = System.currentTimeMillis();
+        LocalDateTime cutoff = asOf == null || asOf.equals(now.toLocalDate()) ? now : asOf.atTime(LocalTime.MAX);
+
+        TreeSet<String> distinct = new TreeSet<>();
+        readOnly.executeWithoutResult(status ->
+                distinct.addAll(inventoryMovementRepository.findDistinctInventoryItemIdsByBranch(branchId)));
+        List<String> itemIds = new ArrayList<>(distinct);
+
+        // department -> category -> totals
+        Map<String, Map<String, Totals>> totals = new TreeMap<>();
+        Map<String, String> categoryNames = new HashMap<>();
+        long[] movements = {0};
+        for (int from = 0; from < itemIds.size(); from += ITEMS_PER_PARTITION) {
+            List<String> partition = itemIds.subList(from, Math.min(from + ITEMS_PER_PARTITION, itemIds.size()));
+            readOnly.executeWithoutResult(status -> {
+                Map<StockKey, InventoryStock> averages = new HashMap<>();
+                Map<StockKey, CostLayers> layers = new HashMap<>();
+                try (Stream<StockReplayRow> rows = inventoryMovementRepository.streamForReplay(partition, cutoff)) {
+                    rows.forEach(row -> {
+                        fold(averages, layers, StockReplay.toMovement(row));
+                        movements[0]++;
+                    });
+                }
+
+                Map<String, String> categoryOf = new HashMap<>();
+                for (ItemCategoryRow row : inventoryItemRepository.findCategoryRowsByIdIn(partition)) {
+                    categoryOf.put(row.getId(), row.getCategoryId());
+                    categoryNames.put(row.getCategoryId(), row.getCategoryName());
+                }
+                averages.forEach((key, balance) -> {
+                    if (!branchId.equals(key.branchId()) || key.departmentId() == null) return;
+                    FixedPoint qty = FixedPoint.of(balance.getCurrentQuantity());
+                    CostLayers fifo = layers.get(key);
+                    totals.computeIfAbsent(key.departmentId(), d -> new TreeMap<>())
+                            .computeIfAbsent(categoryOf.getOrDefault(key.inventoryItemId(), UNCATEGORIZED), c -> new Totals())
+                            .add(qty, qty.multiply(FixedPoint.of(balance.getAverageUnitCost())),
+                                    fifo != null ? fifo.value() : FixedPoint.ZERO);
+                });
+            });
+        }
+
+        Map<String, String> departmentNames = new HashMap<>();
+        departmentRepository.findAllById(totals.keySet()).forEach(d -> departmentNames.put(d.getId(), d.getName()));
+
+        Totals branch = new Totals();
+        List<DepartmentTotal> departments = new ArrayList<>();
+        totals.forEach((departmentId, byCategory) -> {
+            Totals department = new Totals();
+            List<CategoryTotal> categories = new ArrayList<>();
+            byCategory.forEach((categoryId, t) -> {
+                department.add(t.quantity, t.averageValue, t.fifoValue);
+                categories.add(CategoryTotal.builder()
+                        .categoryId(UNCATEGORIZED.equals(categoryId) ? null : categoryId)
+                        .categoryName(categoryNames.get(categoryId))
+                        .quantity(t.quantity.toBigDecimal())
+                        .weightedAverageValue(t.averageValue.toBigDecimal())
+                        .fifoValue(t.fifoValue.toBigDecimal())
+                        .build());
+            });
+            categories.sort(Comparator.comparing(c -> c.getCategoryName() != null ? c.getCategoryName() : ""));
+            branch.add(department.quantity, department.averageValue, department.fifoValue);
+            departments.add(DepartmentTotal.builder()
+                    .departmentId(departmentId)
+                    .departmentName(departmentNames.get(departmentId))
+                    .quantity(department.quantity.toBigDecimal())
+                    .weightedAverageValue(department.averageValue.toBigDecimal())
+                    .fifoValue(department.fifoValue.toBigDecimal())
+                    .categories(categories)
+                    .build());
+        });
+
+        long duration = System.currentTimeMillis() - start;
+        log.info("Valued branch {} as of {} in {} ms: items={}, movements={}, average={}, fifo={}",
+                branchId, cutoff, duration, itemIds.size(), movements[0], branch.averageValue, branch.fifoValue);
+
+        return StockValuationDTO.builder()
+                .branchId(branchId)
+                .asOf(cutoff)
+                .itemsValued(itemIds.size())
+                .movementsReplayed(movements[0])
+                .totalQuantity(branch.quantity.toBigDecimal())
+                .weightedAverageValue(branch.averageValue.toBigDecimal())
+                .fifoValue(branch.fifoValue.toBigDecimal())
+                .durationMs(duration)
+                .departments(departments)
+                .build();
+    }
+
+    /** Apply one movement to both the weighted-average balances and the FIFO layers. */
+    static void fold(Map<StockKey, InventoryStock> averages, Map<StockKey, CostLayers> layers, InventoryMovement movement) {
+        CostLayers moved = movement.getTransactionType() == TransactionType.TRANSFER ? new CostLayers() : null;
+        for (StockDelta delta : StockDelta.of(movement)) {
+            StockReplay.foldDelta(averages, delta);
+            CostLayers target = layers.computeIfAbsent(delta.key(), k -> new CostLayers());
+            FixedPoint qty = FixedPoint.of(delta.quantity());
+            if (qty.signum() < 0) {
+                FixedPoint uncovered = target.take(qty.negate(), moved);
+                // Goods the source had no layer for travel at its average cost
+                if (moved != null) moved.push(uncovered, averageOf(averages, delta.key()));
+            } else if (delta.costSource() != null && moved != null) {
+                moved.take(moved.quantity(), target);
+            } else {
+                target.push(qty, delta.unitCost() != null ? FixedPoint.of(delta.unitCost()) : averageOf(averages, delta.key()));
+            }
+        }
+    }
+
+    private static FixedPoint averageOf(Map<StockKey, InventoryStock> averages, StockKey key) {
+        InventoryStock balance = averages.get(key);
+        return balance != null ? FixedPoint.of(balance.getAverageUnitCost()) : FixedPoint.ZERO;
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.entity.InventoryMovement;
+import com.example.stock.repository.InventoryMovementRepository;
+import com.example.stock.service.StockLotService;
+import com.example.stock.service.StockProjectionService;
+import com.example.stock.service.StockProjectionService.StockDelta;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.example.stock.util.TransactionHooks.afterCommit;
+
+/**
+ * Optional write-behind mode for stock projection ({@code stock.write-behind.enabled=true}).
+ *
+ * Movements are committed synchronously with {@code stock_applied = false}; their stock deltas
+ * are queued here after commit. A single flusher thread group-commits the queue every
+ * {@code flush-interval-ms} or as soon as {@code max-pending} movements are waiting: it claims the
+ * still-pending movement rows, coalesces their deltas per stock key, applies one update per
+ * InventoryStock row and marks the movements applied, all in one transaction.
+ *
+ * Because the claim is made against the movement rows, a periodic recovery sweep can safely
+ * re-queue unapplied movements after a crash (or from another node) without double-applying.
+ * Stock reads lag writes by at most one flush interval while enabled.
+ *
+ * When a group commit fails its movements are retried one per transaction, so a single bad
+ * movement cannot hold back the others. A movement failing {@code max-attempts} times is dropped
+ * from the buffer and left {@code stock_applied = false}; the recovery sweep picks it up again.
+ */
+@Component
+@Slf4j
+public class StockWriteBehindBuffer {
+
+    private static final int CLAIM_CHUNK = 1000;
+
+    private final StockProjectionService stockProjectionService;
+    private final StockLotService stockLotService;
+    private final InventoryMovementRepository inventoryMovementRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final long flushIntervalMs;
+    private final int maxPending;
+    private final long recoveryIntervalMs;
+    private final long recoveryGraceMs;
+    private final int maxAttempts;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushNeeded = lock.newCondition();
+    private LinkedHashMap<String, List<StockDelta>> pending = new LinkedHashMap<>();
+    private volatile int depth;
+    private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+
+    private final Timer flushTimer;
+    private final DistributionSummary coalescingRatio;
+    private final Counter flushedMovements;
+    private final Counter failedFlushes;
+    private final Counter droppedMovements;
+
+    private volatile boolean running;
+    private Thread flusher;
+    private long lastRecoveryAt;
+
+    public StockWriteBehindBuffer(
+            StockProjectionService stockProjectionService,
+            StockLotService stockLotService,
+            InventoryMovementRepository inventoryMovementRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${stock.write-behind.enabled:false}") boolean enabled,
+            @Value("${stock.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+            @Value("${stock.write-behind.max-pending:500}") int maxPending,
+            @Value("${stock.write-behind.recovery-interval-ms:30000}") long recoveryIntervalMs,
+            @Value("${stock.write-behind.recovery-grace-ms:60000}") long recoveryGraceMs,
+            @Value("${stock.write-behind.max-attempts:3}") int maxAttempts) {
+        this.stockProjectionService = stockProjectionService;
+        this.stockLotService = stockLotService;
+        this.inventoryMovementRepository = inventoryMovementRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.flushIntervalMs = Math.max(flushIntervalMs, 1);
+        this.maxPending = Math.max(maxPending, 1);
+        this.recoveryIntervalMs = recoveryIntervalMs;
+        this.recoveryGraceMs = recoveryGraceMs;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+
+        Gauge.builder("stock.writebehind.buffer.depth", this, b -> b.depth)
+                .description("Movements waiting for their stock effect to be flushed")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("stock.writebehind.flush.latency")
+                .description("Duration of one group commit")
+                .register(meterRegistry);
+        this.coalescingRatio = DistributionSummary.builder("stock.writebehind.coalescing.ratio")
+                .description("Stock deltas per InventoryStock row updated, per flush")
+                .register(meterRegistry);
+        this.flushedMovements = Counter.builder("stock.writebehind.flushed.movements")
+                .register(meterRegistry);
+        this.failedFlushes = Counter.builder("stock.writebehind.flush.failures")
+                .register(meterRegistry);
+        this.droppedMovements = Counter.builder("stock.writebehind.dropped.movements")
+                .description("Movements left unapplied for the recovery sweep after max-attempts failures")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        running = true;
+        lastRecoveryAt = System.currentTimeMillis() - recoveryIntervalMs; // sweep on first cycle
+        flusher = new Thread(this::runLoop, "stock-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Stock write-behind enabled: interval={}ms, maxPending={}", flushIntervalMs, maxPending);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (!enabled) return;
+        running = false;
+        signal();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * Queue the stock effect of a movement once the surrounding transaction has committed,
+     * so a rolled-back movement never reaches stock.
+     */
+    public void enqueueAfterCommit(String movementId, List<StockDelta> deltas) {
+        afterCommit(() -> enqueue(movementId, deltas));
+    }
+
+    void enqueue(String movementId, List<StockDelta> deltas) {
+        lock.lock();
+        try {
+            pending.putIfAbsent(movementId, deltas);
+            depth = pending.size();
+            if (depth >= maxPending) {
+                flushNeeded.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            flushNeeded.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            lock.lock();
+            try {
+                if (depth < maxPending) {
+                    flushNeeded.await(flushIntervalMs, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                recoverIfDue();
+                flush();
+            } catch (RuntimeException ex) {
+                log.error("Stock write-behind cycle failed", ex);
+            }
+        }
+    }
+
+    /**
+     * Group-commit everything queued so far.
+     *
+     * @return number of InventoryStock rows updated
+     */
+    public int flush() {
+        LinkedHashMap<String, List<StockDelta>> batch;
+        lock.lock();
+        try {
+            if (pending.isEmpty()) return 0;
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            depth = 0;
+        } finally {
+            lock.unlock();
+        }
+
+        long start = System.nanoTime();
+        try {
+            Integer rows = transactionTemplate.execute(status -> applyBatch(batch));
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (!attempts.isEmpty()) batch.keySet().forEach(attempts::remove);
+            return rows != null ? rows : 0;
+        } catch (RuntimeException ex) {
+            failedFlushes.increment();
+            log.error("Stock write-behind flush of {} movements failed, retrying them one by one", batch.size(), ex);
+            return flushEach(batch);
+        }
+    }
+
+    private int flushEach(LinkedHashMap<String, List<StockDelta>> batch) {
+        int rows = 0;
+        LinkedHashMap<String, List<StockDelta>> retry = new LinkedHashMap<>();
+        for (Map.Entry<String, List<StockDelta>> entry : batch.entrySet()) {
+            String movementId = entry.getKey();
+            try {
+                Integer applied = transactionTemplate.execute(status -> applyBatch(Map.of(movementId, entry.getValue())));
+                rows += applied != null ? applied : 0;
+                attempts.remove(movementId);
+            } catch (RuntimeException ex) {
+                int failures = attempts.merge(movementId, 1, Integer::sum);
+                if (failures < maxAttempts) {
+                    retry.put(movementId, entry.getValue());
+                    continue;
+                }
+                attempts.remove(movementId);
+                droppedMovements.increment();
+                log.error("Stock write-behind gave up on movement {} after {} attempts, leaving it to the recovery sweep",
+                        movementId, failures, ex);
+            }
+        }
+        if (!retry.isEmpty()) requeue(retry);
+        return rows;
+    }
+
+    private Integer applyBatch(Map<String, List<StockDelta>> batch) {
+        // Claim: only movements still flagged pending (locked) are applied here
+        Map<String, InventoryMovement> claimed = new HashMap<>();
+        List<String> ids = new ArrayList<>(batch.keySet());
+        for (int from = 0; from < ids.size(); from += CLAIM_CHUNK) {
+            List<String> chunk = ids.subList(from, Math.min(from + CLAIM_CHUNK, ids.size()));
+            inventoryMovementRepository.lockStockPending(chunk).forEach(m -> claimed.put(m.getId(), m));
+        }
+        if (claimed.isEmpty()) return 0;
+
+        List<StockDelta> deltas = new ArrayList<>();
+        List<InventoryMovement> inOrder = new ArrayList<>(claimed.size());
+        batch.forEach((id, movementDeltas) -> {
+            if (claimed.containsKey(id)) {
+                deltas.addAll(movementDeltas);
+                inOrder.add(claimed.get(id));
+            }
+        });
+        int rows = stockProjectionService.apply(StockDelta.coalesce(deltas)).size();
+        stockLotService.apply(inOrder);
+
+        List<String> claimedIds = new ArrayList<>(claimed.keySet());
+        for (int from = 0; from < claimedIds.size(); from += CLAIM_CHUNK) {
+            inventoryMovementRepository.markStockApplied(
+                    claimedIds.subList(from, Math.min(from + CLAIM_CHUNK, claimedIds.size())));
+        }
+
+        flushedMovements.increment(claimed.size());
+        if (rows > 0) coalescingRatio.record((double) deltas.size() / rows);
+        log.debug("Stock write-behind flushed {} movements ({} deltas) into {} rows", claimed.size(), deltas.size(), rows);
+        return rows;
+    }
+
+    private void requeue(LinkedHashMap<String, List<StockDelta>> batch) {
+        lock.lock();
+        try {
+            // Older deltas go back in front of anything queued meanwhile
+            batch.putAll(pending);
+            pending = batch;
+            depth = pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Re-queue movements committed but never applied (node crash, failed shutdown flush).
+     * The grace period keeps the sweep away from movements still in a live buffer.
+     */
+    private void recoverIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastRecoveryAt < recoveryIntervalMs) return;
+        lastRecoveryAt = now;
+
+        LocalDateTime before = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(recoveryGraceMs));
+        List<InventoryMovement> stale = transactionTemplate.execute(status ->
+                inventoryMovementRepository.findStockPendingBefore(before, PageRequest.of(0, CLAIM_CHUNK)));
+        if (stale == null || stale.isEmpty()) return;
+
+        log.warn("Stock write-behind recovering {} unapplied movements", stale.size());
+        for (InventoryMovement movement : stale) {
+            enqueue(movement.getId(), StockDelta.of(movement));
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.example.stock.dto.common.PaginationInfo;
 import com.example.stock.dto.tax.TaxRequestDTO;
 import com.example.stock.dto.tax.TaxFilterDTO;
 import com.example.stock.dto.tax.TaxResponseDTO;
+import com.example.stock.entity.ChangeLogEntry.EntityType;
 import com.example.stock.entity.Tax;
 import com.example.stock.exception.DeleteConstraintException;
 import com.example.stock.exception.ResourceNotFoundException;
@@ -12,6 +13,7 @@ import com.example.stock.exception.ValidationException;
 import com.example.stock.mapper.TaxMapper;
 import com.example.stock.repository.BranchRepository;
 import com.example.stock.repository.TaxRepository;
+import com.example.stock.service.ChangeFeedService;
 import com.example.stock.service.TaxService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -46,6 +48,7 @@ public class TaxServiceImpl implements TaxService {
     private final TaxRepository taxRepository;
     private final BranchRepository branchRepository;
     private final TaxMapper taxMapper;
+    private final ChangeFeedService changeFeedService;
 
     // Constants
     private static final String TAX_NOT_FOUND_MSG = "Tax not found with ID: ";
@@ -66,6 +69,7 @@ public class TaxServiceImpl implements TaxService {
         // Create and save tax
         Tax tax = taxMapper.toEntity(createDTO);
         Tax savedTax = taxRepository.save(tax);
+        changeFeedService.upserted(EntityType.TAX, savedTax.getId().toString(), savedTax.getBranchId());
         
         log.info("Tax created successfully with ID: {}", savedTax.getId());
         return convertToResponseDTO(savedTax);
@@ -83,10 +87,13 @@ public class TaxServiceImpl implements TaxService {
         // Validate unique name per branch (excluding current tax)
         validateUniqueTaxName(updateDTO.getName(), updateDTO.getBranchId(), id);
         
+        String previousBranchId = existingTax.getBranchId();
+
         // Update using mapper
         taxMapper.updateEntityFromRequest(updateDTO, existingTax);
         
         Tax updatedTax = taxRepository.save(existingTax);
+        changeFeedService.updated(EntityType.TAX, id.toString(), previousBranchId, updatedTax.getBranchId());
         
         log.info("Tax updated successfully: {}", updatedTax.getId());
         return convertToResponseDTO(updatedTax);
@@ -104,6 +111,7 @@ public class TaxServiceImpl implements TaxService {
         }
         
         taxRepository.delete(tax);
+        changeFeedService.deleted(EntityType.TAX, id.toString(), tax.getBranchId());
         log.info("Tax deleted successfully with ID: {}", id);
     }
 
@@ -5,6 +5,7 @@ import com.example.stock.dto.common.PaginationInfo;
 import com.example.stock.dto.unit.UnitCreateDTO;
 import com.example.stock.dto.unit.UnitResponseDTO;
 import com.example.stock.dto.unit.UnitUpdateDTO;
+import com.example.stock.entity.ChangeLogEntry.EntityType;
 import com.example.stock.entity.Unit;
 import com.example.stock.exception.DeleteConstraintException;
 import com.example.stock.exception.ResourceNotFoundException;
@@ -12,6 +13,7 @@ import com.example.stock.mapper.UnitMapper;
 import com.example.stock.repository.BranchRepository;
 import com.example.stock.repository.DepartmentRepository;
 import com.example.stock.repository.UnitRepository;
+import com.example.stock.service.ChangeFeedService;
 import com.example.stock.service.UnitService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -53,6 +55,7 @@ public class UnitServiceImpl implements UnitService {
     private final BranchRepository branchRepository;
     private final DepartmentRepository departmentRepository;
     private final UnitMapper unitMapper;
+    private final ChangeFeedService changeFeedService;
     
     @Override
     @Transactional(readOnly = true)
@@ -176,6 +179,7 @@ public class UnitServiceImpl implements UnitService {
         unit.setUpdatedAt(LocalDateTime.now());
         
         Unit savedUnit = unitRepository.save(unit);
+        changeFeedService.upserted(EntityType.UNIT, savedUnit.getId(), savedUnit.getBranchId());
         log.info("Unit created successfully with ID: {}", savedUnit.getId());
         
         // Try to load with relations, with debug logging
@@ -210,11 +214,14 @@ public class UnitServiceImpl implements UnitService {
             throw new IllegalArgumentException(String.format(SYMBOL_EXISTS_MSG, updateDTO.getSymbol()));
         }
         
+        String previousBranchId = existingUnit.getBranchId();
+
         // Update fields using mapper
         unitMapper.updateEntityFromDTO(updateDTO, existingUnit);
         existingUnit.setUpdatedAt(LocalDateTime.now());
         
         Unit updatedUnit = unitRepository.save(existingUnit);
+        changeFeedService.updated(EntityType.UNIT, id, previousBranchId, updatedUnit.getBranchId());
         log.info("Unit updated successfully with ID: {}", updatedUnit.getId());
         
         // Explicitly load the unit with relations to ensure they are populated
@@ -237,6 +244,7 @@ public class UnitServiceImpl implements UnitService {
         }
         
         unitRepository.deleteById(id);
+        changeFeedService.deleted(EntityType.UNIT, id, unit.getBranchId());
         log.info("Unit deleted successfully with ID: {}", id);
     }
     
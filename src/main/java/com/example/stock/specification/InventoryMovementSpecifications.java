@@ -3,13 +3,14 @@ package com.example.stock.specification;
 import com.example.stock.entity.InventoryMovement;
 import org.springframework.data.jpa.domain.Specification;
 
-import jakarta.persistence.criteria.JoinType;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 /**
  * Dynamic Specifications for InventoryMovement to support flexible search/filter.
+ * Item attributes (department, category, name) are denormalized onto the movement,
+ * so every predicate stays on inventory_movement: no join, no DISTINCT.
  */
 public final class InventoryMovementSpecifications {
 
@@ -33,18 +34,14 @@ public final class InventoryMovementSpecifications {
     public static Specification<InventoryMovement> hasDepartmentId(String departmentId) {
         return (root, query, cb) -> {
             if (departmentId == null || departmentId.isBlank()) return cb.conjunction();
-            if (query != null) query.distinct(true);
-            var itemJoin = root.join("inventoryItem", JoinType.LEFT);
-            return cb.equal(itemJoin.get("departmentId"), departmentId);
+            return cb.equal(root.get("departmentId"), departmentId);
         };
     }
 
     public static Specification<InventoryMovement> hasCategory(String categoryId) {
         return (root, query, cb) -> {
             if (categoryId == null || categoryId.isBlank()) return cb.conjunction();
-            if (query != null) query.distinct(true);
-            var itemJoin = root.join("inventoryItem", JoinType.LEFT);
-            return cb.equal(itemJoin.get("inventoryItemCategoryId"), categoryId);
+            return cb.equal(root.get("itemCategoryId"), categoryId);
         };
     }
 
@@ -74,21 +71,17 @@ public final class InventoryMovementSpecifications {
     public static Specification<InventoryMovement> itemNameContains(String name) {
         return (root, query, cb) -> {
             if (name == null || name.isBlank()) return cb.conjunction();
-            if (query != null) query.distinct(true);
-            var itemJoin = root.join("inventoryItem", JoinType.LEFT);
-            return cb.like(cb.lower(itemJoin.get("name")), "%" + name.toLowerCase() + "%");
+            return cb.like(root.get("itemNameNormalized"), "%" + InventoryMovement.normalizeName(name) + "%");
         };
     }
 
     public static Specification<InventoryMovement> textSearch(String term) {
         return (root, query, cb) -> {
             if (term == null || term.isBlank()) return cb.conjunction();
-            if (query != null) query.distinct(true);
             var lowered = "%" + term.toLowerCase() + "%";
-            var itemJoin = root.join("inventoryItem", JoinType.LEFT);
             return cb.or(
-                cb.like(cb.lower(itemJoin.get("name")), lowered),
-                cb.like(cb.lower(itemJoin.get("id")), lowered),
+                cb.like(root.get("itemNameNormalized"), "%" + InventoryMovement.normalizeName(term) + "%"),
+                cb.like(cb.lower(root.get("inventoryItemId")), lowered),
                 cb.like(cb.lower(root.get("supplierId")), lowered),
                 cb.like(cb.lower(root.get("branchId")), lowered),
                 cb.like(cb.lower(root.get("notes")), lowered),
@@ -137,6 +130,25 @@ public final class InventoryMovementSpecifications {
         return (root, query, cb) -> (before == null) ? cb.conjunction() : cb.lessThanOrEqualTo(root.get("updatedAt"), before);
     }
 
+    /**
+     * Keyset predicate: rows strictly after {@code (createdAt, id)} in the listing order.
+     */
+    public static Specification<InventoryMovement> seekAfter(LocalDateTime createdAt, String id, boolean descending) {
+        return (root, query, cb) -> {
+            if (createdAt == null || id == null) return cb.conjunction();
+            if (descending) {
+                return cb.or(
+                    cb.lessThan(root.get("createdAt"), createdAt),
+                    cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id))
+                );
+            }
+            return cb.or(
+                cb.greaterThan(root.get("createdAt"), createdAt),
+                cb.and(cb.equal(root.get("createdAt"), createdAt), cb.greaterThan(root.get("id"), id))
+            );
+        };
+    }
+
     /**
      * Build a dynamic specification from optional parameters.
      */
@@ -0,0 +1,106 @@
+package com.example.stock.util;
+
+/**
+ * FIFO cost layers of one stock key: a ring buffer of (quantity, unit cost) pairs kept as raw
+ * {@link FixedPoint} longs, two per layer, with consecutive receipts at the same cost merged
+ * into one layer. Outflows consume the oldest layers first.
+ *
+ * Quantity taken beyond the layers on hand is tracked as a deficit; the next receipts cover
+ * it before they open a layer, mirroring how the weighted average treats negative stock.
+ *
+ * @author Development Team
+ * @since 1.0
+ */
+public final class CostLayers {
+
+    private long[] ring = new long[8];
+    private int head;
+    private int count;
+    private long quantity;
+    private long deficit;
+
+    public void push(FixedPoint qty, FixedPoint unitCost) {
+        long left = qty.raw();
+        if (left <= 0) return;
+        long covered = Math.min(left, deficit);
+        deficit -= covered;
+        left -= covered;
+        if (left == 0) return;
+
+        long cost = unitCost.raw();
+        quantity = Math.addExact(quantity, left);
+        if (count > 0) {
+            int tail = slot(count - 1);
+            if (ring[tail + 1] == cost) {
+                ring[tail] = Math.addExact(ring[tail], left);
+                return;
+            }
+        }
+        if (2 * (count + 1) > ring.length) grow();
+        int tail = slot(count);
+        ring[tail] = left;
+        ring[tail + 1] = cost;
+        count++;
+    }
+
+    /**
+     * Takes {@code qty} from the oldest layers, moving what it takes into {@code into} when given.
+     *
+     * @return the part no layer covered, now added to the deficit
+     */
+    public FixedPoint take(FixedPoint qty, CostLayers into) {
+        long left = qty.raw();
+        while (left > 0 && count > 0) {
+            int first = slot(0);
+            long taken = Math.min(left, ring[first]);
+            if (into != null) into.push(FixedPoint.ofRaw(taken), FixedPoint.ofRaw(ring[first + 1]));
+            ring[first] -= taken;
+            quantity -= taken;
+            left -= taken;
+            if (ring[first] == 0) {
+                head = (head + 1) % (ring.length / 2);
+                count--;
+            }
+        }
+        if (left > 0) deficit = Math.addExact(deficit, left);
+        return FixedPoint.ofRaw(Math.max(left, 0));
+    }
+
+    /** Quantity held in layers; zero while in deficit. */
+    public FixedPoint quantity() {
+        return FixedPoint.ofRaw(quantity);
+    }
+
+    public FixedPoint deficit() {
+        return FixedPoint.ofRaw(deficit);
+    }
+
+    /** Sum of quantity x unit cost over the layers, each product rounded once. */
+    public FixedPoint value() {
+        FixedPoint value = FixedPoint.ZERO;
+        for (int i = 0; i < count; i++) {
+            int at = slot(i);
+            value = value.add(FixedPoint.ofRaw(ring[at]).multiply(FixedPoint.ofRaw(ring[at + 1])));
+        }
+        return value;
+    }
+
+    public int layerCount() {
+        return count;
+    }
+
+    private int slot(int index) {
+        return 2 * ((head + index) % (ring.length / 2));
+    }
+
+    private void grow() {
+        long[] bigger = new long[ring.length * 2];
+        for (int i = 0; i < count; i++) {
+            int from = slot(i);
+            bigger[2 * i] = ring[from];
+            bigger[2 * i + 1] = ring[from + 1];
+        }
+        ring = bigger;
+        head = 0;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.stock.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Exact decimal with 6 fractional digits stored as a scaled {@code long}
+ * (matches the {@code scale = 6} quantity and cost columns).
+ * Addition and subtraction are exact; multiplication, division and weighted averages
+ * round once, HALF_UP, to 6 digits. Every operation is overflow-checked and throws
+ * {@link ArithmeticException} rather than wrapping. Intermediate products that do not fit
+ * 64 bits are finished through {@link BigInteger}, so results stay exact whenever they fit.
+ * Convert with {@link #of(BigDecimal)} / {@link #toBigDecimal()} at the JPA/DTO boundary only.
+ *
+ * @author Development Team
+ * @since 1.0
+ */
+public final class FixedPoint implements Comparable<FixedPoint> {
+
+    public static final int SCALE = 6;
+    static final long ONE_RAW = 1_000_000L;
+
+    public static final FixedPoint ZERO = new FixedPoint(0L);
+    public static final FixedPoint ONE = new FixedPoint(ONE_RAW);
+
+    private final long raw;
+
+    private FixedPoint(long raw) {
+        this.raw = raw;
+    }
+
+    /** Value whose unscaled representation is {@code raw} (i.e. {@code raw / 10^6}). */
+    public static FixedPoint ofRaw(long raw) {
+        return raw == 0 ? ZERO : new FixedPoint(raw);
+    }
+
+    public static FixedPoint of(long units) {
+        return ofRaw(Math.multiplyExact(units, ONE_RAW));
+    }
+
+    /**
+     * Rounds HALF_UP to 6 digits; {@code null} maps to zero.
+     *
+     * @throws ArithmeticException if the value does not fit a scaled long
+     */
+    public static FixedPoint of(BigDecimal value) {
+        if (value == null) return ZERO;
+        return ofRaw(value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public long raw() {
+        return raw;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(raw, SCALE);
+    }
+
+    public int signum() {
+        return Long.signum(raw);
+    }
+
+    public boolean isZero() {
+        return raw == 0;
+    }
+
+    public FixedPoint add(FixedPoint other) {
+        return ofRaw(Math.addExact(raw, other.raw));
+    }
+
+    public FixedPoint subtract(FixedPoint other) {
+        return ofRaw(Math.subtractExact(raw, other.raw));
+    }
+
+    public FixedPoint negate() {
+        return ofRaw(Math.negateExact(raw));
+    }
+
+    public FixedPoint multiply(FixedPoint other) {
+        return ofRaw(mulDiv(raw, other.raw, ONE_RAW));
+    }
+
+    /**
+     * @throws ArithmeticException on division by zero
+     */
+    public FixedPoint divide(FixedPoint divisor) {
+        return ofRaw(mulDiv(raw, ONE_RAW, divisor.raw));
+    }
+
+    public FixedPoint max(FixedPoint other) {
+        return raw >= other.raw ? this : other;
+    }
+
+    public FixedPoint min(FixedPoint other) {
+        return raw <= other.raw ? this : other;
+    }
+
+    /**
+     * {@code (q1 * c1 + q2 * c2) / (q1 + q2)}, rounded once at the end.
+     *
+     * @throws ArithmeticException when {@code q1 + q2} is zero
+     */
+    public static FixedPoint weightedAverage(FixedPoint q1, FixedPoint c1, FixedPoint q2, FixedPoint c2) {
+        long weight = Math.addExact(q1.raw, q2.raw);
+        if (weight == 0) {
+            throw new ArithmeticException("Weighted average over zero quantity");
+        }
+        long hi1 = Math.multiplyHigh(q1.raw, c1.raw), lo1 = q1.raw * c1.raw;
+        long hi2 = Math.multiplyHigh(q2.raw, c2.raw), lo2 = q2.raw * c2.raw;
+        if (fitsLong(hi1, lo1) && fitsLong(hi2, lo2)) {
+            long sum = lo1 + lo2;
+            // Same-sign operands with a different-sign result mean the sum overflowed
+            if (((lo1 ^ sum) & (lo2 ^ sum)) >= 0) {
+                return ofRaw(roundDiv(sum, weight));
+            }
+        }
+        BigInteger value = BigInteger.valueOf(q1.raw).multiply(BigInteger.valueOf(c1.raw))
+                .add(BigInteger.valueOf(q2.raw).multiply(BigInteger.valueOf(c2.raw)));
+        return ofRaw(roundDiv(value, BigInteger.valueOf(weight)));
+    }
+
+    /** {@code a * b / d} rounded HALF_UP, with a 128-bit intermediate when needed. */
+    static long mulDiv(long a, long b, long d) {
+        if (d == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        long hi = Math.multiplyHigh(a, b);
+        long lo = a * b;
+        if (fitsLong(hi, lo)) {
+            return roundDiv(lo, d);
+        }
+        return roundDiv(BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)), BigInteger.valueOf(d));
+    }
+
+    private static boolean fitsLong(long hi, long lo) {
+        return hi == (lo >> 63);
+    }
+
+    private static long roundDiv(long n, long d) {
+        long q = n / d;
+        long r = n % d;
+        if (r != 0 && Math.abs(r) >= Math.abs(d) - Math.abs(r)) {
+            q += ((n ^ d) < 0) ? -1 : 1;
+        }
+        return q;
+    }
+
+    private static long roundDiv(BigInteger n, BigInteger d) {
+        return new BigDecimal(n).divide(new BigDecimal(d), 0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    @Override
+    public int compareTo(FixedPoint other) {
+        return Long.compare(raw, other.raw);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof FixedPoint other && raw == other.raw);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(raw);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.stock.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed-size table of reentrant locks addressed by key hash.
+ * Keys that land on the same stripe are serialized, unrelated keys proceed in parallel.
+ * Multiple stripes are always acquired in ascending index order to avoid lock-order deadlocks.
+ *
+ * @author Development Team
+ * @since 1.0
+ */
+public final class StripedLock {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripeCount requested number of stripes, rounded up to a power of two
+     */
+    public StripedLock(int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("stripeCount must be positive");
+        }
+        int size = Integer.highestOneBit(stripeCount - 1) << 1;
+        if (size < 1) size = 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+
+    /**
+     * Stripe index for the given key (spread hash, masked to table size).
+     */
+    public int stripeOf(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        h ^= (h >>> 16);
+        return h & mask;
+    }
+
+    /**
+     * Lock the stripes covering all given keys, in ascending stripe order.
+     *
+     * @return the distinct, sorted stripe indices that were locked (pass back to {@link #unlockAll(int[])})
+     */
+    public int[] lockAll(Collection<?> keys) {
+        int[] indices = keys.stream().mapToInt(this::stripeOf).distinct().sorted().toArray();
+        int locked = 0;
+        try {
+            for (int index : indices) {
+                stripes[index].lock();
+                locked++;
+            }
+        } catch (RuntimeException | Error e) {
+            unlockAll(Arrays.copyOf(indices, locked));
+            throw e;
+        }
+        return indices;
+    }
+
+    /**
+     * Release stripes previously returned by {@link #lockAll(Collection)}, in reverse order.
+     */
+    public void unlockAll(int[] indices) {
+        for (int i = indices.length - 1; i >= 0; i--) {
+            stripes[indices[i]].unlock();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.stock.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: {@value #LEVELS} levels of {@value #SLOTS} slots, each level
+ * {@value #SLOTS} times coarser than the one below. A timer sits in the slot of the coarsest
+ * level that still resolves its distance, and moves down a level each time the wheel below
+ * wraps, so it is touched at most once per level. Schedule and cancel are O(1): slots are
+ * intrusive doubly linked lists and the returned {@link Timer} unlinks itself.
+ *
+ * Not thread-safe; callers serialize access.
+ *
+ * @param <T> payload handed back when the timer fires
+ * @author Development Team
+ * @since 1.0
+ */
+public final class TimingWheel<T> {
+
+    static final int BITS = 6;
+    static final int SLOTS = 1 << BITS;
+    static final int LEVELS = 4;
+    private static final int MASK = SLOTS - 1;
+
+    /** Handle of one scheduled payload. */
+    public static final class Timer<T> {
+        private final T payload;
+        private final long deadlineTick;
+        private Timer<T> prev;
+        private Timer<T> next;
+        private boolean linked;
+
+        private Timer(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T payload() {
+            return payload;
+        }
+
+        public boolean isPending() {
+            return linked;
+        }
+    }
+
+    private final long tickMillis;
+    private final Timer<T>[][] slots;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis resolution; deadlines are rounded up to the next tick
+     * @param startMillis wall-clock time the wheel starts at
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        this.slots = new Timer[LEVELS][SLOTS];
+        for (Timer<T>[] level : slots) {
+            for (int i = 0; i < SLOTS; i++) {
+                Timer<T> sentinel = new Timer<>(null, 0);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                level[i] = sentinel;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Deadlines already passed fire on the next {@link #advanceTo}. */
+    public Timer<T> schedule(T payload, long deadlineMillis) {
+        long tick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        Timer<T> timer = new Timer<>(payload, Math.max(tick, currentTick));
+        place(timer);
+        size++;
+        return timer;
+    }
+
+    /** @return false when the timer already fired or was cancelled */
+    public boolean cancel(Timer<T> timer) {
+        if (timer == null || !timer.linked) return false;
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /** Fires every timer due up to {@code nowMillis}, in deadline order. */
+    public List<T> advanceTo(long nowMillis) {
+        long target = nowMillis / tickMillis;
+        List<T> fired = new ArrayList<>();
+        while (currentTick <= target) {
+            int index = (int) (currentTick & MASK);
+            if (index == 0) cascade(1);
+            Timer<T> head = slots[0][index];
+            while (head.next != head) {
+                Timer<T> timer = head.next;
+                unlink(timer);
+                size--;
+                fired.add(timer.payload);
+            }
+            currentTick++;
+        }
+        return fired;
+    }
+
+    // Timers of the level's current slot move down now that the level below wrapped
+    private void cascade(int level) {
+        if (level >= LEVELS) return;
+        int index = (int) ((currentTick >>> (BITS * level)) & MASK);
+        if (index == 0) cascade(level + 1);
+        Timer<T> head = slots[level][index];
+        while (head.next != head) {
+            Timer<T> timer = head.next;
+            unlink(timer);
+            place(timer);
+        }
+    }
+
+    private void place(Timer<T> timer) {
+        long delta = timer.deadlineTick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        // Beyond the top level's span: park in the slot that comes round last, re-placed on cascade
+        long tick = delta >= 1L << (BITS * LEVELS)
+                ? currentTick + (1L << (BITS * LEVELS)) - 1
+                : timer.deadlineTick;
+        Timer<T> head = slots[level][(int) ((tick >>> (BITS * level)) & MASK)];
+        timer.prev = head.prev;
+        timer.next = head;
+        head.prev.next = timer;
+        head.prev = timer;
+        timer.linked = true;
+    }
+
+    private static <T> void unlink(Timer<T> timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+        timer.linked = false;
+    }
+}
@@ -0,0 +1,9 @@
+-- Sub-recipes: an ingredient may reference another recipe, and a recipe used only as a
+-- component has no sellable item. Run once on databases created before this change
+-- (ddl-auto=update never drops a NOT NULL, prod runs with ddl-auto=validate).
+
+alter table ingredients add column if not exists sub_recipe_id varchar(255);
+alter table ingredients alter column inventory_item_id drop not null;
+create index if not exists idx_ingredient_sub_recipe on ingredients (sub_recipe_id);
+
+alter table recipes alter column sellable_item_id drop not null;
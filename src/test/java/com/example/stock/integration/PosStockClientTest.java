@@ -0,0 +1,170 @@
+package com.example.stock.integration;
+
+import com.example.stock.dto.menuitemssnapshot.PosMenuItemDTO;
+import com.example.stock.integration.PosStockClient.Catalog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class PosStockClientTest {
+
+    private static final String CATALOG = """
+        [{"id": 1, "item_name": "Burger", "branch_id": 7, "variations": [{"id": 11, "variation": "Double"}]},
+         {"id": 2, "item_name": "Fries", "branch_id": 7, "variations": [], "extra": true}]
+        """;
+
+    private final CountDownLatch released = new CountDownLatch(1);
+    private HttpServer server;
+
+    @AfterEach
+    void stopServer() {
+        released.countDown();
+        if (server != null) server.stop(0);
+    }
+
+    @Test
+    void fetchMenuItems_ShouldRetryThenParseGzipAndSkipAnUnchangedCatalog() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        List<String> seenKeys = new CopyOnWriteArrayList<>();
+        List<String> seenEncodings = new CopyOnWriteArrayList<>();
+        PosStockClient client = startPos(exchange -> {
+            seenKeys.add(exchange.getRequestHeaders().getFirst("X-Stock-Key"));
+            seenEncodings.add(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            if (calls.incrementAndGet() == 1) {
+                exchange.sendResponseHeaders(503, -1);
+            } else if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                byte[] body = gzip(CATALOG);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+
+        List<List<PosMenuItemDTO>> chunks = new ArrayList<>();
+        Catalog first = client.fetchMenuItems("secret", null, 1, chunks::add);
+
+        assertThat(first.notModified()).isFalse();
+        assertThat(first.items()).isEqualTo(2);
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.stream().flatMap(List::stream))
+                .extracting(PosMenuItemDTO::getId, PosMenuItemDTO::getItem_name, PosMenuItemDTO::getBranch_id)
+                .containsExactly(tuple(1L, "Burger", 7L), tuple(2L, "Fries", 7L));
+        assertThat(chunks.get(0).get(0).getVariations()).singleElement()
+                .satisfies(v -> assertThat(v.getVariation()).isEqualTo("Double"));
+        assertThat(first.version().etag()).isEqualTo("\"v1\"");
+
+        Catalog second = client.fetchMenuItems("secret", first.version(), 1, chunks::add);
+
+        assertThat(second.notModified()).isTrue();
+        assertThat(chunks).hasSize(2);
+        assertThat(calls).hasValue(3);
+        assertThat(seenKeys).containsOnly("secret");
+        assertThat(seenEncodings).containsOnly("gzip");
+    }
+
+    @Test
+    void fetchMenuItems_ClientError_ShouldFailWithoutRetrying() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        PosStockClient client = startPos(exchange -> {
+            calls.incrementAndGet();
+            exchange.sendResponseHeaders(401, -1);
+            exchange.close();
+        });
+
+        assertThatThrownBy(() -> client.fetchMenuItems("wrong", null, 10, chunk -> {}))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("401");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void fetchMenuItems_NonObjectElement_ShouldFailInsteadOfReturningAPartialCatalog() throws IOException {
+        PosStockClient client = startPos(exchange -> {
+            byte[] body = "[{\"id\": 1, \"item_name\": \"Burger\", \"branch_id\": 7}, null, {\"id\": 2}]"
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            exchange.close();
+        });
+
+        assertThatThrownBy(() -> client.fetchMenuItems("secret", null, 10, chunk -> {}))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("not an object");
+    }
+
+    @Test
+    void fetchMenuItems_BodyStalledMidway_ShouldTimeOutAndRetry() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        PosStockClient client = startPos(exchange -> {
+            calls.incrementAndGet();
+            byte[] body = CATALOG.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(body, 0, body.length / 2);
+            out.flush();
+            try {
+                released.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        }, 300);
+
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> client.fetchMenuItems("secret", null, 10, chunk -> {}))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("no body data");
+        assertThat(calls).hasValue(3);
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(10));
+    }
+
+    private PosStockClient startPos(HttpHandler handler) throws IOException {
+        return startPos(handler, 5000);
+    }
+
+    private PosStockClient startPos(HttpHandler handler, long readTimeoutMs) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/integrations/stock/menu-items", handler);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        return new PosStockClient(new ObjectMapper(), baseUrl, 1000, readTimeoutMs, 3, 1, 5);
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
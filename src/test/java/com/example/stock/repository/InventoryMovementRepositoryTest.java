@@ -0,0 +1,128 @@
+package com.example.stock.repository;
+
+import com.example.stock.dto.inventorymouvement.InventoryMovementResponseDTO;
+import com.example.stock.entity.Branch;
+import com.example.stock.entity.Department;
+import com.example.stock.entity.InventoryItem;
+import com.example.stock.entity.InventoryItemCategory;
+import com.example.stock.entity.InventoryMovement;
+import com.example.stock.entity.InventoryMovement.TransactionType;
+import com.example.stock.entity.Suppliers;
+import com.example.stock.entity.Tax;
+import com.example.stock.entity.Unit;
+import com.example.stock.specification.InventoryMovementSpecifications;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement budget of the movement list pages: one select for the page plus one count,
+ * however many distinct items and suppliers the page shows.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+class InventoryMovementRepositoryTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private InventoryMovementRepository repository;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        LocalDateTime now = LocalDateTime.now();
+        Branch branch = em.persist(Branch.builder().id("b1").name("Main").isActive(true).createdAt(now).updatedAt(now).build());
+        Department department = new Department();
+        department.setId("d1");
+        department.setName("Kitchen");
+        department.setBranchId(branch.getId());
+        department.setCreatedAt(now);
+        department.setUpdatedAt(now);
+        em.persist(department);
+        InventoryItemCategory category = em.persist(InventoryItemCategory.builder().id("c1").name("Dry")
+                .branchId("b1").departmentId("d1").createdAt(now).updatedAt(now).build());
+        Unit unit = em.persist(Unit.builder().id("u1").name("Kilogram").symbol("kg")
+                .branchId("b1").departmentId("d1").createdAt(now).updatedAt(now).build());
+        Tax tax = em.persist(Tax.builder().branchId("b1").name("VAT").rate(new BigDecimal("19.00"))
+                .createdAt(now).updatedAt(now).build());
+
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            InventoryItem item = em.persist(InventoryItem.builder().id("item-" + i).name("Item " + i)
+                    .branchId("b1").departmentId("d1").category(category).unit(unit).tax(tax)
+                    .createdAt(now).updatedAt(now).build());
+            Suppliers supplier = em.persist(Suppliers.builder().id("s-" + i).name("Supplier " + i)
+                    .branchId("b1").createdAt(now).updatedAt(now).build());
+            for (int j = 0; j < 2; j++) {
+                InventoryMovement movement = InventoryMovement.builder()
+                        .id("m-" + i + "-" + j)
+                        .inventoryItemId(item.getId())
+                        .supplierId(supplier.getId())
+                        .branchId("b1")
+                        .transactionType(TransactionType.IN)
+                        .quantity(BigDecimal.ONE)
+                        .unitPurchasePrice(BigDecimal.TEN)
+                        .createdAt(now.minusMinutes(i * 2L + j))
+                        .updatedAt(now)
+                        .build();
+                movement.captureItem(item);
+                em.persist(movement);
+            }
+        }
+        em.flush();
+        em.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAll_ShouldLoadItemAndSupplierNamesWithThePage() {
+        Page<InventoryMovement> page = repository.findAll(PageRequest.of(0, PAGE_SIZE, Sort.by("createdAt")));
+        List<InventoryMovementResponseDTO> rows = page.map(InventoryMovementResponseDTO::fromEntity).getContent();
+
+        assertThat(rows).hasSize(PAGE_SIZE);
+        assertThat(rows).allSatisfy(row -> {
+            assertThat(row.getInventoryItem().getName()).startsWith("Item ");
+            assertThat(row.getSupplier().getName()).startsWith("Supplier ");
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void findAllWithSpecification_ShouldNotIssueOneSelectPerRow() {
+        var spec = InventoryMovementSpecifications.build("b1", "d1", null, TransactionType.IN, "c1", null,
+                "item", null, null, null, null, null, null, null, null, null, null, null);
+
+        Page<InventoryMovement> page = repository.findAll(spec, PageRequest.of(0, PAGE_SIZE, Sort.by("createdAt")));
+        List<InventoryMovementResponseDTO> rows = page.map(InventoryMovementResponseDTO::fromEntity).getContent();
+
+        assertThat(page.getTotalElements()).isEqualTo(PAGE_SIZE * 2L);
+        assertThat(rows).extracting(row -> row.getSupplier().getName()).doesNotContainNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
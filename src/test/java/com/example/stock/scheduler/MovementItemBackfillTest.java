@@ -0,0 +1,44 @@
+package com.example.stock.scheduler;
+
+import com.example.stock.repository.InventoryMovementRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MovementItemBackfillTest {
+
+    private final InventoryMovementRepository movements = mock(InventoryMovementRepository.class);
+    private final MovementItemBackfill backfill = new MovementItemBackfill(movements,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), mock(TaskScheduler.class), 100, true);
+
+    @Test
+    void backfill_ShouldRunSlicesUntilOneComesBackShort() {
+        when(movements.backfillItemAttributes(100)).thenReturn(100, 100, 42);
+
+        assertThat(backfill.backfill()).isEqualTo(242);
+        verify(movements, times(3)).backfillItemAttributes(100);
+    }
+
+    @Test
+    void backfill_ShouldStopImmediately_WhenNothingIsLeft() {
+        when(movements.backfillItemAttributes(100)).thenReturn(0);
+
+        assertThat(backfill.backfill()).isZero();
+        verify(movements, times(1)).backfillItemAttributes(100);
+    }
+
+    @Test
+    void refresh_ShouldRunTheItemsSlicesUntilOneComesBackShort() {
+        when(movements.refreshItemAttributes("item-1", 100)).thenReturn(100, 7);
+
+        assertThat(backfill.refresh("item-1")).isEqualTo(107);
+        verify(movements, times(2)).refreshItemAttributes("item-1", 100);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.change.ChangeFeedPageDTO;
+import com.example.stock.dto.unit.UnitResponseDTO;
+import com.example.stock.entity.ChangeLogEntry;
+import com.example.stock.entity.ChangeLogEntry.EntityType;
+import com.example.stock.entity.ChangeLogEntry.Operation;
+import com.example.stock.entity.Unit;
+import com.example.stock.mapper.CategoryMapper;
+import com.example.stock.mapper.InventoryItemMapper;
+import com.example.stock.mapper.InventoryStockMapper;
+import com.example.stock.mapper.TaxMapper;
+import com.example.stock.mapper.UnitMapper;
+import com.example.stock.repository.ChangeLogRepository;
+import com.example.stock.repository.InventoryItemCategoryRepository;
+import com.example.stock.repository.InventoryItemRepository;
+import com.example.stock.repository.InventoryStockRepository;
+import com.example.stock.repository.TaxRepository;
+import com.example.stock.repository.UnitRepository;
+import com.example.stock.util.KeysetCursor;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChangeFeedServiceImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 10, 12, 0);
+
+    private final ChangeLogRepository changeLog = mock(ChangeLogRepository.class);
+    private final UnitRepository units = mock(UnitRepository.class);
+    private final UnitMapper unitMapper = mock(UnitMapper.class);
+    private final ChangeFeedServiceImpl service = new ChangeFeedServiceImpl(changeLog,
+            mock(InventoryItemRepository.class), mock(InventoryStockRepository.class), units,
+            mock(InventoryItemCategoryRepository.class), mock(TaxRepository.class),
+            mock(InventoryItemMapper.class), mock(InventoryStockMapper.class), unitMapper,
+            mock(CategoryMapper.class), mock(TaxMapper.class), 30);
+
+    @Test
+    void changes_WithoutOrWithExpiredCursor_ShouldRequireSnapshot() {
+        when(changeLog.findHead()).thenReturn(42L);
+
+        ChangeFeedPageDTO first = service.changes(null, "b1", 100, NOW);
+        String stale = new KeysetCursor(NOW.minusDays(31), "7").encode();
+        ChangeFeedPageDTO expired = service.changes(stale, "b1", 100, NOW);
+
+        for (ChangeFeedPageDTO page : List.of(first, expired)) {
+            assertThat(page.isSnapshotRequired()).isTrue();
+            assertThat(page.getChanges()).isEmpty();
+            assertThat(KeysetCursor.decode(page.getNextCursor())).isEqualTo(new KeysetCursor(NOW, "42"));
+        }
+        verify(changeLog, times(0)).findPage(any(), anyLong(), any());
+    }
+
+    @Test
+    void changes_ShouldReturnEntriesAfterTheCursorWithCurrentState() {
+        Unit kg = Unit.builder().id("kg").branchId("b1").build();
+        UnitResponseDTO kgDto = new UnitResponseDTO();
+        when(units.findAllById(any())).thenReturn(List.of(kg));
+        when(unitMapper.toResponseDTO(kg)).thenReturn(kgDto);
+        when(changeLog.findPage(eq("b1"), eq(10L), any())).thenReturn(List.of(
+                entry(11, EntityType.UNIT, "kg", Operation.UPSERT, NOW.minusMinutes(1)),
+                entry(12, EntityType.TAX, "3", Operation.DELETE, NOW.minusMinutes(1)),
+                entry(13, EntityType.UNIT, "l", Operation.UPSERT, NOW.minusSeconds(1))));
+
+        ChangeFeedPageDTO page = service.changes(new KeysetCursor(NOW.minusHours(1), "10").encode(), "b1", 2, NOW);
+
+        assertThat(page.isSnapshotRequired()).isFalse();
+        assertThat(page.isHasMore()).isTrue();
+        assertThat(page.getChanges()).extracting("sequence").containsExactly(11L, 12L);
+        assertThat(page.getChanges().get(0).getData()).isSameAs(kgDto);
+        assertThat(page.getChanges().get(1).getOperation()).isEqualTo("delete");
+        assertThat(page.getChanges().get(1).getData()).isNull();
+        assertThat(KeysetCursor.decode(page.getNextCursor()).id()).isEqualTo("12");
+
+        assertThatThrownBy(() -> service.changes(new KeysetCursor(NOW, "x").encode(), "b1", 100, NOW))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void updated_MovedToAnotherBranch_ShouldDeleteFromTheOldBranchAndNumberTheEntriesAtCommit() {
+        AtomicLong ids = new AtomicLong(100);
+        when(changeLog.save(any())).thenAnswer(invocation -> {
+            ChangeLogEntry entry = invocation.getArgument(0);
+            entry.setId(ids.incrementAndGet());
+            return entry;
+        });
+        when(changeLog.advanceClock(2)).thenReturn(0, 1);
+        when(changeLog.findClock()).thenReturn(42L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.updated(EntityType.ITEM, "i1", "b1", "b2");
+            verify(changeLog, never()).assignCommitSeq(any(), anyLong());
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+        } finally {
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(0));
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        ArgumentCaptor<ChangeLogEntry> saved = ArgumentCaptor.forClass(ChangeLogEntry.class);
+        verify(changeLog, times(2)).save(saved.capture());
+        assertThat(saved.getAllValues())
+                .extracting(ChangeLogEntry::getBranchId, ChangeLogEntry::getOperation)
+                .containsExactly(
+                        tuple("b1", Operation.DELETE),
+                        tuple("b2", Operation.UPSERT));
+        // First commit ever: the clock row is created, then bumped; the entries become 41 and 42
+        verify(changeLog).initClock();
+        verify(changeLog).assignCommitSeq(List.of(101L, 102L), 40L);
+        assertThatThrownBy(() -> service.upserted(EntityType.ITEM, "i1", "b1"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static ChangeLogEntry entry(long seq, EntityType type, String entityId, Operation operation, LocalDateTime at) {
+        return new ChangeLogEntry(seq + 1000, seq, type, entityId, "b1", operation, at);
+    }
+}
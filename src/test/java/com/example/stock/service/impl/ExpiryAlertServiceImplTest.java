@@ -0,0 +1,113 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.entity.ExpiryAlert;
+import com.example.stock.entity.StockLot;
+import com.example.stock.repository.ExpiryAlertRepository;
+import com.example.stock.repository.InventoryItemRepository;
+import com.example.stock.repository.StockLotRepository;
+import com.example.stock.repository.StockLotRepository.DatedLotRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExpiryAlertServiceImplTest {
+
+    private static final long DAY = Duration.ofDays(1).toMillis();
+
+    private final ExpiryAlertRepository alerts = mock(ExpiryAlertRepository.class);
+    private final StockLotRepository lots = mock(StockLotRepository.class);
+    private final ExpiryAlertServiceImpl service = new ExpiryAlertServiceImpl(alerts, lots,
+            mock(InventoryItemRepository.class), mock(PlatformTransactionManager.class), mock(TaskScheduler.class),
+            true, new int[] {0, 3, 1}, 60_000);
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void warmUp() {
+        DatedLotRow soon = row("soon", today.plusDays(2));
+        DatedLotRow later = row("later", today.plusDays(5));
+        DatedLotRow expired = row("expired", today.minusDays(1));
+        when(alerts.findIdsByExpirationDateFrom(any())).thenReturn(List.of("expired:0"));
+        when(lots.streamOpenDatedLots(any())).thenReturn(Stream.of(soon, later, expired));
+        service.warmUp();
+    }
+
+    @Test
+    void tick_AfterWarmUp_ShouldRaiseOnlyTheMostUrgentPassedHorizonAndNothingAlreadyFired() {
+        assertThat(service.tick(System.currentTimeMillis())).isEqualTo(1);
+
+        assertThat(saved()).extracting(ExpiryAlert::getId).containsExactly("soon:3");
+        // soon:1, soon:0 and the three horizons of later
+        assertThat(service.pendingTimers()).isEqualTo(5);
+    }
+
+    @Test
+    void lotsChanged_EmptiedLot_ShouldCancelItsTimers() {
+        service.tick(System.currentTimeMillis());
+        clearInvocations(alerts);
+
+        service.lotsChanged(List.of(lot("soon", today.plusDays(2), "0")));
+
+        assertThat(service.pendingTimers()).isEqualTo(3);
+        assertThat(service.tick(System.currentTimeMillis() + 3 * DAY)).isEqualTo(1);
+        assertThat(saved()).extracting(ExpiryAlert::getId).containsExactly("later:3");
+    }
+
+    @Test
+    void lotsChanged_Redated_ShouldStartItsHorizonsOver() {
+        service.tick(System.currentTimeMillis());
+
+        service.lotsChanged(List.of(lot("soon", today.plusDays(10), "4")));
+
+        assertThat(service.pendingTimers()).isEqualTo(6);
+    }
+
+    @Test
+    void alerts_ShouldValidateDays() {
+        assertThatThrownBy(() -> service.alerts(null, null, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.alerts(null, null, 91)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ExpiryAlert> saved() {
+        ArgumentCaptor<List<ExpiryAlert>> captor = ArgumentCaptor.forClass(List.class);
+        verify(alerts).saveAll(captor.capture());
+        return captor.getValue();
+    }
+
+    private static DatedLotRow row(String id, LocalDate expiry) {
+        DatedLotRow row = mock(DatedLotRow.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getInventoryItemId()).thenReturn("item-1");
+        when(row.getBranchId()).thenReturn("b1");
+        when(row.getDepartmentId()).thenReturn("d1");
+        when(row.getExpirationDate()).thenReturn(expiry);
+        when(row.getRemainingQuantity()).thenReturn(new BigDecimal("5"));
+        return row;
+    }
+
+    private static StockLot lot(String id, LocalDate expiry, String remaining) {
+        return StockLot.builder()
+                .id(id)
+                .inventoryItemId("item-1").branchId("b1").departmentId("d1")
+                .expirationDate(expiry)
+                .remainingQuantity(new BigDecimal(remaining))
+                .build();
+    }
+}
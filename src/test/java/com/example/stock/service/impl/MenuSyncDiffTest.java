@@ -0,0 +1,133 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.menuitemssnapshot.PosMenuItemDTO;
+import com.example.stock.dto.variation.VariationDTO;
+import com.example.stock.entity.MenuItemSnapshot;
+import com.example.stock.entity.MenuItemVariationSnapshot;
+import com.example.stock.entity.SellableItem;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class MenuSyncDiffTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 10, 12, 0);
+
+    @Test
+    void upserts_ShouldSkipUnchangedItemsAndWriteOnlyTheDifferences() {
+        PosMenuItemDTO burger = item(100L, "Burger", variation(1L, "Single"), variation(2L, "Double"));
+        PosMenuItemDTO fries = item(200L, "Fries");
+        MenuItemSnapshot storedBurger = snapshot(10L, 100L, "Burger", hashOf(item(100L, "Burger", variation(1L, "Single"))));
+        MenuItemSnapshot storedFries = snapshot(20L, 200L, "Fries", hashOf(fries));
+        List<MenuItemVariationSnapshot> variations = List.of(
+                MenuItemVariationSnapshot.builder().id(1L).menuItemSnapshotId(10L).name("Simple").build());
+        List<SellableItem> sellables = List.of(
+                sellable(1000L, 10L, 1L, "Simple"), sellable(2000L, 20L, null, "Fries"));
+
+        MenuSyncDiff diff = MenuSyncDiff.upserts(List.of(burger, fries), List.of(storedBurger, storedFries),
+                variations, sellables, Set.of(), NOW, new MenuSyncDiff.Scope());
+
+        assertThat(diff.unchanged).isEqualTo(1);
+        assertThat(diff.snapshotsUpdated).isEqualTo(1);
+        assertThat(storedBurger.getContentHash()).isEqualTo(hashOf(burger));
+        assertThat(diff.variationsUpdated).isEqualTo(1);
+        assertThat(variations.get(0).getName()).isEqualTo("Single");
+        assertThat(diff.newVariations).extracting(MenuItemVariationSnapshot::getId).containsExactly(2L);
+        assertThat(diff.sellablesUpdated).isEqualTo(1);
+        assertThat(diff.newSellables)
+                .extracting(SellableItem::getMenuItemSnapshotId, SellableItem::getMenuItemVariationSnapshotId, SellableItem::getName)
+                .containsExactly(tuple(10L, 2L, "Double"));
+        assertThat(diff.newItems).isEmpty();
+        assertThat(diff.deletedSellables).isEmpty();
+        assertThat(diff.deletedSnapshots).isEmpty();
+    }
+
+    @Test
+    void deletes_ShouldRemoveWhatThePosDroppedButKeepSellableItemsUsedByRecipes() {
+        // Pizza gone from the POS but sold through a recipe; salad gone; soup new, taking the salad's variation.
+        // Soup comes in one chunk; the deletes see every stored row once all chunks are in
+        PosMenuItemDTO soup = item(300L, "Soup", variation(5L, "Bowl"));
+        MenuItemSnapshot pizza = snapshot(10L, 100L, "Pizza", "x");
+        MenuItemSnapshot salad = snapshot(20L, 200L, "Salad", "y");
+        List<MenuItemVariationSnapshot> variations = List.of(
+                MenuItemVariationSnapshot.builder().id(5L).menuItemSnapshotId(20L).name("Bowl").build(),
+                MenuItemVariationSnapshot.builder().id(6L).menuItemSnapshotId(20L).name("Plate").build());
+        List<SellableItem> sellables = List.of(sellable(1000L, 10L, null, "Pizza"),
+                sellable(2000L, 20L, 5L, "Bowl"), sellable(2001L, 20L, 6L, "Plate"));
+
+        MenuSyncDiff.Scope scope = new MenuSyncDiff.Scope();
+        MenuSyncDiff upserts = MenuSyncDiff.upserts(List.of(soup, item(null, "Broken")), List.of(),
+                variations.subList(0, 1), List.of(), Set.of(1000L), NOW, scope);
+        upserts.attach(Map.of(300L, 30L));
+        MenuSyncDiff deletes = MenuSyncDiff.deletes(scope, List.of(pizza, salad), variations, sellables, Set.of(1000L));
+
+        assertThat(upserts.rejected).isEqualTo(1);
+        assertThat(variations.get(0).getMenuItemSnapshotId()).isEqualTo(30L);
+        assertThat(deletes.sellablesKept).isEqualTo(1);
+        assertThat(deletes.deletedSellables).containsExactlyInAnyOrder(2000L, 2001L);
+        assertThat(deletes.deletedSnapshots).containsExactly(20L);
+        assertThat(deletes.deletedVariations).containsExactly(6L);
+        assertThat(MenuSyncDiff.deletes(new MenuSyncDiff.Scope(), List.of(pizza, salad), variations, sellables, Set.of())
+                .deletedSnapshots).isEmpty();
+        assertThat(upserts.newSellables)
+                .extracting(SellableItem::getMenuItemSnapshotId, SellableItem::getMenuItemVariationSnapshotId)
+                .containsExactly(tuple(30L, 5L));
+    }
+
+    @Test
+    void deletes_ShouldDropTheVariationsOfSellableItemsTheUpsertsDeleted() {
+        // Burger loses its Double; Soup kept a dropped variation while a recipe held it, in an earlier run
+        PosMenuItemDTO burger = item(100L, "Burger", variation(1L, "Single"));
+        PosMenuItemDTO soup = item(300L, "Soup");
+        MenuItemSnapshot storedBurger = snapshot(10L, 100L, "Burger", "stale");
+        MenuItemSnapshot storedSoup = snapshot(30L, 300L, "Soup", hashOf(soup));
+        List<MenuItemVariationSnapshot> variations = List.of(
+                MenuItemVariationSnapshot.builder().id(1L).menuItemSnapshotId(10L).name("Single").build(),
+                MenuItemVariationSnapshot.builder().id(2L).menuItemSnapshotId(10L).name("Double").build(),
+                MenuItemVariationSnapshot.builder().id(7L).menuItemSnapshotId(30L).name("Bowl").build());
+        List<SellableItem> sellables = List.of(sellable(1001L, 10L, 1L, "Single"), sellable(1002L, 10L, 2L, "Double"),
+                sellable(3000L, 30L, null, "Soup"));
+
+        MenuSyncDiff.Scope scope = new MenuSyncDiff.Scope();
+        MenuSyncDiff upserts = MenuSyncDiff.upserts(List.of(burger, soup), List.of(storedBurger, storedSoup),
+                variations, sellables, Set.of(), NOW, scope);
+        // The stored rows still list the sellable item the upserts deleted
+        MenuSyncDiff deletes = MenuSyncDiff.deletes(scope, List.of(storedBurger, storedSoup), variations, sellables, Set.of());
+
+        assertThat(upserts.unchanged).isEqualTo(1);
+        assertThat(upserts.deletedSellables).containsExactly(1002L);
+        assertThat(deletes.deletedSellables).isEmpty();
+        assertThat(deletes.deletedVariations).containsExactlyInAnyOrder(2L, 7L);
+    }
+
+    private static String hashOf(PosMenuItemDTO item) {
+        return MenuSyncDiff.contentHash(item, item.getVariations());
+    }
+
+    private static PosMenuItemDTO item(Long id, String name, VariationDTO... variations) {
+        PosMenuItemDTO item = new PosMenuItemDTO();
+        item.setId(id);
+        item.setItem_name(name);
+        item.setBranch_id(1L);
+        item.setVariations(List.of(variations));
+        return item;
+    }
+
+    private static VariationDTO variation(Long id, String name) {
+        return VariationDTO.builder().id(id).variation(name).build();
+    }
+
+    private static MenuItemSnapshot snapshot(Long id, Long posId, String name, String hash) {
+        return MenuItemSnapshot.builder().id(id).posMenuItemId(posId).name(name).branchId(1L).contentHash(hash).build();
+    }
+
+    private static SellableItem sellable(Long id, Long snapshotId, Long variationId, String name) {
+        return SellableItem.builder().id(id).menuItemSnapshotId(snapshotId).menuItemVariationSnapshotId(variationId).name(name).build();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.menuitemssnapshot.MenuSyncJobDTO;
+import com.example.stock.dto.menuitemssnapshot.PosMenuItemDTO;
+import com.example.stock.entity.MenuItemSnapshot;
+import com.example.stock.exception.ResourceConflictException;
+import com.example.stock.integration.PosStockClient;
+import com.example.stock.integration.PosStockClient.Catalog;
+import com.example.stock.integration.PosStockClient.CatalogVersion;
+import com.example.stock.repository.MenuItemSnapshotRepository;
+import com.example.stock.repository.MenuItemVariationSnapshotRepository;
+import com.example.stock.repository.RecipesRepository;
+import com.example.stock.repository.SellableItemRepository;
+import com.example.stock.service.MenuSyncService.Phase;
+import com.example.stock.service.MenuSyncService.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MenuSyncServiceImplTest {
+
+    private final PosStockClient posStockClient = mock(PosStockClient.class);
+    private final MenuItemSnapshotRepository snapshots = mock(MenuItemSnapshotRepository.class);
+    private final SellableItemRepository sellables = mock(SellableItemRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Runnable> queued = new ArrayList<>();
+    private final MenuSyncServiceImpl service = new MenuSyncServiceImpl(posStockClient, snapshots,
+            mock(MenuItemVariationSnapshotRepository.class), sellables, mock(RecipesRepository.class),
+            mock(JdbcTemplate.class), mock(PlatformTransactionManager.class), meterRegistry, queued::add, 2, 10);
+
+    @Test
+    void submit_ShouldRunOneJobPerSourceAndKeepCommittedChunksWhenALaterOneFails() {
+        ReflectionTestUtils.setField(service, "entityManager", mock(EntityManager.class));
+        List<PosMenuItemDTO> catalog = List.of(item(1L, "Burger"), item(2L, "Fries"), item(3L, "Soup"));
+        // Chunks of two, handed over as the body is read
+        when(posStockClient.fetchMenuItems(eq("key-a"), any(), eq(2), any())).thenAnswer(invocation -> {
+            Consumer<List<PosMenuItemDTO>> chunks = invocation.getArgument(3);
+            chunks.accept(catalog.subList(0, 2));
+            chunks.accept(catalog.subList(2, 3));
+            return new Catalog(catalog.size(), new CatalogVersion("\"v1\"", null));
+        });
+        when(snapshots.findByPosMenuItemIdIn(any()))
+                .thenReturn(List.of(stored(catalog.get(0)), stored(catalog.get(1))))
+                .thenThrow(new IllegalStateException("connection reset"));
+
+        MenuSyncJobDTO job = service.submit("key-a");
+
+        assertThat(job.getStatus()).isEqualTo(Status.QUEUED);
+        assertThat(job.getSource()).isNotEqualTo("key-a");
+        assertThatThrownBy(() -> service.submit("key-a")).isInstanceOf(ResourceConflictException.class);
+        assertThat(service.submit("key-b").getJobId()).isNotEqualTo(job.getJobId());
+
+        queued.get(0).run();
+
+        MenuSyncJobDTO failed = service.job(job.getJobId());
+        assertThat(failed.getStatus()).isEqualTo(Status.FAILED);
+        assertThat(failed.getPhase()).isEqualTo(Phase.UPSERTING);
+        assertThat(failed.getError()).isEqualTo("connection reset");
+        assertThat(failed.getItemsTotal()).isNull();
+        assertThat(failed.getItemsProcessed()).isEqualTo(2);
+        assertThat(failed.getChunksCommitted()).isEqualTo(1);
+        assertThat(failed.getReport().getUnchanged()).isEqualTo(2);
+        // Nothing is deleted after a partial run
+        verify(snapshots, never()).findAll();
+        verify(sellables, never()).deleteAllByIdInBatch(any());
+        assertThat(meterRegistry.get("menu.sync.job.duration").tag("outcome", "failed").timer().count()).isEqualTo(1);
+        assertThat(service.submit("key-a").getStatus()).isEqualTo(Status.QUEUED);
+    }
+
+    private static PosMenuItemDTO item(Long id, String name) {
+        PosMenuItemDTO item = new PosMenuItemDTO();
+        item.setId(id);
+        item.setItem_name(name);
+        item.setBranch_id(1L);
+        return item;
+    }
+
+    private static MenuItemSnapshot stored(PosMenuItemDTO item) {
+        return MenuItemSnapshot.builder().id(item.getId() * 10).posMenuItemId(item.getId()).name(item.getItem_name())
+                .branchId(1L).contentHash(MenuSyncDiff.contentHash(item, List.of())).build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.entity.InventoryMovement;
+import com.example.stock.entity.InventoryMovement.TransactionType;
+import com.example.stock.service.InventoryMovementService.ExportFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MovementExportWriterTest {
+
+    private final InventoryMovement movement = InventoryMovement.builder()
+            .id("m1")
+            .inventoryItemId("item-1")
+            .branchId("b1")
+            .departmentId("d1")
+            .transactionType(TransactionType.IN)
+            .quantity(new BigDecimal("12.50"))
+            .unitPurchasePrice(new BigDecimal("3.10"))
+            .notes("pallet 4, \"damaged\" box")
+            .createdAt(LocalDateTime.of(2025, 3, 1, 8, 30))
+            .updatedAt(LocalDateTime.of(2025, 3, 1, 8, 30))
+            .build();
+
+    @Test
+    void csv_ShouldWriteHeaderAndQuoteSpecialCharacters() throws Exception {
+        String[] lines = export(ExportFormat.CSV).split("\r\n");
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("id,created_at,updated_at,transaction_type,inventory_item_id");
+        assertThat(lines[1]).startsWith("m1,2025-03-01T08:30,2025-03-01T08:30,IN,item-1,b1,d1,,,,12.50,3.10,,,");
+        assertThat(lines[1]).endsWith("\"pallet 4, \"\"damaged\"\" box\"");
+    }
+
+    @Test
+    void ndjson_ShouldWriteOneObjectPerLine() throws Exception {
+        String out = export(ExportFormat.NDJSON);
+
+        assertThat(out).endsWith("}\n").doesNotContain("\n{\n");
+        String[] lines = out.split("\n");
+        assertThat(lines).hasSize(2);
+        JsonNode first = new ObjectMapper().readTree(lines[0]);
+        assertThat(first.get("id").asText()).isEqualTo("m1");
+        assertThat(first.get("quantity").decimalValue()).isEqualByComparingTo("12.5");
+        assertThat(first.get("supplier_id").isNull()).isTrue();
+    }
+
+    private String export(ExportFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MovementExportWriter writer = MovementExportWriter.open(format, out);
+        writer.write(movement);
+        if (format == ExportFormat.NDJSON) {
+            writer.write(movement);
+        }
+        writer.finish();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
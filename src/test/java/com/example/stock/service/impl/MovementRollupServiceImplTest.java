@@ -0,0 +1,159 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.entity.InventoryMovement;
+import com.example.stock.entity.InventoryMovement.TransactionType;
+import com.example.stock.repository.MovementDailyRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class MovementRollupServiceImplTest {
+
+    private static final LocalDateTime MORNING = LocalDateTime.of(2025, 3, 1, 9, 0);
+
+    private final MovementDailyRollupRepository rollups = mock(MovementDailyRollupRepository.class);
+    private final MovementRollupServiceImpl service =
+            new MovementRollupServiceImpl(rollups, new TransactionTemplate(mock(PlatformTransactionManager.class)), 60_000);
+
+    @Test
+    void record_ShouldCoalesceMovementsOfOneKeyIntoOneUpsert() {
+        service.record(List.of(
+                movement("item-1", TransactionType.IN, "10", "2.00", MORNING),
+                movement("item-1", TransactionType.IN, "5", "4.00", MORNING.plusHours(3)),
+                movement("item-2", TransactionType.OUT, "1", null, MORNING)), 1);
+        service.flush();
+
+        verify(rollups).addDelta(eq("2025-03-01:b1:d1:item-1:IN"), eq(LocalDate.of(2025, 3, 1)), eq("b1"), eq("d1"),
+                eq("item-1"), eq("IN"), argThat(q -> q.compareTo(new BigDecimal("15")) == 0),
+                argThat(v -> v.compareTo(new BigDecimal("40")) == 0), eq(2L));
+        verify(rollups).addDelta(eq("2025-03-01:b1:d1:item-2:OUT"), any(), any(), any(), any(), any(),
+                argThat(q -> q.compareTo(BigDecimal.ONE) == 0), argThat(v -> v.signum() == 0), eq(1L));
+    }
+
+    @Test
+    void record_Removal_ShouldSubtractQuantityValueAndCount() {
+        service.record(List.of(movement("item-1", TransactionType.IN, "10", "2.00", MORNING)), -1);
+        service.flush();
+
+        verify(rollups).addDelta(anyString(), any(), any(), any(), any(), any(),
+                argThat(q -> q.compareTo(new BigDecimal("-10")) == 0),
+                argThat(v -> v.compareTo(new BigDecimal("-20")) == 0), eq(-1L));
+    }
+
+    @Test
+    void recordQuantityChange_ShouldOnlyMoveTheDifference() {
+        service.recordQuantityChange(movement("item-1", TransactionType.IN, "12", "2.00", MORNING), new BigDecimal("10"));
+        service.recordQuantityChange(movement("item-1", TransactionType.IN, "12", "2.00", MORNING), new BigDecimal("12"));
+        service.flush();
+
+        verify(rollups, times(1)).addDelta(anyString(), any(), any(), any(), any(), any(),
+                argThat(q -> q.compareTo(new BigDecimal("2")) == 0),
+                argThat(v -> v.compareTo(new BigDecimal("4")) == 0), eq(0L));
+    }
+
+    @Test
+    void record_ShouldSkipMovementsWithoutDepartment() {
+        InventoryMovement legacy = movement("item-1", TransactionType.IN, "10", "2.00", MORNING);
+        legacy.setDepartmentId(null);
+
+        service.record(List.of(legacy), 1);
+        service.flush();
+
+        verify(rollups, never()).addDelta(anyString(), any(), any(), any(), any(), any(), any(), any(), anyLong());
+    }
+
+    @Test
+    void record_ShouldWaitForTheCommitAndAddUpTransactionsUntilTheFlush() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.record(List.of(movement("item-1", TransactionType.IN, "10", "2.00", MORNING)), 1);
+            service.record(List.of(movement("item-1", TransactionType.IN, "3", "2.00", MORNING)), 1);
+            assertThat(service.flush()).isZero();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(rollups, never()).addDelta(anyString(), any(), any(), any(), any(), any(), any(), any(), anyLong());
+
+        assertThat(service.flush()).isEqualTo(1);
+
+        verify(rollups).addDelta(anyString(), any(), any(), any(), any(), any(),
+                argThat(q -> q.compareTo(new BigDecimal("13")) == 0),
+                argThat(v -> v.compareTo(new BigDecimal("26")) == 0), eq(2L));
+        assertThat(service.flush()).isZero();
+    }
+
+    @Test
+    void flush_Failure_ShouldKeepTheDeltasForTheNextFlush() {
+        service.record(List.of(movement("item-1", TransactionType.IN, "10", "2.00", MORNING)), 1);
+        doThrow(new IllegalStateException("connection reset")).doReturn(1).when(rollups)
+                .addDelta(anyString(), any(), any(), any(), any(), any(), any(), any(), anyLong());
+
+        assertThat(service.flush()).isZero();
+        service.record(List.of(movement("item-1", TransactionType.IN, "5", "2.00", MORNING)), 1);
+        assertThat(service.flush()).isEqualTo(1);
+
+        verify(rollups).addDelta(anyString(), any(), any(), any(), any(), any(),
+                argThat(q -> q.compareTo(new BigDecimal("15")) == 0), any(), eq(2L));
+    }
+
+    @Test
+    void repair_ShouldFlushFirstAndLeaveDaysStillTakingQueuedDeltas() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        assertThatThrownBy(() -> service.repair(yesterday, LocalDate.now()))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(rollups, never()).deleteByDay(any());
+
+        MovementRollupServiceImpl settled =
+                new MovementRollupServiceImpl(rollups, new TransactionTemplate(mock(PlatformTransactionManager.class)), 0);
+        settled.record(List.of(movement("item-1", TransactionType.IN, "10", "2.00", MORNING)), 1);
+        settled.repair(yesterday, yesterday);
+
+        InOrder order = inOrder(rollups);
+        order.verify(rollups).addDelta(anyString(), any(), any(), any(), any(), any(), any(), any(), eq(1L));
+        order.verify(rollups).deleteByDay(yesterday);
+    }
+
+    @Test
+    void query_ShouldRejectOversizedWindows() {
+        assertThatThrownBy(() -> service.query(LocalDate.of(2024, 1, 1), LocalDate.of(2025, 6, 1), null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static InventoryMovement movement(String itemId, TransactionType type, String qty, String price,
+                                              LocalDateTime at) {
+        return InventoryMovement.builder()
+                .id(itemId + "-" + at)
+                .inventoryItemId(itemId)
+                .branchId("b1")
+                .departmentId("d1")
+                .transactionType(type)
+                .quantity(new BigDecimal(qty))
+                .unitPurchasePrice(price != null ? new BigDecimal(price) : null)
+                .createdAt(at)
+                .updatedAt(at)
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.recipe.PortionReportDTO;
+import com.example.stock.exception.ResourceNotFoundException;
+import com.example.stock.repository.BranchRepository;
+import com.example.stock.repository.IngredientRepository;
+import com.example.stock.repository.IngredientRepository.RecipeIngredientRow;
+import com.example.stock.repository.InventoryStockRepository;
+import com.example.stock.repository.InventoryStockRepository.QuantityRow;
+import com.example.stock.repository.RecipesRepository;
+import com.example.stock.repository.RecipesRepository.MenuRecipeRow;
+import com.example.stock.service.StockChangedEvent;
+import com.example.stock.service.StockProjectionService.StockKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.stock.service.impl.RecipeRows.itemRow;
+import static com.example.stock.service.impl.RecipeRows.menuRow;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PortionServiceImplTest {
+
+    private final IngredientRepository ingredients = mock(IngredientRepository.class);
+    private final RecipesRepository recipes = mock(RecipesRepository.class);
+    private final InventoryStockRepository stocks = mock(InventoryStockRepository.class);
+    private final RecipeCache recipeCache = new RecipeCache(ingredients);
+    private final BranchRepository branches = mock(BranchRepository.class);
+    private final PortionServiceImpl service = new PortionServiceImpl(recipeCache, recipes, stocks, branches,
+            mock(PlatformTransactionManager.class));
+
+    @BeforeEach
+    void knownBranch() {
+        when(branches.existsById("b1")).thenReturn(true);
+    }
+
+    @Test
+    void report_ShouldTakeTheScarcestIngredientAndFollowStockChangesIncrementally() {
+        // pizza = 0.2 flour + 0.1 cheese; toast = 0.1 flour
+        List<RecipeIngredientRow> rows = List.of(
+                itemRow("pizza", 1L, "flour", "0.2"), itemRow("pizza", 1L, "cheese", "0.1"), itemRow("toast", 2L, "flour", "0.1"));
+        List<MenuRecipeRow> menu = List.of(menuRow("pizza", 1L), menuRow("toast", 2L));
+        // flour is split over two departments
+        List<QuantityRow> stock = List.of(quantity("flour", "d1", "1"), quantity("flour", "d2", "0.5"),
+                quantity("cheese", "d1", "0.35"));
+        when(ingredients.findRowsBySellableItemIds(any())).thenReturn(rows);
+        when(recipes.findMenuRecipes()).thenReturn(menu);
+        when(stocks.findQuantitiesByBranch("b1")).thenReturn(stock);
+
+        PortionReportDTO report = service.report("b1", null);
+
+        assertThat(report.getItems())
+                .extracting(PortionReportDTO.Item::getSellableItemId, PortionReportDTO.Item::getPortions,
+                        PortionReportDTO.Item::getLimitingItemId)
+                .containsExactly(tuple(1L, 3L, "cheese"), tuple(2L, 15L, "flour"));
+
+        // d1 flour goes down to 0.3: 0.8 kg of flour left in the branch
+        service.stockChanged(changed(new StockKey("flour", "b1", "d1"), "0.3"));
+        service.stockChanged(changed(new StockKey("cheese", "b1", "d1"), "-0.2"));
+
+        assertThat(service.report("b1", 0L).getItems())
+                .extracting(PortionReportDTO.Item::getSellableItemId)
+                .containsExactly(1L);
+        assertThat(service.report("b1", null).getItems().get(1).getPortions()).isEqualTo(8L);
+        verify(stocks, times(1)).findQuantitiesByBranch("b1");
+        verify(recipes, times(1)).findMenuRecipes();
+    }
+
+    @Test
+    void stockChanged_CommittedWhileTheBranchLoads_ShouldNotBeLost() {
+        List<RecipeIngredientRow> rows = List.of(itemRow("toast", 2L, "flour", "0.1"));
+        List<MenuRecipeRow> menu = List.of(menuRow("toast", 2L));
+        List<QuantityRow> stock = List.of(quantity("flour", "d1", "1"));
+        when(ingredients.findRowsBySellableItemIds(any())).thenReturn(rows);
+        when(recipes.findMenuRecipes()).thenReturn(menu);
+        when(stocks.findQuantitiesByBranch("b1")).thenReturn(stock);
+
+        assertThat(service.report("b1", null).getItems().get(0).getPortions()).isEqualTo(10L);
+        // Committed after the snapshot read, delivered once the branch is known
+        service.stockChanged(changed(new StockKey("flour", "b1", "d1"), "0.5"));
+
+        assertThat(service.report("b1", null).getItems().get(0).getPortions()).isEqualTo(5L);
+    }
+
+    @Test
+    void report_UnknownBranch_ShouldNotKeepASnapshot() {
+        assertThatThrownBy(() -> service.report("nope", null)).isInstanceOf(ResourceNotFoundException.class);
+        verify(stocks, never()).findQuantitiesByBranch(any());
+    }
+
+    private static StockChangedEvent changed(StockKey key, String quantity) {
+        return new StockChangedEvent(Map.of(key, new BigDecimal(quantity)), List.of(), false);
+    }
+
+    private static QuantityRow quantity(String itemId, String departmentId, String quantity) {
+        QuantityRow row = mock(QuantityRow.class);
+        when(row.getInventoryItemId()).thenReturn(itemId);
+        when(row.getBranchId()).thenReturn("b1");
+        when(row.getDepartmentId()).thenReturn(departmentId);
+        when(row.getCurrentQuantity()).thenReturn(new BigDecimal(quantity));
+        return row;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.repository.IngredientRepository;
+import com.example.stock.repository.IngredientRepository.RecipeIngredientRow;
+import com.example.stock.service.impl.RecipeCache.CompiledRecipe;
+import com.example.stock.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.stock.service.impl.RecipeRows.itemRow;
+import static com.example.stock.service.impl.RecipeRows.subRecipeRow;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecipeCacheTest {
+
+    private final IngredientRepository ingredients = mock(IngredientRepository.class);
+    private final RecipeCache cache = new RecipeCache(ingredients);
+
+    @Test
+    void getAll_ShouldLoadMissesOnceAndCacheItemsWithoutRecipe() {
+        List<RecipeIngredientRow> pizzaRows = List.of(itemRow("pizza", 1L, "flour", "0.2"), itemRow("pizza", 1L, "cheese", "0.1"));
+        when(ingredients.findRowsBySellableItemIds(any())).thenReturn(pizzaRows);
+
+        Map<Long, CompiledRecipe> first = cache.getAll(List.of(1L, 2L, 1L));
+        Map<Long, CompiledRecipe> second = cache.getAll(List.of(1L, 2L));
+
+        CompiledRecipe pizza = first.get(1L);
+        assertThat(pizza.size()).isEqualTo(2);
+        assertThat(pizza.itemId(0)).isEqualTo("flour");
+        assertThat(pizza.quantityRaw(0)).isEqualTo(raw("0.2"));
+        assertThat(first.get(2L).isEmpty()).isTrue();
+        assertThat(second.get(1L)).isSameAs(pizza);
+        verify(ingredients, times(1)).findRowsBySellableItemIds(any());
+        verify(ingredients, never()).findRowsByRecipeIds(any());
+    }
+
+    @Test
+    void getAll_ShouldFlattenSubRecipesAndInvalidateTheirUsersTransitively() {
+        // pizza = 0.2 flour + 0.5 sauce; sauce = 2 tomato + 0.1 base; base = 0.3 oil
+        List<RecipeIngredientRow> pizza = List.of(itemRow("pizza", 1L, "flour", "0.2"), subRecipeRow("pizza", 1L, "sauce", "0.5"));
+        List<RecipeIngredientRow> sauce = List.of(itemRow("sauce", null, "tomato", "2"), subRecipeRow("sauce", null, "base", "0.1"));
+        List<RecipeIngredientRow> base = List.of(itemRow("base", null, "oil", "0.3"));
+        List<RecipeIngredientRow> baseV2 = List.of(itemRow("base", null, "oil", "0.5"));
+        when(ingredients.findRowsBySellableItemIds(any())).thenReturn(pizza);
+        when(ingredients.findRowsByRecipeIds(any())).thenReturn(sauce, base, baseV2);
+
+        CompiledRecipe flat = cache.getAll(List.of(1L)).get(1L);
+
+        assertThat(flat.size()).isEqualTo(3);
+        assertThat(flat.itemId(2)).isEqualTo("oil");
+        assertThat(flat.quantityRaw(1)).isEqualTo(raw("1"));
+        assertThat(flat.quantityRaw(2)).isEqualTo(raw("0.015"));
+        assertThat(cache.size()).isEqualTo(3);
+
+        // Editing the base drops it, the sauce and the pizza; the pizza reload reuses nothing stale
+        cache.invalidate("base");
+        assertThat(cache.size()).isZero();
+        when(ingredients.findRowsByRecipeIds(any())).thenReturn(sauce, baseV2);
+        assertThat(cache.getAll(List.of(1L)).get(1L).quantityRaw(2)).isEqualTo(raw("0.025"));
+    }
+
+    private static long raw(String value) {
+        return FixedPoint.of(new BigDecimal(value)).raw();
+    }
+}
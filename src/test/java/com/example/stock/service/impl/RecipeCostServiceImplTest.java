@@ -0,0 +1,129 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.recipe.MenuCostDTO;
+import com.example.stock.dto.recipe.RecipeCostDTO;
+import com.example.stock.entity.InventoryStock;
+import com.example.stock.exception.ResourceNotFoundException;
+import com.example.stock.repository.BranchRepository;
+import com.example.stock.repository.IngredientRepository;
+import com.example.stock.repository.IngredientRepository.RecipeIngredientRow;
+import com.example.stock.repository.InventoryStockRepository;
+import com.example.stock.repository.InventoryStockRepository.ItemCostRow;
+import com.example.stock.repository.RecipesRepository;
+import com.example.stock.repository.RecipesRepository.MenuRecipeRow;
+import com.example.stock.service.StockChangedEvent;
+import com.example.stock.util.FixedPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static com.example.stock.service.impl.RecipeRows.itemRow;
+import static com.example.stock.service.impl.RecipeRows.menuRow;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecipeCostServiceImplTest {
+
+    private final IngredientRepository ingredients = mock(IngredientRepository.class);
+    private final RecipesRepository recipes = mock(RecipesRepository.class);
+    private final InventoryStockRepository stocks = mock(InventoryStockRepository.class);
+    private final BranchRepository branches = mock(BranchRepository.class);
+    private final RecipeCostServiceImpl service = new RecipeCostServiceImpl(new RecipeCache(ingredients), recipes, stocks, branches);
+
+    @BeforeEach
+    void knownBranch() {
+        when(branches.existsById("b1")).thenReturn(true);
+    }
+
+    @Test
+    void menuCosts_ShouldCacheCostsAndRecomputeOnlyRecipesUsingARevaluedItem() {
+        // pizza = 0.2 flour + 0.1 cheese; salad = 0.3 lettuce; no cost for cheese in the branch
+        List<RecipeIngredientRow> rows = List.of(
+                itemRow("pizza", 1L, "flour", "0.2"), itemRow("pizza", 1L, "cheese", "0.1"), itemRow("salad", 2L, "lettuce", "0.3"));
+        List<MenuRecipeRow> menu = List.of(menuRow("pizza", 1L), menuRow("salad", 2L));
+        List<ItemCostRow> costs = List.of(costRow("flour", "d1", "d1", "2"), costRow("flour", "d2", "d1", "4"),
+                costRow("lettuce", "d3", "d9", "5"));
+        List<ItemCostRow> flourV2 = List.of(costRow("flour", "d1", "d1", "6"));
+        when(ingredients.findRowsByRecipeIds(any())).thenReturn(rows);
+        when(recipes.findMenuRecipes()).thenReturn(menu);
+        when(stocks.findCostRows(eq("b1"), any())).thenReturn(costs, flourV2);
+
+        MenuCostDTO first = service.menuCosts("b1");
+
+        assertThat(first.getRecomputed()).isEqualTo(2);
+        RecipeCostDTO pizza = first.getRecipes().get(0);
+        assertThat(pizza.getCost()).isEqualByComparingTo("0.4");
+        assertThat(pizza.getMissingCostItemIds()).containsExactly("cheese");
+        assertThat(pizza.getIngredients()).isNull();
+        assertThat(first.getRecipes().get(1).getCost()).isEqualByComparingTo("1.5");
+
+        // A sale moves the quantity only
+        service.costsChanged(StockChangedEvent.written(List.of(flour("2"))));
+        assertThat(service.menuCosts("b1").getRecomputed()).isZero();
+
+        service.costsChanged(StockChangedEvent.written(List.of(flour("6"))));
+        MenuCostDTO revalued = service.menuCosts("b1");
+
+        assertThat(revalued.getRecomputed()).isEqualTo(1);
+        assertThat(revalued.getRecipes().get(0).getCost()).isEqualByComparingTo("1.2");
+        verify(stocks, times(2)).findCostRows(eq("b1"), any());
+        verify(ingredients, times(1)).findRowsByRecipeIds(any());
+    }
+
+    @Test
+    void costsChanged_CommittedWhileAnItemIsLoaded_ShouldNotLeaveAStaleCost() {
+        List<RecipeIngredientRow> rows = List.of(itemRow("toast", 2L, "flour", "0.5"));
+        List<MenuRecipeRow> menu = List.of(menuRow("toast", 2L));
+        when(ingredients.findRowsByRecipeIds(any())).thenReturn(rows);
+        when(recipes.findMenuRecipes()).thenReturn(menu);
+        when(stocks.findCostRows(eq("b1"), any()))
+                .thenAnswer(inv -> {
+                    // A receipt revalues flour after the read, before the cost is kept
+                    service.costsChanged(StockChangedEvent.written(List.of(flour("4"))));
+                    return List.of(costRow("flour", "d1", "d1", "2"));
+                })
+                .thenReturn(List.of(costRow("flour", "d1", "d1", "4")));
+
+        assertThat(service.menuCosts("b1").getRecipes().get(0).getCost()).isEqualByComparingTo("1");
+        assertThat(service.menuCosts("b1").getRecipes().get(0).getCost()).isEqualByComparingTo("2");
+    }
+
+    @Test
+    void menuCosts_UnknownBranch_ShouldNotKeepACache() {
+        assertThatThrownBy(() -> service.menuCosts("nope")).isInstanceOf(ResourceNotFoundException.class);
+        verify(recipes, never()).findMenuRecipes();
+    }
+
+    @Test
+    void unitCostRaw_ShouldUseTheHomeDepartment_OrThePlainAverageWithoutIt() {
+        assertThat(RecipeCostServiceImpl.unitCostRaw(List.of(costRow("x", "d2", "d1", "4"), costRow("x", "d1", "d1", "2"))))
+                .isEqualTo(FixedPoint.of(new BigDecimal("2")).raw());
+        assertThat(RecipeCostServiceImpl.unitCostRaw(List.of(costRow("x", "d2", "d1", "2"), costRow("x", "d3", "d1", "4"),
+                costRow("x", "d1", "d1", null))))
+                .isEqualTo(FixedPoint.of(new BigDecimal("3")).raw());
+        assertThat(RecipeCostServiceImpl.unitCostRaw(List.of(costRow("x", "d1", "d1", null)))).isNegative();
+    }
+
+    private static InventoryStock flour(String averageUnitCost) {
+        return InventoryStock.builder().inventoryItemId("flour").branchId("b1").departmentId("d1")
+                .currentQuantity(BigDecimal.TEN).averageUnitCost(new BigDecimal(averageUnitCost)).build();
+    }
+
+    private static ItemCostRow costRow(String itemId, String departmentId, String homeDepartmentId, String averageUnitCost) {
+        ItemCostRow row = mock(ItemCostRow.class);
+        when(row.getInventoryItemId()).thenReturn(itemId);
+        when(row.getDepartmentId()).thenReturn(departmentId);
+        when(row.getHomeDepartmentId()).thenReturn(homeDepartmentId);
+        when(row.getAverageUnitCost()).thenReturn(averageUnitCost == null ? null : new BigDecimal(averageUnitCost));
+        return row;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.repository.IngredientRepository.RecipeIngredientRow;
+import com.example.stock.repository.RecipesRepository.MenuRecipeRow;
+
+import java.math.BigDecimal;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** Repository rows of recipes, shared by the recipe cache, cost and portion tests. */
+final class RecipeRows {
+
+    private RecipeRows() {
+    }
+
+    static RecipeIngredientRow itemRow(String recipeId, Long sellableItemId, String itemId, String quantity) {
+        return row(recipeId, sellableItemId, itemId, null, quantity);
+    }
+
+    static RecipeIngredientRow subRecipeRow(String recipeId, Long sellableItemId, String subRecipeId, String quantity) {
+        return row(recipeId, sellableItemId, null, subRecipeId, quantity);
+    }
+
+    static MenuRecipeRow menuRow(String id, Long sellableItemId) {
+        MenuRecipeRow row = mock(MenuRecipeRow.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getSellableItemId()).thenReturn(sellableItemId);
+        return row;
+    }
+
+    private static RecipeIngredientRow row(String recipeId, Long sellableItemId, String itemId, String subRecipeId,
+                                           String quantity) {
+        RecipeIngredientRow row = mock(RecipeIngredientRow.class);
+        when(row.getRecipeId()).thenReturn(recipeId);
+        when(row.getSellableItemId()).thenReturn(sellableItemId);
+        when(row.getInventoryItemId()).thenReturn(itemId);
+        when(row.getSubRecipeId()).thenReturn(subRecipeId);
+        when(row.getQuantity()).thenReturn(new BigDecimal(quantity));
+        return row;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.recipe.RecipeUpdateDTO;
+import com.example.stock.entity.Recipes;
+import com.example.stock.mapper.RecipeMapper;
+import com.example.stock.repository.IngredientRepository;
+import com.example.stock.repository.IngredientRepository.SubRecipeEdge;
+import com.example.stock.repository.InventoryItemRepository;
+import com.example.stock.repository.RecipesRepository;
+import com.example.stock.repository.SellableItemRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecipeServiceImplTest {
+
+    @Test
+    void findCycle_ShouldReturnThePathBackToTheRecipeOnly() {
+        // pizza -> sauce -> base, pizza -> dough; a shared sub-recipe is not a cycle
+        Map<String, List<String>> dag = Map.of(
+                "pizza", List.of("sauce", "dough"),
+                "sauce", List.of("base"),
+                "dough", List.of("base"));
+        assertThat(RecipeServiceImpl.findCycle("pizza", dag)).isNull();
+
+        Map<String, List<String>> cyclic = Map.of(
+                "base", List.of("pizza"),
+                "pizza", List.of("dough", "sauce"),
+                "sauce", List.of("base"));
+        assertThat(RecipeServiceImpl.findCycle("base", cyclic)).containsExactly("base", "pizza", "sauce", "base");
+    }
+
+    @Test
+    void update_EdgesCommittedWhileWaitingForTheLocks_ShouldLockFurtherAndSeeTheCycle() {
+        RecipesRepository recipes = mock(RecipesRepository.class);
+        IngredientRepository ingredients = mock(IngredientRepository.class);
+        RecipeServiceImpl service = new RecipeServiceImpl(recipes, ingredients, mock(SellableItemRepository.class),
+                mock(InventoryItemRepository.class), mock(RecipeMapper.class), mock(RecipeCache.class));
+        when(recipes.findById("pizza")).thenReturn(Optional.of(Recipes.builder().id("pizza").build()));
+        when(recipes.existsById("sauce")).thenReturn(true);
+        // sauce -> base -> pizza commits while this edit waits for its first locks
+        List<SubRecipeEdge> committed = List.of(edge("sauce", "base"), edge("base", "pizza"));
+        when(ingredients.findSubRecipeEdges()).thenReturn(List.of(), committed, committed);
+
+        RecipeUpdateDTO update = RecipeUpdateDTO.builder()
+                .ingredients(List.of(RecipeUpdateDTO.IngredientDTO.builder().subRecipeId("sauce").quantity(BigDecimal.ONE).build()))
+                .build();
+
+        assertThatThrownBy(() -> service.update("pizza", update))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("pizza -> sauce -> base -> pizza");
+        verify(recipes).lockByIdIn(Set.of("pizza", "sauce"));
+        verify(recipes).lockByIdIn(Set.of("pizza", "sauce", "base"));
+        verify(ingredients, never()).deleteByRecipeId(any());
+    }
+
+    private static SubRecipeEdge edge(String recipeId, String subRecipeId) {
+        SubRecipeEdge edge = mock(SubRecipeEdge.class);
+        when(edge.getRecipeId()).thenReturn(recipeId);
+        when(edge.getSubRecipeId()).thenReturn(subRecipeId);
+        return edge;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.reorder.DraftOrderDTO;
+import com.example.stock.dto.reorder.DraftOrderDTO.Line;
+import com.example.stock.dto.reorder.ReorderRunDTO;
+import com.example.stock.entity.InventoryMovement.TransactionType;
+import com.example.stock.entity.Suppliers;
+import com.example.stock.repository.BranchRepository;
+import com.example.stock.repository.InventoryItemRepository;
+import com.example.stock.repository.InventoryItemRepository.ReorderRow;
+import com.example.stock.repository.InventoryMovementRepository;
+import com.example.stock.repository.InventoryMovementRepository.ItemSupplierRow;
+import com.example.stock.repository.InventoryStockRepository;
+import com.example.stock.repository.InventoryStockRepository.ItemQuantityRow;
+import com.example.stock.repository.MovementDailyRollupRepository;
+import com.example.stock.repository.MovementDailyRollupRepository.ItemTotalRow;
+import com.example.stock.repository.SuppliersRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReorderServiceImplTest {
+
+    private final InventoryItemRepository items = mock(InventoryItemRepository.class);
+    private final InventoryStockRepository stock = mock(InventoryStockRepository.class);
+    private final InventoryMovementRepository movements = mock(InventoryMovementRepository.class);
+    private final MovementDailyRollupRepository rollups = mock(MovementDailyRollupRepository.class);
+    private final SuppliersRepository suppliers = mock(SuppliersRepository.class);
+    private final ReorderServiceImpl service = new ReorderServiceImpl(items, stock, movements, rollups, suppliers,
+            mock(BranchRepository.class), mock(PlatformTransactionManager.class), 2, 28, 2);
+
+    @Test
+    void suggest_AboveReorderPoint_ShouldSuggestNothing() {
+        // 28 consumed over 28 days -> 1/day; reorder point = 10 + 1 x 3
+        assertThat(ReorderServiceImpl.suggest(item("flour", 10, 20), new BigDecimal("14"), new BigDecimal("28"), 28, 3, 0))
+                .isNull();
+    }
+
+    @Test
+    void suggest_ShouldCoverTheGapOrTheReorderQuantityAndRespectTheMoq() {
+        Line gap = ReorderServiceImpl.suggest(item("flour", 10, 5), new BigDecimal("2.5"), new BigDecimal("56"), 28, 3, 0);
+        assertThat(gap.getReorderPoint()).isEqualByComparingTo("16");
+        assertThat(gap.getSuggestedQuantity()).isEqualByComparingTo("14");
+
+        Line reorderQty = ReorderServiceImpl.suggest(item("flour", 10, 20), new BigDecimal("8"), null, 28, 3, 0);
+        assertThat(reorderQty.getSuggestedQuantity()).isEqualByComparingTo("20");
+
+        Line moq = ReorderServiceImpl.suggest(item("flour", 10, 20), new BigDecimal("8"), null, 28, 3, 50);
+        assertThat(moq.getSuggestedQuantity()).isEqualByComparingTo("50");
+    }
+
+    @Test
+    void termsOf_ShouldReadOperationsFromAdditionalInfo() {
+        Suppliers supplier = Suppliers.builder().id("s1").name("Mill")
+                .additionalInfo("{\"operations\":{\"lead_time_days\":5,\"minimum_order_quantity\":40,\"active\":false}}")
+                .build();
+
+        ReorderServiceImpl.SupplierTerms terms = ReorderServiceImpl.termsOf(supplier);
+
+        assertThat(terms.leadTimeDays()).isEqualTo(5);
+        assertThat(terms.minimumOrderQuantity()).isEqualTo(40);
+        assertThat(terms.active()).isFalse();
+        assertThat(ReorderServiceImpl.termsOf(Suppliers.builder().id("s2").build()).leadTimeDays()).isNull();
+    }
+
+    @Test
+    void run_ShouldGroupSuggestionsPerSupplier() {
+        ReorderRow flour = item("flour", 10, 20);
+        ReorderRow sugar = item("sugar", 10, 20);
+        ReorderRow salt = item("salt", 10, 20);
+        ReorderRow oil = item("oil", 0, 20);
+        ItemQuantityRow oilOnHand = quantity("oil", "100");
+        ItemTotalRow flourConsumed = total("flour", "28");
+        ItemSupplierRow flourSupplier = supplierRow("flour", "s1");
+        ItemSupplierRow sugarSupplier = supplierRow("sugar", "s1");
+        when(items.findDistinctBranchIds()).thenReturn(List.of("b1"));
+        when(items.findReorderRowsByBranchId("b1")).thenReturn(List.of(flour, sugar, salt, oil));
+        when(stock.sumQuantitiesByBranch("b1")).thenReturn(List.of(oilOnHand));
+        when(rollups.sumQuantitiesByItem(eq("b1"), any(), any(), anyCollection())).thenReturn(List.of(flourConsumed));
+        when(movements.findLatestSuppliersByBranch("b1", TransactionType.IN)).thenReturn(List.of(flourSupplier, sugarSupplier));
+        when(suppliers.findAllById(any())).thenReturn(List.of(Suppliers.builder().id("s1").name("Mill").build()));
+
+        ReorderRunDTO run = service.run(null);
+
+        assertThat(run.getItemsEvaluated()).isEqualTo(4);
+        assertThat(run.getSuggestionCount()).isEqualTo(3);
+        assertThat(run.getOrderCount()).isEqualTo(2);
+        assertThat(run.getOrders()).isNull();
+
+        List<DraftOrderDTO> orders = service.suggestions("b1", null).getOrders();
+        assertThat(orders).extracting(DraftOrderDTO::getSupplierId).containsExactly("s1", null);
+        assertThat(orders.get(0).getLines()).extracting(Line::getInventoryItemId).containsExactly("flour", "sugar");
+        assertThat(orders.get(1).getLines()).extracting(Line::getInventoryItemId).containsExactly("salt");
+        assertThat(service.suggestions(null, "s1").getSuggestionCount()).isEqualTo(2);
+    }
+
+    private static ReorderRow item(String id, int threshold, int reorderQuantity) {
+        ReorderRow row = mock(ReorderRow.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getName()).thenReturn(id);
+        when(row.getDepartmentId()).thenReturn("d1");
+        when(row.getThresholdQuantity()).thenReturn(threshold);
+        when(row.getReorderQuantity()).thenReturn(reorderQuantity);
+        return row;
+    }
+
+    private static ItemQuantityRow quantity(String itemId, String quantity) {
+        ItemQuantityRow row = mock(ItemQuantityRow.class);
+        when(row.getInventoryItemId()).thenReturn(itemId);
+        when(row.getQuantity()).thenReturn(new BigDecimal(quantity));
+        return row;
+    }
+
+    private static ItemTotalRow total(String itemId, String quantity) {
+        ItemTotalRow row = mock(ItemTotalRow.class);
+        when(row.getInventoryItemId()).thenReturn(itemId);
+        when(row.getQuantity()).thenReturn(new BigDecimal(quantity));
+        return row;
+    }
+
+    private static ItemSupplierRow supplierRow(String itemId, String supplierId) {
+        ItemSupplierRow row = mock(ItemSupplierRow.class);
+        when(row.getInventoryItemId()).thenReturn(itemId);
+        when(row.getSupplierId()).thenReturn(supplierId);
+        return row;
+    }
+}
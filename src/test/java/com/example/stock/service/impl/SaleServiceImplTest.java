@@ -0,0 +1,71 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.inventorymouvement.InventoryMovementBatchResultDTO;
+import com.example.stock.dto.inventorymouvement.InventoryMovementBatchResultDTO.RowResult;
+import com.example.stock.dto.inventorymouvement.InventoryMovementCreateDTO;
+import com.example.stock.dto.sale.SaleCreateDTO;
+import com.example.stock.dto.sale.SaleCreateDTO.LineDTO;
+import com.example.stock.dto.sale.SaleResultDTO;
+import com.example.stock.entity.InventoryMovement.TransactionType;
+import com.example.stock.service.InventoryMovementService;
+import com.example.stock.service.impl.RecipeCache.CompiledRecipe;
+import com.example.stock.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SaleServiceImplTest {
+
+    private final RecipeCache recipeCache = mock(RecipeCache.class);
+    private final InventoryMovementService movements = mock(InventoryMovementService.class);
+    private final SaleServiceImpl service = new SaleServiceImpl(recipeCache, movements);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void record_ShouldSumIngredientsOverLinesIntoOneOutMovementPerItem() {
+        CompiledRecipe pizza = new CompiledRecipe(new String[]{"flour", "cheese"}, new long[]{raw("0.2"), raw("0.1")});
+        CompiledRecipe calzone = new CompiledRecipe(new String[]{"flour"}, new long[]{raw("0.25")});
+        when(recipeCache.getAll(any())).thenReturn(Map.of(1L, pizza, 2L, calzone, 3L, CompiledRecipe.NONE));
+        when(movements.createMovements(any())).thenReturn(InventoryMovementBatchResultDTO.builder()
+                .total(2).created(2).stockKeysUpdated(2)
+                .results(List.of(RowResult.builder().index(0).id("m1").status("created").build(),
+                        RowResult.builder().index(1).id("m2").status("created").build()))
+                .build());
+
+        SaleResultDTO result = service.record(SaleCreateDTO.builder()
+                .ticketId("T-9")
+                .branchId("b1")
+                .lines(List.of(line(1L, "3"), line(2L, "2"), line(3L, "1"), line(1L, "1")))
+                .build());
+
+        ArgumentCaptor<List<InventoryMovementCreateDTO>> created = ArgumentCaptor.forClass(List.class);
+        verify(movements).createMovements(created.capture());
+        assertThat(created.getValue()).hasSize(2).allSatisfy(m -> {
+            assertThat(m.getTransactionType()).isEqualTo(TransactionType.OUT);
+            assertThat(m.getBranchId()).isEqualTo("b1");
+            assertThat(m.getNotes()).isEqualTo("Sale T-9");
+        });
+        // flour: 4 x 0.2 + 2 x 0.25, cheese: 4 x 0.1
+        assertThat(created.getValue().get(0).getQuantity()).isEqualByComparingTo("1.3");
+        assertThat(created.getValue().get(1).getQuantity()).isEqualByComparingTo("0.4");
+        assertThat(result.getConsumption()).extracting(SaleResultDTO.Consumption::getMovementId).containsExactly("m1", "m2");
+        assertThat(result.getUnmappedSellableItemIds()).containsExactly(3L);
+    }
+
+    private static LineDTO line(Long sellableItemId, String quantity) {
+        return LineDTO.builder().sellableItemId(sellableItemId).quantity(new BigDecimal(quantity)).build();
+    }
+
+    private static long raw(String value) {
+        return FixedPoint.of(new BigDecimal(value)).raw();
+    }
+}
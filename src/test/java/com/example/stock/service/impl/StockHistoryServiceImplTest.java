@@ -0,0 +1,136 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.inventorystock.StockAsOfResponseDTO;
+import com.example.stock.entity.InventoryMovement.TransactionType;
+import com.example.stock.entity.StockCheckpoint;
+import com.example.stock.repository.InventoryMovementRepository;
+import com.example.stock.repository.InventoryMovementRepository.StockReplayRow;
+import com.example.stock.repository.StockCheckpointRepository;
+import com.example.stock.service.StockHistoryService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockHistoryServiceImplTest {
+
+    private static final LocalDateTime MARCH_31 = LocalDateTime.of(2025, 4, 1, 0, 0);
+
+    private final InventoryMovementRepository movements = mock(InventoryMovementRepository.class);
+    private final StockCheckpointRepository checkpoints = mock(StockCheckpointRepository.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private StockHistoryServiceImpl service;
+
+    @BeforeEach
+    void setup() {
+        service = new StockHistoryServiceImpl(movements, checkpoints);
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        ReflectionTestUtils.setField(service, "jdbcBatchSize", 25);
+
+        when(checkpoints.findByAsOfAndInventoryItemIdIn(eq(MARCH_31), anyCollection())).thenReturn(List.of(
+                StockCheckpoint.builder().asOf(MARCH_31).inventoryItemId("item-1").branchId("b1").departmentId("d1")
+                        .quantity(new BigDecimal("10")).averageUnitCost(new BigDecimal("2")).build()));
+    }
+
+    @Test
+    void stockAsOf_ShouldStartFromCheckpoint_AndReplayOnlyLaterMovements() {
+        LocalDateTime at = MARCH_31.plusDays(2);
+        StockReplayRow inbound = row("m1", TransactionType.IN, "10", "4.00", MARCH_31.plusHours(5));
+        StockReplayRow outbound = row("m2", TransactionType.OUT, "5", null, MARCH_31.plusDays(1));
+        when(checkpoints.findLatestAsOfAtOrBefore(at)).thenReturn(MARCH_31);
+        when(movements.streamHistory(List.of("item-1"), MARCH_31, at)).thenReturn(Stream.of(inbound, outbound));
+
+        StockAsOfResponseDTO result = service.stockAsOf(at, new StockHistoryService.Filters("item-1", null, null));
+
+        assertThat(result.getCheckpointAsOf()).isEqualTo(MARCH_31);
+        assertThat(result.getMovementsReplayed()).isEqualTo(2);
+        assertThat(result.getBalances()).singleElement().satisfies(b -> {
+            assertThat(b.getQuantity()).isEqualByComparingTo("15");
+            assertThat(b.getAverageUnitCost()).isEqualByComparingTo("3");
+            assertThat(b.getTotalValue()).isEqualByComparingTo("45");
+        });
+    }
+
+    @Test
+    void writeCheckpoint_ShouldPersistBalancesFromPreviousCheckpoint() {
+        LocalDateTime asOf = MARCH_31.plusDays(1);
+        when(checkpoints.existsByAsOf(asOf)).thenReturn(false);
+        when(checkpoints.findLatestAsOfAtOrBefore(asOf)).thenReturn(MARCH_31);
+        when(movements.findDistinctInventoryItemIdsBetween(MARCH_31, asOf)).thenReturn(List.of());
+        when(checkpoints.findDistinctInventoryItemIds(MARCH_31)).thenReturn(List.of("item-1"));
+        when(movements.streamHistory(anyCollection(), eq(MARCH_31), eq(asOf))).thenReturn(Stream.empty());
+
+        int written = service.writeCheckpoint(asOf);
+
+        assertThat(written).isEqualTo(1);
+        ArgumentCaptor<StockCheckpoint> persisted = ArgumentCaptor.forClass(StockCheckpoint.class);
+        verify(entityManager, times(1)).persist(persisted.capture());
+        assertThat(persisted.getValue().getAsOf()).isEqualTo(asOf);
+        assertThat(persisted.getValue().getQuantity()).isEqualByComparingTo("10");
+    }
+
+    @Test
+    void writeCheckpoint_ShouldBeIdempotent() {
+        when(checkpoints.existsByAsOf(MARCH_31)).thenReturn(true);
+
+        assertThat(service.writeCheckpoint(MARCH_31)).isZero();
+        verify(entityManager, times(0)).persist(any());
+    }
+
+    @Test
+    void invalidateFrom_ShouldRebuildOnlyTheItemsLaterCheckpoints_InOrder() {
+        LocalDateTime changedAt = MARCH_31.plusHours(5);
+        LocalDateTime first = MARCH_31.plusDays(1);
+        LocalDateTime second = MARCH_31.plusDays(2);
+        when(checkpoints.findAsOfsFrom(changedAt)).thenReturn(List.of(first, second));
+        when(checkpoints.findLatestAsOfBefore(first)).thenReturn(MARCH_31);
+        StockReplayRow outbound = row("m1", TransactionType.OUT, "4", null, changedAt);
+        when(movements.streamHistory(List.of("item-1"), MARCH_31, first)).thenReturn(Stream.of(outbound));
+        when(checkpoints.findByAsOfAndInventoryItemIdIn(first, List.of("item-1"))).thenReturn(List.of(
+                StockCheckpoint.builder().asOf(first).inventoryItemId("item-1").branchId("b1").departmentId("d1")
+                        .quantity(new BigDecimal("6")).averageUnitCost(new BigDecimal("2")).build()));
+        when(movements.streamHistory(List.of("item-1"), first, second)).thenReturn(Stream.empty());
+
+        service.invalidateFrom("item-1", changedAt);
+
+        InOrder order = inOrder(checkpoints, entityManager);
+        order.verify(checkpoints).deleteByAsOfAndInventoryItemId(first, "item-1");
+        order.verify(entityManager).persist(any(StockCheckpoint.class));
+        order.verify(checkpoints).deleteByAsOfAndInventoryItemId(second, "item-1");
+        order.verify(checkpoints).findByAsOfAndInventoryItemIdIn(first, List.of("item-1"));
+        ArgumentCaptor<StockCheckpoint> persisted = ArgumentCaptor.forClass(StockCheckpoint.class);
+        verify(entityManager, times(2)).persist(persisted.capture());
+        assertThat(persisted.getAllValues()).extracting(StockCheckpoint::getAsOf).containsExactly(first, second);
+        assertThat(persisted.getAllValues()).allSatisfy(c -> assertThat(c.getQuantity()).isEqualByComparingTo("6"));
+    }
+
+    private StockReplayRow row(String id, TransactionType type, String qty, String price, LocalDateTime at) {
+        StockReplayRow row = mock(StockReplayRow.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getInventoryItemId()).thenReturn("item-1");
+        when(row.getBranchId()).thenReturn("b1");
+        when(row.getDepartmentId()).thenReturn("d1");
+        when(row.getTransactionType()).thenReturn(type);
+        when(row.getQuantity()).thenReturn(new BigDecimal(qty));
+        when(row.getUnitPurchasePrice()).thenReturn(price != null ? new BigDecimal(price) : null);
+        when(row.getCreatedAt()).thenReturn(at);
+        return row;
+    }
+}
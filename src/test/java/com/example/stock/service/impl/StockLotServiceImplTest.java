@@ -0,0 +1,184 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.entity.InventoryMovement;
+import com.example.stock.entity.InventoryMovement.TransactionType;
+import com.example.stock.entity.StockLot;
+import com.example.stock.entity.StockLotConsumption;
+import com.example.stock.repository.InventoryItemRepository;
+import com.example.stock.repository.StockLotConsumptionRepository;
+import com.example.stock.repository.StockLotRepository;
+import com.example.stock.service.ExpiryAlertService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockLotServiceImplTest {
+
+    private static final LocalDateTime RECEIVED = LocalDateTime.of(2025, 3, 1, 9, 0);
+
+    private final StockLotRepository lots = mock(StockLotRepository.class);
+    private final StockLotConsumptionRepository consumptions = mock(StockLotConsumptionRepository.class);
+    private final StockLotServiceImpl service =
+            new StockLotServiceImpl(lots, consumptions, mock(InventoryItemRepository.class), mock(ExpiryAlertService.class));
+
+    @Test
+    void apply_Out_ShouldConsumeSoonestExpiringLotsFirst() {
+        StockLot late = lot("late", LocalDate.of(2025, 6, 1), "10");
+        StockLot undated = lot("undated", null, "10");
+        StockLot soon = lot("soon", LocalDate.of(2025, 4, 1), "4");
+        when(lots.findOpenLots("item-1", "b1", "d1")).thenReturn(new ArrayList<>(List.of(late, undated, soon)));
+
+        service.apply(List.of(movement("out-1", TransactionType.OUT, "7", null)));
+
+        assertThat(soon.getRemainingQuantity()).isEqualByComparingTo("0");
+        assertThat(late.getRemainingQuantity()).isEqualByComparingTo("7");
+        assertThat(undated.getRemainingQuantity()).isEqualByComparingTo("10");
+        assertThat(consumedFrom()).extracting(StockLotConsumption::getLotId).containsExactly("soon", "late");
+    }
+
+    @Test
+    void apply_ShouldLetLaterMovementsOfTheBatchDrawFromLotsItOpened() {
+        when(lots.findOpenLots(anyString(), anyString(), anyString())).thenReturn(new ArrayList<>());
+
+        service.apply(List.of(
+                movement("in-1", TransactionType.IN, "10", LocalDate.of(2025, 5, 1)),
+                movement("waste-1", TransactionType.WASTE, "3", null)));
+
+        List<StockLotConsumption> consumed = consumedFrom();
+        assertThat(consumed).singleElement().satisfies(c -> {
+            assertThat(c.getMovementId()).isEqualTo("waste-1");
+            assertThat(c.getQuantity()).isEqualByComparingTo("3");
+        });
+    }
+
+    @Test
+    void apply_ShouldCarryTheUncoveredPartAsADeficitTheNextReceiptPaysOff() {
+        StockLot last = lot("last", LocalDate.of(2025, 4, 1), "2");
+        when(lots.findOpenLots("item-1", "b1", "d1")).thenReturn(new ArrayList<>(List.of(last)));
+
+        service.apply(List.of(
+                movement("out-1", TransactionType.OUT, "5", null),
+                movement("in-1", TransactionType.IN, "10", LocalDate.of(2025, 5, 1))));
+
+        List<StockLotConsumption> consumed = consumedFrom();
+        assertThat(consumed).extracting(StockLotConsumption::getQuantity)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("2"), new BigDecimal("3"));
+        List<StockLot> saved = savedLots();
+        StockLot deficit = saved.stream().filter(l -> l.getId().equals(consumed.get(1).getLotId())).findFirst().orElseThrow();
+        StockLot received = saved.stream().filter(l -> "in-1".equals(l.getSourceMovementId())).findFirst().orElseThrow();
+        assertThat(deficit.getRemainingQuantity()).isEqualByComparingTo("0");
+        assertThat(received.getInitialQuantity()).isEqualByComparingTo("10");
+        // 10 in, 5 out of 2 on hand: 7 left, all in the new lot
+        assertThat(received.getRemainingQuantity()).isEqualByComparingTo("7");
+    }
+
+    @Test
+    void apply_Receipt_ShouldPayOffAStoredDeficitFirst() {
+        StockLot owed = lot("owed", null, "-4");
+        owed.setInitialQuantity(BigDecimal.ZERO);
+        when(lots.findDeficitLots("item-1", "b1", "d1")).thenReturn(List.of(owed));
+
+        service.apply(List.of(movement("in-1", TransactionType.IN, "3", LocalDate.of(2025, 5, 1))));
+
+        assertThat(owed.getRemainingQuantity()).isEqualByComparingTo("-1");
+        assertThat(savedLots()).filteredOn(l -> "in-1".equals(l.getSourceMovementId()))
+                .singleElement().satisfies(l -> assertThat(l.getRemainingQuantity()).isEqualByComparingTo("0"));
+    }
+
+    @Test
+    void revert_ShouldRestoreConsumedQuantitiesAndWithdrawReceivedLots() {
+        StockLot drawn = lot("drawn", LocalDate.of(2025, 4, 1), "1");
+        StockLotConsumption consumption = StockLotConsumption.builder()
+                .id("c1").movementId("out-1").lotId("drawn").quantity(new BigDecimal("4")).build();
+        when(consumptions.findByMovementId("out-1")).thenReturn(List.of(consumption));
+        when(lots.findAllById(List.of("drawn"))).thenReturn(List.of(drawn));
+
+        service.revert(movement("out-1", TransactionType.OUT, "4", null));
+
+        assertThat(drawn.getRemainingQuantity()).isEqualByComparingTo("5");
+        verify(consumptions).deleteAll(List.of(consumption));
+
+        StockLot received = lot("received", null, "6");
+        received.setInitialQuantity(new BigDecimal("10"));
+        when(lots.findBySourceMovementId("in-1")).thenReturn(List.of(received));
+
+        service.revert(movement("in-1", TransactionType.IN, "10", null));
+
+        // 4 of it were consumed already: the key keeps the deficit
+        assertThat(received.getRemainingQuantity()).isEqualByComparingTo("-4");
+        assertThat(received.getInitialQuantity()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void update_Receipt_ShouldCorrectItsLotInPlace() {
+        StockLot received = lot("received", LocalDate.of(2025, 4, 1), "6");
+        received.setInitialQuantity(new BigDecimal("10"));
+        when(lots.findBySourceMovementId("in-1")).thenReturn(List.of(received));
+
+        service.update(movement("in-1", TransactionType.IN, "12", LocalDate.of(2025, 4, 15)));
+
+        assertThat(received.getInitialQuantity()).isEqualByComparingTo("12");
+        assertThat(received.getRemainingQuantity()).isEqualByComparingTo("8");
+        assertThat(received.getExpirationDate()).isEqualTo(LocalDate.of(2025, 4, 15));
+    }
+
+    @Test
+    void expiring_ShouldValidateInput() {
+        assertThatThrownBy(() -> service.expiring(null, null, 7)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.expiring("b1", null, 400)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<StockLot> savedLots() {
+        ArgumentCaptor<Collection<StockLot>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(lots).saveAll(captor.capture());
+        return new ArrayList<>(captor.getValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<StockLotConsumption> consumedFrom() {
+        ArgumentCaptor<List<StockLotConsumption>> captor = ArgumentCaptor.forClass(List.class);
+        verify(consumptions).saveAll(captor.capture());
+        return captor.getValue();
+    }
+
+    private static StockLot lot(String id, LocalDate expiry, String remaining) {
+        return StockLot.builder()
+                .id(id)
+                .inventoryItemId("item-1").branchId("b1").departmentId("d1")
+                .sourceMovementId("in-" + id)
+                .expirationDate(expiry)
+                .receivedAt(RECEIVED)
+                .initialQuantity(new BigDecimal(remaining))
+                .remainingQuantity(new BigDecimal(remaining))
+                .build();
+    }
+
+    private static InventoryMovement movement(String id, TransactionType type, String qty, LocalDate expiry) {
+        return InventoryMovement.builder()
+                .id(id)
+                .inventoryItemId("item-1")
+                .branchId("b1")
+                .departmentId("d1")
+                .transactionType(type)
+                .quantity(new BigDecimal(qty))
+                .unitPurchasePrice(type == TransactionType.IN ? new BigDecimal("2.00") : null)
+                .expirationDate(expiry)
+                .createdAt(RECEIVED.plusDays(1))
+                .build();
+    }
+}
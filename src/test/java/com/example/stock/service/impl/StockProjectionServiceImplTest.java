@@ -0,0 +1,148 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.entity.InventoryMovement;
+import com.example.stock.entity.InventoryMovement.TransactionType;
+import com.example.stock.entity.InventoryStock;
+import com.example.stock.repository.InventoryStockRepository;
+import com.example.stock.service.StockProjectionService.StockDelta;
+import com.example.stock.service.StockProjectionService.StockKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StockProjectionServiceImplTest {
+
+    private final InventoryStockRepository repository = mock(InventoryStockRepository.class);
+    private final Map<StockKey, InventoryStock> table = new HashMap<>();
+    private StockProjectionServiceImpl service;
+
+    @BeforeEach
+    void setup() {
+        when(repository.lockByItemBranchDept(anyString(), anyString(), anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(table.get(
+                        new StockKey(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2)))));
+        when(repository.saveAll(org.mockito.ArgumentMatchers.<Iterable<InventoryStock>>any()))
+                .thenAnswer(inv -> {
+                    List<InventoryStock> rows = new ArrayList<>();
+                    Iterable<InventoryStock> saved = inv.getArgument(0);
+                    saved.forEach(rows::add);
+                    rows.forEach(r -> table.put(new StockKey(r.getInventoryItemId(), r.getBranchId(), r.getDepartmentId()), r));
+                    return rows;
+                });
+        service = new StockProjectionServiceImpl(repository, mock(ApplicationEventPublisher.class), 16);
+    }
+
+    @Test
+    void applyMovement_ShouldWeightAverageCost_OnInbound() {
+        service.applyMovement(movement(TransactionType.IN, "10", "2.00"));
+        service.applyMovement(movement(TransactionType.IN, "30", "4.00"));
+
+        InventoryStock row = table.get(new StockKey("item-1", "b1", "d1"));
+        assertThat(row.getCurrentQuantity()).isEqualByComparingTo("40");
+        assertThat(row.getAverageUnitCost()).isEqualByComparingTo("3.5");
+        assertThat(row.getTotalValue()).isEqualByComparingTo("140");
+    }
+
+    @Test
+    void applyMovement_ShouldKeepAverage_OnOutboundAndWaste() {
+        service.applyMovement(movement(TransactionType.IN, "10", "2.00"));
+        service.applyMovement(movement(TransactionType.OUT, "3", null));
+        service.applyMovement(movement(TransactionType.WASTE, "2", null));
+
+        InventoryStock row = table.get(new StockKey("item-1", "b1", "d1"));
+        assertThat(row.getCurrentQuantity()).isEqualByComparingTo("5");
+        assertThat(row.getAverageUnitCost()).isEqualByComparingTo("2");
+    }
+
+    @Test
+    void applyMovement_ShouldMoveStockAtSourceCost_OnTransfer() {
+        service.applyMovement(movement(TransactionType.IN, "10", "2.00"));
+        InventoryMovement transfer = movement(TransactionType.TRANSFER, "4", null);
+        transfer.setDestinationBranchId("b2");
+        service.applyMovement(transfer);
+
+        assertThat(table.get(new StockKey("item-1", "b1", "d1")).getCurrentQuantity()).isEqualByComparingTo("6");
+        InventoryStock destination = table.get(new StockKey("item-1", "b2", "d1"));
+        assertThat(destination.getCurrentQuantity()).isEqualByComparingTo("4");
+        assertThat(destination.getAverageUnitCost()).isEqualByComparingTo("2");
+    }
+
+    @Test
+    void revertMovement_ShouldRestorePreviousState() {
+        service.applyMovement(movement(TransactionType.IN, "10", "2.00"));
+        InventoryMovement second = movement(TransactionType.IN, "10", "4.00");
+        service.applyMovement(second);
+        service.revertMovement(second);
+
+        InventoryStock row = table.get(new StockKey("item-1", "b1", "d1"));
+        assertThat(row.getCurrentQuantity()).isEqualByComparingTo("10");
+        assertThat(row.getAverageUnitCost()).isEqualByComparingTo("2");
+    }
+
+    @Test
+    void coalesce_ShouldCollapseRunsPerKey_WithSameResult() {
+        List<StockDelta> deltas = new ArrayList<>();
+        deltas.addAll(StockDelta.of(movement(TransactionType.IN, "10", "2.00")));
+        deltas.addAll(StockDelta.of(movement(TransactionType.IN, "30", "4.00")));
+        deltas.addAll(StockDelta.of(movement(TransactionType.OUT, "5", null)));
+        deltas.addAll(StockDelta.of(movement(TransactionType.WASTE, "1", null)));
+
+        List<StockDelta> coalesced = StockDelta.coalesce(deltas);
+        assertThat(coalesced).hasSize(2);
+
+        service.apply(coalesced);
+        InventoryStock row = table.get(new StockKey("item-1", "b1", "d1"));
+        assertThat(row.getCurrentQuantity()).isEqualByComparingTo("34");
+        assertThat(row.getAverageUnitCost()).isEqualByComparingTo("3.5");
+    }
+
+    @Test
+    void coalesce_ShouldValueATransferAtTheSourceAverageOfItsOwnPosition() {
+        StockKey source = new StockKey("item-1", "b1", "d1");
+        StockKey destination = new StockKey("item-1", "b2", "d1");
+        service.applyMovement(movement(TransactionType.IN, "5", "1.00"));
+        LocalDateTime at = LocalDateTime.now();
+        // Transfer of 2 to b2, then a receipt of 10 @ 3 on b1
+        List<StockDelta> deltas = List.of(
+                new StockDelta(source, new BigDecimal("-2"), null, null, at),
+                new StockDelta(destination, new BigDecimal("2"), null, source, at),
+                new StockDelta(source, new BigDecimal("10"), new BigDecimal("3"), null, at));
+
+        List<StockDelta> coalesced = StockDelta.coalesce(deltas);
+        assertThat(coalesced).containsExactlyElementsOf(deltas);
+
+        service.apply(coalesced);
+        assertThat(table.get(destination).getAverageUnitCost()).isEqualByComparingTo("1");
+        assertThat(table.get(source).getCurrentQuantity()).isEqualByComparingTo("13");
+        // 3 left @ 1 plus 10 @ 3
+        assertThat(table.get(source).getAverageUnitCost())
+                .isCloseTo(new BigDecimal("2.538462"), within(new BigDecimal("0.000001")));
+    }
+
+    private InventoryMovement movement(TransactionType type, String qty, String price) {
+        return InventoryMovement.builder()
+                .id("m-" + type + qty)
+                .inventoryItemId("item-1")
+                .branchId("b1")
+                .departmentId("d1")
+                .transactionType(type)
+                .quantity(new BigDecimal(qty))
+                .unitPurchasePrice(price != null ? new BigDecimal(price) : null)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
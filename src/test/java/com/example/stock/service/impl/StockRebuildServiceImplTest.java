@@ -0,0 +1,115 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.inventorystock.StockRebuildReportDTO;
+import com.example.stock.entity.InventoryMovement.TransactionType;
+import com.example.stock.entity.InventoryStock;
+import com.example.stock.repository.InventoryMovementRepository;
+import com.example.stock.repository.InventoryMovementRepository.StockReplayRow;
+import com.example.stock.repository.InventoryStockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockRebuildServiceImplTest {
+
+    private final InventoryMovementRepository movements = mock(InventoryMovementRepository.class);
+    private final InventoryStockRepository stocks = mock(InventoryStockRepository.class);
+    private StockRebuildServiceImpl service;
+    private InventoryStock stored;
+
+    @BeforeEach
+    void setup() {
+        LocalDateTime t0 = LocalDateTime.now().minusDays(1);
+        when(movements.findDistinctInventoryItemIds()).thenReturn(List.of("item-1"));
+        when(stocks.findDistinctInventoryItemIds()).thenReturn(List.of("item-1"));
+        when(movements.streamForReplay(anyCollection(), any())).thenAnswer(inv -> List.<StockReplayRow>of(
+                new Row("m1", TransactionType.IN, "10", "2.00", null, t0),
+                new Row("m2", TransactionType.IN, "30", "4.00", null, t0.plusMinutes(1)),
+                new Row("m3", TransactionType.TRANSFER, "5", null, "b2", t0.plusMinutes(2))
+        ).stream());
+
+        // b1 drifted (a lost OUT of 3), b2 row never written
+        stored = InventoryStock.builder().id("s1").inventoryItemId("item-1").branchId("b1").departmentId("d1")
+                .currentQuantity(new BigDecimal("32")).averageUnitCost(new BigDecimal("3.5"))
+                .lastMovementDate(t0).build();
+        when(stocks.findByInventoryItemIdIn(anyCollection())).thenReturn(List.of(stored));
+        when(stocks.lockByItemBranchDept("item-1", "b1", "d1")).thenReturn(Optional.of(stored));
+        when(stocks.lockByItemBranchDept("item-1", "b2", "d1")).thenReturn(Optional.empty());
+
+        service = new StockRebuildServiceImpl(movements, stocks, mock(ApplicationEventPublisher.class),
+                mock(PlatformTransactionManager.class), 2, 25);
+    }
+
+    @Test
+    void rebuild_DryRun_ShouldReportDriftWithoutWriting() {
+        StockRebuildReportDTO report = service.rebuild(null, true);
+
+        assertThat(report.getMovementsReplayed()).isEqualTo(3);
+        assertThat(report.getDriftedKeys()).isEqualTo(2);
+        assertThat(report.getDrifts()).extracting(StockRebuildReportDTO.Drift::getStatus)
+                .containsExactlyInAnyOrder("drifted", "missing");
+        StockRebuildReportDTO.Drift b1 = report.getDrifts().stream()
+                .filter(d -> d.getBranchId().equals("b1")).findFirst().orElseThrow();
+        assertThat(b1.getExpectedQuantity()).isEqualByComparingTo("35");
+        verify(stocks, never()).saveAll(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_ShouldOverwriteDriftedRows_AndValueTransfersAtSourceCost() {
+        StockRebuildReportDTO report = service.rebuild(null, false);
+
+        assertThat(report.getFixedKeys()).isEqualTo(2);
+        ArgumentCaptor<Iterable<InventoryStock>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(stocks).saveAll(saved.capture());
+        assertThat(stored.getCurrentQuantity()).isEqualByComparingTo("35");
+        InventoryStock created = null;
+        for (InventoryStock row : saved.getValue()) {
+            if (row.getBranchId().equals("b2")) created = row;
+        }
+        assertThat(created).isNotNull();
+        assertThat(created.getCurrentQuantity()).isEqualByComparingTo("5");
+        assertThat(created.getAverageUnitCost()).isEqualByComparingTo("3.5");
+    }
+
+    @Test
+    void rebuild_ForBranch_ShouldOnlyCompareThatBranch() {
+        when(movements.findDistinctInventoryItemIdsByBranch("b2")).thenReturn(List.of("item-1"));
+        when(stocks.findDistinctInventoryItemIdsByBranch("b2")).thenReturn(List.of());
+
+        StockRebuildReportDTO report = service.rebuild("b2", true);
+
+        assertThat(report.getKeysCompared()).isEqualTo(1);
+        assertThat(report.getDrifts()).singleElement()
+                .satisfies(d -> assertThat(d.getStatus()).isEqualTo("missing"));
+    }
+
+    private record Row(String id, TransactionType type, String qty, String price, String destination,
+                       LocalDateTime at) implements StockReplayRow {
+        public String getId() { return id; }
+        public String getInventoryItemId() { return "item-1"; }
+        public String getBranchId() { return "b1"; }
+        public String getDepartmentId() { return "d1"; }
+        public String getDestinationBranchId() { return destination; }
+        public String getDestinationDepartmentId() { return "d1"; }
+        public TransactionType getTransactionType() { return type; }
+        public BigDecimal getQuantity() { return new BigDecimal(qty); }
+        public BigDecimal getUnitPurchasePrice() { return price != null ? new BigDecimal(price) : null; }
+        public LocalDateTime getCreatedAt() { return at; }
+    }
+}
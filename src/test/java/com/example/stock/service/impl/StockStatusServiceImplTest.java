@@ -0,0 +1,127 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.inventorystock.StockStatusItemDTO;
+import com.example.stock.dto.inventorystock.StockStatusReportDTO;
+import com.example.stock.entity.InventoryItem;
+import com.example.stock.repository.InventoryItemRepository;
+import com.example.stock.repository.InventoryItemRepository.ThresholdRow;
+import com.example.stock.repository.InventoryStockRepository;
+import com.example.stock.repository.InventoryStockRepository.QuantityRow;
+import com.example.stock.service.StockChangedEvent;
+import com.example.stock.service.StockProjectionService.StockKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StockStatusServiceImplTest {
+
+    private static final StockKey APPLES_B1 = new StockKey("apples", "b1", "d1");
+    private static final StockKey APPLES_B2 = new StockKey("apples", "b2", "d1");
+    private static final StockKey FLOUR_B1 = new StockKey("flour", "b1", "d2");
+
+    private final InventoryItemRepository itemRepository = mock(InventoryItemRepository.class);
+    private final InventoryStockRepository stockRepository = mock(InventoryStockRepository.class);
+    private final StockStatusServiceImpl service = new StockStatusServiceImpl(itemRepository, stockRepository,
+            mock(PlatformTransactionManager.class), mock(TaskScheduler.class));
+
+    @BeforeEach
+    void warmUp() {
+        ThresholdRow apples = threshold("apples", "Apples", 10, "b1", "d1");
+        ThresholdRow flour = threshold("flour", "Flour", 5, "b1", "d2");
+        QuantityRow applesB1 = quantity(APPLES_B1, "50");
+        QuantityRow applesB2 = quantity(APPLES_B2, "8");
+        QuantityRow flourB1 = quantity(FLOUR_B1, "0");
+        when(itemRepository.streamThresholds()).thenReturn(Stream.of(apples, flour));
+        when(stockRepository.streamQuantities()).thenReturn(Stream.of(applesB1, applesB2, flourB1));
+        service.warmUp();
+    }
+
+    @Test
+    void report_AfterWarmUp_ShouldCountEveryKeyAndListOnlyAlerts() {
+        StockStatusReportDTO report = service.report(null, null, null);
+
+        assertThat(report.isReady()).isTrue();
+        assertThat(report.getTotalItems()).isEqualTo(3);
+        assertThat(report.getNormalCount()).isEqualTo(1);
+        assertThat(report.getLowStockCount()).isEqualTo(1);
+        assertThat(report.getOutOfStockCount()).isEqualTo(1);
+        assertThat(report.getItems()).extracting(StockStatusItemDTO::getStatus).containsExactly("out", "low");
+    }
+
+    @Test
+    void report_ShouldFilterByBranchDepartmentAndStatus() {
+        assertThat(service.report("b1", null, null).getTotalItems()).isEqualTo(2);
+        assertThat(service.report("b1", "d1", null).getOutOfStockCount()).isZero();
+        assertThat(service.report(null, null, "low").getItems())
+                .singleElement()
+                .satisfies(item -> {
+                    assertThat(item.getItemId()).isEqualTo("apples");
+                    assertThat(item.getBranchId()).isEqualTo("b2");
+                });
+        assertThatThrownBy(() -> service.report(null, null, "empty")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void stockChanged_ShouldMoveOnlyTheChangedKeys() {
+        service.stockChanged(new StockChangedEvent(Map.of(APPLES_B1, new BigDecimal("10"), FLOUR_B1, new BigDecimal("6")), List.of(), false));
+
+        StockStatusReportDTO report = service.report(null, null, null);
+        assertThat(report.getNormalCount()).isEqualTo(1);
+        assertThat(report.getLowStockCount()).isEqualTo(2);
+        assertThat(report.getOutOfStockCount()).isZero();
+    }
+
+    @Test
+    void itemChanged_ThresholdChange_ShouldReevaluateEveryKeyOfTheItem() {
+        InventoryItem apples = new InventoryItem();
+        apples.setId("apples");
+        apples.setName("Apples");
+        apples.setThresholdQuantity(60);
+        apples.setBranchId("b1");
+        apples.setDepartmentId("d1");
+
+        service.itemChanged(apples);
+
+        assertThat(service.report(null, "d1", "low").getItems()).hasSize(2);
+        assertThat(service.report(null, null, null).getNormalCount()).isZero();
+    }
+
+    @Test
+    void itemDeleted_ShouldDropItsKeys() {
+        service.itemDeleted("flour");
+
+        StockStatusReportDTO report = service.report(null, null, null);
+        assertThat(report.getTotalItems()).isEqualTo(2);
+        assertThat(report.getOutOfStockCount()).isZero();
+    }
+
+    private static ThresholdRow threshold(String id, String name, int threshold, String branchId, String departmentId) {
+        ThresholdRow row = mock(ThresholdRow.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getName()).thenReturn(name);
+        when(row.getThresholdQuantity()).thenReturn(threshold);
+        when(row.getBranchId()).thenReturn(branchId);
+        when(row.getDepartmentId()).thenReturn(departmentId);
+        return row;
+    }
+
+    private static QuantityRow quantity(StockKey key, String quantity) {
+        QuantityRow row = mock(QuantityRow.class);
+        when(row.getInventoryItemId()).thenReturn(key.inventoryItemId());
+        when(row.getBranchId()).thenReturn(key.branchId());
+        when(row.getDepartmentId()).thenReturn(key.departmentId());
+        when(row.getCurrentQuantity()).thenReturn(new BigDecimal(quantity));
+        return row;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.inventorystock.StockChangeDTO;
+import com.example.stock.service.StockChangedEvent;
+import com.example.stock.service.StockProjectionService.StockKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockStreamServiceImplTest {
+
+    private static final StockKey APPLES_B1 = new StockKey("apples", "b1", "d1");
+    private static final StockKey FLOUR_B1 = new StockKey("flour", "b1", "d1");
+    private static final StockKey APPLES_B2 = new StockKey("apples", "b2", "d1");
+
+    private final List<Runnable> queued = new ArrayList<>();
+    private final StockStreamServiceImpl service =
+            new StockStreamServiceImpl(queued::add, new SimpleMeterRegistry(), 10, 2, 10_000, 0);
+
+    @Test
+    void stockChanged_ShouldCoalesceChangesPerRowUntilTheSubscriberIsDrained() {
+        CapturingEmitter b1 = new CapturingEmitter();
+        CapturingEmitter b2 = new CapturingEmitter();
+        service.register("b1", b1);
+        service.register("b2", b2);
+
+        service.stockChanged(new StockChangedEvent(Map.of(APPLES_B1, new BigDecimal("5"), APPLES_B2, new BigDecimal("1")),
+                List.of(), false));
+        service.stockChanged(new StockChangedEvent(Map.of(APPLES_B1, new BigDecimal("3")), List.of(), false));
+        assertThat(queued).hasSize(2);
+        runQueued();
+
+        assertThat(b1.events).singleElement().satisfies(changes -> assertThat(changes)
+                .singleElement()
+                .satisfies(change -> {
+                    assertThat(change.getInventoryItemId()).isEqualTo("apples");
+                    assertThat(change.getQuantity()).isEqualByComparingTo("3");
+                }));
+        assertThat(b2.events).hasSize(1);
+    }
+
+    @Test
+    void stockChanged_SubscriberFallingBehind_ShouldBeClosed() {
+        CapturingEmitter slow = new CapturingEmitter();
+        service.register("b1", slow);
+        service.stockChanged(changed(APPLES_B1));
+        // Three more rows pile up while the first event is still being written
+        slow.duringSend = () -> service.stockChanged(changed(FLOUR_B1, APPLES_B1, new StockKey("salt", "b1", "d1")));
+
+        runQueued();
+
+        assertThat(service.subscriberCount()).isZero();
+        runQueued();
+        assertThat(slow.events).hasSize(1);
+        assertThat(slow.completed).isTrue();
+    }
+
+    @Test
+    void stockChanged_SubscriberWaitingForADispatcher_ShouldNotBeClosed() {
+        CapturingEmitter waiting = new CapturingEmitter();
+        service.register("b1", waiting);
+
+        service.stockChanged(changed(APPLES_B1, FLOUR_B1));
+        service.stockChanged(changed(new StockKey("salt", "b1", "d1")));
+
+        assertThat(queued).hasSize(1);
+        runQueued();
+        assertThat(service.subscriberCount()).isEqualTo(1);
+        assertThat(waiting.events).singleElement().satisfies(changes -> assertThat(changes).hasSize(3));
+    }
+
+    @Test
+    void heartbeat_SendBlockedTooLong_ShouldDropTheSubscriberWithoutQueuingIt() {
+        StockStreamServiceImpl impatient = new StockStreamServiceImpl(queued::add, new SimpleMeterRegistry(), 10, 2, 0, 0);
+        CapturingEmitter blocked = new CapturingEmitter();
+        impatient.register("b1", blocked);
+        impatient.stockChanged(changed(APPLES_B1));
+        blocked.duringSend = () -> {
+            impatient.heartbeat();
+            impatient.stockChanged(changed(FLOUR_B1));
+            assertThat(impatient.subscriberCount()).isZero();
+            assertThat(queued).isEmpty();
+        };
+
+        runQueued();
+
+        // The send finally returned: the dropped subscriber is completed
+        runQueued();
+        assertThat(blocked.completed).isTrue();
+        assertThat(queued).isEmpty();
+    }
+
+    @Test
+    void drain_FailedWrite_ShouldDropTheSubscriber() {
+        CapturingEmitter gone = new CapturingEmitter();
+        gone.fail = true;
+        service.register("b1", gone);
+
+        service.stockChanged(changed(APPLES_B1));
+        runQueued();
+
+        assertThat(service.subscriberCount()).isZero();
+        service.heartbeat();
+        assertThat(queued).isEmpty();
+    }
+
+    private static StockChangedEvent changed(StockKey... keys) {
+        Map<StockKey, BigDecimal> quantities = new HashMap<>();
+        for (StockKey key : keys) quantities.put(key, BigDecimal.ONE);
+        return new StockChangedEvent(quantities, List.of(), false);
+    }
+
+    private void runQueued() {
+        List<Runnable> tasks = new ArrayList<>(queued);
+        queued.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private static final class CapturingEmitter extends SseEmitter {
+        final List<List<StockChangeDTO>> events = new ArrayList<>();
+        boolean fail;
+        boolean completed;
+        Runnable duringSend = () -> {};
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void send(SseEventBuilder builder) throws IOException {
+            if (fail) throw new IOException("Broken pipe");
+            duringSend.run();
+            duringSend = () -> {};
+            for (var part : builder.build()) {
+                Object data = part.getData() instanceof MappingJacksonValue value ? value.getValue() : part.getData();
+                if (data instanceof List<?> list) events.add((List<StockChangeDTO>) list);
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.entity.InventoryMovement;
+import com.example.stock.entity.InventoryMovement.TransactionType;
+import com.example.stock.entity.InventoryStock;
+import com.example.stock.service.StockProjectionService.StockKey;
+import com.example.stock.util.CostLayers;
+import com.example.stock.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockValuationServiceImplTest {
+
+    private static final StockKey B1 = new StockKey("flour", "b1", "d1");
+    private static final StockKey B2 = new StockKey("flour", "b2", "d1");
+
+    private final Map<StockKey, InventoryStock> averages = new HashMap<>();
+    private final Map<StockKey, CostLayers> layers = new HashMap<>();
+
+    @Test
+    void fold_ShouldValueTheSameHistoryUnderBothMethods() {
+        fold(movement(TransactionType.IN, "10", "2"));
+        fold(movement(TransactionType.IN, "10", "4"));
+        fold(movement(TransactionType.OUT, "15", null));
+
+        // Average 3 x 5 left; FIFO keeps the last 5 bought at 4
+        assertThat(averages.get(B1).getAverageUnitCost()).isEqualByComparingTo("3");
+        assertThat(layers.get(B1).value()).isEqualTo(FixedPoint.of(20));
+    }
+
+    @Test
+    void fold_Transfer_ShouldCarryTheSourceLayersToTheDestination() {
+        fold(movement(TransactionType.IN, "10", "2"));
+        fold(movement(TransactionType.IN, "10", "4"));
+        InventoryMovement transfer = movement(TransactionType.TRANSFER, "12", null);
+        transfer.setDestinationBranchId("b2");
+        transfer.setDestinationDepartmentId("d1");
+        fold(transfer);
+
+        // 10 x 2 + 2 x 4 moved; 8 x 4 stay
+        assertThat(layers.get(B2).value()).isEqualTo(FixedPoint.of(28));
+        assertThat(layers.get(B1).value()).isEqualTo(FixedPoint.of(32));
+        assertThat(averages.get(B2).getAverageUnitCost()).isEqualByComparingTo("3");
+    }
+
+    private void fold(InventoryMovement movement) {
+        StockValuationServiceImpl.fold(averages, layers, movement);
+    }
+
+    private static InventoryMovement movement(TransactionType type, String qty, String unitPrice) {
+        return InventoryMovement.builder()
+                .id(type + qty)
+                .inventoryItemId("flour")
+                .branchId("b1")
+                .departmentId("d1")
+                .transactionType(type)
+                .quantity(new BigDecimal(qty))
+                .unitPurchasePrice(unitPrice != null ? new BigDecimal(unitPrice) : null)
+                .createdAt(LocalDateTime.of(2025, 3, 1, 9, 0))
+                .build();
+    }
+}
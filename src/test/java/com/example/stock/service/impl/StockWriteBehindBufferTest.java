@@ -0,0 +1,131 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.entity.InventoryMovement;
+import com.example.stock.entity.InventoryMovement.TransactionType;
+import com.example.stock.repository.InventoryMovementRepository;
+import com.example.stock.service.StockLotService;
+import com.example.stock.service.StockProjectionService;
+import com.example.stock.service.StockProjectionService.StockDelta;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockWriteBehindBufferTest {
+
+    private final StockProjectionService projection = mock(StockProjectionService.class);
+    private final StockLotService lots = mock(StockLotService.class);
+    private final InventoryMovementRepository repository = mock(InventoryMovementRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private StockWriteBehindBuffer buffer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<Object>) inv.getArgument(0)).doInTransaction(null));
+        buffer = new StockWriteBehindBuffer(projection, lots, repository, transactionTemplate,
+                new SimpleMeterRegistry(), true, 200, 500, 30_000, 60_000, 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldApplyOnlyClaimedMovements_Coalesced() {
+        InventoryMovement a = movement("a", "10");
+        InventoryMovement b = movement("b", "5");
+        InventoryMovement c = movement("c", "2");
+        // "c" was already claimed elsewhere (deleted or flushed by another node)
+        when(repository.lockStockPending(anyCollection())).thenReturn(List.of(a, b));
+        when(projection.apply(any())).thenReturn(Map.of());
+
+        buffer.enqueue("a", StockDelta.of(a));
+        buffer.enqueue("b", StockDelta.of(b));
+        buffer.enqueue("c", StockDelta.of(c));
+        assertThat(buffer.depth()).isEqualTo(3);
+
+        buffer.flush();
+
+        ArgumentCaptor<List<StockDelta>> applied = ArgumentCaptor.forClass(List.class);
+        verify(projection).apply(applied.capture());
+        assertThat(applied.getValue()).hasSize(1);
+        assertThat(applied.getValue().get(0).quantity()).isEqualByComparingTo("-15");
+        verify(lots).apply(List.of(a, b));
+
+        ArgumentCaptor<Collection<String>> marked = ArgumentCaptor.forClass(Collection.class);
+        verify(repository).markStockApplied(marked.capture());
+        assertThat(marked.getValue()).containsExactlyInAnyOrder("a", "b");
+        assertThat(buffer.depth()).isZero();
+    }
+
+    @Test
+    void flush_ShouldRequeueBatch_WhenApplyFails() {
+        InventoryMovement a = movement("a", "10");
+        when(repository.lockStockPending(anyCollection())).thenReturn(List.of(a));
+        when(projection.apply(any())).thenThrow(new IllegalStateException("db down"));
+
+        buffer.enqueue("a", StockDelta.of(a));
+        buffer.flush();
+
+        assertThat(buffer.depth()).isEqualTo(1);
+        verify(repository, never()).markStockApplied(anyCollection());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldApplyTheOthers_AndDropAFailingMovementAfterMaxAttempts() {
+        InventoryMovement good = movement("good", "10");
+        InventoryMovement bad = movement("bad", "5");
+        bad.setInventoryItemId("item-bad");
+        when(repository.lockStockPending(anyCollection())).thenAnswer(inv ->
+                Stream.of(good, bad).filter(m -> ((Collection<String>) inv.getArgument(0)).contains(m.getId())).toList());
+        when(projection.apply(any())).thenAnswer(inv -> {
+            List<StockDelta> deltas = inv.getArgument(0);
+            if (deltas.stream().anyMatch(d -> d.key().inventoryItemId().equals("item-bad"))) {
+                throw new IllegalStateException("bad delta");
+            }
+            return Map.of();
+        });
+
+        buffer.enqueue("good", StockDelta.of(good));
+        buffer.enqueue("bad", StockDelta.of(bad));
+        buffer.flush();
+
+        verify(repository).markStockApplied(List.of("good"));
+        assertThat(buffer.depth()).isEqualTo(1);
+
+        buffer.flush();
+
+        assertThat(buffer.depth()).isZero();
+        verify(repository, never()).markStockApplied(List.of("bad"));
+    }
+
+    private InventoryMovement movement(String id, String qty) {
+        return InventoryMovement.builder()
+                .id(id)
+                .inventoryItemId("item-1")
+                .branchId("b1")
+                .departmentId("d1")
+                .transactionType(TransactionType.OUT)
+                .quantity(new BigDecimal(qty))
+                .createdAt(LocalDateTime.now())
+                .stockApplied(false)
+                .build();
+    }
+}
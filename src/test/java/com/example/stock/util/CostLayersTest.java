@@ -0,0 +1,50 @@
+package com.example.stock.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CostLayersTest {
+
+    @Test
+    void take_ShouldConsumeOldestLayersFirst() {
+        CostLayers layers = new CostLayers();
+        layers.push(FixedPoint.of(10), FixedPoint.of(2));
+        layers.push(FixedPoint.of(5), FixedPoint.of(2));
+        layers.push(FixedPoint.of(10), FixedPoint.of(4));
+        assertThat(layers.layerCount()).isEqualTo(2);
+
+        CostLayers moved = new CostLayers();
+        assertThat(layers.take(FixedPoint.of(20), moved).isZero()).isTrue();
+
+        assertThat(layers.quantity()).isEqualTo(FixedPoint.of(5));
+        assertThat(layers.value()).isEqualTo(FixedPoint.of(20));
+        assertThat(moved.value()).isEqualTo(FixedPoint.of(50));
+    }
+
+    @Test
+    void push_ShouldCoverADeficitBeforeOpeningALayer() {
+        CostLayers layers = new CostLayers();
+        layers.push(FixedPoint.of(3), FixedPoint.of(1));
+
+        assertThat(layers.take(FixedPoint.of(5), null)).isEqualTo(FixedPoint.of(2));
+        assertThat(layers.deficit()).isEqualTo(FixedPoint.of(2));
+
+        layers.push(FixedPoint.of(6), FixedPoint.of(7));
+        assertThat(layers.deficit().isZero()).isTrue();
+        assertThat(layers.quantity()).isEqualTo(FixedPoint.of(4));
+        assertThat(layers.value()).isEqualTo(FixedPoint.of(28));
+    }
+
+    @Test
+    void push_ShouldGrowTheRingAcrossWrapAround() {
+        CostLayers layers = new CostLayers();
+        for (int i = 1; i <= 3; i++) layers.push(FixedPoint.ONE, FixedPoint.of(i));
+        layers.take(FixedPoint.of(2), null);
+        for (int i = 4; i <= 12; i++) layers.push(FixedPoint.ONE, FixedPoint.of(i));
+
+        assertThat(layers.layerCount()).isEqualTo(10);
+        // 3 + 4 + ... + 12
+        assertThat(layers.value()).isEqualTo(FixedPoint.of(75));
+    }
+}
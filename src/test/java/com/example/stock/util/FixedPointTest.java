@@ -0,0 +1,56 @@
+package com.example.stock.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FixedPointTest {
+
+    @Test
+    void roundTrip_ShouldPreserveScale6Values() {
+        assertThat(FixedPoint.of(new BigDecimal("123.456789")).toBigDecimal()).isEqualByComparingTo("123.456789");
+        assertThat(FixedPoint.of(new BigDecimal("0.0000005")).raw()).isEqualTo(1L);
+        assertThat(FixedPoint.of(new BigDecimal("-0.0000005")).raw()).isEqualTo(-1L);
+        assertThat(FixedPoint.of((BigDecimal) null)).isEqualTo(FixedPoint.ZERO);
+    }
+
+    @Test
+    void multiplyAndDivide_ShouldMatchBigDecimalHalfUp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal a = BigDecimal.valueOf(random.nextLong(-1_000_000_000_000L, 1_000_000_000_000L), 6);
+            BigDecimal b = BigDecimal.valueOf(random.nextLong(1, 100_000_000_000L), 6);
+            assertThat(FixedPoint.of(a).multiply(FixedPoint.of(b)).toBigDecimal())
+                    .isEqualByComparingTo(a.multiply(b).setScale(6, RoundingMode.HALF_UP));
+            assertThat(FixedPoint.of(a).divide(FixedPoint.of(b)).toBigDecimal())
+                    .isEqualByComparingTo(a.divide(b, 6, RoundingMode.HALF_UP));
+        }
+    }
+
+    @Test
+    void weightedAverage_ShouldBeExact_WhenProductsExceed64Bits() {
+        FixedPoint q1 = FixedPoint.of(new BigDecimal("5000000"));
+        FixedPoint c1 = FixedPoint.of(new BigDecimal("1234.5"));
+        FixedPoint q2 = FixedPoint.of(new BigDecimal("3000000"));
+        FixedPoint c2 = FixedPoint.of(new BigDecimal("17.25"));
+
+        BigDecimal expected = new BigDecimal("5000000").multiply(new BigDecimal("1234.5"))
+                .add(new BigDecimal("3000000").multiply(new BigDecimal("17.25")))
+                .divide(new BigDecimal("8000000"), 6, RoundingMode.HALF_UP);
+        assertThat(FixedPoint.weightedAverage(q1, c1, q2, c2).toBigDecimal()).isEqualByComparingTo(expected);
+    }
+
+    @Test
+    void overflow_ShouldThrow_InsteadOfWrapping() {
+        FixedPoint big = FixedPoint.ofRaw(Long.MAX_VALUE);
+        assertThatThrownBy(() -> big.add(FixedPoint.ONE)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> big.multiply(FixedPoint.of(2))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> FixedPoint.of(new BigDecimal("1e20"))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> FixedPoint.ONE.divide(FixedPoint.ZERO)).isInstanceOf(ArithmeticException.class);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.stock.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    @Test
+    void encode_ShouldRoundTrip_AndBeUrlSafe() {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2025, 3, 31, 23, 59, 59, 123456000), "6f1c-uuid|odd");
+
+        String token = cursor.encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+        assertThat(KeysetCursor.decode(token)).isEqualTo(cursor);
+    }
+
+    @Test
+    void decode_ShouldRejectForeignTokens() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not a cursor")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("aGVsbG98d29ybGQ")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.stock.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimingWheelTest {
+
+    @Test
+    void advanceTo_ShouldFireEachTimerAtItsDeadlineAcrossLevels() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 0);
+        wheel.schedule("far", 300_000);
+        wheel.schedule("mid", 5_000);
+        wheel.schedule("near", 70);
+        wheel.schedule("now", 3);
+
+        assertThat(wheel.advanceTo(2)).isEmpty();
+        assertThat(wheel.advanceTo(69)).containsExactly("now");
+        assertThat(wheel.advanceTo(70)).containsExactly("near");
+        assertThat(wheel.advanceTo(4_999)).isEmpty();
+        assertThat(wheel.advanceTo(299_999)).containsExactly("mid");
+        assertThat(wheel.advanceTo(300_000)).containsExactly("far");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void schedule_PastOrBeyondTheTopLevel_ShouldStillFireOnTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 1_000);
+        wheel.schedule("late", 10);
+        long beyond = 1_000 + (1L << 24) + 500;
+        wheel.schedule("beyond", beyond);
+
+        assertThat(wheel.advanceTo(1_000)).containsExactly("late");
+        assertThat(wheel.advanceTo(beyond - 1)).isEmpty();
+        assertThat(wheel.advanceTo(beyond)).containsExactly("beyond");
+    }
+
+    @Test
+    void cancel_ShouldUnlinkTheTimerOnce() {
+        TimingWheel<String> wheel = new TimingWheel<>(1_000, 0);
+        TimingWheel.Timer<String> kept = wheel.schedule("kept", 90_000);
+        TimingWheel.Timer<String> dropped = wheel.schedule("dropped", 90_000);
+
+        assertThat(wheel.cancel(dropped)).isTrue();
+        assertThat(wheel.cancel(dropped)).isFalse();
+        assertThat(dropped.isPending()).isFalse();
+        assertThat(wheel.advanceTo(90_000)).containsExactly("kept");
+        assertThat(kept.isPending()).isFalse();
+        assertThatThrownBy(() -> new TimingWheel<>(0, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}